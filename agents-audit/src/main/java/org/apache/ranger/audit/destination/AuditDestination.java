@@ -77,5 +77,13 @@ public abstract class AuditDestination extends BaseAuditHandler {
 	public void waitToComplete(long timeout) {
 		
 	}
+
+	/**
+	 * Whether log() can be called from multiple threads at the same time. A sharded AuditBatchQueue dispatches to
+	 * destinations that are not thread-safe one batch at a time.
+	 */
+	public boolean isThreadSafe() {
+		return false;
+	}
 	
 }
@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.destination;
+
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.queue.AuditFileSpool;
+import org.apache.ranger.audit.queue.AuditQueue;
+
+/**
+ * Sends audit events to a Kafka topic.
+ *
+ * A batch handed to log() is sent with a single privileged action; the producer then batches records
+ * by linger.ms/batch.size and compresses them. Records can be keyed by repository, resource or user,
+ * so that events for the same key land on the same partition. Sends are asynchronous: events whose
+ * send fails in the producer callback are stashed to a file spool (when filespool.dir is configured)
+ * and replayed from there once Kafka is reachable again. stop() closes the producer, which reports
+ * the records it couldn't send, and stashes these before the spool is closed.
+ */
+public class KafkaAuditDestination extends AuditDestination {
+	private static final Log LOG = LogFactory.getLog(KafkaAuditDestination.class);
+
+	public static final String PROP_BOOTSTRAP_SERVERS  = "bootstrap.servers";
+	public static final String PROP_BROKER_LIST        = "broker_list";
+	public static final String PROP_TOPIC_NAME         = "topic_name";
+	public static final String PROP_PARTITION_KEY      = "partition.key";
+	public static final String PROP_LINGER_MS          = "linger.ms";
+	public static final String PROP_BATCH_SIZE_BYTES   = "batch.size.bytes";
+	public static final String PROP_COMPRESSION_TYPE   = "compression.type";
+	public static final String PROP_ACKS               = "acks";
+	public static final String PROP_PRODUCER_PREFIX    = "producer.";
+	public static final String PROP_SPOOL_BATCH_SIZE   = "filespool.batch.size";
+
+	public static final String DEFAULT_TOPIC_NAME       = "ranger_audits";
+	public static final String DEFAULT_BOOTSTRAP_SERVER = "localhost:9092";
+
+	public enum PartitionKey { NONE, REPO, RESOURCE, USER }
+
+	private final Queue<AuditEventBase> failedEvents     = new ConcurrentLinkedQueue<>();
+	private final AtomicLong            failedEventCount = new AtomicLong();
+
+	private volatile Producer<String, String> producer   = null;
+	private volatile boolean                  isStopping = false;
+
+	private String              topic         = DEFAULT_TOPIC_NAME;
+	private PartitionKey        partitionKey  = PartitionKey.NONE;
+	private Map<String, Object> producerProps = new HashMap<>();
+	private AuditFileSpool      fileSpooler   = null;
+
+	@Override
+	public void init(Properties props, String propPrefix) {
+		LOG.info("init() called");
+		super.init(props, propPrefix);
+
+		topic = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_TOPIC_NAME, DEFAULT_TOPIC_NAME);
+
+		String keyProp = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_PARTITION_KEY, PartitionKey.NONE.name());
+
+		try {
+			partitionKey = PartitionKey.valueOf(keyProp.trim().toUpperCase());
+		} catch (IllegalArgumentException excp) {
+			LOG.error("Invalid value for " + propPrefix + "." + PROP_PARTITION_KEY + ": " + keyProp + ". Records will be sent without a key");
+
+			partitionKey = PartitionKey.NONE;
+		}
+
+		String bootstrapServers = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_BOOTSTRAP_SERVERS);
+
+		if (bootstrapServers == null || bootstrapServers.isEmpty()) {
+			bootstrapServers = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_BROKER_LIST, DEFAULT_BOOTSTRAP_SERVER);
+		}
+
+		producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+		producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+		producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+		producerProps.put(ProducerConfig.ACKS_CONFIG, MiscUtil.getStringProperty(props, propPrefix + "." + PROP_ACKS, "1"));
+		producerProps.put(ProducerConfig.LINGER_MS_CONFIG, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_LINGER_MS, 50));
+		producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_BATCH_SIZE_BYTES, 64 * 1024));
+		producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, MiscUtil.getStringProperty(props, propPrefix + "." + PROP_COMPRESSION_TYPE, "none"));
+
+		// any other producer setting, e.g. security.protocol, can be passed as <propPrefix>.producer.<name>
+		String producerPropPrefix = propPrefix + "." + PROP_PRODUCER_PREFIX;
+
+		for (String propName : props.stringPropertyNames()) {
+			if (propName.startsWith(producerPropPrefix)) {
+				producerProps.put(propName.substring(producerPropPrefix.length()), props.getProperty(propName));
+			}
+		}
+
+		LOG.info("Kafka audit destination: topic=" + topic + ", partitionKey=" + partitionKey + ", producerProps=" + producerProps);
+
+		String spoolDir = MiscUtil.getStringProperty(props, propPrefix + "." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR);
+
+		if (spoolDir != null && !spoolDir.isEmpty()) {
+			int spoolBatchSize = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_SPOOL_BATCH_SIZE, AuditQueue.AUDIT_BATCH_SIZE_DEFAULT);
+
+			fileSpooler = new AuditFileSpool(this, getName() + "_failed", spoolBatchSize);
+
+			if (!fileSpooler.init(props, propPrefix)) {
+				LOG.fatal("Couldn't initialize file spooler for failed sends. Failed events will only be logged. destination=" + getName());
+
+				fileSpooler = null;
+			}
+		} else {
+			LOG.info("File spool for failed sends is disabled for " + getName() + ". Set " + propPrefix + "." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR + " to enable it");
+		}
+
+		connect();
+	}
+
+	@Override
+	public void start() {
+		LOG.info("start() called");
+
+		if (fileSpooler != null) {
+			fileSpooler.start();
+		}
+	}
+
+	// KafkaProducer is thread-safe; failed events are kept in a concurrent queue
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
+	@Override
+	public boolean log(Collection<AuditEventBase> events) {
+		logStatusIfRequired();
+		addTotalCount(events.size());
+
+		if (isStopping) {
+			// the producer is closed; the caller keeps the events, e.g. in the file spool they are replayed from
+			addDeferredCount(events.size());
+
+			return false;
+		}
+
+		stashFailedEvents();
+
+		final Producer<String, String> producer = connect();
+
+		if (producer == null) {
+			addDeferredCount(events.size());
+
+			return false;
+		}
+
+		final List<ProducerRecord<String, String>> records = new ArrayList<>(events.size());
+		final List<AuditEventBase>                 toSend  = new ArrayList<>(events.size());
+
+		for (AuditEventBase event : events) {
+			if (event instanceof AuthzAuditEvent) {
+				AuthzAuditEvent authzEvent = (AuthzAuditEvent) event;
+
+				if (authzEvent.getAgentHostname() == null) {
+					authzEvent.setAgentHostname(MiscUtil.getHostname());
+				}
+
+				if (authzEvent.getLogType() == null) {
+					authzEvent.setLogType("RangerAudit");
+				}
+
+				if (authzEvent.getEventId() == null) {
+					authzEvent.setEventId(MiscUtil.generateUniqueId());
+				}
+			}
+
+			records.add(new ProducerRecord<>(topic, getPartitionKey(event), MiscUtil.stringify(event)));
+			toSend.add(event);
+		}
+
+		// number of records handed to the producer; the rest failed synchronously
+		int sentCount = MiscUtil.executePrivilegedAction(new PrivilegedAction<Integer>() {
+			@Override
+			public Integer run() {
+				int i = 0;
+
+				try {
+					for (; i < records.size(); i++) {
+						producer.send(records.get(i), new SendCallback(toSend.get(i)));
+					}
+				} catch (Throwable t) {
+					logError("Error sending audit events to Kafka topic " + topic, t);
+				}
+
+				return i;
+			}
+		});
+
+		if (sentCount == 0 && !records.isEmpty()) {
+			addDeferredCount(records.size());
+
+			return false;
+		}
+
+		for (int i = sentCount; i < toSend.size(); i++) {
+			onSendFailure(toSend.get(i), null);
+		}
+
+		return true;
+	}
+
+	@Override
+	public void flush() {
+		Producer<String, String> producer = this.producer;
+
+		if (producer != null) {
+			try {
+				producer.flush();
+			} catch (Throwable t) {
+				logError("Error flushing Kafka producer", t);
+			}
+		}
+
+		stashFailedEvents();
+
+		if (fileSpooler != null) {
+			fileSpooler.flush();
+		}
+	}
+
+	@Override
+	public void waitToComplete() {
+		flush();
+	}
+
+	@Override
+	public void waitToComplete(long timeout) {
+		flush();
+	}
+
+	@Override
+	public void stop() {
+		LOG.info("stop() called");
+
+		isStopping = true;
+
+		flush();
+
+		final Producer<String, String> producer = this.producer;
+
+		this.producer = null;
+
+		if (producer != null) {
+			try {
+				MiscUtil.executePrivilegedAction(new PrivilegedAction<Void>() {
+					@Override
+					public Void run() {
+						producer.close();
+						return null;
+					}
+				});
+			} catch (Throwable t) {
+				LOG.error("Error closing Kafka producer", t);
+			}
+		}
+
+		// events that failed before the callbacks saw isStopping; the ones failed by close() are already stashed
+		stashFailedEvents();
+
+		if (fileSpooler != null) {
+			fileSpooler.stop();
+		}
+
+		logStatus();
+	}
+
+	public long getFailedEventCount() {
+		return failedEventCount.get();
+	}
+
+	String getPartitionKey(AuditEventBase event) {
+		if (partitionKey == PartitionKey.NONE || !(event instanceof AuthzAuditEvent)) {
+			return null;
+		}
+
+		AuthzAuditEvent authzEvent = (AuthzAuditEvent) event;
+
+		switch (partitionKey) {
+			case REPO:
+				return authzEvent.getRepositoryName();
+			case RESOURCE:
+				return authzEvent.getResourcePath();
+			case USER:
+				return authzEvent.getUser();
+			default:
+				return null;
+		}
+	}
+
+	// overridden in tests
+	Producer<String, String> createProducer(Map<String, Object> producerProps) {
+		return new KafkaProducer<String, String>(producerProps);
+	}
+
+	private Producer<String, String> connect() {
+		Producer<String, String> ret = producer;
+
+		if (ret == null) {
+			synchronized (this) {
+				ret = producer;
+
+				if (ret == null) {
+					try {
+						ret = MiscUtil.executePrivilegedAction(new PrivilegedAction<Producer<String, String>>() {
+							@Override
+							public Producer<String, String> run() {
+								return createProducer(producerProps);
+							}
+						});
+
+						producer = ret;
+					} catch (Throwable t) {
+						logError("Error creating Kafka producer. producerProps=" + producerProps, t);
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private void onSendFailure(AuditEventBase event, Exception excp) {
+		failedEventCount.incrementAndGet();
+		addFailedCount(1);
+
+		if (fileSpooler == null) {
+			logFailedEvent(event, excp);
+		} else if (isStopping) {
+			// nothing polls failedEvents once the producer is closed, so records failed by close() are stashed right away
+			fileSpooler.stashLogs(event);
+			addStashedCount(1);
+		} else {
+			// stashed from the caller's thread, to keep file I/O off the producer I/O thread
+			failedEvents.add(event);
+		}
+	}
+
+	private void stashFailedEvents() {
+		if (fileSpooler == null || failedEvents.isEmpty()) {
+			return;
+		}
+
+		List<AuditEventBase> events = new ArrayList<>();
+
+		for (AuditEventBase event = failedEvents.poll(); event != null; event = failedEvents.poll()) {
+			events.add(event);
+		}
+
+		if (!events.isEmpty()) {
+			fileSpooler.stashLogs(events);
+			addStashedCount(events.size());
+		}
+	}
+
+	private class SendCallback implements Callback {
+		private final AuditEventBase event;
+
+		SendCallback(AuditEventBase event) {
+			this.event = event;
+		}
+
+		@Override
+		public void onCompletion(RecordMetadata metadata, Exception excp) {
+			if (excp == null) {
+				addSuccessCount(1);
+			} else {
+				onSendFailure(event, excp);
+			}
+		}
+	}
+}
@@ -205,6 +205,12 @@ public class SolrAuditDestination extends AuditDestination {
 
     }
 
+	// SolrClient is thread-safe; connect() is synchronized
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+
 	@Override
 	public boolean log(Collection<AuditEventBase> events) {
 		boolean ret = false;
@@ -31,6 +31,7 @@ import org.apache.hadoop.util.ShutdownHookManager;
 import org.apache.ranger.audit.destination.DBAuditDestination;
 import org.apache.ranger.audit.destination.FileAuditDestination;
 import org.apache.ranger.audit.destination.HDFSAuditDestination;
+import org.apache.ranger.audit.destination.KafkaAuditDestination;
 import org.apache.ranger.audit.destination.Log4JAuditDestination;
 import org.apache.ranger.audit.destination.SolrAuditDestination;
 import org.apache.ranger.audit.provider.hdfs.HdfsAuditProvider;
@@ -441,7 +442,7 @@ public class AuditProviderFactory {
 			} else if (providerName.equals("solr")) {
 				provider = new SolrAuditDestination();
 			} else if (providerName.equals("kafka")) {
-				provider = new KafkaAuditProvider();
+				provider = new KafkaAuditDestination();
 			} else if (providerName.equals("db")) {
 				provider = new DBAuditDestination();
 			} else if (providerName.equals("log4j")) {
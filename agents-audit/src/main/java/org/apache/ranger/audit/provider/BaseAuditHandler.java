@@ -196,27 +196,27 @@ public abstract class BaseAuditHandler implements AuditHandler {
 		return providerName;
 	}
 
-	public long addTotalCount(int count) {
+	public synchronized long addTotalCount(int count) {
 		totalCount += count;
 		return totalCount;
 	}
 
-	public long addSuccessCount(int count) {
+	public synchronized long addSuccessCount(int count) {
 		totalSuccessCount += count;
 		return totalSuccessCount;
 	}
 
-	public long addFailedCount(int count) {
+	public synchronized long addFailedCount(int count) {
 		totalFailedCount += count;
 		return totalFailedCount;
 	}
 
-	public long addStashedCount(int count) {
+	public synchronized long addStashedCount(int count) {
 		totalStashedCount += count;
 		return totalStashedCount;
 	}
 
-	public long addDeferredCount(int count) {
+	public synchronized long addDeferredCount(int count) {
 		totalDeferredCount += count;
 		return totalDeferredCount;
 	}
@@ -256,7 +256,7 @@ public abstract class BaseAuditHandler implements AuditHandler {
 		}
 	}
 
-	public void logStatus() {
+	public synchronized void logStatus() {
 		try {
 			long currTime = System.currentTimeMillis();
 
@@ -327,6 +327,13 @@ public class MiscUtil {
 		return ret;
 	}
 
+	public static String getStringProperty(Properties props, String propName,
+			String defValue) {
+		String ret = getStringProperty(props, propName);
+
+		return (ret == null || ret.isEmpty()) ? defValue : ret;
+	}
+
 	public static boolean getBooleanProperty(Properties props, String propName,
 			boolean defValue) {
 		boolean ret = defValue;
@@ -25,20 +25,35 @@ import java.util.Properties;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.log4j.MDC;
+import org.apache.ranger.audit.destination.AuditDestination;
 import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.provider.AuditHandler;
-
+import org.apache.ranger.audit.provider.MiscUtil;
+
+/**
+ * Batches audit events for the consumer. By default events are queued in a single queue, drained by one consumer thread.
+ * When more than one shard is configured, events are spread over that many lock-free ring buffers, each drained by its
+ * own thread into its own batch; this keeps a slow destination from filling up a single queue on busy services. Batches
+ * are handed to the consumer from several threads only if it is an AuditDestination that is thread-safe; otherwise the
+ * shards dispatch to it one batch at a time.
+ */
 public class AuditBatchQueue extends AuditQueue implements Runnable {
 	private static final Log logger = LogFactory.getLog(AuditBatchQueue.class);
 
-	private BlockingQueue<AuditEventBase> queue = null;
-	private Collection<AuditEventBase> localBatchBuffer = new ArrayList<AuditEventBase>();
+	public static final String PROP_SHARDS = "shards";
+
+	private Shard[] shards = null;
+	private int shardCount = 1;
+	private final AtomicInteger nextShard = new AtomicInteger();
+	private final AtomicInteger activeConsumerThreads = new AtomicInteger();
+	private Object dispatchLock = null; // set when shards must not call the consumer concurrently
 
-	Thread consumerThread = null;
 	static int threadCount = 0;
 	static final String DEFAULT_NAME = "batch";
 
@@ -56,23 +71,58 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 	 */
 	@Override
 	public boolean log(AuditEventBase event) {
-		// Add to batchQueue. Block if full
-		queue.add(event);
-		return true;
+		if (shards.length == 1) {
+			// Add to batchQueue. Block if full
+			shards[0].queue.add(event);
+			return true;
+		}
+
+		return offer(event, getNextShardIndex());
 	}
 
 	@Override
 	public boolean log(Collection<AuditEventBase> events) {
 		boolean ret = true;
-		for (AuditEventBase event : events) {
-			ret = log(event);
-			if (!ret) {
-				break;
+
+		if (shards.length == 1) {
+			for (AuditEventBase event : events) {
+				ret = log(event);
+				if (!ret) {
+					break;
+				}
+			}
+		} else {
+			// keep events logged together in the same shard, unless it is full
+			int shardIdx = getNextShardIndex();
+
+			for (AuditEventBase event : events) {
+				if (!offer(event, shardIdx)) {
+					ret = false;
+				}
 			}
 		}
 		return ret;
 	}
 
+	private int getNextShardIndex() {
+		return (nextShard.getAndIncrement() & Integer.MAX_VALUE) % shards.length;
+	}
+
+	// Adds to the given shard; if it is full, to the next shard that isn't. The event is dropped if all shards are full
+	private boolean offer(AuditEventBase event, int shardIdx) {
+		for (int i = 0; i < shards.length; i++) {
+			if (shards[(shardIdx + i) % shards.length].queue.offer(event)) {
+				return true;
+			}
+		}
+
+		shards[shardIdx].droppedCount.incrementAndGet();
+		addFailedCount(1);
+		logFailedEvent(event, "all " + shards.length + " shards of queue " + getName() + " are full");
+
+		return false;
+	}
+
 	@Override
 	public void init(Properties prop, String basePropertyName) {
 		String propPrefix = "xasecure.audit.batch";
@@ -82,6 +132,7 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 
 		super.init(prop, propPrefix);
 
+		shardCount = Math.max(1, MiscUtil.getIntProperty(prop, propPrefix + "." + PROP_SHARDS, shardCount));
 	}
 
 	/*
@@ -91,13 +142,37 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 	 */
 	@Override
 	synchronized public void start() {
-		if (consumerThread != null) {
+		if (shards != null && shards[0].consumerThread != null) {
 			logger.error("Provider is already started. name=" + getName());
 			return;
 		}
-		logger.info("Creating ArrayBlockingQueue with maxSize="
-				+ getMaxQueueSize());
-		queue = new ArrayBlockingQueue<AuditEventBase>(getMaxQueueSize());
+		if (shardCount == 1) {
+			logger.info("Creating ArrayBlockingQueue with maxSize="
+					+ getMaxQueueSize());
+			shards = new Shard[] { new Shard(0, new ArrayBlockingQueue<AuditEventBase>(getMaxQueueSize()), getMaxQueueSize()) };
+		} else {
+			// split queue.size over the shards, so that they hold no more events in total
+			int shardQueueSize = getMaxQueueSize() / shardCount;
+			int remainder = getMaxQueueSize() % shardCount;
+
+			shards = new Shard[shardCount];
+			for (int i = 0; i < shardCount; i++) {
+				AuditRingBuffer<AuditEventBase> ringBuffer = new AuditRingBuffer<AuditEventBase>(
+						Math.max(1, shardQueueSize + (i < remainder ? 1 : 0)));
+
+				shards[i] = new Shard(i, ringBuffer, ringBuffer.getCapacity());
+			}
+
+			boolean isConsumerThreadSafe = consumer instanceof AuditDestination
+					&& ((AuditDestination) consumer).isThreadSafe();
+
+			dispatchLock = isConsumerThreadSafe ? null : new Object();
+
+			logger.info("Created " + shardCount + " shards with maxSize="
+					+ shards[0].capacity + " each. name=" + getName()
+					+ ", consumer=" + consumer.getName()
+					+ ", concurrentDispatch=" + isConsumerThreadSafe);
+		}
 
 		// Start the consumer first
 		consumer.start();
@@ -107,11 +182,14 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 			fileSpooler.start();
 		}
 
-		// Finally the queue listener
-		consumerThread = new Thread(this, this.getClass().getName()
-				+ (threadCount++));
-		consumerThread.setDaemon(true);
-		consumerThread.start();
+		// Finally the queue listeners
+		activeConsumerThreads.set(shards.length);
+		for (Shard shard : shards) {
+			shard.consumerThread = new Thread(shard, this.getClass().getName()
+					+ (threadCount++));
+			shard.consumerThread.setDaemon(true);
+			shard.consumerThread.start();
+		}
 
 	}
 
@@ -125,18 +203,23 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 		logger.info("Stop called. name=" + getName());
 		setDrain(true);
 		flush();
-		try {
-			if (consumerThread != null) {
-				logger.info("Interrupting consumerThread. name=" + getName()
-						+ ", consumer="
-						+ (consumer == null ? null : consumer.getName()));
+		if (shards == null) {
+			return;
+		}
+		for (Shard shard : shards) {
+			try {
+				if (shard.consumerThread != null) {
+					logger.info("Interrupting consumerThread. name=" + getName()
+							+ ", consumer="
+							+ (consumer == null ? null : consumer.getName()));
 
-				consumerThread.interrupt();
+					shard.consumerThread.interrupt();
+				}
+			} catch (Throwable t) {
+				// ignore any exception
 			}
-		} catch (Throwable t) {
-			// ignore any exception
+			shard.consumerThread = null;
 		}
-		consumerThread = null;
 	}
 
 	/*
@@ -159,22 +242,26 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 		long startTime = System.currentTimeMillis();
 		int prevQueueSize = -1;
 		int staticLoopCount = 0;
-		while ((queue.size() > 0 || localBatchBuffer.size() > 0)) {
-			if (prevQueueSize == queue.size()) {
+		while ((getQueueSize() > 0 || getLocalBatchBufferSize() > 0)) {
+			int queueSize = getQueueSize();
+			if (prevQueueSize == queueSize) {
 				logger.error("Queue size is not changing. " + getName()
-						+ ".size=" + queue.size());
+						+ ".size=" + queueSize);
 				staticLoopCount++;
 				if (staticLoopCount > 5) {
 					logger.error("Aborting writing to consumer. Some logs will be discarded."
-							+ getName() + ".size=" + queue.size());
+							+ getName() + ".size=" + queueSize);
 					break;
 				}
 			} else {
 				staticLoopCount = 0;
-				prevQueueSize = queue.size();
+				prevQueueSize = queueSize;
 			}
-			if (consumerThread != null) {
-				consumerThread.interrupt();
+			for (Shard shard : shards) {
+				Thread consumerThread = shard.consumerThread;
+				if (consumerThread != null) {
+					consumerThread.interrupt();
+				}
 			}
 			try {
 				Thread.sleep(sleepTime);
@@ -209,16 +296,48 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 	 */
 	@Override
 	public void run() {
-		try {
-			//This is done to clear the MDC context to avoid issue with Ranger Auditing for Knox
-			MDC.clear();
-			runLogAudit();
-		} catch (Throwable t) {
-			logger.fatal("Exited thread abnormaly. queue=" + getName(), t);
-		}
+		shards[0].run();
 	}
 
 	public void runLogAudit() {
+		runLogAudit(shards[0]);
+	}
+
+	private int getQueueSize() {
+		int ret = 0;
+		if (shards != null) {
+			for (Shard shard : shards) {
+				ret += shard.queue.size();
+			}
+		}
+		return ret;
+	}
+
+	private int getLocalBatchBufferSize() {
+		int ret = 0;
+		if (shards != null) {
+			for (Shard shard : shards) {
+				ret += shard.localBatchBuffer.size();
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public synchronized void logStatus() {
+		super.logStatus();
+
+		if (shards != null && shards.length > 1) {
+			for (Shard shard : shards) {
+				shard.logStatus();
+			}
+		}
+	}
+
+	private void runLogAudit(Shard shard) {
+		final BlockingQueue<AuditEventBase> queue = shard.queue;
+		final Collection<AuditEventBase> localBatchBuffer = shard.localBatchBuffer;
+
 		long lastDispatchTime = System.currentTimeMillis();
 		boolean isDestActive = true;
 		while (true) {
@@ -233,7 +352,7 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 			try {
 				if (fileSpoolerEnabled && fileSpooler.isPending()) {
 					int percentUsed = queue.size() * 100
-							/ getMaxQueueSize();
+							/ shard.capacity;
 					long lastAttemptDelta = fileSpooler
 							.getLastAttemptTimeDelta();
 
@@ -264,6 +383,7 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 				}
 
 				if (event != null) {
+					shard.updateMaxDepth(queue.size() + 1);
 					localBatchBuffer.add(event);
 					if (getMaxBatchSize() >= localBatchBuffer.size()) {
 						queue.drainTo(localBatchBuffer, getMaxBatchSize()
@@ -306,7 +426,8 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 				}
 				// Reset time just before sending the logs
 				lastDispatchTime = System.currentTimeMillis();
-				boolean ret = consumer.log(localBatchBuffer);
+				boolean ret = dispatch(localBatchBuffer);
+				shard.addDispatchTime(System.currentTimeMillis() - lastDispatchTime);
 				if (!ret) {
 					if (fileSpoolerEnabled) {
 						logger.info("Switching to file spool. Queue="
@@ -346,6 +467,11 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 
 		logger.info("Exiting consumerThread. Queue=" + getName() + ", dest="
 				+ consumer.getName());
+		if (activeConsumerThreads.decrementAndGet() > 0) {
+			// the consumer is stopped by the last shard to exit
+			logger.info("Exiting consumerThread.run() method. name=" + getName() + ", shard=" + shard.index);
+			return;
+		}
 		try {
 			// Call stop on the consumer
 			logger.info("Calling to stop consumer. name=" + getName()
@@ -361,4 +487,89 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 		logStatus();
 		logger.info("Exiting consumerThread.run() method. name=" + getName());
 	}
+
+	private boolean dispatch(Collection<AuditEventBase> events) {
+		Object lock = dispatchLock;
+
+		if (lock == null) {
+			return consumer.log(events);
+		}
+
+		synchronized (lock) {
+			return consumer.log(events);
+		}
+	}
+
+	private class Shard implements Runnable {
+		final int index;
+		final BlockingQueue<AuditEventBase> queue;
+		final int capacity;
+		final Collection<AuditEventBase> localBatchBuffer = new ArrayList<AuditEventBase>();
+		final AtomicLong droppedCount = new AtomicLong();
+		volatile Thread consumerThread = null;
+
+		// updated by the consumer thread of the shard; reset when the status is logged
+		private int maxDepth = 0;
+		private long dispatchCount = 0;
+		private long dispatchTimeMs = 0;
+		private long maxDispatchTimeMs = 0;
+		private long lastDroppedCount = 0;
+
+		Shard(int index, BlockingQueue<AuditEventBase> queue, int capacity) {
+			this.index = index;
+			this.queue = queue;
+			this.capacity = capacity;
+		}
+
+		@Override
+		public void run() {
+			try {
+				//This is done to clear the MDC context to avoid issue with Ranger Auditing for Knox
+				MDC.clear();
+				runLogAudit(this);
+			} catch (Throwable t) {
+				logger.fatal("Exited thread abnormaly. queue=" + getName(), t);
+			}
+		}
+
+		synchronized void updateMaxDepth(int depth) {
+			if (depth > maxDepth) {
+				maxDepth = depth;
+			}
+		}
+
+		synchronized void addDispatchTime(long timeMs) {
+			dispatchCount++;
+			dispatchTimeMs += timeMs;
+			if (timeMs > maxDispatchTimeMs) {
+				maxDispatchTimeMs = timeMs;
+			}
+		}
+
+		synchronized void logStatus() {
+			long totalDroppedCount = droppedCount.get();
+			long diffDropped = totalDroppedCount - lastDroppedCount;
+
+			if (dispatchCount == 0 && diffDropped == 0 && maxDepth == 0) {
+				return;
+			}
+
+			logger.info("Audit Status Log: name=" + getName()
+					+ ", shard=" + index + "/" + shards.length
+					+ ", depth=" + queue.size()
+					+ ", maxDepth=" + maxDepth
+					+ ", capacity=" + capacity
+					+ ", batches=" + dispatchCount
+					+ (dispatchCount > 0 ? (", avgDispatchTime=" + formatIntervalForLog(dispatchTimeMs / dispatchCount)
+							+ ", maxDispatchTime=" + formatIntervalForLog(maxDispatchTimeMs)) : "")
+					+ (diffDropped > 0 ? (", droppedCount=" + diffDropped) : "")
+					+ (totalDroppedCount > 0 ? (", totalDroppedCount=" + totalDroppedCount) : ""));
+
+			maxDepth = 0;
+			dispatchCount = 0;
+			dispatchTimeMs = 0;
+			maxDispatchTimeMs = 0;
+			lastDroppedCount = totalDroppedCount;
+		}
+	}
 }
@@ -72,6 +72,8 @@ public class AuditFileSpool implements Runnable {
 
 	AuditQueue queueProvider = null;
 	AuditHandler consumerProvider = null;
+	String queueName = null;
+	int maxBatchSize = AuditQueue.AUDIT_BATCH_SIZE_DEFAULT;
 
 	BlockingQueue<AuditIndexRecord> indexQueue = new LinkedBlockingQueue<AuditIndexRecord>();
 
@@ -117,6 +119,27 @@ public class AuditFileSpool implements Runnable {
 		this.consumerProvider = consumerProvider;
 	}
 
+	/**
+	 * Spool for a destination that is not fed by an AuditQueue, e.g. to stash
+	 * events whose asynchronous send failed. Spooled events are replayed to
+	 * consumerProvider.logJSON() in batches of up to maxBatchSize.
+	 */
+	public AuditFileSpool(AuditHandler consumerProvider, String queueName,
+			int maxBatchSize) {
+		this.consumerProvider = consumerProvider;
+		this.queueName = queueName;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	private String getQueueName() {
+		return queueProvider != null ? queueProvider.getName() : queueName;
+	}
+
+	private int getMaxBatchSize() {
+		return queueProvider != null ? queueProvider.getMaxBatchSize()
+				: maxBatchSize;
+	}
+
 	public void init(Properties prop) {
 		init(prop, null);
 	}
@@ -124,7 +147,7 @@ public class AuditFileSpool implements Runnable {
 	public boolean init(Properties props, String basePropertyName) {
 		if (initDone) {
 			logger.error("init() called more than once. queueProvider="
-					+ queueProvider.getName() + ", consumerProvider="
+					+ getQueueName() + ", consumerProvider="
 					+ consumerProvider.getName());
 			return true;
 		}
@@ -156,18 +179,18 @@ public class AuditFileSpool implements Runnable {
 					+ PROP_FILE_SPOOL_ARCHIVE_MAX_FILES_COUNT, maxArchiveFiles);
 
 			logger.info("retryDestinationMS=" + retryDestinationMS
-					+ ", queueName=" + queueProvider.getName());
+					+ ", queueName=" + getQueueName());
 			logger.info("fileRolloverSec=" + fileRolloverSec + ", queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 			logger.info("maxArchiveFiles=" + maxArchiveFiles + ", queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 
 			if (logFolderProp == null || logFolderProp.isEmpty()) {
 				logger.fatal("Audit spool folder is not configured. Please set "
 						+ propPrefix
 						+ "."
 						+ PROP_FILE_SPOOL_LOCAL_DIR
-						+ ". queueName=" + queueProvider.getName());
+						+ ". queueName=" + getQueueName());
 				return false;
 			}
 			logFolder = new File(logFolderProp);
@@ -177,19 +200,19 @@ public class AuditFileSpool implements Runnable {
 					logger.fatal("File Spool folder not found and can't be created. folder="
 							+ logFolder.getAbsolutePath()
 							+ ", queueName="
-							+ queueProvider.getName());
+							+ getQueueName());
 					return false;
 				}
 			}
 			logger.info("logFolder=" + logFolder + ", queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 
 			if (logFileNameFormat == null || logFileNameFormat.isEmpty()) {
 				logFileNameFormat = "spool_" + "%app-type%" + "_"
 						+ "%time:yyyyMMdd-HHmm.ss%.log";
 			}
 			logger.info("logFileNameFormat=" + logFileNameFormat
-					+ ", queueName=" + queueProvider.getName());
+					+ ", queueName=" + getQueueName());
 
 			if (archiveFolderProp == null || archiveFolderProp.isEmpty()) {
 				archiveFolder = new File(logFolder, "archive");
@@ -202,16 +225,16 @@ public class AuditFileSpool implements Runnable {
 					logger.error("File Spool archive folder not found and can't be created. folder="
 							+ archiveFolder.getAbsolutePath()
 							+ ", queueName="
-							+ queueProvider.getName());
+							+ getQueueName());
 					return false;
 				}
 			}
 			logger.info("archiveFolder=" + archiveFolder + ", queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 
 			if (indexFileName == null || indexFileName.isEmpty()) {
 				if (fileNamePrefix == null || fileNamePrefix.isEmpty()) {
-					fileNamePrefix = queueProvider.getName() + "_"
+					fileNamePrefix = getQueueName() + "_"
 							+ consumerProvider.getName();
 				}
 				indexFileName = "index_" + fileNamePrefix + "_" + "%app-type%"
@@ -230,7 +253,7 @@ public class AuditFileSpool implements Runnable {
 				}
 			}
 			logger.info("indexFile=" + indexFile + ", queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 
 			int lastDot = indexFileName.lastIndexOf('.');
 			if (lastDot < 0) {
@@ -248,7 +271,7 @@ public class AuditFileSpool implements Runnable {
 				}
 			}
 			logger.info("indexDoneFile=" + indexDoneFile + ", queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 
 			// Load index file
 			loadIndexFile();
@@ -261,7 +284,7 @@ public class AuditFileSpool implements Runnable {
 					currentWriterIndexRecord = auditIndexRecord;
 					logger.info("currentWriterIndexRecord="
 							+ currentWriterIndexRecord.filePath
-							+ ", queueName=" + queueProvider.getName());
+							+ ", queueName=" + getQueueName());
 				}
 				if (auditIndexRecord.status
 						.equals(SPOOL_FILE_STATUS.read_inprogress)) {
@@ -283,7 +306,7 @@ public class AuditFileSpool implements Runnable {
 
 		} catch (Throwable t) {
 			logger.fatal("Error initializing File Spooler. queue="
-					+ queueProvider.getName(), t);
+					+ getQueueName(), t);
 			return false;
 		}
 		initDone = true;
@@ -296,16 +319,16 @@ public class AuditFileSpool implements Runnable {
 	public void start() {
 		if (!initDone) {
 			logger.error("Cannot start Audit File Spooler. Initilization not done yet. queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 			return;
 		}
 
 		logger.info("Starting writerThread, queueName="
-				+ queueProvider.getName() + ", consumer="
+				+ getQueueName() + ", consumer="
 				+ consumerProvider.getName());
 
 		// Let's start the thread to read
-		destinationThread = new Thread(this, queueProvider.getName() + "_"
+		destinationThread = new Thread(this, getQueueName() + "_"
 				+ consumerProvider.getName() + "_destWriter");
 		destinationThread.setDaemon(true);
 		destinationThread.start();
@@ -314,10 +337,10 @@ public class AuditFileSpool implements Runnable {
 	public void stop() {
 		if (!initDone) {
 			logger.error("Cannot stop Audit File Spooler. Initilization not done. queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 			return;
 		}
-		logger.info("Stop called, queueName=" + queueProvider.getName()
+		logger.info("Stop called, queueName=" + getQueueName()
 				+ ", consumer=" + consumerProvider.getName());
 
 		isDrain = true;
@@ -338,7 +361,7 @@ public class AuditFileSpool implements Runnable {
 				}
 				try {
 					logger.info("Closing open file, queueName="
-							+ queueProvider.getName() + ", consumer="
+							+ getQueueName() + ", consumer="
 							+ consumerProvider.getName());
 
 					out.flush();
@@ -362,7 +385,7 @@ public class AuditFileSpool implements Runnable {
 	public void flush() {
 		if (!initDone) {
 			logger.error("Cannot flush Audit File Spooler. Initilization not done. queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 			return;
 		}
 		PrintWriter out = getOpenLogFileStream();
@@ -380,7 +403,7 @@ public class AuditFileSpool implements Runnable {
 	public boolean isPending() {
 		if (!initDone) {
 			logError("isPending(): File Spooler not initialized. queueName="
-					+ queueProvider.getName());
+					+ getQueueName());
 			return false;
 		}
 
@@ -496,7 +519,7 @@ public class AuditFileSpool implements Runnable {
 			}
 			fileName = newFileName;
 			logger.info("Creating new file. queueName="
-					+ queueProvider.getName() + ", fileName=" + fileName);
+					+ getQueueName() + ", fileName=" + fileName);
 			// Open the file
 			logWriter = new PrintWriter(new BufferedWriter(new FileWriter(
 					outLogFile)));
@@ -517,7 +540,7 @@ public class AuditFileSpool implements Runnable {
 				// This means the process just started. We need to open the file
 				// in append mode.
 				logger.info("Opening existing file for append. queueName="
-						+ queueProvider.getName() + ", fileName="
+						+ getQueueName() + ", fileName="
 						+ currentWriterIndexRecord.filePath);
 				logWriter = new PrintWriter(new BufferedWriter(new FileWriter(
 						currentWriterIndexRecord.filePath, true)));
@@ -536,13 +559,13 @@ public class AuditFileSpool implements Runnable {
 			if (indexRecords.size() == 1) {
 				closeFile = true;
 				logger.info("Closing file. Only one open file. queueName="
-						+ queueProvider.getName() + ", fileName="
+						+ getQueueName() + ", fileName="
 						+ currentWriterIndexRecord.filePath);
 			} else if (System.currentTimeMillis()
 					- currentWriterIndexRecord.fileCreateTime.getTime() > fileRolloverSec * 1000) {
 				closeFile = true;
 				logger.info("Closing file. Rolling over. queueName="
-						+ queueProvider.getName() + ", fileName="
+						+ getQueueName() + ", fileName="
 						+ currentWriterIndexRecord.filePath);
 			}
 			if (closeFile) {
@@ -556,7 +579,7 @@ public class AuditFileSpool implements Runnable {
 				currentWriterIndexRecord.writeCompleteTime = new Date();
 				saveIndexFile();
 				logger.info("Adding file to queue. queueName="
-						+ queueProvider.getName() + ", fileName="
+						+ getQueueName() + ", fileName="
 						+ currentWriterIndexRecord.filePath);
 				indexQueue.add(currentWriterIndexRecord);
 				currentWriterIndexRecord = null;
@@ -602,7 +625,7 @@ public class AuditFileSpool implements Runnable {
 			AuditIndexRecord record = iter.next();
 			if (record.id.equals(indexRecord.id)) {
 				logger.info("Removing file from index. file=" + record.filePath
-						+ ", queueName=" + queueProvider.getName()
+						+ ", queueName=" + getQueueName()
 						+ ", consumer=" + consumerProvider.getName());
 
 				iter.remove();
@@ -630,7 +653,7 @@ public class AuditFileSpool implements Runnable {
 	void appendToDoneFile(AuditIndexRecord indexRecord)
 			throws FileNotFoundException, IOException {
 		logger.info("Moving to done file. " + indexRecord.filePath
-				+ ", queueName=" + queueProvider.getName() + ", consumer="
+				+ ", queueName=" + getQueueName() + ", consumer="
 				+ consumerProvider.getName());
 		String line = gson.toJson(indexRecord);
 		PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(
@@ -769,7 +792,7 @@ public class AuditFileSpool implements Runnable {
 					logger.info("Destination is down. sleeping for "
 							+ retryDestinationMS
 							+ " milli seconds. indexQueue=" + indexQueue.size()
-							+ ", queueName=" + queueProvider.getName()
+							+ ", queueName=" + getQueueName()
 							+ ", consumer=" + consumerProvider.getName());
 					Thread.sleep(retryDestinationMS);
 				}
@@ -814,7 +837,7 @@ public class AuditFileSpool implements Runnable {
 								continue;
 							}
 							lines.add(line);
-							if (lines.size() == queueProvider.getMaxBatchSize()) {
+							if (lines.size() == getMaxBatchSize()) {
 								boolean ret = sendEvent(lines,
 										currentConsumerIndexRecord, currLine);
 								if (!ret) {
@@ -833,7 +856,7 @@ public class AuditFileSpool implements Runnable {
 						}
 						logger.info("Done reading file. file="
 								+ currentConsumerIndexRecord.filePath
-								+ ", queueName=" + queueProvider.getName()
+								+ ", queueName=" + getQueueName()
 								+ ", consumer=" + consumerProvider.getName());
 						// The entire file is read
 						currentConsumerIndexRecord.status = SPOOL_FILE_STATUS.done;
@@ -844,7 +867,7 @@ public class AuditFileSpool implements Runnable {
 					} catch (Exception ex) {
 						isDestDown = true;
 						logError("Destination down. queueName="
-								+ queueProvider.getName() + ", consumer="
+								+ getQueueName() + ", consumer="
 								+ consumerProvider.getName());
 						lastAttemptTime = System.currentTimeMillis();
 						// Update the index file
@@ -868,7 +891,7 @@ public class AuditFileSpool implements Runnable {
 				logger.error("Exception in destination writing thread.", t);
 			}
 		}
-		logger.info("Exiting file spooler. provider=" + queueProvider.getName()
+		logger.info("Exiting file spooler. provider=" + getQueueName()
 				+ ", consumer=" + consumerProvider.getName());
 	}
 
@@ -880,7 +903,7 @@ public class AuditFileSpool implements Runnable {
 			if (!ret) {
 				// Need to log error after fixed interval
 				logError("Error sending logs to consumer. provider="
-						+ queueProvider.getName() + ", consumer="
+						+ getQueueName() + ", consumer="
 						+ consumerProvider.getName());
 			} else {
 				// Update index and save
@@ -893,13 +916,13 @@ public class AuditFileSpool implements Runnable {
 				if (isDestDown) {
 					isDestDown = false;
 					logger.info("Destination up now. " + indexRecord.filePath
-							+ ", queueName=" + queueProvider.getName()
+							+ ", queueName=" + getQueueName()
 							+ ", consumer=" + consumerProvider.getName());
 				}
 			}
 		} catch (Throwable t) {
 			logger.error("Error while sending logs to consumer. provider="
-					+ queueProvider.getName() + ", consumer="
+					+ getQueueName() + ", consumer="
 					+ consumerProvider.getName() + ", log=" + lines, t);
 		}
 
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free queue for many producers and a single consumer. Producers claim a slot with a CAS on the producer
+ * index and publish the element into it; only the consumer thread may poll, peek or drain. A consumer waiting in
+ * poll(timeout) or take() is parked, and unparked by the next producer.
+ *
+ * iterator() returns a snapshot of the elements in the queue, which doesn't support remove().
+ */
+public class AuditRingBuffer<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+	private static final long PRODUCER_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private final AtomicReferenceArray<E> slots;
+	private final int                     capacity;
+	private final int                     mask;
+	private final AtomicLong              producerIndex = new AtomicLong();
+	private final AtomicLong              consumerIndex = new AtomicLong();
+	private volatile Thread               waitingConsumer;
+
+	/**
+	 * @param capacity maximum number of elements in the queue; the slot array is sized to the next power of 2
+	 */
+	public AuditRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+
+		int slotCount = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+		this.slots    = new AtomicReferenceArray<>(slotCount);
+		this.capacity = capacity;
+		this.mask     = slotCount - 1;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+
+		while (true) {
+			long producerIdx = producerIndex.get();
+
+			if (producerIdx - consumerIndex.get() >= capacity) {
+				return false;
+			}
+
+			if (producerIndex.compareAndSet(producerIdx, producerIdx + 1)) {
+				slots.lazySet((int) producerIdx & mask, e);
+
+				Thread consumer = waitingConsumer;
+
+				if (consumer != null) {
+					LockSupport.unpark(consumer);
+				}
+
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		while (!offer(e)) {
+			long remaining = deadline - System.nanoTime();
+
+			if (remaining <= 0) {
+				return false;
+			}
+
+			LockSupport.parkNanos(this, Math.min(remaining, PRODUCER_WAIT_NANOS));
+
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		while (!offer(e)) {
+			LockSupport.parkNanos(this, PRODUCER_WAIT_NANOS);
+
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	@Override
+	public E poll() {
+		long consumerIdx = consumerIndex.get();
+		int  slotIdx     = (int) consumerIdx & mask;
+		E    ret         = slots.get(slotIdx);
+
+		if (ret == null) {
+			if (consumerIdx == producerIndex.get()) {
+				return null;
+			}
+
+			// a producer has claimed the slot, but not yet published the element
+			do {
+				Thread.yield();
+
+				ret = slots.get(slotIdx);
+			} while (ret == null);
+		}
+
+		slots.lazySet(slotIdx, null);
+		consumerIndex.lazySet(consumerIdx + 1);
+
+		return ret;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		E ret = poll();
+
+		if (ret == null) {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+			waitingConsumer = Thread.currentThread();
+
+			try {
+				while ((ret = poll()) == null) {
+					long remaining = deadline - System.nanoTime();
+
+					if (remaining <= 0) {
+						break;
+					}
+
+					LockSupport.parkNanos(this, remaining);
+
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+				}
+			} finally {
+				waitingConsumer = null;
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		E ret;
+
+		while ((ret = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) == null) {
+			// keep waiting
+		}
+
+		return ret;
+	}
+
+	@Override
+	public E peek() {
+		long consumerIdx = consumerIndex.get();
+
+		return consumerIdx == producerIndex.get() ? null : slots.get((int) consumerIdx & mask);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		int ret = 0;
+
+		while (ret < maxElements) {
+			E e = poll();
+
+			if (e == null) {
+				break;
+			}
+
+			c.add(e);
+			ret++;
+		}
+
+		return ret;
+	}
+
+	@Override
+	public int size() {
+		// read consumerIndex first, so that the difference is never negative
+		long consumerIdx = consumerIndex.get();
+		long producerIdx = producerIndex.get();
+
+		return (int) Math.min(producerIdx - consumerIdx, capacity);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return consumerIndex.get() == producerIndex.get();
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return capacity - size();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		List<E> ret         = new ArrayList<>(size());
+		long    producerIdx = producerIndex.get();
+
+		for (long idx = consumerIndex.get(); idx < producerIdx; idx++) {
+			E e = slots.get((int) idx & mask);
+
+			// skip slots not yet published, or consumed since - a slot is reused only after the consumer moves past it
+			if (e != null && consumerIndex.get() <= idx) {
+				ret.add(e);
+			}
+		}
+
+		return Collections.unmodifiableList(ret).iterator();
+	}
+}
@@ -20,6 +20,7 @@
  package org.apache.ranger.admin.client;
 
 
+import org.apache.ranger.plugin.util.ChangeNotificationWatcher;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.plugin.util.ServiceTags;
@@ -41,4 +42,26 @@ public interface RangerAdminClient {
 
 	List<String> getTagTypes(String tagTypePattern) throws Exception;
 
+	/**
+	 * Blocks until the policy version of the service moves past lastKnownVersion, or until timeoutMs elapses.
+	 * @return the new policy version; null if the wait timed out without a change
+	 * @throws UnsupportedOperationException if the client or Ranger Admin doesn't support change notifications
+	 * @throws ChangeNotificationWatcher.NotFoundException if Ranger Admin has no wait endpoint, or the service is not found
+	 * @throws Exception on other failures, which can be retried
+	 */
+	default Long waitForPolicyUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+		throw new UnsupportedOperationException("waitForPolicyUpdate");
+	}
+
+	/**
+	 * Blocks until the tag version of the service moves past lastKnownVersion, or until timeoutMs elapses.
+	 * @return the new tag version; null if the wait timed out without a change
+	 * @throws UnsupportedOperationException if the client or Ranger Admin doesn't support change notifications
+	 * @throws ChangeNotificationWatcher.NotFoundException if Ranger Admin has no wait endpoint, or the service is not found
+	 * @throws Exception on other failures, which can be retried
+	 */
+	default Long waitForTagUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+		throw new UnsupportedOperationException("waitForTagUpdate");
+	}
+
 }
@@ -23,6 +23,7 @@
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.GenericType;
 import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.api.client.config.ClientConfig;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,6 +33,7 @@ import org.apache.ranger.admin.client.datatype.RESTResponse;
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.authorization.utils.StringUtil;
+import org.apache.ranger.plugin.util.ChangeNotificationWatcher;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.RangerRESTClient;
 import org.apache.ranger.plugin.util.RangerRESTUtils;
@@ -57,6 +59,7 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 	private RangerRESTClient restClient;
 	private RangerRESTUtils restUtils   = new RangerRESTUtils();
 	private String           supportsPolicyDeltas;
+	private String           supportsTagDeltas;
 
 	public static <T> GenericType<List<T>> getGenericType(final T clazz) {
 
@@ -92,6 +95,7 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		int	 restClientConnTimeOutMs	= RangerConfiguration.getInstance().getInt(propertyPrefix + ".policy.rest.client.connection.timeoutMs", 120 * 1000);
 		int	 restClientReadTimeOutMs	= RangerConfiguration.getInstance().getInt(propertyPrefix + ".policy.rest.client.read.timeoutMs", 30 * 1000);
 		supportsPolicyDeltas            = RangerConfiguration.getInstance().get(propertyPrefix + ".policy.rest.supports.policy.deltas", "false");
+		supportsTagDeltas               = RangerConfiguration.getInstance().get(propertyPrefix + ".tag.rest.supports.tag.deltas", "false");
 
         if (!StringUtil.isEmpty(tmpUrl)) {
             url = tmpUrl.trim();
@@ -102,6 +106,9 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		if (!"true".equalsIgnoreCase(supportsPolicyDeltas)) {
 			supportsPolicyDeltas = "false";
 		}
+		if (!"true".equalsIgnoreCase(supportsTagDeltas)) {
+			supportsTagDeltas = "false";
+		}
 
 		init(url, sslConfigFileName, restClientConnTimeOutMs , restClientReadTimeOutMs);
 
@@ -281,6 +288,63 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		}
 	}
 
+	private Long waitForUpdate(final String url, final String secureUrl, final long lastKnownVersion, final long timeoutMs) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerAdminRESTClient.waitForUpdate(" + url + ", " + lastKnownVersion + ", " + timeoutMs + ")");
+		}
+
+		final Long                 ret;
+		final UserGroupInformation user         = MiscUtil.getUGILoginUser();
+		final boolean              isSecureMode = user != null && UserGroupInformation.isSecurityEnabled();
+		final ClientResponse       response;
+
+		if (isSecureMode) {
+			PrivilegedAction<ClientResponse> action = new PrivilegedAction<ClientResponse>() {
+				public ClientResponse run() {
+					return createWaitForUpdateWebResource(secureUrl, lastKnownVersion, timeoutMs).accept(RangerRESTUtils.REST_MIME_TYPE_TEXT).get(ClientResponse.class);
+				}
+			};
+			response = user.doAs(action);
+		} else {
+			response = createWaitForUpdateWebResource(url, lastKnownVersion, timeoutMs).accept(RangerRESTUtils.REST_MIME_TYPE_TEXT).get(ClientResponse.class);
+		}
+
+		if (response == null) {
+			throw new Exception("Received NULL response while waiting for update. secureMode=" + isSecureMode + ", user=" + user + ", serviceName=" + serviceName);
+		} else if (response.getStatus() == HttpServletResponse.SC_OK) {
+			ret = Long.valueOf(response.getEntity(String.class).trim());
+		} else if (response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+			ret = null;
+		} else if (response.getStatus() == HttpServletResponse.SC_NOT_IMPLEMENTED) {
+			// Admin can't hold requests: leave it to the periodic download
+			throw new UnsupportedOperationException("Ranger Admin does not support change notifications: HTTP " + response.getStatus() + ", serviceName=" + serviceName);
+		} else if (response.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
+			// an Admin without the wait endpoint, or a service not created yet: the caller stops after repeated 404s
+			throw new ChangeNotificationWatcher.NotFoundException("Wait endpoint or service not found: HTTP " + response.getStatus() + ", serviceName=" + serviceName);
+		} else {
+			RESTResponse resp = RESTResponse.fromClientResponse(response);
+
+			throw new Exception("Error waiting for update. secureMode=" + isSecureMode + ", user=" + user + ", response=" + resp + ", serviceName=" + serviceName);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerAdminRESTClient.waitForUpdate(" + url + ", " + lastKnownVersion + ", " + timeoutMs + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private WebResource createWaitForUpdateWebResource(String url, long lastKnownVersion, long timeoutMs) {
+		WebResource ret = createWebResource(url + serviceNameUrlParam)
+				.queryParam(RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, Long.toString(lastKnownVersion))
+				.queryParam(RangerRESTUtils.REST_PARAM_TIMEOUT_MS, Long.toString(timeoutMs));
+
+		// the request is held by Admin for up to timeoutMs; allow for that on top of the configured read timeout
+		ret.setProperty(ClientConfig.PROPERTY_READ_TIMEOUT, (int) Math.min(Integer.MAX_VALUE, timeoutMs + restClient.getRestClientReadTimeOutMs()));
+
+		return ret;
+	}
+
 	private void init(String url, String sslConfigFileName, int restClientConnTimeOutMs , int restClientReadTimeOutMs ) {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerAdminRESTClient.init(" + url + ", " + sslConfigFileName + ")");
@@ -319,7 +383,8 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 					WebResource secureWebResource = createWebResource(RangerRESTUtils.REST_URL_GET_SECURE_SERVICE_TAGS_IF_UPDATED + serviceNameUrlParam)
 							.queryParam(RangerRESTUtils.LAST_KNOWN_TAG_VERSION_PARAM, Long.toString(lastKnownVersion))
 							.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
-							.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+							.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId)
+							.queryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_TAG_DELTAS, supportsTagDeltas);
 					return secureWebResource.accept(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
 				}
 			};
@@ -331,7 +396,8 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 			webResource = createWebResource(RangerRESTUtils.REST_URL_GET_SERVICE_TAGS_IF_UPDATED + serviceNameUrlParam)
 					.queryParam(RangerRESTUtils.LAST_KNOWN_TAG_VERSION_PARAM, Long.toString(lastKnownVersion))
 					.queryParam(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis))
-					.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+					.queryParam(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId)
+					.queryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_TAG_DELTAS, supportsTagDeltas);
 			response = webResource.accept(RangerRESTUtils.REST_MIME_TYPE_JSON).get(ClientResponse.class);
 		}
 
@@ -373,6 +439,16 @@ public class RangerAdminRESTClient implements RangerAdminClient {
 		return ret;
 	}
 
+	@Override
+	public Long waitForPolicyUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+		return waitForUpdate(RangerRESTUtils.REST_URL_POLICY_WAIT_FOR_UPDATE, RangerRESTUtils.REST_URL_SECURE_POLICY_WAIT_FOR_UPDATE, lastKnownVersion, timeoutMs);
+	}
+
+	@Override
+	public Long waitForTagUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+		return waitForUpdate(RangerRESTUtils.REST_URL_TAG_WAIT_FOR_UPDATE, RangerRESTUtils.REST_URL_SECURE_TAG_WAIT_FOR_UPDATE, lastKnownVersion, timeoutMs);
+	}
+
 	@Override
 	public List<String> getTagTypes(String pattern) throws Exception {
 		if(LOG.isDebugEnabled()) {
@@ -24,6 +24,14 @@ public class RangerHadoopConstants {
 	public static final String RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP = "ranger.optimize-subaccess-authorization" ;
 	public static final boolean RANGER_ADD_HDFS_PERMISSION_DEFAULT = false;
 	public static final boolean RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT = false ;
+	public static final String RANGER_SUBACCESS_AUTHORIZATION_PARALLELISM_PROP = "ranger.subaccess-authorization.parallelism";
+	// a value > 1 starts a pool of that many threads in the NameNode; a large subAccess check then keeps up to that many
+	// cores busy while the caller holds the namesystem lock. Off by default
+	public static final int RANGER_SUBACCESS_AUTHORIZATION_PARALLELISM_DEFAULT = 1;
+	public static final String RANGER_TRAVERSAL_DECISION_CACHE_SIZE_PROP = "ranger.traversal-decision-cache.size";
+	public static final int RANGER_TRAVERSAL_DECISION_CACHE_SIZE_DEFAULT = 10000;
+	public static final String RANGER_TRAVERSAL_DECISION_CACHE_TTL_MS_PROP = "ranger.traversal-decision-cache.ttl.ms";
+	public static final long RANGER_TRAVERSAL_DECISION_CACHE_TTL_MS_DEFAULT = 30 * 1000L;
 	public static final String READ_ACCCESS_TYPE = "read";
 	public static final String WRITE_ACCCESS_TYPE = "write";
 	public static final String EXECUTE_ACCCESS_TYPE = "execute";
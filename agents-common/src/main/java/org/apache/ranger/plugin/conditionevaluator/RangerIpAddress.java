@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+/*
+ * An IPv4 or IPv6 address, or address prefix, as 128 bits aligned to the left: an IPv4 address is held in the top 32
+ * bits of high. Parsing is strict - only the textual forms whose meaning is unambiguous are accepted, so that an
+ * address parsed here matches a prefix exactly when the string comparisons used earlier by RangerIpMatcher matched:
+ *
+ *   IPv4: 4 decimal octets, without leading zeros
+ *   IPv6: up to 8 groups of 1-4 hex digits, with at most one "::" and optionally an IPv4 address in the last 32 bits
+ */
+final class RangerIpAddress {
+	static final int IPV4_BITS = 32;
+	static final int IPV6_BITS = 128;
+
+	final long    high;
+	final long    low;
+	final boolean isIpv6;
+
+	private RangerIpAddress(long high, long low, boolean isIpv6) {
+		this.high   = high;
+		this.low    = low;
+		this.isIpv6 = isIpv6;
+	}
+
+	int getBitLength() {
+		return isIpv6 ? IPV6_BITS : IPV4_BITS;
+	}
+
+	// returns null if the value is not a valid address
+	static RangerIpAddress parse(String value) {
+		RangerIpAddress ret = null;
+
+		if (value != null && !value.isEmpty()) {
+			if (value.indexOf(':') != -1) {
+				ret = parseIpv6(value);
+			} else {
+				long ipv4 = parseIpv4Octets(value, 4);
+
+				if (ipv4 != -1) {
+					ret = new RangerIpAddress(ipv4 << 32, 0, false);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	// prefix of the given number of leading IPv4 octets or IPv6 groups, like "10.20" or "a0:b0:c0"; null if not valid
+	static RangerIpAddress parsePrefix(String value, boolean isIpv6) {
+		RangerIpAddress ret = null;
+
+		if (value != null && !value.isEmpty()) {
+			if (isIpv6) {
+				long[] groups = parseIpv6Groups(value);
+
+				if (groups != null && groups.length < 8) {
+					ret = fromIpv6Groups(groups, 8 - groups.length);
+				}
+			} else {
+				int  octets = countOf(value, '.') + 1;
+				long ipv4   = octets < 4 ? parseIpv4Octets(value, octets) : -1;
+
+				if (ipv4 != -1) {
+					ret = new RangerIpAddress(ipv4 << (64 - 8 * octets), 0, false);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	// returns -1 if value is not exactly count dot-separated decimal octets
+	private static long parseIpv4Octets(String value, int count) {
+		long ret    = 0;
+		int  octets = 0;
+		int  start  = 0;
+
+		while (start <= value.length()) {
+			int end = value.indexOf('.', start);
+
+			if (end == -1) {
+				end = value.length();
+			}
+
+			int octet = parseOctet(value, start, end);
+
+			if (octet == -1 || ++octets > count) {
+				return -1;
+			}
+
+			ret   = (ret << 8) | octet;
+			start = end + 1;
+		}
+
+		return octets == count ? ret : -1;
+	}
+
+	private static int parseOctet(String value, int start, int end) {
+		int length = end - start;
+
+		if (length < 1 || length > 3 || (length > 1 && value.charAt(start) == '0')) {
+			return -1;
+		}
+
+		int ret = 0;
+
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+
+			ret = ret * 10 + (c - '0');
+		}
+
+		return ret <= 255 ? ret : -1;
+	}
+
+	private static RangerIpAddress parseIpv6(String value) {
+		int compressAt = value.indexOf("::");
+
+		if (compressAt != -1 && value.indexOf("::", compressAt + 1) != -1) {
+			return null;
+		}
+
+		String head = compressAt == -1 ? value : value.substring(0, compressAt);
+		String tail = compressAt == -1 ? "" : value.substring(compressAt + 2);
+
+		long[] headGroups = head.isEmpty() ? new long[0] : parseIpv6Groups(head);
+		long[] tailGroups = tail.isEmpty() ? new long[0] : parseIpv6Groups(tail);
+
+		if (headGroups == null || tailGroups == null) {
+			return null;
+		}
+
+		int groupCount = headGroups.length + tailGroups.length;
+
+		if (compressAt == -1 ? groupCount != 8 : groupCount > 7) {
+			return null;
+		}
+
+		long[] groups = new long[8];
+
+		System.arraycopy(headGroups, 0, groups, 0, headGroups.length);
+		System.arraycopy(tailGroups, 0, groups, 8 - tailGroups.length, tailGroups.length);
+
+		return fromIpv6Groups(groups, 0);
+	}
+
+	// colon-separated groups; the last one may be an IPv4 address, which takes 2 groups. Returns null if not valid
+	private static long[] parseIpv6Groups(String value) {
+		int    lastColon = value.lastIndexOf(':');
+		String last      = value.substring(lastColon + 1);
+		long[] ipv4Tail  = null;
+
+		if (last.indexOf('.') != -1) {
+			long ipv4 = parseIpv4Octets(last, 4);
+
+			if (ipv4 == -1) {
+				return null;
+			}
+
+			ipv4Tail = new long[] { ipv4 >>> 16, ipv4 & 0xFFFF };
+			value    = lastColon == -1 ? "" : value.substring(0, lastColon);
+
+			if (lastColon != -1 && value.isEmpty()) { // ":1.2.3.4"
+				return null;
+			}
+		}
+
+		int    count  = value.isEmpty() ? 0 : countOf(value, ':') + 1;
+		long[] ret    = new long[count + (ipv4Tail != null ? 2 : 0)];
+		int    start  = 0;
+
+		for (int i = 0; i < count; i++) {
+			int end = value.indexOf(':', start);
+
+			if (end == -1) {
+				end = value.length();
+			}
+
+			long group = parseHexGroup(value, start, end);
+
+			if (group == -1) {
+				return null;
+			}
+
+			ret[i] = group;
+			start  = end + 1;
+		}
+
+		if (ipv4Tail != null) {
+			ret[count]     = ipv4Tail[0];
+			ret[count + 1] = ipv4Tail[1];
+		}
+
+		return ret.length <= 8 ? ret : null;
+	}
+
+	private static long parseHexGroup(String value, int start, int end) {
+		int length = end - start;
+
+		if (length < 1 || length > 4) {
+			return -1;
+		}
+
+		long ret = 0;
+
+		for (int i = start; i < end; i++) {
+			int digit = Character.digit(value.charAt(i), 16);
+
+			if (digit == -1) {
+				return -1;
+			}
+
+			ret = (ret << 4) | digit;
+		}
+
+		return ret;
+	}
+
+	// groups are the leading groups of the address, followed by zeroGroups zero groups
+	private static RangerIpAddress fromIpv6Groups(long[] groups, int zeroGroups) {
+		long high = 0;
+		long low  = 0;
+
+		for (int i = 0; i < groups.length + zeroGroups; i++) {
+			long group = i < groups.length ? groups[i] : 0;
+
+			if (i < 4) {
+				high = (high << 16) | group;
+			} else {
+				low = (low << 16) | group;
+			}
+		}
+
+		return new RangerIpAddress(high, low, true);
+	}
+
+	private static int countOf(String value, char c) {
+		int ret = 0;
+
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == c) {
+				ret++;
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		return "{high=" + Long.toHexString(high) + ", low=" + Long.toHexString(low) + ", isIpv6=" + isIpv6 + "}";
+	}
+}
@@ -23,6 +23,9 @@ package org.apache.ranger.plugin.conditionevaluator;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +33,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 
 /**
  * Credits: Large parts of this file have been lifted as is from org.apache.ranger.pdp.knox.URLBasedAuthDB.  Credits for those are due to Dilli Arumugam.
@@ -37,9 +41,16 @@ import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
  */
 public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerIpMatcher.class);
+	private static final Object INVALID_ADDRESS = new Object();
+
 	private List<String> _exactIps = new ArrayList<>();
 	private List<String> _wildCardIps = new ArrayList<>();
 	private boolean _allowAny;
+	// addresses, wildcards and CIDR blocks that parse as address prefixes; a request address that parses is matched
+	// against the tree, and against the string forms of the values that don't parse
+	private final RangerIpPrefixTree _prefixes = new RangerIpPrefixTree();
+	private final List<String> _unparsedExactIps = new ArrayList<>();
+	private final List<String> _unparsedWildCardIps = new ArrayList<>();
 	
 	@Override
 	public void init() {
@@ -67,14 +78,22 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 					_allowAny = true;
 				} else if (digestedIp.equals(ip)) {
 					_exactIps.add(ip);
+
+					if (!addExactOrCidr(ip)) {
+						_unparsedExactIps.add(ip);
+					}
 				} else {
 					_wildCardIps.add(digestedIp);
+
+					if (!addWildcard(digestedIp)) {
+						_unparsedWildCardIps.add(digestedIp);
+					}
 				}
 			}
 		}
 
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "]");
+			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "], prefixes=" + _prefixes.size() + ", unparsed-exact-ips" + _unparsedExactIps + ", unparsed-wildcard-ips" + _unparsedWildCardIps);
 		}
 	}
 
@@ -92,7 +111,13 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 			if (requestIp == null) {
 				LOG.debug("isMatched: couldn't get ip address from request.  Ok.  Implicitly matched!");
 			} else {
-				ipMatched = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp);
+				RangerIpAddress address = getParsedAddress(request, requestIp);
+
+				if (address != null) {
+					ipMatched = _prefixes.contains(address) || isWildcardMatched(_unparsedWildCardIps, requestIp) || isExactlyMatched(_unparsedExactIps, requestIp);
+				} else {
+					ipMatched = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp);
+				}
 			}
 		}
 		
@@ -188,6 +213,118 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 		return matchFound;
 	}
 	
+	/**
+	 * Adds an address, like 10.1.2.3, or a CIDR block, like 10.1.0.0/16, to the prefix tree
+	 * @return false if the value is neither
+	 */
+	boolean addExactOrCidr(final String policyIp) {
+		int    slash   = policyIp.indexOf('/');
+		String address = slash == -1 ? policyIp : policyIp.substring(0, slash);
+
+		RangerIpAddress prefix = RangerIpAddress.parse(address);
+
+		if (prefix == null) {
+			return false;
+		}
+
+		int prefixLength = prefix.getBitLength();
+
+		if (slash != -1) {
+			String length = policyIp.substring(slash + 1);
+
+			if (length.isEmpty() || length.length() > 3 || !length.matches("[0-9]+") || Integer.parseInt(length) > prefixLength) {
+				return false;
+			}
+
+			prefixLength = Integer.parseInt(length);
+		}
+
+		_prefixes.add(prefix, prefixLength);
+
+		return true;
+	}
+
+	/**
+	 * Adds a digested wildcard, like "10.20." or "a0:b0:", to the prefix tree
+	 * @return false if the leading octets or groups are not valid
+	 */
+	boolean addWildcard(final String digestedIp) {
+		if (!digestedIp.endsWith(".") && !digestedIp.endsWith(":")) {
+			return false;
+		}
+
+		boolean         isIpv6 = digestedIp.endsWith(":");
+		String          value  = digestedIp.substring(0, digestedIp.length() - 1);
+		RangerIpAddress prefix = RangerIpAddress.parsePrefix(value, isIpv6);
+
+		if (prefix == null) {
+			return false;
+		}
+
+		int prefixLength = isIpv6 ? 16 * countGroups(value, ':') : 8 * countGroups(value, '.');
+
+		_prefixes.add(prefix, prefixLength);
+
+		return true;
+	}
+
+	/**
+	 * Returns the address parsed, once per request, from the given string. Parsed addresses are kept in the request
+	 * context, so that other conditions, and other addresses of the request, don't parse them again.
+	 * @return null if the string is not a valid IPv4 or IPv6 address
+	 */
+	static RangerIpAddress getParsedAddress(final RangerAccessRequest request, final String ip) {
+		Map<String, Object>           context   = request.getContext();
+		ConcurrentMap<String, Object> addresses = null;
+
+		if (context != null) {
+			Object val = context.get(RangerAccessRequestUtil.KEY_CONTEXT_IP_ADDRESSES);
+
+			if (val instanceof ConcurrentMap) {
+				@SuppressWarnings("unchecked")
+				ConcurrentMap<String, Object> map = (ConcurrentMap<String, Object>) val;
+
+				addresses = map;
+			} else {
+				try {
+					addresses = new ConcurrentHashMap<>();
+
+					context.put(RangerAccessRequestUtil.KEY_CONTEXT_IP_ADDRESSES, addresses);
+				} catch (UnsupportedOperationException excp) {
+					addresses = null;
+				}
+			}
+		}
+
+		Object ret = addresses != null ? addresses.get(ip) : null;
+
+		if (ret == null) {
+			ret = RangerIpAddress.parse(ip);
+
+			if (ret == null) {
+				ret = INVALID_ADDRESS;
+			}
+
+			if (addresses != null) {
+				addresses.put(ip, ret);
+			}
+		}
+
+		return ret != INVALID_ADDRESS ? (RangerIpAddress) ret : null;
+	}
+
+	private static int countGroups(String value, char separator) {
+		int ret = 1;
+
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == separator) {
+				ret++;
+			}
+		}
+
+		return ret;
+	}
+
 	/**
 	 * Extracts and returns the ip address from the request.  Returns null if one can't be obtained out of the request.
 	 * @param request
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+/*
+ * Set of IPv4 and IPv6 address prefixes (CIDR blocks), as a binary radix (Patricia) tree over the address bits; each
+ * node holds the bits shared by all prefixes under it, so a lookup visits at most one node per distinct prefix length
+ * on the address' path. IPv4 and IPv6 prefixes are kept in separate trees.
+ */
+final class RangerIpPrefixTree {
+	private Node ipv4Root;
+	private Node ipv6Root;
+	private int  size;
+
+	void add(RangerIpAddress prefix, int prefixLength) {
+		if (prefixLength < 0 || prefixLength > prefix.getBitLength()) {
+			throw new IllegalArgumentException("invalid prefix length " + prefixLength + " for " + prefix);
+		}
+
+		long high = mask(prefix.high, prefixLength);
+		long low  = prefixLength > 64 ? mask(prefix.low, prefixLength - 64) : 0;
+
+		if (prefix.isIpv6) {
+			ipv6Root = insert(ipv6Root, high, low, prefixLength);
+		} else {
+			ipv4Root = insert(ipv4Root, high, low, prefixLength);
+		}
+
+		size++;
+	}
+
+	boolean contains(RangerIpAddress address) {
+		Node node = address.isIpv6 ? ipv6Root : ipv4Root;
+
+		while (node != null) {
+			if (commonPrefixLength(node.high, node.low, address.high, address.low, node.length) < node.length) {
+				return false;
+			}
+
+			if (node.isPrefix) {
+				return true;
+			}
+
+			node = bitAt(address.high, address.low, node.length) == 0 ? node.zero : node.one;
+		}
+
+		return false;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private static Node insert(Node node, long high, long low, int length) {
+		if (node == null) {
+			return new Node(high, low, length, true);
+		}
+
+		int common = commonPrefixLength(node.high, node.low, high, low, Math.min(node.length, length));
+
+		if (common == node.length) {
+			if (length == node.length) {
+				node.isPrefix = true;
+			} else if (bitAt(high, low, node.length) == 0) {
+				node.zero = insert(node.zero, high, low, length);
+			} else {
+				node.one = insert(node.one, high, low, length);
+			}
+
+			return node;
+		}
+
+		// the new prefix diverges from, or is shorter than, the node: insert a node for the shared bits above it
+		Node parent = new Node(mask(high, common), common > 64 ? mask(low, common - 64) : 0, common, common == length);
+
+		parent.setChild(node);
+
+		if (!parent.isPrefix) {
+			parent.setChild(new Node(high, low, length, true));
+		}
+
+		return parent;
+	}
+
+	private static int commonPrefixLength(long high1, long low1, long high2, long low2, int maxLength) {
+		long diff = high1 ^ high2;
+		int  ret  = diff != 0 ? Long.numberOfLeadingZeros(diff) : 64 + Long.numberOfLeadingZeros(low1 ^ low2);
+
+		return Math.min(ret, maxLength);
+	}
+
+	private static int bitAt(long high, long low, int index) {
+		return (int) (index < 64 ? (high >>> (63 - index)) & 1 : (low >>> (127 - index)) & 1);
+	}
+
+	// leading length bits of value; length is 0-64
+	private static long mask(long value, int length) {
+		return length <= 0 ? 0 : length >= 64 ? value : value & (-1L << (64 - length));
+	}
+
+	private static final class Node {
+		final long high;
+		final long low;
+		final int  length;
+		boolean    isPrefix;
+		Node       zero;
+		Node       one;
+
+		Node(long high, long low, int length, boolean isPrefix) {
+			this.high     = high;
+			this.low      = low;
+			this.length   = length;
+			this.isPrefix = isPrefix;
+		}
+
+		// child is longer than this node, and shares its bits
+		void setChild(Node child) {
+			if (bitAt(child.high, child.low, length) == 0) {
+				zero = child;
+			} else {
+				one = child;
+			}
+		}
+	}
+}
@@ -24,21 +24,47 @@ import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerScriptConditionEvaluator.class);
 
-	private ScriptEngine scriptEngine;
+	public static final String OPTION_ENGINE_NAME     = "engineName";
+	public static final String OPTION_EXPRESSION_MODE = "enableExpressionMode";
+
+	private static final String PROP_EXPRESSION_MODE = "ranger.plugin.script.condition.expression.mode.enabled";
+
+	// script engines are shared by all script conditions, so that a thread needs only one script global per engine
+	private static final Map<String, ScriptEngine> SCRIPT_ENGINES = new ConcurrentHashMap<>();
+
+	// createBindings() sets up a new script global; one is kept per thread and script engine, as bindings are not safe for concurrent use
+	private static final ThreadLocal<Map<ScriptEngine, ScriptBindings>> THREAD_BINDINGS = new ThreadLocal<Map<ScriptEngine, ScriptBindings>>() {
+		@Override protected Map<ScriptEngine, ScriptBindings> initialValue() {
+			return new IdentityHashMap<>();
+		}
+	};
+
+	private ScriptEngine                    scriptEngine;
+	private String                          script;
+	private CompiledScript                  compiledScript;
+	private RangerScriptConditionExpression expression;
 
 	@Override
 	public void init() {
@@ -49,12 +75,19 @@ public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvalu
 
 		super.init();
 
-		String engineName = "JavaScript";
+		String  engineName        = "JavaScript";
+		boolean enableExpressions = RangerConfiguration.getInstance().getBoolean(PROP_EXPRESSION_MODE, false);
 
 		Map<String, String> evalOptions = conditionDef. getEvaluatorOptions();
 
 		if (MapUtils.isNotEmpty(evalOptions)) {
-			engineName = evalOptions.get("engineName");
+			engineName = evalOptions.get(OPTION_ENGINE_NAME);
+
+			String expressionMode = evalOptions.get(OPTION_EXPRESSION_MODE);
+
+			if (StringUtils.isNotBlank(expressionMode)) {
+				enableExpressions = Boolean.parseBoolean(expressionMode.trim());
+			}
 		}
 
 		if (StringUtils.isBlank(engineName)) {
@@ -62,16 +95,35 @@ public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvalu
 		}
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("RangerScriptConditionEvaluator.init() - engineName=" + engineName);
+			LOG.debug("RangerScriptConditionEvaluator.init() - engineName=" + engineName + ", enableExpressionMode=" + enableExpressions);
 		}
 
 		try {
-			ScriptEngineManager manager = new ScriptEngineManager();
-			scriptEngine = manager.getEngineByName(engineName);
+			scriptEngine = getScriptEngine(engineName);
 		} catch (Exception exp) {
 			LOG.error("RangerScriptConditionEvaluator.init() failed with exception=" + exp);
 		}
 
+		script = getScript();
+
+		if (scriptEngine != null && StringUtils.isNotBlank(script)) {
+			if (enableExpressions) {
+				expression = RangerScriptConditionExpression.parse(script);
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerScriptConditionEvaluator.init() - script={" + script + "} " + (expression != null ? "will" : "will not") + " be evaluated as an expression");
+				}
+			}
+
+			if (scriptEngine instanceof Compilable) {
+				try {
+					compiledScript = ((Compilable) scriptEngine).compile(script);
+				} catch (ScriptException exception) {
+					LOG.error("RangerScriptConditionEvaluator.init(): failed to compile script={" + script + "}, exception=" + exception);
+				}
+			}
+		}
+
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerScriptConditionEvaluator.init(" + condition + ")");
 		}
@@ -84,55 +136,152 @@ public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvalu
 		}
 		boolean result = true;
 
-		if (scriptEngine != null) {
+		if (scriptEngine != null && StringUtils.isNotBlank(script)) {
+			Map<ScriptResultKey, Boolean> memo       = getScriptResults(request);
+			RangerTagForEval              currentTag = RangerAccessRequestUtil.getCurrentTagFromContext(request.getContext());
+			ScriptResultKey               memoKey    = memo != null ? new ScriptResultKey(script, currentTag) : null;
+			Boolean                       memoResult = memo != null ? memo.get(memoKey) : null;
+
+			if (memoResult != null) {
+				result = memoResult;
+			} else {
+				Boolean ret = evaluate(request);
+
+				if (ret != null) {
+					result = ret;
+
+					if (memo != null) {
+						memo.put(memoKey, ret);
+					}
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerScriptConditionEvaluator.isMatched(), result=" + result);
+		}
 
-			String script = getScript();
+		return result;
 
-			if (StringUtils.isNotBlank(script)) {
+	}
 
-				RangerAccessRequest readOnlyRequest = request.getReadOnlyCopy();
+	// returns null when the script couldn't be evaluated, or didn't produce a boolean
+	private Boolean evaluate(RangerAccessRequest request) {
+		Boolean ret = null;
 
-				RangerScriptExecutionContext context    = new RangerScriptExecutionContext(readOnlyRequest);
-				RangerTagForEval             currentTag = context.getCurrentTag();
-				Map<String, String>          tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.<String, String>emptyMap();
+		RangerAccessRequest readOnlyRequest = request.getReadOnlyCopy();
 
-				Bindings bindings = scriptEngine.createBindings();
+		RangerScriptExecutionContext context    = new RangerScriptExecutionContext(readOnlyRequest);
+		RangerTagForEval             currentTag = context.getCurrentTag();
+		Map<String, String>          tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.<String, String>emptyMap();
 
-				bindings.put("ctx", context);
-				bindings.put("tag", currentTag);
-				bindings.put("tagAttr", tagAttribs);
+		if (expression != null) {
+			ret = expression.evaluate(context, tagAttribs);
 
+			if (ret != null) {
 				if (LOG.isDebugEnabled()) {
-					LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={" + script + "}");
+					LOG.debug("RangerScriptConditionEvaluator.isMatched(): expression={" + script + "}, result=" + ret);
 				}
-				try {
 
-					Object ret = scriptEngine.eval(script, bindings);
+				return ret;
+			}
+		}
 
-					if (ret == null) {
-						ret = context.getResult();
-					}
-					if (ret instanceof Boolean) {
-						result = (Boolean) ret;
-					}
+		Map<ScriptEngine, ScriptBindings> engineBindings = THREAD_BINDINGS.get();
+		ScriptBindings                    scriptBindings = engineBindings.get(scriptEngine);
 
-				} catch (NullPointerException nullp) {
-					LOG.error("RangerScriptConditionEvaluator.isMatched(): eval called with NULL argument(s)", nullp);
+		if (scriptBindings == null) {
+			scriptBindings = new ScriptBindings(scriptEngine);
 
-				} catch (ScriptException exception) {
-					LOG.error("RangerScriptConditionEvaluator.isMatched(): failed to evaluate script," +
-							" exception=" + exception);
+			engineBindings.put(scriptEngine, scriptBindings);
+		}
+
+		Bindings bindings = scriptBindings.bindings;
+
+		bindings.put("ctx", context);
+		bindings.put("tag", currentTag);
+		bindings.put("tagAttr", tagAttribs);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={" + script + "}");
+		}
+		try {
+
+			Object val = compiledScript != null ? compiledScript.eval(bindings) : scriptEngine.eval(script, bindings);
+
+			if (val == null) {
+				val = context.getResult();
+			}
+			if (val instanceof Boolean) {
+				ret = (Boolean) val;
+			}
+
+		} catch (NullPointerException nullp) {
+			LOG.error("RangerScriptConditionEvaluator.isMatched(): eval called with NULL argument(s)", nullp);
+
+		} catch (ScriptException exception) {
+			LOG.error("RangerScriptConditionEvaluator.isMatched(): failed to evaluate script," +
+					" exception=" + exception);
+		} finally {
+			// don't keep the request reachable from the thread's bindings, nor leave names set by this script to the next one
+			if (!scriptBindings.reset()) {
+				engineBindings.remove(scriptEngine);
+			}
+		}
+
+		return ret;
+	}
+
+	private static ScriptEngine getScriptEngine(String engineName) {
+		ScriptEngine ret = SCRIPT_ENGINES.get(engineName);
+
+		if (ret == null) {
+			synchronized (SCRIPT_ENGINES) {
+				ret = SCRIPT_ENGINES.get(engineName);
+
+				if (ret == null) {
+					ScriptEngineManager manager = new ScriptEngineManager();
+
+					ret = manager.getEngineByName(engineName);
+
+					if (ret != null) {
+						SCRIPT_ENGINES.put(engineName, ret);
+					}
 				}
 			}
+		}
+
+		return ret;
+	}
 
+	/*
+	 * Results of scripts already evaluated for this request, shared by all script conditions; null if the context is
+	 * read-only. The context can outlive the request - tag requests share the context of the request they are created
+	 * for, and callers may reuse a context across requests - so the results are kept only for the request they were
+	 * computed for: a script can look at any attribute of the request, not just at the tag.
+	 */
+	private static Map<ScriptResultKey, Boolean> getScriptResults(RangerAccessRequest request) {
+		Map<String, Object> context = request.getContext();
+
+		if (context == null) {
+			return null;
 		}
 
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerScriptConditionEvaluator.isMatched(), result=" + result);
+		Object val = context.get(RangerAccessRequestUtil.KEY_CONTEXT_SCRIPT_RESULTS);
+
+		if (val instanceof ScriptResults && ((ScriptResults) val).request == request) {
+			return ((ScriptResults) val).results;
 		}
 
-		return result;
+		ScriptResults ret = new ScriptResults(request);
 
+		try {
+			context.put(RangerAccessRequestUtil.KEY_CONTEXT_SCRIPT_RESULTS, ret);
+		} catch (UnsupportedOperationException excp) {
+			return null;
+		}
+
+		return ret.results;
 	}
 
 	protected String getScript() {
@@ -150,4 +299,71 @@ public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvalu
 
 		return ret;
 	}
+
+	private static final class ScriptResults {
+		private final RangerAccessRequest           request;
+		private final Map<ScriptResultKey, Boolean> results = new ConcurrentHashMap<>();
+
+		ScriptResults(RangerAccessRequest request) {
+			this.request = request;
+		}
+	}
+
+	// the current tag is part of the request context, and changes while the tags of the request are evaluated
+	private static final class ScriptResultKey {
+		private final String           script;
+		private final RangerTagForEval tag;
+
+		ScriptResultKey(String script, RangerTagForEval tag) {
+			this.script = script;
+			this.tag    = tag;
+		}
+
+		@Override
+		public int hashCode() {
+			return script.hashCode() * 31 + System.identityHashCode(tag);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof ScriptResultKey)) {
+				return false;
+			}
+
+			ScriptResultKey other = (ScriptResultKey) obj;
+
+			return tag == other.tag && script.equals(other.script);
+		}
+	}
+
+	private static final class ScriptBindings {
+		private final Bindings    bindings;
+		private final Set<String> initialNames;
+
+		ScriptBindings(ScriptEngine scriptEngine) {
+			this.bindings     = scriptEngine.createBindings();
+			this.initialNames = new HashSet<>(bindings.keySet());
+		}
+
+		// removes names added since the bindings were created; returns false if some couldn't be removed - like variables declared by the script
+		boolean reset() {
+			Set<String> addedNames = new HashSet<>(bindings.keySet());
+
+			addedNames.removeAll(initialNames);
+
+			if (!addedNames.isEmpty()) {
+				for (String name : addedNames) {
+					bindings.remove(name);
+				}
+
+				addedNames.retainAll(bindings.keySet());
+			}
+
+			return addedNames.isEmpty();
+		}
+	}
 }
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/*
+ * Evaluates, without a script engine, the forms of script conditions commonly used in tag-based policies:
+ *
+ *   ctx.isAccessedAfter('attr')             ctx.isAccessedAfter('tagType', 'attr')
+ *   ctx.isAccessedBefore('attr')            ctx.isAccessedBefore('tagType', 'attr')
+ *   tagAttr.get('attr') OP literal          tagAttr['attr'] OP literal
+ *   if ( <any of the above> ) ctx.result = true
+ *
+ * where OP is one of ==, ===, !=, !==, <, <=, >, >= and literal is a quoted string or a decimal number. Comparisons follow
+ * JavaScript semantics for a string (or missing) attribute value; where that can't be decided simply - like a relational
+ * comparison with a missing or non-decimal value - evaluate() returns null, and the script must be run by the engine.
+ */
+final class RangerScriptConditionExpression {
+	private static final String      QUOTED          = "(?:'([^'\\\\]*)'|\"([^\"\\\\]*)\")";
+	private static final String      NUMBER          = "[+-]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][+-]?\\d+)?";
+	private static final Pattern     IF_RESULT       = Pattern.compile("^if\\s*\\((.*)\\)\\s*\\{?\\s*ctx\\.result\\s*=\\s*true\\s*;?\\s*\\}?$", Pattern.DOTALL);
+	private static final Pattern     ACCESSED        = Pattern.compile("^ctx\\.isAccessed(After|Before)\\(\\s*" + QUOTED + "\\s*(?:,\\s*" + QUOTED + "\\s*)?\\)$");
+	private static final Pattern     COMPARISON      = Pattern.compile("^tagAttr(?:\\.get\\(\\s*" + QUOTED + "\\s*\\)|\\[\\s*" + QUOTED + "\\s*\\])\\s*(===|!==|==|!=|<=|>=|<|>)\\s*(?:" + QUOTED + "|(" + NUMBER + "))$");
+	private static final Pattern     DECIMAL         = Pattern.compile("^" + NUMBER + "$");
+	private static final Set<String> BEAN_PROPERTIES = new HashSet<>(Arrays.asList("class", "empty"));
+
+	private enum Type { ACCESSED_AFTER, ACCESSED_BEFORE, COMPARISON }
+
+	private final Type   type;
+	private final String tagType;
+	private final String attrName;
+	private final String operator;
+	private final String stringValue;
+	private final Double numberValue;
+
+	private RangerScriptConditionExpression(Type type, String tagType, String attrName, String operator, String stringValue, Double numberValue) {
+		this.type        = type;
+		this.tagType     = tagType;
+		this.attrName    = attrName;
+		this.operator    = operator;
+		this.stringValue = stringValue;
+		this.numberValue = numberValue;
+	}
+
+	// returns null if the script is not one of the supported forms
+	static RangerScriptConditionExpression parse(String script) {
+		String expr = StringUtils.trim(script);
+
+		if (StringUtils.isEmpty(expr)) {
+			return null;
+		}
+
+		Matcher matcher = IF_RESULT.matcher(expr);
+
+		if (matcher.matches()) {
+			expr = matcher.group(1).trim();
+		} else if (expr.endsWith(";")) {
+			expr = expr.substring(0, expr.length() - 1).trim();
+		}
+
+		matcher = ACCESSED.matcher(expr);
+
+		if (matcher.matches()) {
+			Type   type   = "After".equals(matcher.group(1)) ? Type.ACCESSED_AFTER : Type.ACCESSED_BEFORE;
+			String first  = quoted(matcher, 2);
+			String second = quoted(matcher, 4);
+
+			return second == null ? new RangerScriptConditionExpression(type, null, first, null, null, null) : new RangerScriptConditionExpression(type, first, second, null, null, null);
+		}
+
+		matcher = COMPARISON.matcher(expr);
+
+		if (matcher.matches()) {
+			String attrName = quoted(matcher, 1);
+
+			if (attrName == null) {
+				attrName = quoted(matcher, 3);
+			}
+
+			if (attrName == null || (isIndexed(matcher) && BEAN_PROPERTIES.contains(attrName))) {
+				return null;
+			}
+
+			String number = matcher.group(8);
+
+			return new RangerScriptConditionExpression(Type.COMPARISON, null, attrName, matcher.group(5), quoted(matcher, 6), number != null ? Double.valueOf(number) : null);
+		}
+
+		return null;
+	}
+
+	// returns the result of the script, or null if it must be evaluated by the script engine
+	Boolean evaluate(RangerScriptExecutionContext context, Map<String, String> tagAttribs) {
+		switch (type) {
+			case ACCESSED_AFTER:
+				return tagType == null ? context.isAccessedAfter(attrName) : context.isAccessedAfter(tagType, attrName);
+
+			case ACCESSED_BEFORE:
+				return tagType == null ? context.isAccessedBefore(attrName) : context.isAccessedBefore(tagType, attrName);
+
+			default:
+				return compare(tagAttribs != null ? tagAttribs.get(attrName) : null);
+		}
+	}
+
+	private Boolean compare(String value) {
+		final boolean isEquality = operator.startsWith("=") || operator.startsWith("!");
+		final boolean isNegated  = operator.startsWith("!");
+
+		if (value == null) {
+			// null equals only null/undefined, which is not a literal here; relational operators convert null to 0
+			return isEquality ? isNegated : null;
+		}
+
+		if (numberValue == null) { // string literal
+			if (isEquality) {
+				return isNegated != value.equals(stringValue);
+			}
+
+			return test(value.compareTo(stringValue));
+		}
+
+		if (operator.length() == 3) { // strict (in)equality of string and number
+			return isNegated;
+		}
+
+		String trimmed = value.trim();
+		double number;
+
+		if (trimmed.isEmpty()) {
+			number = 0;
+		} else if (DECIMAL.matcher(trimmed).matches()) {
+			number = Double.parseDouble(trimmed);
+		} else {
+			return null; // NaN, hex, Infinity etc: leave to the script engine
+		}
+
+		if (isEquality) {
+			return isNegated != (number == numberValue);
+		}
+
+		switch (operator) {
+			case "<":
+				return number < numberValue;
+			case "<=":
+				return number <= numberValue;
+			case ">":
+				return number > numberValue;
+			default:
+				return number >= numberValue;
+		}
+	}
+
+	private Boolean test(int comparison) {
+		switch (operator) {
+			case "<":
+				return comparison < 0;
+			case "<=":
+				return comparison <= 0;
+			case ">":
+				return comparison > 0;
+			default:
+				return comparison >= 0;
+		}
+	}
+
+	// tagAttr['name'] resolves to a Java bean property of the map, rather than to the entry, for these names
+	private static boolean isIndexed(Matcher matcher) {
+		return matcher.group(3) != null || matcher.group(4) != null;
+	}
+
+	private static String quoted(Matcher matcher, int group) {
+		String ret = matcher.group(group);
+
+		return ret != null ? ret : matcher.group(group + 1);
+	}
+}
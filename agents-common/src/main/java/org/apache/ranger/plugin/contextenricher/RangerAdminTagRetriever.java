@@ -66,5 +66,14 @@ public class RangerAdminTagRetriever extends RangerTagRetriever {
 		return serviceTags;
 	}
 
+	@Override
+	public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+		if (adminClient == null) {
+			throw new UnsupportedOperationException("no admin client");
+		}
+
+		return adminClient.waitForTagUpdate(lastKnownVersion, timeoutMs);
+	}
+
 }
 
@@ -36,14 +36,17 @@ import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.ChangeNotificationWatcher;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerPersistentLongMap;
 import org.apache.ranger.plugin.util.RangerResourceTrie;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
+import org.apache.ranger.plugin.util.RangerServiceTagsDeltaUtil;
 import org.apache.ranger.plugin.util.ServiceTags;
 
 import java.io.File;
@@ -56,6 +59,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -82,6 +86,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 
 	private final BlockingQueue<DownloadTrigger> tagDownloadQueue = new LinkedBlockingQueue<>();
 	private Timer                              tagDownloadTimer;
+	private ChangeNotificationWatcher          tagChangeNotificationWatcher;
 
 	@Override
 	public void init() {
@@ -151,6 +156,28 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					LOG.error("*** Tags will NOT be downloaded every " + pollingIntervalMs + " milliseconds ***");
 					tagDownloadTimer = null;
 				}
+
+				if (RangerConfiguration.getInstance().getBoolean(propertyPrefix + ".tag.notification.enabled", true)) {
+					long waitTimeoutMs = RangerConfiguration.getInstance().getLong(propertyPrefix + ".tag.notification.wait.timeoutMs", 60 * 1000);
+
+					final RangerTagRefresher refresher = tagRefresher;
+					final RangerTagRetriever retriever = tagRetriever;
+
+					ChangeNotificationWatcher.VersionSource versionSource = new ChangeNotificationWatcher.VersionSource() {
+						@Override
+						public long getLastKnownVersion() {
+							return refresher.getLastKnownVersion();
+						}
+
+						@Override
+						public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+							return retriever.waitForUpdate(lastKnownVersion, timeoutMs);
+						}
+					};
+
+					tagChangeNotificationWatcher = new ChangeNotificationWatcher("TagChangeNotificationWatcher(serviceName=" + serviceName + ")", versionSource, tagDownloadQueue, waitTimeoutMs, pollingIntervalMs);
+					tagChangeNotificationWatcher.start();
+				}
 			}
 		} else {
 			LOG.error("No value specified for " + TAG_RETRIEVER_CLASSNAME_OPTION + " in the RangerTagEnricher options");
@@ -246,90 +273,232 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	}
 
 	public void setServiceTags(final ServiceTags serviceTags) {
-		if (serviceTags == null || CollectionUtils.isEmpty(serviceTags.getServiceResources())) {
+		if (serviceTags != null && Boolean.TRUE.equals(serviceTags.getIsDelta())) {
+			enrichedServiceTags = applyServiceTagsDelta(enrichedServiceTags, serviceTags);
+		} else if (serviceTags == null || CollectionUtils.isEmpty(serviceTags.getServiceResources())) {
 			LOG.info("ServiceTags is null or there are no tagged resources for service " + serviceName);
 			enrichedServiceTags = null;
 		} else {
-			List<RangerServiceResourceMatcher> resourceMatchers = new ArrayList<>();
+			enrichedServiceTags = createEnrichedServiceTags(serviceTags);
+		}
 
-			RangerServiceDefHelper serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
+		Map<String, RangerBasePlugin> servicePluginMap = RangerBasePlugin.getServicePluginMap();
+		RangerBasePlugin plugin = servicePluginMap != null ? servicePluginMap.get(getServiceName()) : null;
+		if (plugin != null) {
+			RangerAuthContext currentAuthContext = plugin.getCurrentRangerAuthContext();
+			if (currentAuthContext != null) {
+				currentAuthContext.addOrReplaceRequestContextEnricher(this, enrichedServiceTags);
+				plugin.contextChanged();
+			}
+		}
 
-			List<RangerServiceResource> serviceResources = serviceTags.getServiceResources();
+	}
 
-			ResourceHierarchies hierarchies = new ResourceHierarchies();
+	protected Long getServiceTagsVersion() {
+		return enrichedServiceTags != null ? enrichedServiceTags.getServiceTags().getTagVersion() : null;
+	}
 
-			for (RangerServiceResource serviceResource : serviceResources) {
-				final Collection<String> resourceKeys = serviceResource.getResourceElements().keySet();
+	// complete set of tags in use, after applying deltas; null if there are no tagged resources
+	ServiceTags getServiceTags() {
+		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
 
-				for (int policyType : RangerPolicy.POLICY_TYPES) {
-					Boolean isValidHierarchy = hierarchies.isValidHierarchy(policyType, resourceKeys);
-					if (isValidHierarchy == null) { // hierarchy not yet validated
-						isValidHierarchy = Boolean.FALSE;
+		return enrichedServiceTags != null ? enrichedServiceTags.getServiceTags() : null;
+	}
 
-						for (List<RangerServiceDef.RangerResourceDef> hierarchy : serviceDefHelper.getResourceHierarchies(policyType)) {
-							if (serviceDefHelper.hierarchyHasAllResources(hierarchy, resourceKeys)) {
-								isValidHierarchy = Boolean.TRUE;
+	private EnrichedServiceTags createEnrichedServiceTags(final ServiceTags serviceTags) {
+		RangerServiceDefHelper             serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
+		List<RangerServiceResourceMatcher> resourceMatchers = createResourceMatchers(serviceTags.getServiceResources(), serviceDefHelper);
 
-								break;
-							}
-						}
+		Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
 
-						hierarchies.addHierarchy(policyType, resourceKeys, isValidHierarchy);
-					}
+		if (!disableTrieLookupPrefilter) {
+			serviceResourceTrie = new HashMap<>();
 
-					if (isValidHierarchy) {
-						RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
+			for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
+				serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie<RangerServiceResourceMatcher>(resourceDef, resourceMatchers));
+			}
+		}
 
-						matcher.setServiceDef(this.serviceDef);
-						matcher.setPolicyResources(serviceResource.getResourceElements(), policyType);
+		RangerPersistentLongMap.Editor<List<RangerServiceResourceMatcher>> resourceMatchersById = RangerPersistentLongMap.<List<RangerServiceResourceMatcher>>empty().edit();
 
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("RangerTagEnricher.setServiceTags() - Initializing matcher with (resource=" + serviceResource
-									+ ", serviceDef=" + this.serviceDef.getName() + ")");
+		addResourceMatchers(resourceMatchersById, resourceMatchers);
 
-						}
-						matcher.setServiceDefHelper(serviceDefHelper);
-						matcher.init();
+		return new EnrichedServiceTags(serviceTags, resourceMatchersById.build(), resourceMatchers, serviceResourceTrie);
+	}
 
-						RangerServiceResourceMatcher serviceResourceMatcher = new RangerServiceResourceMatcher(serviceResource, matcher);
-						resourceMatchers.add(serviceResourceMatcher);
-					}
+	/*
+	 * Applies the delta on the tags in use: matchers are kept by service-resource id, so that only the matchers of the
+	 * changed service-resources are looked up, replaced and updated in a copy of the tries; a delta that changes only
+	 * tags reuses the matchers and tries as they are
+	 */
+	private EnrichedServiceTags applyServiceTagsDelta(final EnrichedServiceTags current, final ServiceTags delta) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerTagEnricher.applyServiceTagsDelta(serviceName=" + serviceName + ", version=" + delta.getTagVersion() + ", extent=" + delta.getTagsChangeExtent() + ")");
+		}
+
+		RangerPerfTracer perf = null;
+
+		if (RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_INIT_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_INIT_LOG, "RangerTagEnricher.applyServiceTagsDelta(serviceName=" + serviceName + ",version=" + delta.getTagVersion() + ")");
+		}
+
+		final EnrichedServiceTags ret;
+		final ServiceTags         allServiceTags   = RangerServiceTagsDeltaUtil.applyDelta(current != null ? current.getServiceTags() : null, delta);
+		final int                 changedResources = delta.getServiceResources().size();
+
+		if (CollectionUtils.isEmpty(allServiceTags.getServiceResources())) {
+			LOG.info("There are no tagged resources for service " + serviceName + " after applying tag-delta");
+
+			ret = null;
+		} else if (current == null || changedResources > allServiceTags.getServiceResources().size() / 2) {
+			ret = createEnrichedServiceTags(allServiceTags);
+		} else if (changedResources == 0) {
+			ret = new EnrichedServiceTags(allServiceTags, current.getServiceResourceMatchersById(), null, current.getServiceResourceTrie());
+		} else {
+			RangerPersistentLongMap.Editor<List<RangerServiceResourceMatcher>> resourceMatchersById = current.getServiceResourceMatchersById().edit();
+			Map<Long, RangerServiceResource>                                    updatedResources     = new LinkedHashMap<>();
+			List<RangerServiceResourceMatcher>                                  removedMatchers      = new ArrayList<>();
+
+			for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+				List<RangerServiceResourceMatcher> resourceMatchers = resourceMatchersById.get(serviceResource.getId());
+
+				if (resourceMatchers != null) {
+					removedMatchers.addAll(resourceMatchers);
+
+					resourceMatchersById.remove(serviceResource.getId());
+				}
+
+				if (RangerServiceTagsDeltaUtil.isDeleted(serviceResource)) {
+					updatedResources.remove(serviceResource.getId());
+				} else {
+					updatedResources.put(serviceResource.getId(), serviceResource);
 				}
 			}
 
+			List<RangerServiceResourceMatcher> addedMatchers = createResourceMatchers(new ArrayList<>(updatedResources.values()), new RangerServiceDefHelper(serviceDef, false));
+
+			addResourceMatchers(resourceMatchersById, addedMatchers);
+
+			RangerPersistentLongMap<List<RangerServiceResourceMatcher>> allResourceMatchersById = resourceMatchersById.build();
 
 			Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = null;
 
-			if (!disableTrieLookupPrefilter) {
+			if (current.getServiceResourceTrie() != null) {
 				serviceResourceTrie = new HashMap<>();
 
 				for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-					serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie<RangerServiceResourceMatcher>(resourceDef, resourceMatchers));
+					RangerResourceTrie<RangerServiceResourceMatcher> currentTrie = current.getServiceResourceTrie().get(resourceDef.getName());
+					RangerResourceTrie<RangerServiceResourceMatcher> trie;
+
+					if (currentTrie == null) {
+						trie = new RangerResourceTrie<>(resourceDef, toList(allResourceMatchersById));
+					} else {
+						trie = new RangerResourceTrie<>(currentTrie);
+
+						for (RangerServiceResourceMatcher resourceMatcher : removedMatchers) {
+							trie.removeEvaluator(resourceDef, resourceMatcher);
+						}
+
+						for (RangerServiceResourceMatcher resourceMatcher : addedMatchers) {
+							trie.addEvaluator(resourceDef, resourceMatcher);
+						}
+
+						trie.wrapUpUpdate();
+					}
+
+					serviceResourceTrie.put(resourceDef.getName(), trie);
 				}
 			}
 
-			Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess = new HashSet<>();
-			for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
-				tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
-			}
+			ret = new EnrichedServiceTags(allServiceTags, allResourceMatchersById, null, serviceResourceTrie);
+		}
 
-			enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie, tagsForEmptyResourceAndAnyAccess);
+		RangerPerfTracer.log(perf);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerTagEnricher.applyServiceTagsDelta(serviceName=" + serviceName + ", version=" + delta.getTagVersion() + "): resources=" + allServiceTags.getServiceResources().size());
 		}
 
-		Map<String, RangerBasePlugin> servicePluginMap = RangerBasePlugin.getServicePluginMap();
-		RangerBasePlugin plugin = servicePluginMap != null ? servicePluginMap.get(getServiceName()) : null;
-		if (plugin != null) {
-			RangerAuthContext currentAuthContext = plugin.getCurrentRangerAuthContext();
-			if (currentAuthContext != null) {
-				currentAuthContext.addOrReplaceRequestContextEnricher(this, enrichedServiceTags);
-				plugin.contextChanged();
+		return ret;
+	}
+
+	private List<RangerServiceResourceMatcher> createResourceMatchers(List<RangerServiceResource> serviceResources, RangerServiceDefHelper serviceDefHelper) {
+		List<RangerServiceResourceMatcher> ret = new ArrayList<>();
+
+		ResourceHierarchies hierarchies = new ResourceHierarchies();
+
+		for (RangerServiceResource serviceResource : serviceResources) {
+			final Collection<String> resourceKeys = serviceResource.getResourceElements().keySet();
+
+			for (int policyType : RangerPolicy.POLICY_TYPES) {
+				Boolean isValidHierarchy = hierarchies.isValidHierarchy(policyType, resourceKeys);
+				if (isValidHierarchy == null) { // hierarchy not yet validated
+					isValidHierarchy = Boolean.FALSE;
+
+					for (List<RangerServiceDef.RangerResourceDef> hierarchy : serviceDefHelper.getResourceHierarchies(policyType)) {
+						if (serviceDefHelper.hierarchyHasAllResources(hierarchy, resourceKeys)) {
+							isValidHierarchy = Boolean.TRUE;
+
+							break;
+						}
+					}
+
+					hierarchies.addHierarchy(policyType, resourceKeys, isValidHierarchy);
+				}
+
+				if (isValidHierarchy) {
+					RangerDefaultPolicyResourceMatcher matcher = new RangerDefaultPolicyResourceMatcher();
+
+					matcher.setServiceDef(this.serviceDef);
+					matcher.setPolicyResources(serviceResource.getResourceElements(), policyType);
+
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("RangerTagEnricher.setServiceTags() - Initializing matcher with (resource=" + serviceResource
+								+ ", serviceDef=" + this.serviceDef.getName() + ")");
+
+					}
+					matcher.setServiceDefHelper(serviceDefHelper);
+					matcher.init();
+
+					RangerServiceResourceMatcher serviceResourceMatcher = new RangerServiceResourceMatcher(serviceResource, matcher);
+					ret.add(serviceResourceMatcher);
+				}
 			}
 		}
 
+		return ret;
 	}
 
-	protected Long getServiceTagsVersion() {
-		return enrichedServiceTags != null ? enrichedServiceTags.getServiceTags().getTagVersion() : null;
+	private static void addResourceMatchers(RangerPersistentLongMap.Editor<List<RangerServiceResourceMatcher>> resourceMatchersById, List<RangerServiceResourceMatcher> resourceMatchers) {
+		for (RangerServiceResourceMatcher resourceMatcher : resourceMatchers) {
+			List<RangerServiceResourceMatcher> matchers = resourceMatchersById.get(resourceMatcher.getId());
+
+			matchers = matchers == null ? new ArrayList<RangerServiceResourceMatcher>(1) : new ArrayList<>(matchers);
+
+			matchers.add(resourceMatcher);
+
+			resourceMatchersById.put(resourceMatcher.getId(), matchers);
+		}
+	}
+
+	private static List<RangerServiceResourceMatcher> toList(RangerPersistentLongMap<List<RangerServiceResourceMatcher>> resourceMatchersById) {
+		List<RangerServiceResourceMatcher> ret = new ArrayList<>();
+
+		for (List<RangerServiceResourceMatcher> resourceMatchers : resourceMatchersById.values()) {
+			ret.addAll(resourceMatchers);
+		}
+
+		return ret;
+	}
+
+	private static Set<RangerTagForEval> getTagsForEmptyResourceAndAnyAccess(final ServiceTags serviceTags) {
+		Set<RangerTagForEval> ret = new HashSet<>();
+
+		for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
+			ret.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
+		}
+
+		return ret;
 	}
 
 	@Override
@@ -347,6 +516,11 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			tagDownloadTimer = null;
 		}
 
+		if (tagChangeNotificationWatcher != null) {
+			tagChangeNotificationWatcher.stopWatcher();
+			tagChangeNotificationWatcher = null;
+		}
+
 		if (tagRefresher != null) {
 			tagRefresher.cleanup();
 			tagRefresher = null;
@@ -540,22 +714,46 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	}
 
 	static private final class EnrichedServiceTags {
-		final private ServiceTags                        serviceTags;
-		final private List<RangerServiceResourceMatcher> serviceResourceMatchers;
-		final private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>>    serviceResourceTrie;
-		final private Set<RangerTagForEval>              tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'
-
-		EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers,
-							Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess) {
-			this.serviceTags             = serviceTags;
-			this.serviceResourceMatchers = serviceResourceMatchers;
-			this.serviceResourceTrie     = serviceResourceTrie;
-			this.tagsForEmptyResourceAndAnyAccess          = tagsForEmptyResourceAndAnyAccess;
+		final private ServiceTags                                                   serviceTags;
+		final private RangerPersistentLongMap<List<RangerServiceResourceMatcher>>   serviceResourceMatchersById;
+		final private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie;
+		private volatile List<RangerServiceResourceMatcher>                         serviceResourceMatchers;          // built on first use after a delta
+		private volatile Set<RangerTagForEval>                                      tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'; built on first use
+
+		EnrichedServiceTags(ServiceTags serviceTags, RangerPersistentLongMap<List<RangerServiceResourceMatcher>> serviceResourceMatchersById,
+							List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
+			this.serviceTags                 = serviceTags;
+			this.serviceResourceMatchersById = serviceResourceMatchersById;
+			this.serviceResourceMatchers     = serviceResourceMatchers;
+			this.serviceResourceTrie         = serviceResourceTrie;
 		}
 		ServiceTags getServiceTags() {return serviceTags;}
-		List<RangerServiceResourceMatcher> getServiceResourceMatchers() { return serviceResourceMatchers;}
+		RangerPersistentLongMap<List<RangerServiceResourceMatcher>> getServiceResourceMatchersById() { return serviceResourceMatchersById;}
 		Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> getServiceResourceTrie() { return serviceResourceTrie;}
-		Set<RangerTagForEval> getTagsForEmptyResourceAndAnyAccess() { return tagsForEmptyResourceAndAnyAccess;}
+
+		List<RangerServiceResourceMatcher> getServiceResourceMatchers() {
+			List<RangerServiceResourceMatcher> ret = serviceResourceMatchers;
+
+			if (ret == null) {
+				ret = toList(serviceResourceMatchersById);
+
+				serviceResourceMatchers = ret;
+			}
+
+			return ret;
+		}
+
+		Set<RangerTagForEval> getTagsForEmptyResourceAndAnyAccess() {
+			Set<RangerTagForEval> ret = tagsForEmptyResourceAndAnyAccess;
+
+			if (ret == null) {
+				ret = RangerTagEnricher.getTagsForEmptyResourceAndAnyAccess(serviceTags);
+
+				tagsForEmptyResourceAndAnyAccess = ret;
+			}
+
+			return ret;
+		}
 	}
 
 	static class RangerTagRefresher extends Thread {
@@ -563,7 +761,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 
 		private final RangerTagRetriever tagRetriever;
 		private final RangerTagEnricher tagEnricher;
-		private long lastKnownVersion = -1L;
+		private volatile long lastKnownVersion = -1L;
 		private final BlockingQueue<DownloadTrigger> tagDownloadQueue;
 		private long lastActivationTimeInMillis;
 
@@ -588,6 +786,10 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			return lastActivationTimeInMillis;
 		}
 
+		public long getLastKnownVersion() {
+			return lastKnownVersion;
+		}
+
 		public void setLastActivationTimeInMillis(long lastActivationTimeInMillis) {
 			this.lastActivationTimeInMillis = lastActivationTimeInMillis;
 		}
@@ -636,12 +838,17 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 						if (!hasProvidedTagsToReceiver) {
 							serviceTags = loadFromCache();
 						}
-					} else {
+					} else if (!Boolean.TRUE.equals(serviceTags.getIsDelta())) {
 						saveToCache(serviceTags);
 					}
 
 					if (serviceTags != null) {
 						tagEnricher.setServiceTags(serviceTags);
+
+						if (Boolean.TRUE.equals(serviceTags.getIsDelta())) {
+							saveToCache(getAllServiceTags(serviceTags));
+						}
+
 						LOG.info("RangerTagRefresher.populateTags() - Updated tags-cache to new version of tags, lastKnownVersion=" + lastKnownVersion + "; newVersion="
 								+ (serviceTags.getTagVersion() == null ? -1L : serviceTags.getTagVersion()));
 						hasProvidedTagsToReceiver = true;
@@ -666,6 +873,11 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					throw interruptedException;
 				} catch (Exception e) {
 					LOG.error("Encountered unexpected exception. Ignoring", e);
+
+					if (serviceTags != null && Boolean.TRUE.equals(serviceTags.getIsDelta())) {
+						// failed to apply the delta; download all tags next time
+						lastKnownVersion = -1L;
+					}
 				}
 
 			} else {
@@ -673,6 +885,20 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			}
 		}
 
+		private ServiceTags getAllServiceTags(ServiceTags delta) {
+			ServiceTags ret = tagEnricher.getServiceTags();
+
+			if (ret == null) { // no tagged resources left
+				ret = new ServiceTags();
+
+				ret.setServiceName(delta.getServiceName());
+				ret.setTagVersion(delta.getTagVersion());
+				ret.setTagUpdateTime(delta.getTagUpdateTime());
+			}
+
+			return ret;
+		}
+
 		void cleanup() {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("==> RangerTagRefresher.cleanup()");
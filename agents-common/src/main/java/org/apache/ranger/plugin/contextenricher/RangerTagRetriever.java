@@ -34,6 +34,15 @@ public abstract class RangerTagRetriever {
 
 	public abstract ServiceTags retrieveTags(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception;
 
+	/**
+	 * Blocks until the tag version moves past lastKnownVersion, or until timeoutMs elapses.
+	 * @return the new tag version; null if there was no change within timeoutMs
+	 * @throws UnsupportedOperationException if this retriever doesn't support change notifications
+	 */
+	public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+		throw new UnsupportedOperationException(getClass().getName() + ".waitForUpdate");
+	}
+
 	public String getServiceName() {
 		return serviceName;
 	}
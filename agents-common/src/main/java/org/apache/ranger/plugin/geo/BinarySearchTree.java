@@ -96,7 +96,7 @@ public class BinarySearchTree<T extends Comparable<T> & RangeChecker<V>, V> {
 		root = newRoot;
 	}
 
-	void rebalance() {
+	public void rebalance() {
 		Node<T> dummy = new Node<T>(null);
 		dummy.setRight(root);
 
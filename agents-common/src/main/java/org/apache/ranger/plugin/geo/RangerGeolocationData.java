@@ -23,6 +23,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Objects;
@@ -71,7 +72,8 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 		return data;
 	}
 
-	private RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
+	// IPv6 ranges have fromIPAddress and toIPAddress 0
+	RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
 		this.fromIPAddress = fromIPAddress;
 		this.toIPAddress = toIPAddress;
 		this.locationData = locationData;
@@ -151,6 +153,39 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 		return ret;
 	}
 
+	/**
+	 * @return the address as 4 (IPv4) or 16 (IPv6) bytes in network byte order, or null if it is not a valid address.
+	 *         Addresses not in dot (or IPv6 colon) notation are unsigned integers, up to 32 bits for IPv4 and 128 bits for IPv6
+	 */
+	public static byte[] ipAddressToBytes(final String ipAddress, final boolean ipInDotNotation) {
+		byte[] ret = null;
+
+		if (StringUtils.isEmpty(ipAddress)) {
+			return ret;
+		}
+
+		if (!ipInDotNotation) {
+			if (StringUtils.isNumeric(ipAddress)) {
+				byte[] val    = new BigInteger(ipAddress).toByteArray(); // big-endian, with a leading 0 byte for the sign if needed
+				int    length = val.length - (val[0] == 0 && val.length > 1 ? 1 : 0);
+
+				if (length <= 16) {
+					ret = new byte[length <= 4 ? 4 : 16];
+
+					System.arraycopy(val, val.length - length, ret, ret.length - length, length);
+				}
+			}
+		} else {
+			try {
+				ret = InetAddress.getByName(ipAddress).getAddress();
+			} catch (UnknownHostException exception) {
+				LOG.error("RangerGeolocationData.ipAddressToBytes() - Invalid IP address " + ipAddress);
+			}
+		}
+
+		return ret;
+	}
+
 	public static String unsignedIntToIPAddress(final long val) {
 		if (val <= 0) {
 			return "";
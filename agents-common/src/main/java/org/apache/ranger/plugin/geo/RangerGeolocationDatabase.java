@@ -26,7 +26,7 @@ import org.apache.commons.logging.LogFactory;
 public class RangerGeolocationDatabase {
 	private static final Log LOG = LogFactory.getLog(RangerGeolocationDatabase.class);
 
-	private BinarySearchTree<RangerGeolocationData, Long> data = new BinarySearchTree<>();
+	private RangerGeolocationIndex index = new RangerGeolocationIndex.Builder(null).build();
 
 	private GeolocationMetadata metadata = new GeolocationMetadata();
 
@@ -55,35 +55,29 @@ public class RangerGeolocationDatabase {
 	public RangerGeolocationData find(final String ipAddressStr) {
 		RangerGeolocationData ret = null;
 
-		if (StringUtils.isNotBlank(ipAddressStr) && RangerGeolocationData.validateAsIP(ipAddressStr, true)) {
-			ret = data.find(RangerGeolocationData.ipAddressToLong(ipAddressStr));
+		if (StringUtils.isNotBlank(ipAddressStr)) {
+			ret = index.find(RangerGeolocationData.ipAddressToBytes(ipAddressStr, true));
 		}
 		return ret;
 	}
 
-	public void optimize() {
-		long start = 0L, end = 0L;
-
-		start = System.currentTimeMillis();
-		data.rebalance();
-		end = System.currentTimeMillis();
-
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("RangerGeolocationDatabase.optimize() - Time taken for optimizing database = " + (end - start) + " milliseconds");
+	public void setIndex(final RangerGeolocationIndex indexArg) {
+		if (indexArg != null) {
+			index    = indexArg;
+			metadata = new GeolocationMetadata(indexArg.getAttributeNames());
+		} else {
+			index    = new RangerGeolocationIndex.Builder(null).build();
+			metadata = new GeolocationMetadata();
 		}
 	}
 
-	public void setData(final BinarySearchTree<RangerGeolocationData, Long> dataArg) { data = dataArg != null ? dataArg : new BinarySearchTree<RangerGeolocationData, Long>();}
-
-	public void setMetadata(final GeolocationMetadata metadataArg) { metadata = metadataArg != null ? metadataArg : new GeolocationMetadata();}
+	public RangerGeolocationIndex getIndex() { return index; }
 
 	public GeolocationMetadata getMetadata() { return metadata; }
 
-	public BinarySearchTree<RangerGeolocationData, Long> getData() { return data; }
-
 	public void dump(ValuePrinter<RangerGeolocationData> processor) {
 
-		BinarySearchTree<RangerGeolocationData, Long> geoDatabase = getData();
+		RangerGeolocationIndex geoDatabase = getIndex();
 		GeolocationMetadata metadata = getMetadata();
 		processor.build();
 
@@ -91,7 +85,7 @@ public class RangerGeolocationDatabase {
 		processor.print(metadata.toString());
 
 		processor.print("#================== Dump of geoDatabase - START ==================");
-		geoDatabase.preOrderTraverseTree(processor);
+		geoDatabase.traverse(processor);
 		processor.print("#================== Dump of geoDatabase - END   ==================");
 
 		processor.close();
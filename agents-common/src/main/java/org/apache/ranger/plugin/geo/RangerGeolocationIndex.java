@@ -0,0 +1,568 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Geolocation ranges as sorted arrays of start and end addresses, searched with binary search. Location values are
+ * dictionary-encoded: each distinct value is kept once, and ranges with the same location values share one row.
+ * IPv4 ranges are kept as one long per address; IPv6 ranges as two longs (high and low 64 bits) per address.
+ *
+ * <pre>
+ *   int    magic
+ *   int    format version
+ *   long   CRC32 of everything that follows the header
+ *   int    length of everything that follows the header
+ *   attribute names:  count, then each as length + UTF-8 bytes
+ *   string table:     count, then each as length + UTF-8 bytes
+ *   rows:             count, then each as value count + string table index of each value
+ *   IPv4 ranges:      count, start addresses (long), end addresses (long), row of each range (int)
+ *   IPv6 ranges:      count, start addresses (2 longs), end addresses (2 longs), row of each range (int)
+ * </pre>
+ *
+ * The file is memory-mapped on read; the range arrays are searched in the mapped file and are not copied to the heap.
+ */
+public final class RangerGeolocationIndex {
+	private static final Log LOG = LogFactory.getLog(RangerGeolocationIndex.class);
+
+	public static final int MAGIC          = 0x8952474F; // "\x89RGO": not valid as the first bytes of a text file
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int HEADER_LENGTH = 4 + 4 + 8 + 4;
+
+	private final String[]   attributeNames;
+	private final String[][] rows;
+	private final int        ipv4Count;
+	private final LongBuffer ipv4Starts;
+	private final LongBuffer ipv4Ends;
+	private final IntBuffer  ipv4Rows;
+	private final int        ipv6Count;
+	private final LongBuffer ipv6Starts;
+	private final LongBuffer ipv6Ends;
+	private final IntBuffer  ipv6Rows;
+
+	private RangerGeolocationIndex(String[] attributeNames, String[][] rows, LongBuffer ipv4Starts, LongBuffer ipv4Ends, IntBuffer ipv4Rows, LongBuffer ipv6Starts, LongBuffer ipv6Ends, IntBuffer ipv6Rows) {
+		this.attributeNames = attributeNames;
+		this.rows           = rows;
+		this.ipv4Count      = ipv4Rows.limit();
+		this.ipv4Starts     = ipv4Starts;
+		this.ipv4Ends       = ipv4Ends;
+		this.ipv4Rows       = ipv4Rows;
+		this.ipv6Count      = ipv6Rows.limit();
+		this.ipv6Starts     = ipv6Starts;
+		this.ipv6Ends       = ipv6Ends;
+		this.ipv6Rows       = ipv6Rows;
+	}
+
+	public String[] getAttributeNames() {
+		return attributeNames;
+	}
+
+	public int getRangeCount() {
+		return ipv4Count + ipv6Count;
+	}
+
+	/**
+	 * @param address IPv4 (4 bytes) or IPv6 (16 bytes) address, in network byte order
+	 * @return the range containing the address, or null if none does
+	 */
+	public RangerGeolocationData find(byte[] address) {
+		RangerGeolocationData ret = null;
+
+		if (address != null && address.length == 4) {
+			long ip  = toLong(address, 0, 4);
+			int  idx = floorIpv4(ip);
+
+			if (idx >= 0 && ip <= ipv4Ends.get(idx)) {
+				ret = new RangerGeolocationData(ipv4Starts.get(idx), ipv4Ends.get(idx), rows[ipv4Rows.get(idx)]);
+			}
+		} else if (address != null && address.length == 16) {
+			long high = toLong(address, 0, 8);
+			long low  = toLong(address, 8, 8);
+			int  idx  = floorIpv6(high, low);
+
+			if (idx >= 0 && compare(high, low, ipv6Ends.get(2 * idx), ipv6Ends.get(2 * idx + 1)) <= 0) {
+				ret = new RangerGeolocationData(0, 0, rows[ipv6Rows.get(idx)]);
+			}
+		}
+
+		return ret;
+	}
+
+	public void traverse(ValueProcessor<RangerGeolocationData> processor) {
+		for (int i = 0; i < ipv4Count; i++) {
+			processor.process(new RangerGeolocationData(ipv4Starts.get(i), ipv4Ends.get(i), rows[ipv4Rows.get(i)]));
+		}
+
+		for (int i = 0; i < ipv6Count; i++) {
+			processor.process(new RangerGeolocationData(0, 0, rows[ipv6Rows.get(i)]));
+		}
+	}
+
+	public void write(File file) throws IOException {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerGeolocationIndex.write(" + file + ")");
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream      body  = new DataOutputStream(bytes);
+
+		writeStrings(body, Arrays.asList(attributeNames));
+
+		Map<String, Integer> stringIndex = new HashMap<>();
+		List<String>         strings     = new ArrayList<>();
+
+		for (String[] row : rows) {
+			for (String value : row) {
+				if (!stringIndex.containsKey(value)) {
+					stringIndex.put(value, strings.size());
+					strings.add(value);
+				}
+			}
+		}
+
+		writeStrings(body, strings);
+
+		body.writeInt(rows.length);
+
+		for (String[] row : rows) {
+			body.writeInt(row.length);
+
+			for (String value : row) {
+				body.writeInt(stringIndex.get(value));
+			}
+		}
+
+		writeRanges(body, ipv4Count, 1, ipv4Starts, ipv4Ends, ipv4Rows);
+		writeRanges(body, ipv6Count, 2, ipv6Starts, ipv6Ends, ipv6Rows);
+
+		body.flush();
+
+		byte[] content = bytes.toByteArray();
+		CRC32  crc     = new CRC32();
+
+		crc.update(content, 0, content.length);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+
+		header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(crc.getValue()).putInt(content.length);
+
+		File tmpFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+
+		try (OutputStream out = new FileOutputStream(tmpFile)) {
+			out.write(header.array());
+			out.write(content);
+		}
+
+		try {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException excp) {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerGeolocationIndex.write(" + file + "): ranges=" + getRangeCount() + ", size=" + (HEADER_LENGTH + content.length));
+		}
+	}
+
+	public static boolean isIndexFile(File file) {
+		boolean ret = false;
+
+		if (file.isFile() && file.length() >= HEADER_LENGTH) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				ByteBuffer magic = ByteBuffer.allocate(4);
+
+				while (magic.hasRemaining() && channel.read(magic) >= 0) {
+					// read the magic
+				}
+
+				ret = !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+			} catch (IOException excp) {
+				LOG.warn("RangerGeolocationIndex.isIndexFile(" + file + "): failed to read", excp);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return index read from the file; the range arrays stay in the memory-mapped file
+	 * @throws IOException if the file can't be read, is not in this format, or fails the checksum
+	 */
+	public static RangerGeolocationIndex read(File file) throws IOException {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerGeolocationIndex.read(" + file + ")");
+		}
+
+		final MappedByteBuffer buffer;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.remaining() < HEADER_LENGTH) {
+			throw new IOException(file + ": not a geolocation index file");
+		}
+
+		int  magic      = buffer.getInt();
+		int  version    = buffer.getInt();
+		long checksum   = buffer.getLong();
+		int  bodyLength = buffer.getInt();
+
+		if (magic != MAGIC) {
+			throw new IOException(file + ": not a geolocation index file");
+		}
+
+		if (version != FORMAT_VERSION) {
+			throw new IOException(file + ": unsupported geolocation index format version " + version + "; expected " + FORMAT_VERSION);
+		}
+
+		if (bodyLength != buffer.remaining()) {
+			throw new IOException(file + ": truncated geolocation index file. Expected " + bodyLength + " bytes, found " + buffer.remaining());
+		}
+
+		ByteBuffer body = buffer.slice();
+		CRC32      crc  = new CRC32();
+
+		crc.update(body.duplicate());
+
+		if (crc.getValue() != checksum) {
+			throw new IOException(file + ": geolocation index file checksum mismatch");
+		}
+
+		final RangerGeolocationIndex ret;
+
+		try {
+			String[] attributeNames = readStrings(body);
+			String[] strings        = readStrings(body);
+			String[][] rows         = new String[body.getInt()][];
+
+			for (int i = 0; i < rows.length; i++) {
+				String[] row = new String[body.getInt()];
+
+				for (int j = 0; j < row.length; j++) {
+					row[j] = strings[body.getInt()];
+				}
+
+				rows[i] = row;
+			}
+
+			int        ipv4Count  = body.getInt();
+			LongBuffer ipv4Starts = slice(body, ipv4Count * 8).asLongBuffer();
+			LongBuffer ipv4Ends   = slice(body, ipv4Count * 8).asLongBuffer();
+			IntBuffer  ipv4Rows   = slice(body, ipv4Count * 4).asIntBuffer();
+			int        ipv6Count  = body.getInt();
+			LongBuffer ipv6Starts = slice(body, ipv6Count * 16).asLongBuffer();
+			LongBuffer ipv6Ends   = slice(body, ipv6Count * 16).asLongBuffer();
+			IntBuffer  ipv6Rows   = slice(body, ipv6Count * 4).asIntBuffer();
+
+			ret = new RangerGeolocationIndex(attributeNames, rows, ipv4Starts, ipv4Ends, ipv4Rows, ipv6Starts, ipv6Ends, ipv6Rows);
+
+			ret.validate();
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException excp) {
+			throw new IOException(file + ": corrupt geolocation index file", excp);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerGeolocationIndex.read(" + file + "): ranges=" + ret.getRangeCount());
+		}
+
+		return ret;
+	}
+
+	private int floorIpv4(long ip) {
+		int low  = 0;
+		int high = ipv4Count - 1;
+
+		while (low <= high) {
+			int  mid   = (low + high) >>> 1;
+			long start = ipv4Starts.get(mid);
+
+			if (start <= ip) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		return high;
+	}
+
+	private int floorIpv6(long ipHigh, long ipLow) {
+		int low  = 0;
+		int high = ipv6Count - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if (compare(ipv6Starts.get(2 * mid), ipv6Starts.get(2 * mid + 1), ipHigh, ipLow) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		return high;
+	}
+
+	// row indexes come from the file; check them once here instead of on each lookup
+	private void validate() {
+		for (int i = 0; i < ipv4Count; i++) {
+			checkRow(ipv4Rows.get(i));
+		}
+
+		for (int i = 0; i < ipv6Count; i++) {
+			checkRow(ipv6Rows.get(i));
+		}
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= rows.length) {
+			throw new IndexOutOfBoundsException("row " + row + " of " + rows.length);
+		}
+	}
+
+	private static int compare(long high1, long low1, long high2, long low2) {
+		int ret = Long.compareUnsigned(high1, high2);
+
+		return ret != 0 ? ret : Long.compareUnsigned(low1, low2);
+	}
+
+	private static long toLong(byte[] bytes, int offset, int length) {
+		long ret = 0;
+
+		for (int i = offset; i < offset + length; i++) {
+			ret = (ret << 8) | (bytes[i] & 0xFF);
+		}
+
+		return ret;
+	}
+
+	private static ByteBuffer slice(ByteBuffer in, int length) {
+		if (length < 0 || length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+
+		ByteBuffer ret = in.duplicate();
+
+		ret.limit(ret.position() + length);
+		in.position(in.position() + length);
+
+		return ret.slice();
+	}
+
+	private static void writeRanges(DataOutputStream out, int count, int longsPerAddress, LongBuffer starts, LongBuffer ends, IntBuffer rows) throws IOException {
+		out.writeInt(count);
+
+		for (int i = 0; i < count * longsPerAddress; i++) {
+			out.writeLong(starts.get(i));
+		}
+
+		for (int i = 0; i < count * longsPerAddress; i++) {
+			out.writeLong(ends.get(i));
+		}
+
+		for (int i = 0; i < count; i++) {
+			out.writeInt(rows.get(i));
+		}
+	}
+
+	private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+		out.writeInt(strings.size());
+
+		for (String str : strings) {
+			byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String[] readStrings(ByteBuffer in) {
+		String[] ret = new String[in.getInt()];
+
+		for (int i = 0; i < ret.length; i++) {
+			byte[] bytes = new byte[in.getInt()];
+
+			in.get(bytes);
+
+			ret[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Collects ranges in any order, and builds the sorted index. Where ranges overlap, an address is found in the
+	 * range that starts closest before it.
+	 */
+	public static class Builder {
+		private final String[]                   attributeNames;
+		private final Map<String, String>        strings = new HashMap<>();
+		private final Map<List<String>, Integer> rowIds  = new HashMap<>();
+		private final List<String[]>             rows    = new ArrayList<>();
+		private final List<Range>                ipv4    = new ArrayList<>();
+		private final List<Range>                ipv6    = new ArrayList<>();
+
+		public Builder(String[] attributeNames) {
+			this.attributeNames = attributeNames != null ? attributeNames : new String[0];
+		}
+
+		/**
+		 * @return false if the addresses are not both IPv4 or both IPv6, or if from is greater than to
+		 */
+		public boolean add(byte[] from, byte[] to, String[] locationData) {
+			if (from == null || to == null || from.length != to.length || (from.length != 4 && from.length != 16)) {
+				return false;
+			}
+
+			final Range range;
+
+			if (from.length == 4) {
+				range = new Range(0, toLong(from, 0, 4), 0, toLong(to, 0, 4));
+			} else {
+				range = new Range(toLong(from, 0, 8), toLong(from, 8, 8), toLong(to, 0, 8), toLong(to, 8, 8));
+			}
+
+			if (compare(range.startHigh, range.startLow, range.endHigh, range.endLow) > 0) {
+				return false;
+			}
+
+			range.row = getRowId(locationData);
+
+			(from.length == 4 ? ipv4 : ipv6).add(range);
+
+			return true;
+		}
+
+		public RangerGeolocationIndex build() {
+			Collections.sort(ipv4, Range.START_ORDER);
+			Collections.sort(ipv6, Range.START_ORDER);
+
+			long[] ipv4Starts = new long[ipv4.size()];
+			long[] ipv4Ends   = new long[ipv4.size()];
+			int[]  ipv4Rows   = new int[ipv4.size()];
+			long[] ipv6Starts = new long[2 * ipv6.size()];
+			long[] ipv6Ends   = new long[2 * ipv6.size()];
+			int[]  ipv6Rows   = new int[ipv6.size()];
+
+			for (int i = 0; i < ipv4.size(); i++) {
+				Range range = ipv4.get(i);
+
+				ipv4Starts[i] = range.startLow;
+				ipv4Ends[i]   = range.endLow;
+				ipv4Rows[i]   = range.row;
+			}
+
+			for (int i = 0; i < ipv6.size(); i++) {
+				Range range = ipv6.get(i);
+
+				ipv6Starts[2 * i]     = range.startHigh;
+				ipv6Starts[2 * i + 1] = range.startLow;
+				ipv6Ends[2 * i]       = range.endHigh;
+				ipv6Ends[2 * i + 1]   = range.endLow;
+				ipv6Rows[i]           = range.row;
+			}
+
+			return new RangerGeolocationIndex(attributeNames, rows.toArray(new String[rows.size()][]),
+			                                  LongBuffer.wrap(ipv4Starts), LongBuffer.wrap(ipv4Ends), IntBuffer.wrap(ipv4Rows),
+			                                  LongBuffer.wrap(ipv6Starts), LongBuffer.wrap(ipv6Ends), IntBuffer.wrap(ipv6Rows));
+		}
+
+		private int getRowId(String[] locationData) {
+			String[] row = new String[locationData != null ? locationData.length : 0];
+
+			for (int i = 0; i < row.length; i++) {
+				String value  = locationData[i] != null ? locationData[i] : "";
+				String shared = strings.get(value);
+
+				if (shared == null) {
+					shared = value;
+
+					strings.put(shared, shared);
+				}
+
+				row[i] = shared;
+			}
+
+			List<String> key = Arrays.asList(row);
+			Integer      ret = rowIds.get(key);
+
+			if (ret == null) {
+				ret = rows.size();
+
+				rows.add(row);
+				rowIds.put(key, ret);
+			}
+
+			return ret;
+		}
+	}
+
+	private static final class Range {
+		static final Comparator<Range> START_ORDER = new Comparator<Range>() {
+			@Override
+			public int compare(Range r1, Range r2) {
+				return RangerGeolocationIndex.compare(r1.startHigh, r1.startLow, r2.startHigh, r2.startLow);
+			}
+		};
+
+		final long startHigh;
+		final long startLow;
+		final long endHigh;
+		final long endLow;
+		int        row;
+
+		Range(long startHigh, long startLow, long endHigh, long endLow) {
+			this.startHigh = startHigh;
+			this.startLow  = startLow;
+			this.endHigh   = endHigh;
+			this.endLow    = endLow;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache safe for concurrent use, intended as a replacement for a synchronized CacheMap on hot paths.
+ *
+ * Entries are spread over a number of segments, each with its own lock and CLOCK (second-chance) eviction.
+ * get() never takes a lock: it reads from a ConcurrentHashMap and sets the referenced bit of the entry.
+ * put() locks only the segment the key hashes to.
+ */
+public class RangerConcurrentCache<K, V> {
+    private static final Log LOG = LogFactory.getLog(RangerConcurrentCache.class);
+
+    private static final int MAX_SEGMENT_COUNT        = 64;
+    private static final int MIN_ENTRIES_PER_SEGMENT  = 16;
+
+    private final String       name;
+    private final int          capacity;
+    private final Segment<K,V>[] segments;
+    private final int          segmentMask;
+    private final LongAdder    hitCount      = new LongAdder();
+    private final LongAdder    missCount     = new LongAdder();
+    private final LongAdder    evictionCount = new LongAdder();
+
+    public RangerConcurrentCache(String name, int capacity) {
+        this(name, capacity, getDefaultSegmentCount(capacity));
+    }
+
+    @SuppressWarnings("unchecked")
+    public RangerConcurrentCache(String name, int capacity, int segmentCount) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+
+        int numOfSegments = 1;
+
+        while (numOfSegments < segmentCount && numOfSegments < MAX_SEGMENT_COUNT && (numOfSegments << 1) <= capacity) {
+            numOfSegments <<= 1;
+        }
+
+        this.name        = name;
+        this.capacity    = capacity;
+        this.segments    = new Segment[numOfSegments];
+        this.segmentMask = numOfSegments - 1;
+
+        int segmentCapacity = capacity / numOfSegments;
+        int remainder       = capacity % numOfSegments;
+
+        for (int i = 0; i < numOfSegments; i++) {
+            segments[i] = new Segment<>(i < remainder ? segmentCapacity + 1 : segmentCapacity);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerConcurrentCache(name=" + name + ", capacity=" + capacity + ", segments=" + numOfSegments + ")");
+        }
+    }
+
+    public V get(K key) {
+        Node<K,V> node = segmentFor(key).map.get(key);
+
+        if (node != null) {
+            node.referenced = true;
+
+            hitCount.increment();
+
+            return node.value;
+        }
+
+        missCount.increment();
+
+        return null;
+    }
+
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+
+        if (segmentFor(key).put(key, value)) {
+            evictionCount.increment();
+        }
+    }
+
+    public void clear() {
+        for (Segment<K,V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int ret = 0;
+
+        for (Segment<K,V> segment : segments) {
+            ret += segment.map.size();
+        }
+
+        return ret;
+    }
+
+    public String getName() { return name; }
+
+    public int getCapacity() { return capacity; }
+
+    public int getSegmentCount() { return segments.length; }
+
+    public long getHitCount() { return hitCount.sum(); }
+
+    public long getMissCount() { return missCount.sum(); }
+
+    public long getEvictionCount() { return evictionCount.sum(); }
+
+    @Override
+    public String toString() {
+        return "RangerConcurrentCache={name=" + name + ", capacity=" + capacity + ", segments=" + segments.length + ", size=" + size()
+                + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+    }
+
+    private Segment<K,V> segmentFor(K key) {
+        int h = key.hashCode();
+
+        h ^= (h >>> 16);
+
+        return segments[h & segmentMask];
+    }
+
+    private static int getDefaultSegmentCount(int capacity) {
+        int ret = Runtime.getRuntime().availableProcessors() * 2;
+
+        return Math.max(1, Math.min(ret, capacity / MIN_ENTRIES_PER_SEGMENT));
+    }
+
+    private static final class Node<K, V> {
+        final K          key;
+        volatile V       value;
+        volatile boolean referenced;
+
+        Node(K key, V value) {
+            this.key   = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        final ConcurrentHashMap<K, Node<K,V>> map;
+        final Node<K,V>[]                     ring;
+        int                                   hand;
+        int                                   count;
+
+        @SuppressWarnings("unchecked")
+        Segment(int capacity) {
+            this.map  = new ConcurrentHashMap<>(capacity);
+            this.ring = new Node[Math.max(1, capacity)];
+        }
+
+        // returns true if an entry was evicted to make room for the given key
+        synchronized boolean put(K key, V value) {
+            Node<K,V> existing = map.get(key);
+
+            if (existing != null) {
+                existing.value = value;
+
+                return false;
+            }
+
+            Node<K,V> node    = new Node<>(key, value);
+            boolean   evicted = false;
+
+            if (count < ring.length) {
+                ring[count++] = node;
+            } else {
+                // CLOCK: give recently read entries a second chance, evict the first one not referenced since the last sweep
+                while (true) {
+                    Node<K,V> candidate = ring[hand];
+
+                    if (candidate.referenced) {
+                        candidate.referenced = false;
+
+                        hand = (hand + 1) % ring.length;
+                    } else {
+                        map.remove(candidate.key);
+
+                        ring[hand] = node;
+                        hand       = (hand + 1) % ring.length;
+                        evicted    = true;
+
+                        break;
+                    }
+                }
+            }
+
+            map.put(key, node);
+
+            return evicted;
+        }
+
+        synchronized void clear() {
+            map.clear();
+
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = null;
+            }
+
+            hand  = 0;
+            count = 0;
+        }
+    }
+}
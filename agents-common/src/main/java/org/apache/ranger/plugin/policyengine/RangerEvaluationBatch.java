@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.util.RangerPrincipalDictionary;
+import org.apache.ranger.plugin.util.RangerResourceTrie;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Lookups made while evaluating the requests of one evaluatePolicies(Collection) call, memoized for the rest of the call.
+ * Requests of a batch - like the column-level requests of a Hive query - usually share user, groups and most resource
+ * levels: with this, each trie is looked up once per distinct value of its resource level, the zone is resolved once per
+ * distinct resource and the principal index is looked up once per distinct user/groups. The lookups memoized depend only
+ * on their arguments and on the policy engine, which doesn't change during the call; hence the results are the same as
+ * evaluating the requests one at a time. Used by a single thread.
+ */
+class RangerEvaluationBatch {
+	private final Map<RangerResourceTrie, Map<Object, int[]>>  evaluatorIndexes = new IdentityHashMap<>(); // by trie, by resource value
+	private final Map<RangerResourceTrie, Map<Object, Set>>    evaluators       = new IdentityHashMap<>(); // by trie, by resource value
+	private final Map<Map<String, Object>, String>             zoneNames        = new HashMap<>();         // by resource
+	private       RangerPolicyPrincipalIndex                   principalIndex;
+	private       RangerPrincipalDictionary.RequestPrincipals  principals;
+	private       int[][]                                      principalEvaluatorIndexes;
+
+	int[] getEvaluatorIndexesForResource(RangerResourceTrie trie, Object resourceValue) {
+		Map<Object, int[]> trieIndexes = evaluatorIndexes.get(trie);
+
+		if (trieIndexes == null) {
+			trieIndexes = new HashMap<>();
+
+			evaluatorIndexes.put(trie, trieIndexes);
+		}
+
+		int[] ret = trieIndexes.get(resourceValue);
+
+		if (ret == null && !trieIndexes.containsKey(resourceValue)) {
+			ret = trie.getEvaluatorIndexesForResource(resourceValue);
+
+			trieIndexes.put(resourceValue, ret);
+		}
+
+		return ret;
+	}
+
+	<T> Set<T> getEvaluatorsForResource(RangerResourceTrie<T> trie, Object resourceValue) {
+		Map<Object, Set> trieEvaluators = evaluators.get(trie);
+
+		if (trieEvaluators == null) {
+			trieEvaluators = new HashMap<>();
+
+			evaluators.put(trie, trieEvaluators);
+		}
+
+		Set<T> ret = trieEvaluators.get(resourceValue);
+
+		if (ret == null && !trieEvaluators.containsKey(resourceValue)) {
+			ret = trie.getEvaluatorsForResource(resourceValue);
+
+			trieEvaluators.put(resourceValue, ret);
+		}
+
+		return ret;
+	}
+
+	boolean isZoneNameKnown(RangerAccessResource resource) {
+		return zoneNames.containsKey(resource.getAsMap());
+	}
+
+	String getZoneName(RangerAccessResource resource) {
+		return zoneNames.get(resource.getAsMap());
+	}
+
+	void setZoneName(RangerAccessResource resource, String zoneName) {
+		zoneNames.put(new HashMap<>(resource.getAsMap()), zoneName);
+	}
+
+	// the last lookup is kept; preProcess(Collection) sets the same RequestPrincipals in requests of the same user and groups
+	int[][] getEvaluatorIndexes(RangerPolicyPrincipalIndex principalIndex, RangerPrincipalDictionary.RequestPrincipals principals) {
+		if (this.principalIndex != principalIndex || this.principals != principals) {
+			this.principalIndex            = principalIndex;
+			this.principals                = principals;
+			this.principalEvaluatorIndexes = principalIndex.getEvaluatorIndexes(principals);
+		}
+
+		return principalEvaluatorIndexes;
+	}
+}
@@ -87,6 +87,8 @@ public interface RangerPolicyEngine {
 
 	List<RangerPolicy> getMatchingPolicies(RangerAccessRequest request);
 
+	boolean isAccessUniformForDescendants(RangerAccessRequest request);
+
 	RangerResourceAccessInfo getResourceAccessInfo(RangerAccessRequest request);
 
 	List<RangerPolicy> getAllowedPolicies(String user, Set<String> userGroups, String accessType);
@@ -40,12 +40,14 @@ import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerPrincipalDictionary;
 import org.apache.ranger.plugin.util.RangerResourceTrie;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.ServicePolicies;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -71,6 +73,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 	private final RangerPolicyRepository policyRepository;
 	private final RangerPolicyRepository tagPolicyRepository;
+	private final RangerPrincipalDictionary principalDictionary;
 
 	private boolean isPolicyRepositoryShared = false;
 	private boolean isTagPolicyRepositoryShared = false;
@@ -92,6 +95,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		this.useForwardedIPAddress = other.useForwardedIPAddress;
 		this.trustedProxyAddresses = other.trustedProxyAddresses;
+		this.principalDictionary   = other.principalDictionary; // evaluators of the other engine are carried over
 
 		List<RangerPolicyDelta> defaultZoneDeltas = new ArrayList<>();
 		List<RangerPolicyDelta> defaultZoneDeltasForTagPolicies = new ArrayList<>();
@@ -139,7 +143,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 						}
 						servicePolicies.getSecurityZones().get(zoneName).setPolicies(policies);
 
-						policyRepository = new RangerPolicyRepository(other.policyRepository.getAppId(), servicePolicies, other.policyRepository.getOptions(), zoneName);
+						policyRepository = new RangerPolicyRepository(other.policyRepository.getAppId(), servicePolicies, other.policyRepository.getOptions(), principalDictionary, zoneName);
 					} else {
 						policyRepository = new RangerPolicyRepository(otherRepository, zoneDeltas, policyVersion);
 					}
@@ -185,7 +189,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 						}
 					}
 					servicePolicies.getTagPolicies().setPolicies(tagPolicies);
-					this.tagPolicyRepository = new RangerPolicyRepository(other.policyRepository.getAppId(), servicePolicies.getTagPolicies(), other.policyRepository.getOptions(), servicePolicies.getServiceDef(), servicePolicies.getServiceName());
+					this.tagPolicyRepository = new RangerPolicyRepository(other.policyRepository.getAppId(), servicePolicies.getTagPolicies(), other.policyRepository.getOptions(), principalDictionary, servicePolicies.getServiceDef(), servicePolicies.getServiceName());
 				}
 			} else {
 				this.tagPolicyRepository = other.tagPolicyRepository;
@@ -251,7 +255,9 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			options.evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_OPTIMIZED;
 		}
 
-		policyRepository = new RangerPolicyRepository(appId, servicePolicies, options);
+		principalDictionary = new RangerPrincipalDictionary();
+
+		policyRepository = new RangerPolicyRepository(appId, servicePolicies, options, principalDictionary);
 
 		ServicePolicies.TagPolicies tagPolicies = servicePolicies.getTagPolicies();
 
@@ -265,7 +271,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 				LOG.debug("RangerPolicyEngineImpl : Building tag-policy-repository for tag-service " + tagPolicies.getServiceName());
 			}
 
-			tagPolicyRepository = new RangerPolicyRepository(appId, tagPolicies, options, servicePolicies.getServiceDef(), servicePolicies.getServiceName());
+			tagPolicyRepository = new RangerPolicyRepository(appId, tagPolicies, options, principalDictionary, servicePolicies.getServiceDef(), servicePolicies.getServiceName());
 
 		} else {
 			if (LOG.isDebugEnabled()) {
@@ -293,7 +299,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		if (MapUtils.isNotEmpty(servicePolicies.getSecurityZones())) {
 			buildZoneTrie(servicePolicies);
 			for (Map.Entry<String, ServicePolicies.SecurityZoneInfo> zone : servicePolicies.getSecurityZones().entrySet()) {
-				RangerPolicyRepository policyRepository = new RangerPolicyRepository(appId, servicePolicies, options, zone.getKey());
+				RangerPolicyRepository policyRepository = new RangerPolicyRepository(appId, servicePolicies, options, principalDictionary, zone.getKey());
 				policyRepositories.put(zone.getKey(), policyRepository);
 			}
 		}
@@ -398,12 +404,21 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			LOG.debug("==> RangerPolicyEngineImpl.preProcess(" + request + ")");
 		}
 
+		preProcess(request, principalDictionary.getRequestPrincipals(request.getUser(), request.getUserGroups()));
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyEngineImpl.preProcess(" + request + ")");
+		}
+	}
+
+	private void preProcess(RangerAccessRequest request, RangerPrincipalDictionary.RequestPrincipals principals) {
 		setResourceServiceDef(request);
 		if (request instanceof RangerAccessRequestImpl) {
 			((RangerAccessRequestImpl) request).extractAndSetClientIPAddress(useForwardedIPAddress, trustedProxyAddresses);
 		}
 
 		RangerAccessRequestUtil.setCurrentUserInContext(request.getContext(), request.getUser());
+		RangerAccessRequestUtil.setRequestPrincipalsInContext(request.getContext(), principals);
 
 		List<RangerContextEnricher> enrichers = allContextEnrichers;
 
@@ -423,11 +438,6 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			}
 
 		}
-
-
-		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerPolicyEngineImpl.preProcess(" + request + ")");
-		}
 	}
 
 	@Override
@@ -437,8 +447,16 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 
 		if(CollectionUtils.isNotEmpty(requests)) {
+			RangerPrincipalDictionary.RequestPrincipals principals = null;
+
 			for(RangerAccessRequest request : requests) {
-				preProcess(request);
+				// user and groups are resolved once for consecutive requests of the same principals, which also lets
+				// evaluatePolicies(Collection) look up the principal index once for them
+				if (principals == null || !principals.isFor(request.getUser(), request.getUserGroups())) {
+					principals = principalDictionary.getRequestPrincipals(request.getUser(), request.getUserGroups());
+				}
+
+				preProcess(request, principals);
 			}
 		}
 
@@ -460,7 +478,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			LOG.info("RangerPolicyEngineImpl.evaluatePolicies(" + requestHashCode + ", " + request + ")");
 		}
 
-		RangerAccessResult ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+		RangerAccessResult ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType, null);
 
 		updatePolicyUsageCounts(request, ret);
 
@@ -495,8 +513,11 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		Collection<RangerAccessResult> ret = new ArrayList<>();
 
 		if (requests != null) {
+			// requests of a batch usually share user, groups and resource levels; lookups of these are made once for the batch
+			RangerEvaluationBatch batch = new RangerEvaluationBatch();
+
 			for (RangerAccessRequest request : requests) {
-				RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+				RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType, batch);
 
 				ret.add(result);
 			}
@@ -1004,6 +1025,30 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return ret;
 	}
 
+	@Override
+	public boolean isAccessUniformForDescendants(RangerAccessRequest request) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicyEngineImpl.isAccessUniformForDescendants(" + request + ")");
+		}
+
+		// tags and security-zones can be associated with any descendant, hence descendants are not treated as uniform when these are in use
+		boolean ret = trieMap == null && !hasTagPolicies(tagPolicyRepository);
+
+		if (ret) {
+			// context enrichers are not needed, as policies with conditions are not treated as uniform
+			setResourceServiceDef(request);
+			RangerAccessRequestUtil.setCurrentUserInContext(request.getContext(), request.getUser());
+
+			ret = policyRepository.isAccessUniformForDescendants(request);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyEngineImpl.isAccessUniformForDescendants(" + request + "): " + ret);
+		}
+
+		return ret;
+	}
+
 	@Override
 	public List<RangerPolicy> getMatchingPolicies(RangerAccessRequest request) {
 		if (LOG.isDebugEnabled()) {
@@ -1226,7 +1271,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 	public List<RangerPolicy> getTagPolicies() { return tagPolicyRepository == null ? ListUtils.EMPTY_LIST : tagPolicyRepository.getPolicies(); }
 
-	private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, int policyType) {
+	private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, int policyType, RangerEvaluationBatch batch) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.zoneAwareAccessEvaluationWithNoAudit(" + request + ", policyType =" + policyType + ")");
 		}
@@ -1237,7 +1282,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		RangerPolicyRepository tagPolicyRepository = this.tagPolicyRepository;
 
 		// Evaluate zone-name from request
-		String zoneName = trieMap == null ? null : getMatchedZoneName(request.getResource());
+		String zoneName = trieMap == null ? null : getMatchedZoneName(request.getResource(), batch);
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -1251,7 +1296,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			}
 		}
 		if (policyRepository != null) {
-			ret = evaluatePoliciesNoAudit(request, policyType, zoneName, policyRepository, tagPolicyRepository);
+			ret = evaluatePoliciesNoAudit(request, policyType, zoneName, policyRepository, tagPolicyRepository, batch);
 			ret.setZoneName(zoneName);
 		}
 
@@ -1262,7 +1307,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return ret;
 	}
 
-	private RangerAccessResult evaluatePoliciesNoAudit(RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository policyRepository, RangerPolicyRepository tagPolicyRepository) {
+	private RangerAccessResult evaluatePoliciesNoAudit(RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository policyRepository, RangerPolicyRepository tagPolicyRepository, RangerEvaluationBatch batch) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.evaluatePoliciesNoAudit(" + request + ", policyType =" + policyType + ", zoneName=" + zoneName + ")");
 		}
@@ -1294,9 +1339,12 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 				ret.setIsAccessDetermined(false); // discard result by tag-policies, to evaluate resource policies for possible override
 
-				List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchPolicyEvaluators(request.getResource(), policyType);
+				BitSet                      principalMismatches = new BitSet();
+				List<RangerPolicyEvaluator> evaluators          = policyRepository.getLikelyMatchPolicyEvaluators(request, policyType, principalMismatches, batch);
+
+				for (int i = 0; i < evaluators.size(); i++) {
+					RangerPolicyEvaluator evaluator = evaluators.get(i);
 
-				for (RangerPolicyEvaluator evaluator : evaluators) {
 					if (!evaluator.isApplicable(accessTime)) {
 						continue;
 					}
@@ -1311,8 +1359,11 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 						}
 					}
 
-					ret.incrementEvaluatedPoliciesCount();
-					evaluator.evaluate(request, ret);
+					// a policy without items for the user or groups can't change the access result; once audit is determined, evaluating it is a no-op
+					if (!ret.getIsAuditedDetermined() || !principalMismatches.get(i)) {
+						ret.incrementEvaluatedPoliciesCount();
+						evaluator.evaluate(request, ret);
+					}
 
 					if (ret.getIsAllowed()) {
 						if (!evaluator.hasDeny()) { // No more deny policies left
@@ -1614,7 +1665,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
             Map<String, List<String>>     resourceForZoneMatch = convertFromSingleResource(resource);
             RangerAccessResource          accessResource       = convertToAccessResource(resource);
 
-            ret = getMatchedZoneName(resourceForZoneMatch, accessResource);
+            ret = getMatchedZoneName(resourceForZoneMatch, accessResource, null);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -1625,6 +1676,10 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
     }
 
     private String getMatchedZoneName(RangerAccessResource accessResource) {
+        return getMatchedZoneName(accessResource, null);
+    }
+
+    private String getMatchedZoneName(RangerAccessResource accessResource, RangerEvaluationBatch batch) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyEngineImpl.getMatchedZoneName(" + accessResource + ")");
         }
@@ -1632,9 +1687,17 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
         String ret = null;
 
         if (this.trieMap != null) {
-            Map<String, List<String>> resource = convertFromAccessResource(accessResource);
+            if (batch != null && batch.isZoneNameKnown(accessResource)) {
+                ret = batch.getZoneName(accessResource);
+            } else {
+                Map<String, List<String>> resource = convertFromAccessResource(accessResource);
+
+                ret = getMatchedZoneName(resource, accessResource, batch);
 
-            ret = getMatchedZoneName(resource, accessResource);
+                if (batch != null) {
+                    batch.setZoneName(accessResource, ret);
+                }
+            }
         }
 
         if (LOG.isDebugEnabled()) {
@@ -1644,7 +1707,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
         return ret;
     }
 
-    private String getMatchedZoneName(Map<String, List<String>> resource, RangerAccessResource accessResource) {
+    private String getMatchedZoneName(Map<String, List<String>> resource, RangerAccessResource accessResource, RangerEvaluationBatch batch) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyEngineImpl.getMatchedZoneName(" + resource + ", " + accessResource + ")");
         }
@@ -1666,7 +1729,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
                     continue;
                 }
 
-                Set<RangerZoneResourceMatcher>               matchedZones = trie.getEvaluatorsForResource(resourceValues);
+                Set<RangerZoneResourceMatcher>               matchedZones = batch == null ? trie.getEvaluatorsForResource(resourceValues) : batch.getEvaluatorsForResource(trie, resourceValues);
 
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("ResourceDefName:[" + resourceDefName + "], values:[" + resourceValues + "], matched-zones:[" + matchedZones + "]");
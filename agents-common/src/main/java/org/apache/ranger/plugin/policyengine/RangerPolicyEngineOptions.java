@@ -21,6 +21,7 @@ package org.apache.ranger.plugin.policyengine;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerPrincipalDictionary;
 
 public class RangerPolicyEngineOptions {
 	public String evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_AUTO;
@@ -36,6 +37,7 @@ public class RangerPolicyEngineOptions {
 	public boolean optimizeTrieForRetrieval = false;
 
 	private RangerServiceDefHelper serviceDefHelper;
+	private RangerPrincipalDictionary principalDictionary;
 
 	public RangerPolicyEngineOptions() {}
 
@@ -50,6 +52,7 @@ public class RangerPolicyEngineOptions {
 		this.disableAccessEvaluationWithPolicyACLSummary = other.disableAccessEvaluationWithPolicyACLSummary;
 		this.optimizeTrieForRetrieval = other.optimizeTrieForRetrieval;
 		this.serviceDefHelper = null;
+		this.principalDictionary = null;
 	}
 
 	public void configureForPlugin(Configuration conf, String propertyPrefix) {
@@ -119,6 +122,15 @@ public class RangerPolicyEngineOptions {
 		this.serviceDefHelper = serviceDefHelper;
 	}
 
+	// dictionary of the policy engine whose policy evaluators are being built; null outside of a policy engine
+	public RangerPrincipalDictionary getPrincipalDictionary() {
+		return principalDictionary;
+	}
+
+	void setPrincipalDictionary(RangerPrincipalDictionary principalDictionary) {
+		this.principalDictionary = principalDictionary;
+	}
+
 	/*
 	* There is no need to implement these, as the options are predefined in a component ServiceREST and hence
 	* guaranteed to be unique objects. That implies that the default equals and hashCode should suffice.
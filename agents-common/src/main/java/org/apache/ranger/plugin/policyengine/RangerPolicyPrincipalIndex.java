@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerPrincipalDictionary;
+
+/*
+ * Inverted index from users and groups named in policy items to the policy evaluators containing them. Evaluators are
+ * identified by their position in the evaluator list of the repository, the same indexes used by the resource tries.
+ * Evaluators that can match any user - due to public group, {USER}, {OWNER} or deny-all-else - are kept separately.
+ */
+final class RangerPolicyPrincipalIndex {
+	private final RangerPrincipalDictionary                       dictionary;
+	private final Map<RangerPolicyEvaluator, EvaluatorPrincipals> evaluatorPrincipals;
+	private final BitSet                                          anyPrincipalEvaluators = new BitSet();
+	private final Map<Integer, int[]>                             userEvaluators;
+	private final Map<Integer, int[]>                             groupEvaluators;
+	private final int                                             userIdLimit;
+	private final int                                             groupIdLimit;
+
+	RangerPolicyPrincipalIndex(List<RangerPolicyEvaluator> evaluators, RangerPrincipalDictionary dictionary) {
+		this(evaluators, dictionary, null);
+	}
+
+	/*
+	 * Index for a repository updated with policy deltas. Principals of the evaluators carried over from the other index
+	 * are reused, so that only policies created or updated by the deltas are read. Evaluator indexes are assigned again,
+	 * as the evaluator list is re-sorted after an update - like the resource tries do in wrapUpUpdate().
+	 */
+	RangerPolicyPrincipalIndex(List<RangerPolicyEvaluator> evaluators, RangerPolicyPrincipalIndex other) {
+		this(evaluators, other.dictionary, other.evaluatorPrincipals);
+	}
+
+	private RangerPolicyPrincipalIndex(List<RangerPolicyEvaluator> evaluators, RangerPrincipalDictionary dictionary, Map<RangerPolicyEvaluator, EvaluatorPrincipals> otherPrincipals) {
+		RangerPrincipalDictionary.Names userDictionary  = dictionary.getUsers();
+		RangerPrincipalDictionary.Names groupDictionary = dictionary.getGroups();
+		Map<Integer, List<Integer>>     userLists       = new HashMap<>();
+		Map<Integer, List<Integer>>     groupLists      = new HashMap<>();
+
+		this.dictionary          = dictionary;
+		this.evaluatorPrincipals = new HashMap<>(evaluators.size());
+
+		for (int i = 0; i < evaluators.size(); i++) {
+			RangerPolicyEvaluator evaluator  = evaluators.get(i);
+			EvaluatorPrincipals   principals = otherPrincipals != null ? otherPrincipals.get(evaluator) : null;
+
+			if (principals == null) {
+				principals = new EvaluatorPrincipals(evaluator.getPolicy(), userDictionary, groupDictionary);
+			}
+
+			evaluatorPrincipals.put(evaluator, principals);
+
+			if (principals.isAnyPrincipal) {
+				anyPrincipalEvaluators.set(i);
+
+				continue;
+			}
+
+			for (int userId : principals.userIds) {
+				addIndex(userLists, userId, i);
+			}
+
+			for (int groupId : principals.groupIds) {
+				addIndex(groupLists, groupId, i);
+			}
+		}
+
+		this.userEvaluators  = toArrays(userLists);
+		this.groupEvaluators = toArrays(groupLists);
+		this.userIdLimit     = userDictionary.size();
+		this.groupIdLimit    = groupDictionary.size();
+	}
+
+	/*
+	 * Returns the evaluator index lists for the user and groups of a request, or null if the request principals were
+	 * resolved before some of the names in this index were added to the dictionaries - in which case ids of the request
+	 * may be incomplete and no evaluator can be ruled out. Also null for principals resolved with another dictionary.
+	 */
+	int[][] getEvaluatorIndexes(RangerPrincipalDictionary.RequestPrincipals principals) {
+		if (!principals.isFrom(dictionary) || principals.getUserIdLimit() < userIdLimit || principals.getGroupIdLimit() < groupIdLimit) {
+			return null;
+		}
+
+		BitSet      groupIds = principals.getGroupIds();
+		List<int[]> ret      = new ArrayList<>(groupIds.cardinality() + 1);
+		int[]       indexes  = principals.getUserId() >= 0 ? userEvaluators.get(principals.getUserId()) : null;
+
+		if (indexes != null) {
+			ret.add(indexes);
+		}
+
+		for (int groupId = groupIds.nextSetBit(0); groupId >= 0; groupId = groupIds.nextSetBit(groupId + 1)) {
+			indexes = groupEvaluators.get(groupId);
+
+			if (indexes != null) {
+				ret.add(indexes);
+			}
+		}
+
+		return ret.toArray(new int[ret.size()][]);
+	}
+
+	// returns true if the evaluator at the given index has a policy item that may match a principal in principalIndexes
+	boolean mayMatch(int evaluatorIndex, int[][] principalIndexes) {
+		if (anyPrincipalEvaluators.get(evaluatorIndex)) {
+			return true;
+		}
+
+		for (int[] indexes : principalIndexes) {
+			if (Arrays.binarySearch(indexes, evaluatorIndex) >= 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// ids of the users and groups named in the items of a policy; the policy of an evaluator doesn't change, so these are shared by indexes of updated repositories
+	private static final class EvaluatorPrincipals {
+		final boolean isAnyPrincipal;
+		final int[]   userIds;
+		final int[]   groupIds;
+
+		EvaluatorPrincipals(RangerPolicy policy, RangerPrincipalDictionary.Names userDictionary, RangerPrincipalDictionary.Names groupDictionary) {
+			Set<Integer> userIds        = new LinkedHashSet<>();
+			Set<Integer> groupIds       = new LinkedHashSet<>();
+			boolean      isAnyPrincipal = Boolean.TRUE.equals(policy.getIsDenyAllElse());
+
+			if (!isAnyPrincipal) {
+				for (RangerPolicy.RangerPolicyItem item : getAllPolicyItems(policy)) {
+					if (item.getUsers() != null) {
+						for (String user : item.getUsers()) {
+							if (RangerPolicyEngine.USER_CURRENT.equals(user) || RangerPolicyEngine.RESOURCE_OWNER.equals(user)) {
+								isAnyPrincipal = true;
+							} else if (user != null) {
+								userIds.add(userDictionary.getOrAddId(user));
+							}
+						}
+					}
+
+					if (item.getGroups() != null) {
+						for (String group : item.getGroups()) {
+							if (RangerPolicyEngine.GROUP_PUBLIC.equals(group)) {
+								isAnyPrincipal = true;
+							} else if (group != null) {
+								groupIds.add(groupDictionary.getOrAddId(group));
+							}
+						}
+					}
+				}
+			}
+
+			this.isAnyPrincipal = isAnyPrincipal;
+			this.userIds        = isAnyPrincipal ? new int[0] : toArray(userIds);
+			this.groupIds       = isAnyPrincipal ? new int[0] : toArray(groupIds);
+		}
+
+		private static int[] toArray(Set<Integer> ids) {
+			int[] ret = new int[ids.size()];
+			int   i   = 0;
+
+			for (Integer id : ids) {
+				ret[i++] = id;
+			}
+
+			return ret;
+		}
+	}
+
+	private static List<RangerPolicy.RangerPolicyItem> getAllPolicyItems(RangerPolicy policy) {
+		List<RangerPolicy.RangerPolicyItem> ret = new ArrayList<>();
+
+		addAll(ret, policy.getPolicyItems());
+		addAll(ret, policy.getDenyPolicyItems());
+		addAll(ret, policy.getAllowExceptions());
+		addAll(ret, policy.getDenyExceptions());
+		addAll(ret, policy.getDataMaskPolicyItems());
+		addAll(ret, policy.getRowFilterPolicyItems());
+
+		return ret;
+	}
+
+	private static void addAll(List<RangerPolicy.RangerPolicyItem> dest, List<? extends RangerPolicy.RangerPolicyItem> items) {
+		if (items != null) {
+			for (RangerPolicy.RangerPolicyItem item : items) {
+				if (item != null) {
+					dest.add(item);
+				}
+			}
+		}
+	}
+
+	private static void addIndex(Map<Integer, List<Integer>> lists, int id, int evaluatorIndex) {
+		List<Integer> list = lists.get(id);
+
+		if (list == null) {
+			list = new ArrayList<>();
+
+			lists.put(id, list);
+		}
+
+		list.add(evaluatorIndex); // evaluators are visited in index order, each with distinct ids
+	}
+
+	private static Map<Integer, int[]> toArrays(Map<Integer, List<Integer>> lists) {
+		Map<Integer, int[]> ret = new HashMap<>(lists.size());
+
+		for (Map.Entry<Integer, List<Integer>> entry : lists.entrySet()) {
+			List<Integer> list    = entry.getValue();
+			int[]         indexes = new int[list.size()];
+
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = list.get(i);
+			}
+
+			ret.put(entry.getKey(), indexes);
+		}
+
+		return ret;
+	}
+}
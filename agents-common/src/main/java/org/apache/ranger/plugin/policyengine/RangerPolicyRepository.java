@@ -35,13 +35,17 @@ import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
 import org.apache.ranger.plugin.policyevaluator.RangerCachedPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerPrincipalDictionary;
 import org.apache.ranger.plugin.util.RangerResourceTrie;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.apache.ranger.plugin.util.ServicePolicies;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -57,6 +61,7 @@ class RangerPolicyRepository {
 
     private static final Log PERF_CONTEXTENRICHER_INIT_LOG = RangerPerfTracer.getPerfLogger("contextenricher.init");
     private static final Log PERF_TRIE_OP_LOG = RangerPerfTracer.getPerfLogger("resourcetrie.retrieval");
+    private static final Log PERF_AUDITCACHE_LOG = RangerPerfTracer.getPerfLogger("policyengine.auditcache");
 
     enum AuditModeEnum {
         AUDIT_ALL, AUDIT_NONE, AUDIT_DEFAULT
@@ -82,6 +87,7 @@ class RangerPolicyRepository {
     private final String                      zoneName;
     private final String                      appId;
     private final RangerPolicyEngineOptions   options;
+    private final RangerPrincipalDictionary   principalDictionary;
     private final RangerServiceDef            serviceDef;
     private final List<RangerPolicy>          policies;
     private final long                        policyVersion;
@@ -91,13 +97,14 @@ class RangerPolicyRepository {
     private List<RangerPolicyEvaluator>       rowFilterPolicyEvaluators;
     private Map<Long, RangerPolicyEvaluator>  policyEvaluatorsMap;
     private final AuditModeEnum               auditModeEnum;
-    private final Map<String, AuditInfo>      accessAuditCache;
+    private final RangerConcurrentCache<String, AuditInfo> accessAuditCache;
 
     private final String                      componentServiceName;
     private final RangerServiceDef            componentServiceDef;
     private final Map<String, RangerResourceTrie> policyResourceTrie;
     private final Map<String, RangerResourceTrie> dataMaskResourceTrie;
     private final Map<String, RangerResourceTrie> rowFilterResourceTrie;
+    private final RangerPolicyPrincipalIndex      policyPrincipalIndex;
 
     private boolean                           isContextEnrichersShared = false;
 
@@ -107,6 +114,7 @@ class RangerPolicyRepository {
         this.zoneName = other.zoneName;
         this.appId = other.appId;
         this.options = other.options;
+        this.principalDictionary = other.principalDictionary;
         this.serviceDef = other.serviceDef;
         this.policies = new ArrayList<>(other.policies);
         this.policyEvaluators = new ArrayList<>(other.policyEvaluators);
@@ -145,12 +153,13 @@ class RangerPolicyRepository {
         }
 
         if (other.accessAuditCache != null) {
-            int auditResultCacheSize = other.accessAuditCache.size();
-            this.accessAuditCache = Collections.synchronizedMap(new CacheMap<String, AuditInfo>(auditResultCacheSize));
+            this.accessAuditCache = new RangerConcurrentCache<>(other.accessAuditCache.getName(), other.accessAuditCache.getCapacity(), other.accessAuditCache.getSegmentCount());
         } else {
             this.accessAuditCache = null;
         }
 
+        options.setPrincipalDictionary(principalDictionary); // for evaluators of the policies in deltas
+
         boolean[] flags = new boolean[RangerPolicy.POLICY_TYPES.length];
 
         for (RangerPolicyDelta delta : deltas) {
@@ -218,11 +227,21 @@ class RangerPolicyRepository {
         }
 
         for (int policyType = 0; policyType < flags.length; policyType++) {
+            Map<String, RangerResourceTrie> trie = getTrie(policyType);
+
+            if (trie != null) {
+                if (flags[policyType]) {
+                    // evaluator indexes in the tries follow the position in the evaluator list, so keep the list in evaluation order
+                    List<RangerPolicyEvaluator> evaluators = getPolicyEvaluators(policyType);
+
+                    evaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
 
-            if (flags[policyType]) {
-                Map<String, RangerResourceTrie> trie = getTrie(policyType);
+                    Map<RangerPolicyEvaluator, Integer> evaluatorIndexMap = createEvaluatorIndexMap(evaluators);
 
-                if (trie != null) {
+                    for (Map.Entry<String, RangerResourceTrie> entry : trie.entrySet()) {
+                        entry.getValue().wrapUpUpdate(evaluatorIndexMap);
+                    }
+                } else {
                     for (Map.Entry<String, RangerResourceTrie> entry : trie.entrySet()) {
                         entry.getValue().wrapUpUpdate();
                     }
@@ -230,6 +249,12 @@ class RangerPolicyRepository {
             }
         }
 
+        if (other.policyPrincipalIndex != null && flags[RangerPolicy.POLICY_TYPE_ACCESS]) {
+            this.policyPrincipalIndex = new RangerPolicyPrincipalIndex(policyEvaluators, other.policyPrincipalIndex);
+        } else {
+            this.policyPrincipalIndex = other.policyPrincipalIndex;
+        }
+
         if (StringUtils.isEmpty(zoneName)) {
             if (CollectionUtils.isNotEmpty(other.getPolicies())) {
                 if (CollectionUtils.isNotEmpty(this.getPolicies())) {
@@ -253,11 +278,11 @@ class RangerPolicyRepository {
 
     }
 
-    RangerPolicyRepository(String appId, ServicePolicies servicePolicies, RangerPolicyEngineOptions options) {
-        this(appId, servicePolicies, options, null);
+    RangerPolicyRepository(String appId, ServicePolicies servicePolicies, RangerPolicyEngineOptions options, RangerPrincipalDictionary principalDictionary) {
+        this(appId, servicePolicies, options, principalDictionary, null);
     }
 
-    RangerPolicyRepository(String appId, ServicePolicies servicePolicies, RangerPolicyEngineOptions options, String zoneName) {
+    RangerPolicyRepository(String appId, ServicePolicies servicePolicies, RangerPolicyEngineOptions options, RangerPrincipalDictionary principalDictionary, String zoneName) {
         super();
 
         this.componentServiceName = this.serviceName = servicePolicies.getServiceName();
@@ -267,6 +292,7 @@ class RangerPolicyRepository {
 
         this.appId = appId;
         this.options = new RangerPolicyEngineOptions(options);
+        this.principalDictionary = principalDictionary;
 
         if (StringUtils.isEmpty(zoneName)) {
             this.policies = Collections.unmodifiableList(servicePolicies.getPolicies());
@@ -286,13 +312,17 @@ class RangerPolicyRepository {
         }
 
         if (auditModeEnum == AuditModeEnum.AUDIT_DEFAULT) {
-            String propertyName = "ranger.plugin." + serviceName + ".policyengine.auditcachesize";
+            String propertyName        = "ranger.plugin." + serviceName + ".policyengine.auditcachesize";
+            String segmentPropertyName = "ranger.plugin." + serviceName + ".policyengine.auditcachesegments";
 
             if (options.cacheAuditResults) {
-                final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE = 64 * 1024;
+                final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE     = 64 * 1024;
+                final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SEGMENTS = Runtime.getRuntime().availableProcessors() * 2;
 
-                int auditResultCacheSize = RangerConfiguration.getInstance().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
-                accessAuditCache = Collections.synchronizedMap(new CacheMap<String, AuditInfo>(auditResultCacheSize));
+                int auditResultCacheSize     = RangerConfiguration.getInstance().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
+                int auditResultCacheSegments = RangerConfiguration.getInstance().getInt(segmentPropertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SEGMENTS);
+
+                accessAuditCache = auditResultCacheSize > 0 ? new RangerConcurrentCache<String, AuditInfo>("auditResultCache-" + serviceName, auditResultCacheSize, auditResultCacheSegments) : null;
             } else {
                 accessAuditCache = null;
             }
@@ -316,14 +346,16 @@ class RangerPolicyRepository {
             policyResourceTrie    = null;
             dataMaskResourceTrie  = null;
             rowFilterResourceTrie = null;
+            policyPrincipalIndex  = null;
         } else {
             policyResourceTrie    = createResourceTrieMap(policyEvaluators, options.optimizeTrieForRetrieval);
             dataMaskResourceTrie  = createResourceTrieMap(dataMaskPolicyEvaluators, options.optimizeTrieForRetrieval);
             rowFilterResourceTrie = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval);
+            policyPrincipalIndex  = policyResourceTrie != null ? new RangerPolicyPrincipalIndex(policyEvaluators, principalDictionary) : null;
         }
     }
 
-    RangerPolicyRepository(String appId, ServicePolicies.TagPolicies tagPolicies, RangerPolicyEngineOptions options,
+    RangerPolicyRepository(String appId, ServicePolicies.TagPolicies tagPolicies, RangerPolicyEngineOptions options, RangerPrincipalDictionary principalDictionary,
                            RangerServiceDef componentServiceDef, String componentServiceName) {
         super();
 
@@ -337,6 +369,7 @@ class RangerPolicyRepository {
 
         this.appId = appId;
         this.options = options;
+        this.principalDictionary = principalDictionary;
 
         this.policies = Collections.unmodifiableList(normalizeAndPrunePolicies(tagPolicies.getPolicies(), componentServiceDef.getName()));
         this.policyVersion = tagPolicies.getPolicyVersion() != null ? tagPolicies.getPolicyVersion() : -1;
@@ -374,6 +407,8 @@ class RangerPolicyRepository {
             dataMaskResourceTrie  = createResourceTrieMap(dataMaskPolicyEvaluators, options.optimizeTrieForRetrieval);
             rowFilterResourceTrie = createResourceTrieMap(rowFilterPolicyEvaluators, options.optimizeTrieForRetrieval);
         }
+
+        policyPrincipalIndex = null; // tag policies are evaluated for each tag of the resource, without resource-trie lookup
     }
 
     @Override
@@ -398,6 +433,11 @@ class RangerPolicyRepository {
     void cleanup() {
         preCleanup();
 
+        // hits, misses and evictions of the audit cache while this version of policies was in use
+        if (accessAuditCache != null && RangerPerfTracer.isPerfTraceEnabled(PERF_AUDITCACHE_LOG)) {
+            PERF_AUDITCACHE_LOG.debug("RangerPolicyRepository(serviceName=" + serviceName + ", policyVersion=" + policyVersion + "): " + accessAuditCache);
+        }
+
         if (CollectionUtils.isNotEmpty(this.contextEnrichers) && !isContextEnrichersShared) {
             for (RangerContextEnricher enricher : this.contextEnrichers) {
                 enricher.cleanup();
@@ -590,6 +630,106 @@ class RangerPolicyRepository {
         }
     }
 
+    /*
+     * Same as getLikelyMatchPolicyEvaluators(request.getResource(), policyType). In addition, for access policies, sets in
+     * principalMismatches the positions of returned evaluators that have no policy item for the user or groups of the
+     * request, as per the principal index. Such evaluators can't change the access result, but can still decide whether the
+     * access is audited - hence callers may skip them only after audit is determined. If batch is given, the trie and principal
+     * index lookups are memoized in it.
+     */
+    List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(RangerAccessRequest request, int policyType, BitSet principalMismatches, RangerEvaluationBatch batch) {
+        RangerAccessResource resource         = request.getResource();
+        String               resourceStr      = resource == null ? null : resource.getAsString();
+        int[][]              principalIndexes = null;
+
+        if (policyType != RangerPolicy.POLICY_TYPE_ACCESS || policyResourceTrie == null || StringUtils.isEmpty(resourceStr)) {
+            return getLikelyMatchPolicyEvaluators(resource, policyType);
+        }
+
+        if (policyPrincipalIndex != null) {
+            RangerPrincipalDictionary.RequestPrincipals principals = RangerAccessRequestUtil.getRequestPrincipalsFromContext(request.getContext());
+
+            if (principals != null && principals.isFor(request.getUser(), request.getUserGroups())) {
+                principalIndexes = batch == null ? policyPrincipalIndex.getEvaluatorIndexes(principals) : batch.getEvaluatorIndexes(policyPrincipalIndex, principals);
+            }
+        }
+
+        return principalIndexes == null && batch == null ? getLikelyMatchPolicyEvaluators(resource, policyType) : getLikelyMatchPolicyEvaluators(policyResourceTrie, getPolicyEvaluators(), resource, principalIndexes, principalMismatches, batch);
+    }
+
+    /*
+     * Returns true if all descendants of the requested resource are matched by the same access policies, so that access to
+     * every descendant can be decided by evaluating any one of them. This holds when the trie has no policy resources beneath
+     * the resource, and each policy that may match descendants matches the resource itself recursively - and hence all its
+     * descendants. Policies with conditions or {OWNER} items are treated as distinguishing descendants. Only services with a
+     * single, path-like resource (like HDFS) are supported.
+     */
+    boolean isAccessUniformForDescendants(RangerAccessRequest request) {
+        RangerAccessResource resource = request.getResource();
+        Set<String>          keys     = resource == null ? null : resource.getKeys();
+        boolean              ret      = false;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerPolicyRepository.isAccessUniformForDescendants(" + (resource == null ? null : resource.getAsString()) + ")");
+        }
+
+        if (policyResourceTrie != null && keys != null && keys.size() == 1) {
+            String                                    resourceName = keys.iterator().next();
+            RangerResourceTrie<RangerPolicyEvaluator> trie         = policyResourceTrie.get(resourceName);
+            RangerServiceDef.RangerResourceDef        resourceDef  = ServiceDefUtil.getResourceDef(serviceDef, resourceName);
+            Object                                    value        = resource.getValue(resourceName);
+
+            if (trie != null && resourceDef != null && value instanceof String) {
+                String path          = (String) value;
+                char   separatorChar = ServiceDefUtil.getCharOption(resourceDef.getMatcherOptions(), RangerPathResourceMatcher.OPTION_PATH_SEPARATOR, RangerPathResourceMatcher.DEFAULT_PATH_SEPARATOR_CHAR);
+                String prefix        = !path.isEmpty() && path.charAt(path.length() - 1) == separatorChar ? path : path + separatorChar;
+
+                Set<RangerPolicyEvaluator> evaluators = trie.getEvaluatorsForDescendants(prefix);
+
+                if (evaluators != null) {
+                    ret = true;
+
+                    for (RangerPolicyEvaluator evaluator : evaluators) {
+                        if (!isMatchForAllDescendants(evaluator, resourceName, request)) {
+                            ret = false;
+
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerPolicyRepository.isAccessUniformForDescendants(" + (resource == null ? null : resource.getAsString()) + "): " + ret);
+        }
+
+        return ret;
+    }
+
+    private static boolean isMatchForAllDescendants(RangerPolicyEvaluator evaluator, String resourceName, RangerAccessRequest request) {
+        RangerPolicy                      policy         = evaluator.getPolicy();
+        RangerPolicy.RangerPolicyResource policyResource = policy.getResources() == null ? null : policy.getResources().get(resourceName);
+
+        return policyResource != null && Boolean.TRUE.equals(policyResource.getIsRecursive()) && !Boolean.TRUE.equals(policyResource.getIsExcludes())
+               && CollectionUtils.isEmpty(policy.getConditions())
+               && !hasOwnerOrConditions(policy.getPolicyItems()) && !hasOwnerOrConditions(policy.getDenyPolicyItems())
+               && !hasOwnerOrConditions(policy.getAllowExceptions()) && !hasOwnerOrConditions(policy.getDenyExceptions())
+               && evaluator.isMatch(request.getResource(), request.getContext());
+    }
+
+    private static boolean hasOwnerOrConditions(List<RangerPolicy.RangerPolicyItem> policyItems) {
+        if (policyItems != null) {
+            for (RangerPolicy.RangerPolicyItem policyItem : policyItems) {
+                if (CollectionUtils.isNotEmpty(policyItem.getConditions()) || (policyItem.getUsers() != null && policyItem.getUsers().contains(RangerPolicyEngine.RESOURCE_OWNER))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
 
     Map<Long, RangerPolicyEvaluator> getPolicyEvaluatorsMap() { return policyEvaluatorsMap; }
 
@@ -598,22 +738,22 @@ class RangerPolicyRepository {
     private List<RangerPolicyEvaluator> getLikelyMatchAccessPolicyEvaluators(RangerAccessResource resource) {
        String resourceStr = resource == null ? null : resource.getAsString();
 
-       return policyResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getPolicyEvaluators() : getLikelyMatchPolicyEvaluators(policyResourceTrie, resource);
+       return policyResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getPolicyEvaluators() : getLikelyMatchPolicyEvaluators(policyResourceTrie, getPolicyEvaluators(), resource, null, null, null);
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchDataMaskPolicyEvaluators(RangerAccessResource resource) {
         String resourceStr = resource == null ? null : resource.getAsString();
 
-        return dataMaskResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getDataMaskPolicyEvaluators() : getLikelyMatchPolicyEvaluators(dataMaskResourceTrie, resource);
+        return dataMaskResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getDataMaskPolicyEvaluators() : getLikelyMatchPolicyEvaluators(dataMaskResourceTrie, getDataMaskPolicyEvaluators(), resource, null, null, null);
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchRowFilterPolicyEvaluators(RangerAccessResource resource) {
         String resourceStr = resource == null ? null : resource.getAsString();
 
-        return rowFilterResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getRowFilterPolicyEvaluators() : getLikelyMatchPolicyEvaluators(rowFilterResourceTrie, resource);
+        return rowFilterResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getRowFilterPolicyEvaluators() : getLikelyMatchPolicyEvaluators(rowFilterResourceTrie, getRowFilterPolicyEvaluators(), resource, null, null, null);
     }
 
-    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, RangerResourceTrie> resourceTrie, RangerAccessResource resource) {
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, RangerResourceTrie> resourceTrie, List<RangerPolicyEvaluator> allEvaluators, RangerAccessResource resource, int[][] principalIndexes, BitSet principalMismatches, RangerEvaluationBatch batch) {
         List<RangerPolicyEvaluator> ret          = Collections.EMPTY_LIST;
 
         RangerPerfTracer perf = null;
@@ -625,67 +765,164 @@ class RangerPolicyRepository {
         Set<String>                 resourceKeys = resource == null ? null : resource.getKeys();
 
         if(CollectionUtils.isNotEmpty(resourceKeys)) {
-            Set<RangerPolicyEvaluator>       evaluators = null;
-            List<Set<RangerPolicyEvaluator>> resourceEvaluatorsSet = null;
-            Set<RangerPolicyEvaluator>       smallestSet = null;
+            ret = getLikelyMatchPolicyEvaluatorsByIndex(resourceTrie, allEvaluators, resource, resourceKeys, principalIndexes, principalMismatches, batch);
 
-            for (String resourceName : resourceKeys) {
-                RangerResourceTrie trie = resourceTrie.get(resourceName);
+            if (ret == null) {
+                ret = getLikelyMatchPolicyEvaluatorsBySet(resourceTrie, resource, resourceKeys, batch);
+            }
+        }
 
-                if (trie == null) { // if no trie exists for this resource level, ignore and continue to next level
-                    continue;
-                }
+        RangerPerfTracer.logAlways(perf);
 
-                Set<RangerPolicyEvaluator> resourceEvaluators = trie.getEvaluatorsForResource(resource.getValue(resourceName));
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerPolicyRepository.getLikelyMatchPolicyEvaluators(" + resource.getAsString() + "): evaluatorCount=" + ret.size());
+        }
 
-                if (CollectionUtils.isEmpty(resourceEvaluators)) { // no policies for this resource, bail out
-                    resourceEvaluatorsSet = null;
-                    smallestSet = null;
-                    break;
-                }
+        return ret;
+    }
 
-                if (smallestSet == null) {
-                    smallestSet = resourceEvaluators;
+    /*
+     * Each trie returns, for its resource level, the matching evaluators as ascending indexes into allEvaluators. Since
+     * allEvaluators is kept in evaluation order, intersecting the index arrays yields the result already in evaluation order.
+     * Returns null if any trie could not provide indexes, in which case the caller falls back to evaluator sets.
+     * If principalIndexes is given, positions of evaluators that don't contain any of these principals are set in principalMismatches.
+     */
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluatorsByIndex(Map<String, RangerResourceTrie> resourceTrie, List<RangerPolicyEvaluator> allEvaluators, RangerAccessResource resource, Set<String> resourceKeys, int[][] principalIndexes, BitSet principalMismatches, RangerEvaluationBatch batch) {
+        int[]   matchedIndexes      = null;
+        int     matchedCount        = 0;
+        boolean isMatchedIndexesOwn = false;
+
+        for (String resourceName : resourceKeys) {
+            RangerResourceTrie trie = resourceTrie.get(resourceName);
+
+            if (trie == null) { // if no trie exists for this resource level, ignore and continue to next level
+                continue;
+            }
+
+            Object resourceValue            = resource.getValue(resourceName);
+            int[]  resourceEvaluatorIndexes = batch == null ? trie.getEvaluatorIndexesForResource(resourceValue) : batch.getEvaluatorIndexesForResource(trie, resourceValue);
+
+            if (resourceEvaluatorIndexes == null) {
+                return null;
+            }
+
+            if (resourceEvaluatorIndexes.length == 0) { // no policies for this resource, bail out
+                return Collections.EMPTY_LIST;
+            }
+
+            if (matchedIndexes == null) {
+                matchedIndexes = resourceEvaluatorIndexes;
+                matchedCount   = resourceEvaluatorIndexes.length;
+            } else if (matchedIndexes != resourceEvaluatorIndexes) {
+                if (!isMatchedIndexesOwn) { // arrays returned by the trie are shared; intersect into a private copy
+                    int[] dest = new int[Math.min(matchedCount, resourceEvaluatorIndexes.length)];
+
+                    matchedCount        = intersect(matchedIndexes, matchedCount, resourceEvaluatorIndexes, dest);
+                    matchedIndexes      = dest;
+                    isMatchedIndexesOwn = true;
                 } else {
-                    if (resourceEvaluatorsSet == null) {
-                        resourceEvaluatorsSet = new ArrayList<>();
-                        resourceEvaluatorsSet.add(smallestSet);
-                    }
-                    resourceEvaluatorsSet.add(resourceEvaluators);
+                    matchedCount = intersect(matchedIndexes, matchedCount, resourceEvaluatorIndexes, matchedIndexes);
+                }
 
-                    if (smallestSet.size() > resourceEvaluators.size()) {
-                        smallestSet = resourceEvaluators;
-                    }
+                if (matchedCount == 0) { // if no policy exists, bail out and return empty list
+                    return Collections.EMPTY_LIST;
                 }
             }
+        }
+
+        if (matchedCount == 0) {
+            return Collections.EMPTY_LIST;
+        }
+
+        List<RangerPolicyEvaluator> ret = new ArrayList<>(matchedCount);
+
+        for (int i = 0; i < matchedCount; i++) {
+            ret.add(allEvaluators.get(matchedIndexes[i]));
+
+            if (principalIndexes != null && !policyPrincipalIndex.mayMatch(matchedIndexes[i], principalIndexes)) {
+                principalMismatches.set(i);
+            }
+        }
 
-            if (resourceEvaluatorsSet != null) {
-                evaluators = new HashSet<>(smallestSet);
-                for (Set<RangerPolicyEvaluator> resourceEvaluators : resourceEvaluatorsSet) {
-                    if (resourceEvaluators != smallestSet) {
-                        // remove policies from ret that are not in resourceEvaluators
-                        evaluators.retainAll(resourceEvaluators);
+        return ret;
+    }
 
-                        if (CollectionUtils.isEmpty(evaluators)) { // if no policy exists, bail out and return empty list
-                            evaluators = null;
-                            break;
-                        }
-                    }
-                }
+    // intersects two ascending index arrays into dest, which may be the same array as sorted1; returns the number of entries in dest
+    private static int intersect(int[] sorted1, int count1, int[] sorted2, int[] dest) {
+        int i = 0, j = 0, k = 0;
+
+        while (i < count1 && j < sorted2.length) {
+            if (sorted1[i] < sorted2[j]) {
+                i++;
+            } else if (sorted1[i] > sorted2[j]) {
+                j++;
             } else {
-                evaluators = smallestSet;
+                dest[k++] = sorted1[i++];
+                j++;
             }
+        }
+
+        return k;
+    }
+
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluatorsBySet(Map<String, RangerResourceTrie> resourceTrie, RangerAccessResource resource, Set<String> resourceKeys, RangerEvaluationBatch batch) {
+        List<RangerPolicyEvaluator> ret = Collections.EMPTY_LIST;
 
-            if (evaluators != null) {
-                ret = new ArrayList<>(evaluators);
-                ret.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+        Set<RangerPolicyEvaluator>       evaluators = null;
+        List<Set<RangerPolicyEvaluator>> resourceEvaluatorsSet = null;
+        Set<RangerPolicyEvaluator>       smallestSet = null;
+
+        for (String resourceName : resourceKeys) {
+            RangerResourceTrie trie = resourceTrie.get(resourceName);
+
+            if (trie == null) { // if no trie exists for this resource level, ignore and continue to next level
+                continue;
+            }
+
+            Object                     resourceValue      = resource.getValue(resourceName);
+            Set<RangerPolicyEvaluator> resourceEvaluators = batch == null ? trie.getEvaluatorsForResource(resourceValue) : batch.getEvaluatorsForResource((RangerResourceTrie<RangerPolicyEvaluator>) trie, resourceValue);
+
+            if (CollectionUtils.isEmpty(resourceEvaluators)) { // no policies for this resource, bail out
+                resourceEvaluatorsSet = null;
+                smallestSet = null;
+                break;
+            }
+
+            if (smallestSet == null) {
+                smallestSet = resourceEvaluators;
+            } else {
+                if (resourceEvaluatorsSet == null) {
+                    resourceEvaluatorsSet = new ArrayList<>();
+                    resourceEvaluatorsSet.add(smallestSet);
+                }
+                resourceEvaluatorsSet.add(resourceEvaluators);
+
+                if (smallestSet.size() > resourceEvaluators.size()) {
+                    smallestSet = resourceEvaluators;
+                }
             }
         }
 
-        RangerPerfTracer.logAlways(perf);
+        if (resourceEvaluatorsSet != null) {
+            evaluators = new HashSet<>(smallestSet);
+            for (Set<RangerPolicyEvaluator> resourceEvaluators : resourceEvaluatorsSet) {
+                if (resourceEvaluators != smallestSet) {
+                    // remove policies from ret that are not in resourceEvaluators
+                    evaluators.retainAll(resourceEvaluators);
 
-        if(LOG.isDebugEnabled()) {
-            LOG.debug("<== RangerPolicyRepository.getLikelyMatchPolicyEvaluators(" + resource.getAsString() + "): evaluatorCount=" + ret.size());
+                    if (CollectionUtils.isEmpty(evaluators)) { // if no policy exists, bail out and return empty list
+                        evaluators = null;
+                        break;
+                    }
+                }
+            }
+        } else {
+            evaluators = smallestSet;
+        }
+
+        if (evaluators != null) {
+            ret = new ArrayList<>(evaluators);
+            ret.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
         }
 
         return ret;
@@ -901,6 +1138,7 @@ class RangerPolicyRepository {
     private void init(RangerPolicyEngineOptions options) {
         RangerServiceDefHelper serviceDefHelper = new RangerServiceDefHelper(serviceDef, false);
         options.setServiceDefHelper(serviceDefHelper);
+        options.setPrincipalDictionary(principalDictionary);
 
         List<RangerPolicyEvaluator> policyEvaluators = new ArrayList<>();
         List<RangerPolicyEvaluator> dataMaskPolicyEvaluators  = new ArrayList<>();
@@ -1141,8 +1379,10 @@ class RangerPolicyRepository {
         if (serviceDef != null && CollectionUtils.isNotEmpty(serviceDef.getResources())) {
             ret = new HashMap<>();
 
+            Map<RangerPolicyEvaluator, Integer> evaluatorIndexMap = createEvaluatorIndexMap(evaluators);
+
             for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval));
+                ret.put(resourceDef.getName(), new RangerResourceTrie(resourceDef, evaluators, optimizeTrieForRetrieval, evaluatorIndexMap));
             }
         } else {
             ret = null;
@@ -1151,6 +1391,16 @@ class RangerPolicyRepository {
         return ret;
     }
 
+    private static Map<RangerPolicyEvaluator, Integer> createEvaluatorIndexMap(List<RangerPolicyEvaluator> evaluators) {
+        Map<RangerPolicyEvaluator, Integer> ret = new HashMap<>();
+
+        for (int i = 0; i < evaluators.size(); i++) {
+            ret.put(evaluators.get(i), i);
+        }
+
+        return ret;
+    }
+
     private void updateTrie(Map<String, RangerResourceTrie> trieMap, Integer policyDeltaType, RangerPolicyEvaluator oldEvaluator, RangerPolicyEvaluator newEvaluator) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyRepository.updateTrie(policyDeltaType=" + policyDeltaType + "): ");
@@ -1373,6 +1623,7 @@ class RangerPolicyRepository {
         sb.append("zoneName={").append(zoneName).append("} ");
         sb.append("serviceDef={").append(serviceDef).append("} ");
         sb.append("appId={").append(appId).append("} ");
+        sb.append("accessAuditCache={").append(accessAuditCache).append("} ");
 
         sb.append("policyEvaluators={");
         if (policyEvaluators != null) {
@@ -18,6 +18,7 @@
  */
 package org.apache.ranger.plugin.policyevaluator;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -40,7 +41,9 @@ import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerPrincipalDictionary;
 
 
 public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEvaluator {
@@ -52,6 +55,10 @@ public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEv
 	private boolean hasCurrentUser;
 	private boolean hasResourceOwner;
 	private boolean hasAllPerms;
+	private boolean hasPublicGroup;
+	private RangerPrincipalDictionary principalDictionary; // null if this evaluator isn't part of a policy engine
+	private BitSet                    userIds;             // ids of users in the policy item, in principalDictionary
+	private BitSet                    groupIds;            // ids of groups in the policy item, in principalDictionary
 
 	public RangerDefaultPolicyItemEvaluator(RangerServiceDef serviceDef, RangerPolicy policy, RangerPolicyItem policyItem, int policyItemType, int policyItemIndex, RangerPolicyEngineOptions options) {
 		super(serviceDef, policy, policyItem, policyItemType, policyItemIndex, options);
@@ -89,6 +96,12 @@ public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEv
 		List<String> users = policyItem.getUsers();
 		this.hasCurrentUser = CollectionUtils.isNotEmpty(users) && users.contains(RangerPolicyEngine.USER_CURRENT);
 		this.hasResourceOwner = CollectionUtils.isNotEmpty(users) && users.contains(RangerPolicyEngine.RESOURCE_OWNER);
+		this.principalDictionary = options != null ? options.getPrincipalDictionary() : null;
+		this.userIds = principalDictionary != null ? principalDictionary.getUsers().getOrAddIds(users) : null;
+
+		List<String> groups = policyItem.getGroups();
+		this.hasPublicGroup = CollectionUtils.isNotEmpty(groups) && groups.contains(RangerPolicyEngine.GROUP_PUBLIC);
+		this.groupIds = principalDictionary != null ? principalDictionary.getGroups().getOrAddIds(groups) : null;
 
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerDefaultPolicyItemEvaluator(policyId=" + policyId + ", conditionsCount=" + getConditionEvaluators().size() + ")");
@@ -184,6 +197,39 @@ public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEv
 		return ret;
 	}
 
+	// same as matchUserGroup(user, userGroups), using the principal ids of the request
+	private boolean matchUserGroup(RangerPrincipalDictionary.RequestPrincipals principals) {
+		boolean ret = false;
+
+		if(policyItem != null) {
+			if(principals.getUser() != null && policyItem.getUsers() != null) {
+				if(hasCurrentUser) {
+					ret = true;
+				} else if(userIds.length() <= principals.getUserIdLimit()) {
+					ret = principals.getUserId() >= 0 && userIds.get(principals.getUserId());
+				} else { // users of this item were added to the dictionary after the request's ids were looked up
+					ret = policyItem.getUsers().contains(principals.getUser());
+				}
+			}
+
+			if(!ret && principals.getGroups() != null && policyItem.getGroups() != null) {
+				if(hasPublicGroup) {
+					ret = true;
+				} else if(groupIds.length() <= principals.getGroupIdLimit()) {
+					ret = groupIds.intersects(principals.getGroupIds());
+				} else {
+					ret = !Collections.disjoint(policyItem.getGroups(), principals.getGroups());
+				}
+			}
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("RangerDefaultPolicyItemEvaluator.matchUserGroup(" + policyItem + ", " + principals.getUser() + ", " + principals.getGroups() + "): " + ret);
+		}
+
+		return ret;
+	}
+
 	private boolean matchUserGroupAndOwner(RangerAccessRequest request) {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerDefaultPolicyItemEvaluator.matchUserGroupAndOwner(" + request + ")");
@@ -203,7 +249,13 @@ public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEv
 			}
 		}
 		if (!ret) {
-			ret = matchUserGroup(user, userGroups);
+			RangerPrincipalDictionary.RequestPrincipals principals = RangerAccessRequestUtil.getRequestPrincipalsFromContext(request.getContext());
+
+			if (principals != null && principals.isFrom(principalDictionary) && principals.isFor(user, userGroups)) {
+				ret = matchUserGroup(principals);
+			} else {
+				ret = matchUserGroup(user, userGroups);
+			}
 		}
 
 		if(LOG.isDebugEnabled()) {
@@ -25,8 +25,6 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOCase;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -435,26 +433,34 @@ final class CaseInsensitiveEndsWithMatcher extends ResourceMatcher {
 }
 
 final class CaseSensitiveWildcardMatcher extends ResourceMatcher {
+	private final WildcardPattern wildcardPattern;
+
 	CaseSensitiveWildcardMatcher(String value) {
 		super(value);
+
+		wildcardPattern = WildcardPattern.compile(value, false);
 	}
 
 	@Override
 	boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-		return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
+		return isWildcardMatch(resourceValue, getNeedsDynamicEval() ? WildcardPattern.compile(getExpandedValue(evalContext), false) : wildcardPattern);
 	}
 	int getPriority() { return 5 + (getNeedsDynamicEval() ? DYNAMIC_EVALUATION_PENALTY : 0); }
 }
 
 
 final class CaseInsensitiveWildcardMatcher extends ResourceMatcher {
+	private final WildcardPattern wildcardPattern;
+
 	CaseInsensitiveWildcardMatcher(String value) {
 		super(value);
+
+		wildcardPattern = WildcardPattern.compile(value, true);
 	}
 
 	@Override
 	boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-		return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
+		return isWildcardMatch(resourceValue, getNeedsDynamicEval() ? WildcardPattern.compile(getExpandedValue(evalContext), true) : wildcardPattern);
 	}
 	int getPriority() {return 6 + (getNeedsDynamicEval() ? DYNAMIC_EVALUATION_PENALTY : 0); }
 }
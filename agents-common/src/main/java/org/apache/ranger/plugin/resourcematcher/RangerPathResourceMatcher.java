@@ -20,8 +20,6 @@
 package org.apache.ranger.plugin.resourcematcher;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOCase;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -140,37 +138,77 @@ public class RangerPathResourceMatcher extends RangerDefaultResourceMatcher {
 		return ret;
 	}
 
-	static boolean isRecursiveWildCardMatch(String pathToCheck, String wildcardPath, char pathSeparatorChar, IOCase caseSensitivity) {
+	/*
+	 * Matches the pattern against each ancestor of the path, and the path itself: for "/a/b/c", "/a", "/a/b" and
+	 * "/a/b/c" are matched. These are prefixes of the path, so no strings are created - except for paths with
+	 * consecutive separators, where the original behavior of matching the path with empty levels removed is retained.
+	 */
+	static boolean isRecursiveWildCardMatch(String pathToCheck, WildcardPattern wildcardPattern, char pathSeparatorChar) {
+		if (StringUtils.isEmpty(pathToCheck) || wildcardPattern == null) {
+			return false;
+		}
 
-		boolean ret = false;
+		final int len = pathToCheck.length();
 
-		if (! StringUtils.isEmpty(pathToCheck)) {
-			String[] pathElements = StringUtils.split(pathToCheck, pathSeparatorChar);
+		boolean hasLevels                = false;
+		boolean hasConsecutiveSeparators = false;
 
-			if(! ArrayUtils.isEmpty(pathElements)) {
-				StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < len; i++) {
+			if (pathToCheck.charAt(i) == pathSeparatorChar) {
+				if (i > 0 && pathToCheck.charAt(i - 1) == pathSeparatorChar) {
+					hasConsecutiveSeparators = true;
 
-				if(pathToCheck.charAt(0) == pathSeparatorChar) {
-					sb.append(pathSeparatorChar); // preserve the initial pathSeparatorChar
+					break;
 				}
+			} else {
+				hasLevels = true;
+			}
+		}
+
+		if (hasConsecutiveSeparators) {
+			return isRecursiveWildCardMatchWithEmptyLevels(pathToCheck, wildcardPattern, pathSeparatorChar);
+		}
 
-				for(String p : pathElements) {
-					sb.append(p);
+		if (!hasLevels) { // pathToCheck consists of only pathSeparatorChar
+			return wildcardPattern.isMatch(pathToCheck);
+		}
 
-					ret = FilenameUtils.wildcardMatch(sb.toString(), wildcardPath, caseSensitivity);
+		for (int i = 1; i < len; i++) {
+			if (pathToCheck.charAt(i) == pathSeparatorChar && wildcardPattern.isMatch(pathToCheck, i)) {
+				return true;
+			}
+		}
 
-					if (ret) {
-						break;
-					}
+		return pathToCheck.charAt(len - 1) != pathSeparatorChar && wildcardPattern.isMatch(pathToCheck, len);
+	}
 
-					sb.append(pathSeparatorChar);
+	private static boolean isRecursiveWildCardMatchWithEmptyLevels(String pathToCheck, WildcardPattern wildcardPattern, char pathSeparatorChar) {
+		boolean ret = false;
+
+		String[] pathElements = StringUtils.split(pathToCheck, pathSeparatorChar);
+
+		if(! ArrayUtils.isEmpty(pathElements)) {
+			StringBuilder sb = new StringBuilder();
+
+			if(pathToCheck.charAt(0) == pathSeparatorChar) {
+				sb.append(pathSeparatorChar); // preserve the initial pathSeparatorChar
+			}
+
+			for(String p : pathElements) {
+				sb.append(p);
+
+				ret = wildcardPattern.isMatch(sb.toString());
+
+				if (ret) {
+					break;
 				}
 
-				sb = null;
-			} else { // pathToCheck consists of only pathSeparatorChar
-				ret = FilenameUtils.wildcardMatch(pathToCheck, wildcardPath, caseSensitivity);
+				sb.append(pathSeparatorChar);
 			}
+		} else { // pathToCheck consists of only pathSeparatorChar
+			ret = wildcardPattern.isMatch(pathToCheck);
 		}
+
 		return ret;
 	}
 
@@ -189,28 +227,36 @@ public class RangerPathResourceMatcher extends RangerDefaultResourceMatcher {
 
 final class CaseSensitiveRecursiveWildcardMatcher extends ResourceMatcher {
 	private final char levelSeparatorChar;
+	private final WildcardPattern wildcardPattern;
 	CaseSensitiveRecursiveWildcardMatcher(String value, char levelSeparatorChar) {
 		super(value);
 		this.levelSeparatorChar = levelSeparatorChar;
+		this.wildcardPattern    = WildcardPattern.compile(value, false);
 	}
 
 	@Override
 	boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-		return RangerPathResourceMatcher.isRecursiveWildCardMatch(resourceValue, getExpandedValue(evalContext), levelSeparatorChar, IOCase.SENSITIVE);
+		WildcardPattern pattern = getNeedsDynamicEval() ? WildcardPattern.compile(getExpandedValue(evalContext), false) : wildcardPattern;
+
+		return RangerPathResourceMatcher.isRecursiveWildCardMatch(resourceValue, pattern, levelSeparatorChar);
 	}
 	int getPriority() { return 7 + (getNeedsDynamicEval() ? DYNAMIC_EVALUATION_PENALTY : 0);}
 }
 
 final class CaseInsensitiveRecursiveWildcardMatcher extends ResourceMatcher {
 	private final char levelSeparatorChar;
+	private final WildcardPattern wildcardPattern;
 	CaseInsensitiveRecursiveWildcardMatcher(String value, char levelSeparatorChar) {
 		super(value);
 		this.levelSeparatorChar = levelSeparatorChar;
+		this.wildcardPattern    = WildcardPattern.compile(value, true);
 	}
 
 	@Override
 	boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-		return RangerPathResourceMatcher.isRecursiveWildCardMatch(resourceValue, getExpandedValue(evalContext), levelSeparatorChar, IOCase.INSENSITIVE);
+		WildcardPattern pattern = getNeedsDynamicEval() ? WildcardPattern.compile(getExpandedValue(evalContext), true) : wildcardPattern;
+
+		return RangerPathResourceMatcher.isRecursiveWildCardMatch(resourceValue, pattern, levelSeparatorChar);
 	}
 	int getPriority() { return 8 + (getNeedsDynamicEval() ? DYNAMIC_EVALUATION_PENALTY : 0);}
 
@@ -80,6 +80,11 @@ abstract class ResourceMatcher {
         }
     }
 
+    // null pattern matches only null, as in FilenameUtils.wildcardMatch()
+    static boolean isWildcardMatch(String resourceValue, WildcardPattern wildcardPattern) {
+        return wildcardPattern != null ? wildcardPattern.isMatch(resourceValue) : resourceValue == null;
+    }
+
     String getExpandedValue(Map<String, Object> evalContext) {
         final String ret;
 
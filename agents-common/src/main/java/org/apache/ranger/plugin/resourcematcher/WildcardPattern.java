@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.resourcematcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A wildcard pattern - with '*' matching zero or more characters and '?' matching exactly one character - compiled
+ * once into fixed-length segments separated by '*'. Matching gives the same result as
+ * FilenameUtils.wildcardMatch(str, pattern, IOCase.SENSITIVE/INSENSITIVE), but doesn't allocate; case-insensitive
+ * comparison is done per character, as String.regionMatches(true, ...) does, without creating lower-case copies.
+ */
+final class WildcardPattern {
+	private static final char ANY_CHAR = '?';
+	private static final char ANY_SEQ  = '*';
+
+	private final String    pattern;
+	private final boolean   ignoreCase;
+	private final char[][]  segments;      // pattern split at '*'; first/last are empty when pattern starts/ends with '*'
+	private final char[][]  upperSegments; // for case-insensitive comparison
+	private final char[][]  lowerSegments;
+	private final int       minLength;     // sum of segment lengths
+	private final boolean   hasAnySeq;
+
+	private WildcardPattern(String pattern, boolean ignoreCase) {
+		List<String> tokens = new ArrayList<>();
+		int          start  = 0;
+
+		String effectivePattern = toEffectivePattern(pattern);
+
+		for (int i = 0; i < effectivePattern.length(); i++) {
+			if (effectivePattern.charAt(i) == ANY_SEQ) {
+				tokens.add(effectivePattern.substring(start, i));
+
+				start = i + 1;
+			}
+		}
+
+		tokens.add(effectivePattern.substring(start));
+
+		int len = 0;
+
+		this.pattern       = pattern;
+		this.ignoreCase    = ignoreCase;
+		this.segments      = new char[tokens.size()][];
+		this.upperSegments = ignoreCase ? new char[tokens.size()][] : null;
+		this.lowerSegments = ignoreCase ? new char[tokens.size()][] : null;
+		this.hasAnySeq     = tokens.size() > 1;
+
+		for (int i = 0; i < tokens.size(); i++) {
+			char[] segment = tokens.get(i).toCharArray();
+
+			segments[i] = segment;
+			len        += segment.length;
+
+			if (ignoreCase) {
+				upperSegments[i] = new char[segment.length];
+				lowerSegments[i] = new char[segment.length];
+
+				for (int j = 0; j < segment.length; j++) {
+					upperSegments[i][j] = Character.toUpperCase(segment[j]);
+					lowerSegments[i][j] = Character.toLowerCase(upperSegments[i][j]);
+				}
+			}
+		}
+
+		this.minLength = len;
+	}
+
+	static WildcardPattern compile(String pattern, boolean ignoreCase) {
+		return pattern == null ? null : new WildcardPattern(pattern, ignoreCase);
+	}
+
+	/*
+	 * FilenameUtils.wildcardMatch() consumes a '?' that immediately follows a '*' at the current position, which
+	 * effectively drops the '*': for example "a*?" matches "ab" but not "abc". Policies have always been evaluated this
+	 * way, so the same is done here by removing such '*'s before the pattern is compiled.
+	 */
+	private static String toEffectivePattern(String pattern) {
+		if (pattern.indexOf(ANY_SEQ) == -1 || pattern.indexOf(ANY_CHAR) == -1) {
+			return pattern;
+		}
+
+		StringBuilder sb = new StringBuilder(pattern.length());
+
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+
+			if (c == ANY_SEQ) {
+				int next = i + 1;
+
+				while (next < pattern.length() && pattern.charAt(next) == ANY_SEQ) {
+					next++;
+				}
+
+				if (next < pattern.length() && pattern.charAt(next) == ANY_CHAR) {
+					i = next - 1;
+
+					continue;
+				}
+			}
+
+			sb.append(c);
+		}
+
+		return sb.toString();
+	}
+
+	String getPattern() {
+		return pattern;
+	}
+
+	boolean isMatch(String str) {
+		return str != null && isMatch(str, str.length());
+	}
+
+	/**
+	 * Returns true if the first len characters of str match this pattern
+	 */
+	boolean isMatch(String str, int len) {
+		if (len < minLength) {
+			return false;
+		}
+
+		if (!hasAnySeq) {
+			return len == minLength && isSegmentMatch(0, str, 0);
+		}
+
+		final int lastSegmentIdx = segments.length - 1;
+		final int lastSegmentPos = len - segments[lastSegmentIdx].length;
+
+		// the first segment must be a prefix and the last segment a suffix
+		if (!isSegmentMatch(0, str, 0) || !isSegmentMatch(lastSegmentIdx, str, lastSegmentPos)) {
+			return false;
+		}
+
+		// segments have a fixed length, so finding the leftmost occurrence of each middle segment is sufficient
+		int pos = segments[0].length;
+
+		for (int i = 1; i < lastSegmentIdx; i++) {
+			final int segmentLen = segments[i].length;
+			final int maxPos     = lastSegmentPos - segmentLen;
+
+			while (pos <= maxPos && !isSegmentMatch(i, str, pos)) {
+				pos++;
+			}
+
+			if (pos > maxPos) {
+				return false;
+			}
+
+			pos += segmentLen;
+		}
+
+		return true;
+	}
+
+	private boolean isSegmentMatch(int segmentIdx, String str, int offset) {
+		final char[] segment = segments[segmentIdx];
+
+		if (ignoreCase) {
+			final char[] upperSegment = upperSegments[segmentIdx];
+			final char[] lowerSegment = lowerSegments[segmentIdx];
+
+			for (int i = 0; i < segment.length; i++) {
+				final char p = segment[i];
+				final char c = str.charAt(offset + i);
+
+				if (p == ANY_CHAR || p == c) {
+					continue;
+				}
+
+				final char u = Character.toUpperCase(c);
+
+				if (u != upperSegment[i] && Character.toLowerCase(u) != lowerSegment[i]) {
+					return false;
+				}
+			}
+		} else {
+			for (int i = 0; i < segment.length; i++) {
+				final char p = segment[i];
+
+				if (p != ANY_CHAR && p != str.charAt(offset + i)) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "WildcardPattern(" + pattern + ", ignoreCase=" + ignoreCase + ")";
+	}
+}
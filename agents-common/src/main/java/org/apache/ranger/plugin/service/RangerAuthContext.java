@@ -224,6 +224,11 @@ public class RangerAuthContext implements RangerPolicyEngine {
         return policyEngine.getMatchingPolicies(request);
     }
 
+    @Override
+    public boolean isAccessUniformForDescendants(RangerAccessRequest request) {
+        return policyEngine.isAccessUniformForDescendants(request);
+    }
+
     /* This API is called for a long running policy-engine. Not needed here */
     @Override
     public void reorderPolicyEvaluators() {
@@ -466,6 +466,16 @@ public class RangerBasePlugin {
 		return null;
 	}
 
+	public boolean isAccessUniformForDescendants(RangerAccessRequest request) {
+		RangerPolicyEngine policyEngine = this.policyEngine;
+
+		if(policyEngine != null) {
+			return policyEngine.isAccessUniformForDescendants(request);
+		}
+
+		return false;
+	}
+
 	public RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 
@@ -132,6 +132,7 @@ public interface TagStore {
 
     ServiceTags getServiceTagsIfUpdated(String serviceName, Long lastKnownVersion) throws Exception;
     ServiceTags getServiceTags(String serviceName) throws Exception;
+    ServiceTags getServiceTagsDelta(String serviceName, Long lastKnownVersion) throws Exception;
 
     Long getTagVersion(String serviceName);
 
@@ -23,6 +23,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.geo.GeolocationMetadata;
+import org.apache.ranger.plugin.geo.RangerGeolocationIndex;
 import org.apache.ranger.plugin.store.GeolocationStore;
 import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
 import org.apache.ranger.plugin.geo.RangerGeolocationData;
@@ -35,6 +36,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -52,9 +54,37 @@ public class GeolocationFileStore implements GeolocationStore {
 
 	private RangerGeolocationDatabase geolocationDatabase;
 
-	private boolean isMetalineProcessed;
+	private RangerGeolocationIndex.Builder indexBuilder;
 	private boolean useDotFormat;
 
+	/**
+	 * Converts a geolocation text file to the binary format, which FilePath can point to for faster loading:
+	 *   GeolocationFileStore &lt;text file&gt; &lt;binary file&gt; [IPInDotFormat, default true]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: " + GeolocationFileStore.class.getName() + " <text file> <binary file> [IPInDotFormat (true|false)]");
+
+			System.exit(1);
+		}
+
+		GeolocationFileStore store = new GeolocationFileStore();
+
+		store.useDotFormat = args.length < 3 || Boolean.parseBoolean(args[2]);
+
+		RangerGeolocationDatabase database = store.build(args[0]);
+
+		if (database == null) {
+			System.err.println(args[0] + ": failed to read geolocation data");
+
+			System.exit(1);
+		}
+
+		database.getIndex().write(new File(args[1]));
+
+		System.out.println(args[1] + ": wrote " + database.getIndex().getRangeCount() + " ranges");
+	}
+
 	@Override
 	public void init(final Map<String, String> context) {
 
@@ -164,11 +194,43 @@ public class GeolocationFileStore implements GeolocationStore {
 
 		RangerGeolocationDatabase database = null;
 
-		BufferedReader bufferedReader = null;
 		long start = 0L, end = 0L;
 
 		start = System.currentTimeMillis();
 
+		File file = new File(dataFileName);
+
+		if (RangerGeolocationIndex.isIndexFile(file)) {
+			try {
+				LOG.info("GeolocationFileStore: reading location data from binary file '" + dataFileName + "'");
+
+				database = new RangerGeolocationDatabase();
+
+				database.setIndex(RangerGeolocationIndex.read(file));
+			} catch (IOException ex) {
+				LOG.error("RangerGeolocationDatabaseBuilder.build() - Error reading file '" + dataFileName + "', " + ex);
+
+				database = null;
+			}
+		} else {
+			database = buildFromText(dataFileName);
+		}
+
+		end = System.currentTimeMillis();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerGeolocationDatabaseBuilder.build() - Time taken for reading file = " + (end - start) + " milliseconds");
+		}
+
+		return database;
+	}
+
+	private RangerGeolocationDatabase buildFromText(String dataFileName) {
+
+		RangerGeolocationDatabase database = null;
+
+		BufferedReader bufferedReader = null;
+
 		try {
 			bufferedReader = new BufferedReader(getReader(dataFileName));
 
@@ -176,11 +238,11 @@ public class GeolocationFileStore implements GeolocationStore {
 
 			String line;
 			int lineNumber = 0;
-			isMetalineProcessed = false;
+			indexBuilder = null;
 
 			while(( line = bufferedReader.readLine()) != null) {
 				lineNumber++;
-				if (!processLine(lineNumber, line, database)) {
+				if (!processLine(lineNumber, line)) {
 					LOG.error("RangerGeolocationDatabaseBuilder.build() - Invalid geo-specification - " + lineNumber + ":" + line);
 					database = null;
 					break;
@@ -189,6 +251,10 @@ public class GeolocationFileStore implements GeolocationStore {
 
 			bufferedReader.close();
 			bufferedReader = null;
+
+			if (database != null && indexBuilder != null) {
+				database.setIndex(indexBuilder.build());
+			}
 		}
 		catch(FileNotFoundException ex) {
 			LOG.error("RangerGeolocationDatabaseBuilder.build() - Unable to open file '" + dataFileName + "'");
@@ -197,6 +263,8 @@ public class GeolocationFileStore implements GeolocationStore {
 			LOG.error("RangerGeolocationDatabaseBuilder.build() - Error reading file '" + dataFileName + "', " + ex);
 		}
 		finally {
+			indexBuilder = null;
+
 			if (bufferedReader != null) {
 				try {
 					bufferedReader.close();
@@ -207,20 +275,10 @@ public class GeolocationFileStore implements GeolocationStore {
 			}
 		}
 
-		end = System.currentTimeMillis();
-
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("RangerGeolocationDatabaseBuilder.build() - Time taken for reading file = " + (end - start) + " milliseconds");
-		}
-
-		if (database != null) {
-			database.optimize();
-		}
-
 		return database;
 	}
 
-	private boolean processLine(int lineNumber, String line, RangerGeolocationDatabase database) {
+	private boolean processLine(int lineNumber, String line) {
 
 		boolean ret = true;
 
@@ -229,22 +287,23 @@ public class GeolocationFileStore implements GeolocationStore {
 		if (!line.startsWith(GeoLineCommentIdentifier)) {
 			String fields[] = StringUtils.split(line, GeoFieldsSeparator);
 			if (fields != null) {
-				if (!isMetalineProcessed) {
+				if (indexBuilder == null) {
 					GeolocationMetadata metadata = GeolocationMetadata.create(fields, lineNumber);
 					if (metadata != null) {
-						database.setMetadata(metadata);
-						isMetalineProcessed = true;
+						indexBuilder = new RangerGeolocationIndex.Builder(metadata.getLocationDataItemNames());
 					} else {
 						LOG.error("GeolocationFileStore.processLine() - Invalid metadata specification " + lineNumber + ":" + line);
 						ret = false;
 					}
-				} else {
-					RangerGeolocationData data = RangerGeolocationData.create(fields, lineNumber, useDotFormat);
-					if (data != null) {
-						database.getData().insert(data);
-					} else {
+				} else if (fields.length > 2) {
+					byte[] from = RangerGeolocationData.ipAddressToBytes(fields[0], useDotFormat);
+					byte[] to   = RangerGeolocationData.ipAddressToBytes(fields[1], useDotFormat);
+
+					if (!indexBuilder.add(from, to, Arrays.copyOfRange(fields, 2, fields.length))) {
 						LOG.error("GeolocationFileStore.processLine() - Invalid data specification " + lineNumber + ":" + line);
 					}
+				} else {
+					LOG.error("GeolocationFileStore.processLine() - Not enough fields specified, need {start, end, location} at " + lineNumber + ":" + line);
 				}
 			} else {
 				LOG.error("GeolocationFileStore.processLine() - Invalid line, skipping.." + lineNumber + ":" + line);
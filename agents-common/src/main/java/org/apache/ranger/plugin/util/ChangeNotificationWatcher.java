@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Long-polls Ranger Admin for a version change and queues a download as soon as one is reported, so that
+ * changes reach the plugin without waiting for the next periodic download. The periodic DownloaderTask
+ * keeps running alongside; this thread exits if Admin reports that it doesn't support change notifications, or
+ * if the wait endpoint is not found MAX_NOT_FOUND_COUNT times in a row - as with an Admin that predates it.
+ * Other failures - e.g. Admin restarting - are retried, backing off exponentially from retryIntervalMs up to
+ * MAX_RETRY_INTERVAL_MS.
+ */
+public final class ChangeNotificationWatcher extends Thread {
+	private static final Log LOG = LogFactory.getLog(ChangeNotificationWatcher.class);
+
+	static final long MAX_RETRY_INTERVAL_MS = 10 * 60 * 1000L;
+	static final int  MAX_NOT_FOUND_COUNT   = 3; // a single 404 may be for a service that is not created yet
+
+	public interface VersionSource {
+		long getLastKnownVersion();
+
+		/**
+		 * @return the new version; null if there was no change within timeoutMs
+		 * @throws UnsupportedOperationException if change notifications are not supported
+		 * @throws NotFoundException if the wait endpoint, or the service, is not found
+		 */
+		Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception;
+	}
+
+	public static class NotFoundException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		public NotFoundException(String message) {
+			super(message);
+		}
+	}
+
+	private final VersionSource                  versionSource;
+	private final BlockingQueue<DownloadTrigger> downloadQueue;
+	private final long                           waitTimeoutMs;
+	private final long                           retryIntervalMs;
+
+	public ChangeNotificationWatcher(String name, VersionSource versionSource, BlockingQueue<DownloadTrigger> downloadQueue, long waitTimeoutMs, long retryIntervalMs) {
+		super(name);
+
+		this.versionSource   = versionSource;
+		this.downloadQueue   = downloadQueue;
+		this.waitTimeoutMs   = waitTimeoutMs;
+		this.retryIntervalMs = retryIntervalMs;
+
+		setDaemon(true);
+	}
+
+	public void stopWatcher() {
+		super.interrupt();
+	}
+
+	@Override
+	public void run() {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ChangeNotificationWatcher(" + getName() + ").run()");
+		}
+
+		DownloadTrigger trigger       = new DownloadTrigger();
+		int             failureCount  = 0;
+		int             notFoundCount = 0;
+
+		while (!isInterrupted()) {
+			try {
+				long lastKnownVersion = versionSource.getLastKnownVersion();
+				Long newVersion       = versionSource.waitForUpdate(lastKnownVersion, waitTimeoutMs);
+
+				failureCount  = 0;
+				notFoundCount = 0;
+
+				if (newVersion != null && newVersion > lastKnownVersion) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("ChangeNotificationWatcher(" + getName() + "): version changed from " + lastKnownVersion + " to " + newVersion + ". Triggering download");
+					}
+
+					downloadQueue.put(trigger);
+					trigger.waitForCompletion();
+
+					// download did not pick up the new version (e.g. Admin unreachable): don't spin, wait before asking again
+					if (versionSource.getLastKnownVersion() < newVersion) {
+						Thread.sleep(retryIntervalMs);
+					}
+				}
+			} catch (InterruptedException excp) {
+				break;
+			} catch (UnsupportedOperationException excp) {
+				LOG.info("ChangeNotificationWatcher(" + getName() + "): change notifications not available; will rely on periodic download. " + excp.getMessage());
+				break;
+			} catch (Exception excp) {
+				if (excp instanceof NotFoundException && ++notFoundCount >= MAX_NOT_FOUND_COUNT) {
+					LOG.info("ChangeNotificationWatcher(" + getName() + "): wait endpoint not found " + notFoundCount + " times in a row; will rely on periodic download. " + excp.getMessage());
+					break;
+				} else if (!(excp instanceof NotFoundException)) {
+					notFoundCount = 0;
+				}
+
+				long sleepMs = getRetryIntervalMs(++failureCount);
+
+				if (failureCount == 1) {
+					LOG.warn("ChangeNotificationWatcher(" + getName() + "): failed to wait for update. Will retry in " + sleepMs + "ms", excp);
+				} else {
+					LOG.warn("ChangeNotificationWatcher(" + getName() + "): failed to wait for update " + failureCount + " times. Will retry in " + sleepMs + "ms. " + excp);
+				}
+
+				try {
+					Thread.sleep(sleepMs);
+				} catch (InterruptedException ie) {
+					break;
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ChangeNotificationWatcher(" + getName() + ").run()");
+		}
+	}
+
+	long getRetryIntervalMs(int failureCount) {
+		long maxIntervalMs = Math.max(retryIntervalMs, MAX_RETRY_INTERVAL_MS);
+		int  shift         = Math.min(failureCount - 1, 20);
+
+		return Math.min(retryIntervalMs << shift, maxIntervalMs);
+	}
+}
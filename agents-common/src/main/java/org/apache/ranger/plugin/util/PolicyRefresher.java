@@ -49,11 +49,14 @@ public class PolicyRefresher extends Thread {
 	private final BlockingQueue<DownloadTrigger> policyDownloadQueue;
 
 	private final String            cacheFileName;
+	private final String            binaryCacheFileName;
 	private final String            cacheDir;
+	private final boolean           useBinaryCache;
 	private final Gson              gson;
 	private final boolean           disableCacheIfServiceNotFound;
+	private final ChangeNotificationWatcher changeNotificationWatcher;
 
-	private long 	lastKnownVersion    = -1L;
+	private volatile long lastKnownVersion = -1L;
 	private long	lastActivationTimeInMillis;
 	private boolean policiesSetInPlugin;
 	private boolean serviceDefSetInPlugin;
@@ -73,11 +76,12 @@ public class PolicyRefresher extends Thread {
 			appId = serviceType;
 		}
 
-		String cacheFilename = String.format("%s_%s.json", appId, serviceName);
+		String cacheFilename = String.format("%s_%s", appId, serviceName);
 		cacheFilename = cacheFilename.replace(File.separatorChar,  '_');
 		cacheFilename = cacheFilename.replace(File.pathSeparatorChar,  '_');
 
-		this.cacheFileName = cacheFilename;
+		this.cacheFileName       = cacheFilename + ".json";
+		this.binaryCacheFileName = cacheFilename + ".bin";
 		this.cacheDir = cacheDir;
 
 		Gson gson = null;
@@ -90,6 +94,8 @@ public class PolicyRefresher extends Thread {
 
 		String propertyPrefix    = "ranger.plugin." + serviceType;
 		disableCacheIfServiceNotFound = RangerConfiguration.getInstance().getBoolean(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+		useBinaryCache                = !"json".equalsIgnoreCase(RangerConfiguration.getInstance().get(propertyPrefix + ".policy.cache.format", "binary"));
+		changeNotificationWatcher     = createChangeNotificationWatcher(propertyPrefix);
 
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== PolicyRefresher(serviceName=" + serviceName + ").PolicyRefresher()");
@@ -132,14 +138,26 @@ public class PolicyRefresher extends Thread {
 		this.lastActivationTimeInMillis = lastActivationTimeInMillis;
 	}
 
+	public long getLastKnownVersion() {
+		return lastKnownVersion;
+	}
+
 	public void startRefresher() {
 
 		loadPolicy();
 
 		super.start();
+
+		if (changeNotificationWatcher != null) {
+			changeNotificationWatcher.start();
+		}
 	}
 
 	public void stopRefresher() {
+		if (changeNotificationWatcher != null) {
+			changeNotificationWatcher.stopWatcher();
+		}
+
 		super.interrupt();
 
 	    try {
@@ -294,7 +312,43 @@ public class PolicyRefresher extends Thread {
 			LOG.debug("==> PolicyRefresher(serviceName=" + serviceName + ").loadFromCache()");
 		}
 
-		File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+		File cacheFile       = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+		File binaryCacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + binaryCacheFileName);
+
+		// the cache in the other format is read if the preferred one is missing, e.g. right after the format is changed
+		if(useBinaryCache) {
+			policies = loadFromBinaryCache(binaryCacheFile);
+
+			if(policies == null) {
+				policies = loadFromJsonCache(cacheFile);
+			}
+		} else {
+			policies = loadFromJsonCache(cacheFile);
+
+			if(policies == null) {
+				policies = loadFromBinaryCache(binaryCacheFile);
+			}
+		}
+
+		if(policies != null) {
+			if(!StringUtils.equals(serviceName, policies.getServiceName())) {
+				LOG.warn("ignoring unexpected serviceName '" + policies.getServiceName() + "' in policy cache");
+
+				policies.setServiceName(serviceName);
+			}
+
+			lastKnownVersion = policies.getPolicyVersion() == null ? -1 : policies.getPolicyVersion().longValue();
+		}
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== PolicyRefresher(serviceName=" + serviceName + ").loadFromCache()");
+		}
+
+		return policies;
+	}
+
+	private ServicePolicies loadFromJsonCache(File cacheFile) {
+		ServicePolicies policies = null;
 
     	if(cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
     		Reader reader = null;
@@ -309,16 +363,6 @@ public class PolicyRefresher extends Thread {
 	        	reader = new FileReader(cacheFile);
 
 		        policies = gson.fromJson(reader, ServicePolicies.class);
-
-		        if(policies != null) {
-		        	if(!StringUtils.equals(serviceName, policies.getServiceName())) {
-		        		LOG.warn("ignoring unexpected serviceName '" + policies.getServiceName() + "' in cache file '" + cacheFile.getAbsolutePath() + "'");
-
-		        		policies.setServiceName(serviceName);
-		        	}
-
-		        	lastKnownVersion = policies.getPolicyVersion() == null ? -1 : policies.getPolicyVersion().longValue();
-		         }
 	        } catch (Exception excp) {
 	        	LOG.error("failed to load policies from cache file " + cacheFile.getAbsolutePath(), excp);
 	        } finally {
@@ -336,8 +380,28 @@ public class PolicyRefresher extends Thread {
 			LOG.warn("cache file does not exist or not readable '" + (cacheFile == null ? null : cacheFile.getAbsolutePath()) + "'");
 		}
 
-		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== PolicyRefresher(serviceName=" + serviceName + ").loadFromCache()");
+		return policies;
+	}
+
+	private ServicePolicies loadFromBinaryCache(File cacheFile) {
+		ServicePolicies policies = null;
+
+		if(cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+			RangerPerfTracer perf = null;
+
+			if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
+				perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.loadFromBinaryCache(serviceName=" + serviceName + ")");
+			}
+
+			try {
+				policies = ServicePoliciesBinaryCache.read(cacheFile, gson);
+			} catch (Exception excp) {
+				LOG.error("failed to load policies from cache file " + cacheFile.getAbsolutePath(), excp);
+			} finally {
+				RangerPerfTracer.log(perf);
+			}
+		} else {
+			LOG.warn("cache file does not exist or not readable '" + (cacheFile == null ? null : cacheFile.getAbsolutePath()) + "'");
 		}
 
 		return policies;
@@ -349,16 +413,18 @@ public class PolicyRefresher extends Thread {
 		}
 
 		if(policies != null) {
-			File cacheFile = null;
+			String fileName      = useBinaryCache ? binaryCacheFileName : cacheFileName;
+			String otherFileName = useBinaryCache ? cacheFileName : binaryCacheFileName;
+			File   cacheFile     = null;
 			if (cacheDir != null) {
 				// Create the cacheDir if it doesn't already exist
 				File cacheDirTmp = new File(cacheDir);
 				if (cacheDirTmp.exists()) {
-					cacheFile =  new File(cacheDir + File.separator + cacheFileName);
+					cacheFile =  new File(cacheDir + File.separator + fileName);
 				} else {
 					try {
 						cacheDirTmp.mkdirs();
-						cacheFile =  new File(cacheDir + File.separator + cacheFileName);
+						cacheFile =  new File(cacheDir + File.separator + fileName);
 					} catch (SecurityException ex) {
 						LOG.error("Cannot create cache directory", ex);
 					}
@@ -373,23 +439,44 @@ public class PolicyRefresher extends Thread {
 					perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.saveToCache(serviceName=" + serviceName + ")");
 				}
 
-				Writer writer = null;
-	
-				try {
-					writer = new FileWriter(cacheFile);
-	
-			        gson.toJson(policies, writer);
-		        } catch (Exception excp) {
-		        	LOG.error("failed to save policies to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-		        } finally {
-		        	if(writer != null) {
-		        		try {
-		        			writer.close();
-		        		} catch(Exception excp) {
-		        			LOG.error("error while closing opened cache file '" + cacheFile.getAbsolutePath() + "'", excp);
-		        		}
-		        	}
-		        }
+				boolean isSaved = false;
+
+				if (useBinaryCache) {
+					try {
+						ServicePoliciesBinaryCache.write(policies, cacheFile, gson);
+
+						isSaved = true;
+					} catch (Exception excp) {
+						LOG.error("failed to save policies to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
+					}
+				} else {
+					Writer writer = null;
+
+					try {
+						writer = new FileWriter(cacheFile);
+
+						gson.toJson(policies, writer);
+
+						isSaved = true;
+					} catch (Exception excp) {
+						LOG.error("failed to save policies to cache file '" + cacheFile.getAbsolutePath() + "'", excp);
+					} finally {
+						if(writer != null) {
+							try {
+								writer.close();
+							} catch(Exception excp) {
+								LOG.error("error while closing opened cache file '" + cacheFile.getAbsolutePath() + "'", excp);
+							}
+						}
+					}
+				}
+
+				// remove the cache in the other format, so that an older version is never loaded from it
+				File otherCacheFile = new File(cacheDir + File.separator + otherFileName);
+
+				if (isSaved && otherCacheFile.isFile() && !otherCacheFile.delete()) {
+					LOG.warn("failed to delete stale cache file '" + otherCacheFile.getAbsolutePath() + "'");
+				}
 
 				RangerPerfTracer.log(perf);
 
@@ -403,13 +490,46 @@ public class PolicyRefresher extends Thread {
 		}
 	}
 
+	private ChangeNotificationWatcher createChangeNotificationWatcher(String propertyPrefix) {
+		RangerConfiguration config    = RangerConfiguration.getInstance();
+		boolean             isEnabled = config.getBoolean(propertyPrefix + ".policy.notification.enabled", true);
+
+		if (!isEnabled || rangerAdmin == null || policyDownloadQueue == null) {
+			return null;
+		}
+
+		long waitTimeoutMs   = config.getLong(propertyPrefix + ".policy.notification.wait.timeoutMs", 60 * 1000);
+		long retryIntervalMs = config.getLong(propertyPrefix + ".policy.pollIntervalMs", 30 * 1000);
+
+		ChangeNotificationWatcher.VersionSource versionSource = new ChangeNotificationWatcher.VersionSource() {
+			@Override
+			public long getLastKnownVersion() {
+				return lastKnownVersion;
+			}
+
+			@Override
+			public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+				return rangerAdmin.waitForPolicyUpdate(lastKnownVersion, timeoutMs);
+			}
+		};
+
+		return new ChangeNotificationWatcher("PolicyChangeNotificationWatcher(serviceName=" + serviceName + ")", versionSource, policyDownloadQueue, waitTimeoutMs, retryIntervalMs);
+	}
+
 	private void disableCache() {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> PolicyRefresher.disableCache(serviceName=" + serviceName + ")");
 		}
 
-		File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
+		disableCache(cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName));
+		disableCache(cacheDir == null ? null : new File(cacheDir + File.separator + binaryCacheFileName));
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== PolicyRefresher.disableCache(serviceName=" + serviceName + ")");
+		}
+	}
 
+	private void disableCache(File cacheFile) {
 		if(cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
 			LOG.warn("Cleaning up local cache");
 			String renamedCacheFile = cacheFile.getAbsolutePath() + "_" + System.currentTimeMillis();
@@ -420,12 +540,8 @@ public class PolicyRefresher extends Thread {
 			}
 		} else {
 			if (LOG.isDebugEnabled()) {
-				LOG.debug("No local policy cache found. No need to disable it!");
+				LOG.debug("No local policy cache found at " + (cacheFile == null ? null : cacheFile.getAbsolutePath()) + ". No need to disable it!");
 			}
 		}
-
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("<== PolicyRefresher.disableCache(serviceName=" + serviceName + ")");
-		}
 	}
 }
@@ -37,6 +37,9 @@ public class RangerAccessRequestUtil {
 	public static final String KEY_CONTEXT_TAG_OBJECT          = "TAG_OBJECT";
 	public static final String KEY_CONTEXT_RESOURCE            = "RESOURCE";
 	public static final String KEY_CONTEXT_REQUESTED_RESOURCES = "REQUESTED_RESOURCES";
+	public static final String KEY_CONTEXT_PRINCIPALS          = "PRINCIPALS";
+	public static final String KEY_CONTEXT_SCRIPT_RESULTS      = "SCRIPT_RESULTS";
+	public static final String KEY_CONTEXT_IP_ADDRESSES        = "IP_ADDRESSES";
 	public static final String KEY_TOKEN_NAMESPACE = "token:";
 	public static final String KEY_USER = "USER";
 
@@ -72,7 +75,7 @@ public class RangerAccessRequestUtil {
 
 	public static RangerTagForEval getCurrentTagFromContext(Map<String, Object> context) {
 		RangerTagForEval ret = null;
-		Object    val = context.get(KEY_CONTEXT_TAGS);
+		Object    val = context.get(KEY_CONTEXT_TAG_OBJECT);
 
 		if(val instanceof RangerTagForEval) {
 			ret = (RangerTagForEval)val;
@@ -122,12 +125,28 @@ public class RangerAccessRequestUtil {
 			ret.remove(KEY_CONTEXT_TAGS);
 			ret.remove(KEY_CONTEXT_TAG_OBJECT);
 			ret.remove(KEY_CONTEXT_RESOURCE);
+			ret.remove(KEY_CONTEXT_SCRIPT_RESULTS);
 			// don't remove REQUESTED_RESOURCES
 		}
 
 		return ret;
 	}
 
+	public static void setRequestPrincipalsInContext(Map<String, Object> context, RangerPrincipalDictionary.RequestPrincipals principals) {
+		context.put(KEY_CONTEXT_PRINCIPALS, principals);
+	}
+
+	public static RangerPrincipalDictionary.RequestPrincipals getRequestPrincipalsFromContext(Map<String, Object> context) {
+		RangerPrincipalDictionary.RequestPrincipals ret = null;
+		Object                                      val = context != null ? context.get(KEY_CONTEXT_PRINCIPALS) : null;
+
+		if(val instanceof RangerPrincipalDictionary.RequestPrincipals) {
+			ret = (RangerPrincipalDictionary.RequestPrincipals)val;
+		}
+
+		return ret;
+	}
+
 	public static void setCurrentUserInContext(Map<String, Object> context, String user) {
 		setTokenInContext(context, KEY_USER, user);
 	}
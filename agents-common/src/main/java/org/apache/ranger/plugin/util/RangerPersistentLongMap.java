@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/*
+ * Immutable map with long keys, kept in a radix trie of 32-way nodes. Changes are made with an Editor, which copies
+ * only the nodes on the paths of the keys it changes and shares the rest with the map it was created from; so the cost
+ * of a change is proportional to the number of changed keys, and readers of the earlier map are not affected.
+ * Entries are iterated in the order of keys (as unsigned values). Null values are not supported.
+ */
+public final class RangerPersistentLongMap<V> extends AbstractMap<Long, V> implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final int BITS      = 5;
+	private static final int WIDTH     = 1 << BITS;
+	private static final int MASK      = WIDTH - 1;
+	private static final int MAX_SHIFT = 60; // root of 13 levels covers all 64 bits
+
+	private static final RangerPersistentLongMap<Object> EMPTY = new RangerPersistentLongMap<>(null, 0);
+
+	private final Node root;
+	private final int  shift; // of the root node; 0 when the root holds the values
+
+	private RangerPersistentLongMap(Node root, int shift) {
+		this.root  = root;
+		this.shift = shift;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <V> RangerPersistentLongMap<V> empty() {
+		return (RangerPersistentLongMap<V>) EMPTY;
+	}
+
+	// returns the given map if it is a RangerPersistentLongMap, otherwise a copy of it
+	@SuppressWarnings("unchecked")
+	public static <V> RangerPersistentLongMap<V> copyOf(Map<Long, V> map) {
+		if (map instanceof RangerPersistentLongMap) {
+			return (RangerPersistentLongMap<V>) map;
+		}
+
+		RangerPersistentLongMap.Editor<V> editor = RangerPersistentLongMap.<V>empty().edit();
+
+		if (map != null) {
+			for (Map.Entry<Long, V> entry : map.entrySet()) {
+				editor.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		return editor.build();
+	}
+
+	public Editor<V> edit() {
+		return new Editor<>(this);
+	}
+
+	// read-only list of the values, in the order of keys; get(index) walks down the trie using the subtree sizes
+	public List<V> valueList() {
+		return new ValueList<>(this);
+	}
+
+	@Override
+	public int size() {
+		return root == null ? 0 : root.size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public V get(Object key) {
+		return key instanceof Long ? get(((Long) key).longValue()) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		return (V) get(root, shift, key);
+	}
+
+	@Override
+	public Set<Map.Entry<Long, V>> entrySet() {
+		return new AbstractSet<Map.Entry<Long, V>>() {
+			@Override
+			public Iterator<Map.Entry<Long, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return RangerPersistentLongMap.this.size();
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	V getAt(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + size());
+		}
+
+		Node node = root;
+
+		for (int s = shift; s > 0; s -= BITS) {
+			for (Object slot : node.slots) {
+				Node child = (Node) slot;
+
+				if (child != null) {
+					if (index < child.size) {
+						node = child;
+
+						break;
+					}
+
+					index -= child.size;
+				}
+			}
+		}
+
+		for (Object slot : node.slots) {
+			if (slot != null && index-- == 0) {
+				return (V) slot;
+			}
+		}
+
+		throw new IllegalStateException("inconsistent subtree sizes");
+	}
+
+	// serialized as a HashMap, so that readers don't depend on this class
+	private Object writeReplace() {
+		return new HashMap<>(this);
+	}
+
+	private static Object get(Node root, int shift, long key) {
+		if (root == null || !fits(key, shift)) {
+			return null;
+		}
+
+		Node node = root;
+
+		for (int s = shift; s > 0; s -= BITS) {
+			node = (Node) node.slots[index(key, s)];
+
+			if (node == null) {
+				return null;
+			}
+		}
+
+		return node.slots[index(key, 0)];
+	}
+
+	private static boolean fits(long key, int shift) {
+		return shift >= MAX_SHIFT || (key >>> (shift + BITS)) == 0;
+	}
+
+	private static int index(long key, int shift) {
+		return (int) (key >>> shift) & MASK;
+	}
+
+	private static final class Node {
+		final Object[] slots;
+		int            size;  // number of values in this subtree
+		final Object   owner; // editor that created this node; it can change the node until the map is built
+
+		Node(Object owner) {
+			this.slots = new Object[WIDTH];
+			this.owner = owner;
+		}
+
+		Node(Node other, Object owner) {
+			this.slots = other.slots.clone();
+			this.size  = other.size;
+			this.owner = owner;
+		}
+	}
+
+	/*
+	 * Changes a copy of a map. Nodes are copied the first time the editor changes them; after build(), the nodes are
+	 * shared with the built map and the editor can't be used anymore.
+	 */
+	public static final class Editor<V> {
+		private final Object owner = new Object();
+		private Node         root;
+		private int          shift;
+		private boolean      isBuilt;
+
+		private Editor(RangerPersistentLongMap<V> map) {
+			this.root  = map.root;
+			this.shift = map.shift;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V get(long key) {
+			return (V) RangerPersistentLongMap.get(root, shift, key);
+		}
+
+		public Editor<V> put(long key, V value) {
+			if (value == null) {
+				throw new IllegalArgumentException("null value for key " + key);
+			}
+
+			checkNotBuilt();
+
+			while (!fits(key, shift)) {
+				if (root != null && root.size > 0) {
+					Node node = new Node(owner);
+
+					node.slots[0] = root;
+					node.size     = root.size;
+					root          = node;
+				}
+
+				shift += BITS;
+			}
+
+			boolean isNew = get(key) == null;
+
+			root = root == null ? new Node(owner) : editable(root);
+
+			Node node = root;
+
+			for (int s = shift; s > 0; s -= BITS) {
+				if (isNew) {
+					node.size++;
+				}
+
+				int  i     = index(key, s);
+				Node child = (Node) node.slots[i];
+
+				child         = child == null ? new Node(owner) : editable(child);
+				node.slots[i] = child;
+				node          = child;
+			}
+
+			if (isNew) {
+				node.size++;
+			}
+
+			node.slots[index(key, 0)] = value;
+
+			return this;
+		}
+
+		public Editor<V> remove(long key) {
+			checkNotBuilt();
+
+			if (get(key) == null) {
+				return this;
+			}
+
+			Node[] path = new Node[shift / BITS + 1];
+
+			root    = editable(root);
+			path[0] = root;
+
+			for (int s = shift, level = 0; s > 0; s -= BITS, level++) {
+				int  i     = index(key, s);
+				Node child = editable((Node) path[level].slots[i]);
+
+				path[level].slots[i] = child;
+				path[level + 1]      = child;
+			}
+
+			path[path.length - 1].slots[index(key, 0)] = null;
+
+			// update sizes bottom-up, dropping nodes left empty
+			for (int level = path.length - 1, s = 0; level >= 0; level--, s += BITS) {
+				path[level].size--;
+
+				if (level > 0 && path[level].size == 0) {
+					path[level - 1].slots[index(key, s + BITS)] = null;
+				}
+			}
+
+			return this;
+		}
+
+		public RangerPersistentLongMap<V> build() {
+			checkNotBuilt();
+
+			isBuilt = true;
+
+			return root == null || root.size == 0 ? RangerPersistentLongMap.<V>empty() : new RangerPersistentLongMap<V>(root, shift);
+		}
+
+		private Node editable(Node node) {
+			return node.owner == owner ? node : new Node(node, owner);
+		}
+
+		private void checkNotBuilt() {
+			if (isBuilt) {
+				throw new IllegalStateException("map already built");
+			}
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<Long, V>> {
+		private final Node[] nodes;
+		private final int[]  indexes;
+		private int          level;
+		private Object       nextValue;
+
+		EntryIterator() {
+			int levels = shift / BITS + 1;
+
+			nodes   = new Node[levels];
+			indexes = new int[levels];
+
+			if (root != null) {
+				nodes[0]   = root;
+				indexes[0] = -1;
+				level      = 0;
+
+				advance();
+			} else {
+				level = -1;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextValue != null;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Map.Entry<Long, V> next() {
+			if (nextValue == null) {
+				throw new NoSuchElementException();
+			}
+
+			long key = 0;
+
+			for (int index : indexes) {
+				key = (key << BITS) | index;
+			}
+
+			Map.Entry<Long, V> ret = new AbstractMap.SimpleImmutableEntry<>(key, (V) nextValue);
+
+			advance();
+
+			return ret;
+		}
+
+		private void advance() {
+			nextValue = null;
+
+			while (level >= 0) {
+				int i = ++indexes[level];
+
+				if (i >= WIDTH) {
+					level--;
+
+					continue;
+				}
+
+				Object slot = nodes[level].slots[i];
+
+				if (slot == null) {
+					continue;
+				}
+
+				if (level == nodes.length - 1) {
+					nextValue = slot;
+
+					return;
+				}
+
+				level++;
+				nodes[level]   = (Node) slot;
+				indexes[level] = -1;
+			}
+		}
+	}
+
+	private static final class ValueList<V> extends AbstractList<V> implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final RangerPersistentLongMap<V> map;
+
+		ValueList(RangerPersistentLongMap<V> map) {
+			this.map = map;
+		}
+
+		RangerPersistentLongMap<V> getMap() {
+			return map;
+		}
+
+		@Override
+		public V get(int index) {
+			return map.getAt(index);
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			return map.values().iterator();
+		}
+
+		// serialized as an ArrayList, so that readers don't depend on this class
+		private Object writeReplace() {
+			return new ArrayList<>(this);
+		}
+	}
+
+	// returns the map of a list returned by valueList(), or null for other lists
+	@SuppressWarnings("unchecked")
+	static <V> RangerPersistentLongMap<V> getMapOfValueList(List<V> list) {
+		return list instanceof ValueList ? ((ValueList<V>) list).getMap() : null;
+	}
+}
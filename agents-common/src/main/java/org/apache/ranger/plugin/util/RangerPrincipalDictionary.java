@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.ranger.plugin.util;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionaries of user and group names that appear in policy items. Each name is given a small int id, so that the
+ * principals of a policy item can be kept as a bitmap; the groups of a request are converted to a bitmap once, and
+ * then matched against each policy item with a single bitmap intersection.
+ *
+ * A dictionary is owned by a policy engine and shared by its policy repositories. Ids are never removed or reused:
+ * policy evaluators are carried over to the policy engine built by applying policy deltas, which hence continues to use
+ * the same dictionary; an engine built from a full download of policies starts with a new one, and the old dictionary
+ * is released with the old engine. Names seen only in requests are not added, as these can't match any policy item.
+ */
+public final class RangerPrincipalDictionary {
+	private final Names users  = new Names();
+	private final Names groups = new Names();
+
+	public Names getUsers() {
+		return users;
+	}
+
+	public Names getGroups() {
+		return groups;
+	}
+
+	public RequestPrincipals getRequestPrincipals(String user, Set<String> groups) {
+		return new RequestPrincipals(this, user, groups);
+	}
+
+	public static final class Names {
+		private final ConcurrentHashMap<String, Integer> ids  = new ConcurrentHashMap<>();
+		private volatile int                             size = 0;
+
+		Names() {
+		}
+
+		public int getOrAddId(String name) {
+			Integer ret = ids.get(name);
+
+			if (ret == null) {
+				synchronized (this) {
+					ret = ids.get(name);
+
+					if (ret == null) {
+						ret = size;
+
+						ids.put(name, ret);
+
+						size = ret + 1; // published after the mapping, so that every id below size() can be looked up
+					}
+				}
+			}
+
+			return ret;
+		}
+
+		public int getId(String name) {
+			Integer ret = name != null ? ids.get(name) : null;
+
+			return ret != null ? ret : -1;
+		}
+
+		// ids assigned so far are in the range [0, size())
+		public int size() {
+			return size;
+		}
+
+		public BitSet getOrAddIds(Collection<String> names) {
+			BitSet ret = new BitSet();
+
+			if (names != null) {
+				for (String name : names) {
+					if (name != null) {
+						ret.set(getOrAddId(name));
+					}
+				}
+			}
+
+			return ret;
+		}
+
+		public BitSet getIds(Collection<String> names) {
+			BitSet ret = new BitSet();
+
+			if (names != null) {
+				for (String name : names) {
+					int id = getId(name);
+
+					if (id >= 0) {
+						ret.set(id);
+					}
+				}
+			}
+
+			return ret;
+		}
+	}
+
+	/**
+	 * User and groups of a request, as ids in the user and group dictionaries. Only ids below the recorded limits are
+	 * known to be complete: a policy item with principals added to a dictionary later must be matched by name. The ids
+	 * are meaningful only to policy items and indexes built with the same dictionary - see isFrom().
+	 */
+	public static final class RequestPrincipals {
+		private final RangerPrincipalDictionary dictionary;
+		private final String                    user;
+		private final Set<String>               groups;
+		private final int                       userIdLimit;
+		private final int                       userId;
+		private final int                       groupIdLimit;
+		private final BitSet                    groupIds;
+
+		private RequestPrincipals(RangerPrincipalDictionary dictionary, String user, Set<String> groups) {
+			this.dictionary   = dictionary;
+			this.user         = user;
+			this.groups       = groups;
+			this.userIdLimit  = dictionary.users.size(); // limits are read before the lookups
+			this.groupIdLimit = dictionary.groups.size();
+			this.userId       = dictionary.users.getId(user);
+			this.groupIds     = dictionary.groups.getIds(groups);
+		}
+
+		public boolean isFor(String user, Set<String> groups) {
+			return this.groups == groups && Objects.equals(this.user, user);
+		}
+
+		public boolean isFrom(RangerPrincipalDictionary dictionary) {
+			return this.dictionary == dictionary;
+		}
+
+		public String getUser() {
+			return user;
+		}
+
+		public Set<String> getGroups() {
+			return groups;
+		}
+
+		public int getUserIdLimit() {
+			return userIdLimit;
+		}
+
+		public int getUserId() {
+			return userId;
+		}
+
+		public int getGroupIdLimit() {
+			return groupIdLimit;
+		}
+
+		public BitSet getGroupIds() {
+			return groupIds;
+		}
+	}
+}
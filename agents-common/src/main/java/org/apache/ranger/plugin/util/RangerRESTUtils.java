@@ -53,8 +53,15 @@ public class RangerRESTUtils {
 
 	public static final String REST_URL_LOOKUP_TAG_NAMES = "/service/tags/lookup";
 
+	public static final String REST_URL_POLICY_WAIT_FOR_UPDATE        = "/service/plugins/policies/notify/";
+	public static final String REST_URL_SECURE_POLICY_WAIT_FOR_UPDATE = "/service/plugins/secure/policies/notify/";
+	public static final String REST_URL_TAG_WAIT_FOR_UPDATE           = "/service/tags/notify/";
+	public static final String REST_URL_SECURE_TAG_WAIT_FOR_UPDATE    = "/service/tags/secure/notify/";
+	public static final String REST_PARAM_TIMEOUT_MS                  = "timeoutMs";
+
 	public static final String REST_EXPECTED_MIME_TYPE = "application/json";
 	public static final String REST_MIME_TYPE_JSON     = "application/json";
+	public static final String REST_MIME_TYPE_TEXT     = "text/plain";
 
 	public static final String REST_PARAM_LAST_KNOWN_POLICY_VERSION = "lastKnownVersion";
 	public static final String REST_PARAM_LAST_ACTIVATION_TIME = "lastActivationTime";
@@ -64,6 +71,7 @@ public class RangerRESTUtils {
 	
 	public static final String REST_PARAM_CLUSTER_NAME   = "clusterName";
 	public static final String REST_PARAM_SUPPORTS_POLICY_DELTAS   = "supportsPolicyDeltas";
+	public static final String REST_PARAM_SUPPORTS_TAG_DELTAS      = "supportsTagDeltas";
 
 	public static final String REST_PARAM_ZONE_NAME		 = "zoneName";
 
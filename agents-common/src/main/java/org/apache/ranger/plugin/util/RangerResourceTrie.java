@@ -34,6 +34,7 @@ import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -49,6 +50,8 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
     private static final Log PERF_TRIE_OP_LOG = RangerPerfTracer.getPerfLogger("resourcetrie.op");
 
     private static final String DEFAULT_WILDCARD_CHARS = "*?";
+    private static final int    CHILD_LINEAR_SEARCH_THRESHOLD = 8;
+    private static final int[]  EMPTY_EVALUATOR_INDEXES = new int[0];
     private static final String TRIE_BUILDER_THREAD_COUNT = "ranger.policyengine.trie.builder.thread.count";
 
     private final String resourceName;
@@ -57,12 +60,17 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
     private final String wildcardChars;
     private final TrieNode<T> root;
     private final boolean isOptimizedForRetrieval;
+    private Map<T, Integer> evaluatorIndexMap; // when set, each node also keeps its evaluators as sorted indexes into the caller's evaluator list
 
     public RangerResourceTrie(RangerServiceDef.RangerResourceDef resourceDef, List<T> evaluators) {
         this(resourceDef, evaluators, true);
     }
 
     public RangerResourceTrie(RangerServiceDef.RangerResourceDef resourceDef, List<T> evaluators, boolean isOptimizedForRetrieval) {
+        this(resourceDef, evaluators, isOptimizedForRetrieval, null);
+    }
+
+    public RangerResourceTrie(RangerServiceDef.RangerResourceDef resourceDef, List<T> evaluators, boolean isOptimizedForRetrieval, Map<T, Integer> evaluatorIndexMap) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> RangerResourceTrie(" + resourceDef.getName() + ", evaluatorCount=" + evaluators.size() + ", isOptimizedForRetrieval=" + isOptimizedForRetrieval + ")");
         }
@@ -104,6 +112,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         this.optWildcard   = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions);
         this.wildcardChars = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : "" + tokenReplaceSpecialChars;
         this.isOptimizedForRetrieval = isOptimizedForRetrieval;
+        this.evaluatorIndexMap = evaluatorIndexMap;
 
         TrieNode<T> tmpRoot = buildTrie(resourceDef, evaluators, builderThreadCount);
 
@@ -215,14 +224,148 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         }
     }
 
+    /**
+     * Adds the evaluator to this trie, the same way as the trie is built from the evaluators of a resource-def. Used to
+     * update a copy of a trie; wrapUpUpdate() must be called after all updates.
+     */
+    public void addEvaluator(RangerServiceDef.RangerResourceDef resourceDef, T evaluator) {
+        Map<String, RangerPolicyResource> policyResources = evaluator.getPolicyResource();
+        RangerPolicyResource              policyResource  = policyResources != null ? policyResources.get(resourceName) : null;
+
+        if (isWildcardEvaluator(resourceDef, evaluator, policyResource)) {
+            root.addWildcardEvaluator(evaluator);
+        } else if (policyResource != null && CollectionUtils.isNotEmpty(policyResource.getValues())) {
+            for (String value : policyResource.getValues()) {
+                insert(root, value, policyResource.getIsRecursive(), evaluator);
+            }
+        }
+    }
+
+    /**
+     * Removes the evaluator, added earlier with addEvaluator() or when the trie was built, from this trie.
+     */
+    public void removeEvaluator(RangerServiceDef.RangerResourceDef resourceDef, T evaluator) {
+        Map<String, RangerPolicyResource> policyResources = evaluator.getPolicyResource();
+        RangerPolicyResource              policyResource  = policyResources != null ? policyResources.get(resourceName) : null;
+
+        if (isWildcardEvaluator(resourceDef, evaluator, policyResource)) {
+            root.removeEvaluatorFromSubtree(evaluator);
+        } else if (policyResource != null && CollectionUtils.isNotEmpty(policyResource.getValues())) {
+            for (String value : policyResource.getValues()) {
+                TrieNode<T> node = getNodeForResource(getNonWildcardPrefix(value));
+
+                if (node != null) {
+                    node.removeEvaluatorFromSubtree(evaluator);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns indexes, in ascending order, of evaluators that may match the given resource; the indexes are as given in
+     * evaluatorIndexMap. Returns an empty array when no evaluator matches, and null when the trie has no evaluatorIndexMap.
+     * The returned array is shared by the trie and must not be modified.
+     */
+    public int[] getEvaluatorIndexesForResource(Object resource) {
+        if (evaluatorIndexMap == null) {
+            return null;
+        }
+
+        if (resource instanceof String) {
+            return getEvaluatorIndexesForResource((String) resource);
+        } else if (resource instanceof Collection) {
+            if (CollectionUtils.isEmpty((Collection) resource)) {  // treat empty collection same as empty-string
+                return getEvaluatorIndexesForResource("");
+            } else {
+                @SuppressWarnings("unchecked")
+                Collection<String> resources = (Collection<String>) resource;
+
+                return getEvaluatorIndexesForResources(resources);
+            }
+        }
+
+        return EMPTY_EVALUATOR_INDEXES;
+    }
+
+    /**
+     * Returns evaluators that may match descendants of the given resource - i.e. resources that start with the given prefix.
+     * Returns null when the trie has nodes beyond the prefix, i.e. when some evaluators may match only a part of the descendants.
+     */
+    public Set<T> getEvaluatorsForDescendants(String prefix) {
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerResourceTrie.getEvaluatorsForDescendants(" + prefix + ")");
+        }
+
+        TrieNode<T> curr          = root;
+        TrieNode<T> parent        = null;
+        final int   len           = prefix.length();
+        int         i             = 0;
+        boolean     hasNodeBeyond = false;
+
+        while (i < len) {
+            if (!isOptimizedForRetrieval) {
+                curr.setupIfNeeded(parent);
+            }
+
+            final TrieNode<T> child = curr.getChild(getLookupChar(prefix, i));
+
+            if (child == null) {
+                break;
+            }
+
+            final String childStr = child.getStr();
+
+            if (!prefix.regionMatches(optIgnoreCase, i, childStr, 0, childStr.length())) {
+                // child that starts with rest of the prefix holds resources that are descendants
+                hasNodeBeyond = childStr.regionMatches(optIgnoreCase, 0, prefix, i, len - i);
+
+                break;
+            }
+
+            parent = curr;
+            curr = child;
+            i += childStr.length();
+        }
+
+        if (!isOptimizedForRetrieval) {
+            curr.setupIfNeeded(parent);
+        }
+
+        if (i == len && curr.getChildCount() > 0) {
+            hasNodeBeyond = true;
+        }
+
+        Set<T> ret = null;
+
+        if (!hasNodeBeyond) {
+            ret = curr.getWildcardEvaluators();
+
+            if (ret == null) {
+                ret = Collections.emptySet();
+            }
+        }
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerResourceTrie.getEvaluatorsForDescendants(" + prefix + "): evaluatorCount=" + (ret == null ? null : ret.size()));
+        }
+
+        return ret;
+    }
+
     public void wrapUpUpdate() {
         if (this.isOptimizedForRetrieval) {
-            root.postSetup(null);
+            root.postSetup(null, null);
         } else {
-            root.setup(null);
+            root.setup(null, null);
         }
     }
 
+    public void wrapUpUpdate(Map<T, Integer> evaluatorIndexMap) {
+        this.evaluatorIndexMap = evaluatorIndexMap;
+
+        wrapUpUpdate();
+    }
+
     private TrieNode<T> copyTrieSubtree(TrieNode<T> source, Set<T> parentWildcardEvaluators) {
         if (TRACE_LOG.isTraceEnabled()) {
             StringBuilder sb = new StringBuilder();
@@ -273,9 +416,8 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             }
         }
 
-        Map<Character, TrieNode<T>> children = source.getChildren();
-        for (Map.Entry<Character, TrieNode<T>> entry : children.entrySet()) {
-            TrieNode<T> copy = copyTrieSubtree(entry.getValue(), source.wildcardEvaluators);
+        for (int i = 0; i < source.getChildCount(); i++) {
+            TrieNode<T> copy = copyTrieSubtree(source.getChildAt(i), source.wildcardEvaluators);
             dest.addChild(copy);
         }
 
@@ -301,6 +443,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         this.optWildcard = other.optWildcard;
         this.wildcardChars = other.wildcardChars;
         this.isOptimizedForRetrieval = false;
+        this.evaluatorIndexMap = other.evaluatorIndexMap;
         this.root = copyTrieSubtree(other.root, null);
 
         RangerPerfTracer.logAlways(perf);
@@ -315,6 +458,21 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         }
     }
 
+    // same rules as buildTrie(): such evaluators are added as wildcard-evaluators of the root
+    private boolean isWildcardEvaluator(RangerServiceDef.RangerResourceDef resourceDef, T evaluator, RangerPolicyResource policyResource) {
+        if (policyResource == null) {
+            return evaluator.getLeafResourceLevel() != null && resourceDef.getLevel() != null && evaluator.getLeafResourceLevel() < resourceDef.getLevel();
+        }
+
+        if (policyResource.getIsExcludes()) {
+            return true;
+        }
+
+        RangerResourceMatcher resourceMatcher = evaluator.getResourceMatcher(resourceName);
+
+        return resourceMatcher != null && resourceMatcher.isMatchAny();
+    }
+
     private TrieNode<T> buildTrie(RangerServiceDef.RangerResourceDef resourceDef, List<T> evaluators, int builderThreadCount) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> buildTrie(" + resourceDef.getName() + ", evaluatorCount=" + evaluators.size() + ", isMultiThreaded=" + (builderThreadCount > 1) + ")");
@@ -392,16 +550,20 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         }
         if (ret != null) {
             if (isMultiThreaded) {
-                ret.setup(null);
+                ret.setup(null, null);
 
                 for (ResourceTrieBuilderThread t : builderThreads) {
-                    t.setParentWildcardEvaluators(ret.wildcardEvaluators);
+                    t.setParentWildcardEvaluators(ret.wildcardEvaluators, ret.wildcardEvaluatorIndexes);
                     try {
                         // Send termination signal to each thread
                         t.add("", false, null);
                         // Wait for threads to finish work
                         t.join();
-                        ret.getChildren().putAll(t.getSubtrees());
+                        TrieNode<T> subtrees = t.getSubtrees();
+
+                        for (int i = 0; i < subtrees.getChildCount(); i++) {
+                            ret.addChild(subtrees.getChildAt(i));
+                        }
                     } catch (InterruptedException ex) {
                         LOG.error("BuilderThread " + t + " was interrupted:", ex);
                         LOG.error("Failing and retrying with one thread");
@@ -419,11 +581,11 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
                         postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(name=" + resourceDef.getName() + "-postSetup)");
                     }
 
-                    ret.postSetup(null);
+                    ret.postSetup(null, null);
 
                     RangerPerfTracer.logAlways(postSetupPerf);
                 } else {
-                    ret.setup(null);
+                    ret.setup(null, null);
                 }
             }
         }
@@ -469,11 +631,11 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         return root.getMaxDepth();
     }
 
-    private Character getLookupChar(char ch) {
+    private char getLookupChar(char ch) {
         return optIgnoreCase ? Character.toLowerCase(ch) : ch;
     }
 
-    private Character getLookupChar(String str, int index) {
+    private char getLookupChar(String str, int index) {
         return getLookupChar(str.charAt(index));
     }
 
@@ -584,6 +746,59 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         return ret;
     }
 
+    private int[] getEvaluatorIndexesForResource(String resource) {
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerResourceTrie.getEvaluatorIndexesForResource(" + resource + ")");
+        }
+
+        RangerPerfTracer perf = null;
+
+        if(RangerPerfTracer.isPerfTraceEnabled(PERF_TRIE_OP_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerResourceTrie.getEvaluatorIndexesForResource(resource=" + resource + ")");
+        }
+
+        TrieNode<T> curr   = root;
+        TrieNode<T> parent = null;
+        final int   len    = resource.length();
+        int         i      = 0;
+
+        while (i < len) {
+            if (!isOptimizedForRetrieval) {
+                curr.setupIfNeeded(parent);
+            }
+
+            final TrieNode<T> child = curr.getChild(getLookupChar(resource, i));
+
+            if (child == null) {
+                break;
+            }
+
+            final String childStr = child.getStr();
+
+            if (!resource.regionMatches(optIgnoreCase, i, childStr, 0, childStr.length())) {
+                break;
+            }
+
+            parent = curr;
+            curr = child;
+            i += childStr.length();
+        }
+
+        if (!isOptimizedForRetrieval) {
+            curr.setupIfNeeded(parent);
+        }
+
+        int[] ret = i == len ? curr.evaluatorIndexes : curr.wildcardEvaluatorIndexes;
+
+        RangerPerfTracer.logAlways(perf);
+
+        if(LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerResourceTrie.getEvaluatorIndexesForResource(" + resource + "): evaluatorCount=" + (ret == null ? 0 : ret.length));
+        }
+
+        return ret;
+    }
+
     private TrieNode<T> getNodeForResource(String resource) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> RangerResourceTrie.getNodeForResource(" + resource + ")");
@@ -673,6 +888,52 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         return ret;
     }
 
+    private int[] getEvaluatorIndexesForResources(Collection<String> resources) {
+        int[] ret = null;
+
+        for (String resource : resources) {
+            int[] resourceEvaluatorIndexes = getEvaluatorIndexesForResource(resource);
+
+            if (resourceEvaluatorIndexes == null) { // index not available for some node
+                return null;
+            }
+
+            if (ret == null || ret.length == 0) {
+                ret = resourceEvaluatorIndexes;
+            } else if (resourceEvaluatorIndexes.length > 0 && ret != resourceEvaluatorIndexes) {
+                ret = union(ret, resourceEvaluatorIndexes);
+            }
+        }
+
+        return ret;
+    }
+
+    private static int[] union(int[] sorted1, int[] sorted2) {
+        int[] ret = new int[sorted1.length + sorted2.length];
+        int   i   = 0, j = 0, k = 0;
+
+        while (i < sorted1.length && j < sorted2.length) {
+            if (sorted1[i] < sorted2[j]) {
+                ret[k++] = sorted1[i++];
+            } else if (sorted1[i] > sorted2[j]) {
+                ret[k++] = sorted2[j++];
+            } else {
+                ret[k++] = sorted1[i++];
+                j++;
+            }
+        }
+
+        while (i < sorted1.length) {
+            ret[k++] = sorted1[i++];
+        }
+
+        while (j < sorted2.length) {
+            ret[k++] = sorted2[j++];
+        }
+
+        return k == ret.length ? ret : Arrays.copyOf(ret, k);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -720,6 +981,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         private final   BlockingQueue<WorkItem> workQueue = new LinkedBlockingQueue<>();
         private final   boolean                 isOptimizedForRetrieval;
         private         Set<T>                  parentWildcardEvaluators;
+        private         int[]                   parentWildcardEvaluatorIndexes;
 
         ResourceTrieBuilderThread(boolean isOptimizedForRetrieval) {
             this.isOptimizedForRetrieval = isOptimizedForRetrieval;
@@ -729,11 +991,12 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             workQueue.put(new WorkItem(resourceName, isRecursive, evaluator));
         }
 
-        void setParentWildcardEvaluators(Set<T> parentWildcardEvaluators) {
-            this.parentWildcardEvaluators = parentWildcardEvaluators;
+        void setParentWildcardEvaluators(Set<T> parentWildcardEvaluators, int[] parentWildcardEvaluatorIndexes) {
+            this.parentWildcardEvaluators       = parentWildcardEvaluators;
+            this.parentWildcardEvaluatorIndexes = parentWildcardEvaluatorIndexes;
         }
 
-        Map<Character, TrieNode<T>> getSubtrees() { return thisRoot.getChildren(); }
+        TrieNode<T> getSubtrees() { return thisRoot; }
 
         @Override
         public void run() {
@@ -769,7 +1032,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
                     postSetupPerf = RangerPerfTracer.getPerfTracer(PERF_TRIE_INIT_LOG, "RangerResourceTrie.init(thread=" + this.getName() + "-postSetup)");
                 }
 
-                thisRoot.postSetup(parentWildcardEvaluators);
+                thisRoot.postSetup(parentWildcardEvaluators, parentWildcardEvaluatorIndexes);
 
                 RangerPerfTracer.logAlways(postSetupPerf);
             }
@@ -793,9 +1056,12 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
 
     class TrieNode<U extends RangerPolicyResourceEvaluator> {
         private          String                      str;
-        private final    Map<Character, TrieNode<U>> children = new HashMap<>();
+        private          char[]                      childKeys;  // sorted lookup-chars of children; null when there are no children
+        private          TrieNode<U>[]               childNodes; // childNodes[i] is the child for childKeys[i]
         private          Set<U>                      evaluators;
         private          Set<U>                      wildcardEvaluators;
+        private          int[]                       evaluatorIndexes;
+        private          int[]                       wildcardEvaluatorIndexes;
         private          boolean                     isSharingParentWildcardEvaluators;
         private volatile boolean                     isSetup = false;
 
@@ -811,8 +1077,12 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             this.str = str;
         }
 
-        Map<Character, TrieNode<U>> getChildren() {
-            return children;
+        int getChildCount() {
+            return childKeys == null ? 0 : childKeys.length;
+        }
+
+        TrieNode<U> getChildAt(int index) {
+            return childNodes[index];
         }
 
         Set<U> getEvaluators() {
@@ -823,8 +1093,32 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             return wildcardEvaluators;
         }
 
-        TrieNode<U> getChild(Character ch) {
-            return children == null ? null : children.get(ch);
+        TrieNode<U> getChild(char ch) {
+            final int index = findChildIndex(ch);
+
+            return index >= 0 ? childNodes[index] : null;
+        }
+
+        private int findChildIndex(char ch) {
+            final char[] keys = childKeys;
+
+            if (keys == null) {
+                return -1;
+            }
+
+            if (keys.length > CHILD_LINEAR_SEARCH_THRESHOLD) {
+                return Arrays.binarySearch(keys, ch);
+            }
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == ch) {
+                    return i;
+                } else if (keys[i] > ch) {
+                    return -(i + 1);
+                }
+            }
+
+            return -(keys.length + 1);
         }
 
         void populateTrieData(RangerResourceTrie.TrieData trieData) {
@@ -846,13 +1140,15 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
                 }
             }
 
-            if (children != null && !children.isEmpty()) {
-                if (children.size() == 1) {
+            final int childCount = getChildCount();
+
+            if (childCount > 0) {
+                if (childCount == 1) {
                     trieData.singleChildNodeCount++;
                 }
 
-                for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                    TrieNode child = entry.getValue();
+                for (int i = 0; i < childCount; i++) {
+                    TrieNode child = childNodes[i];
 
                     child.populateTrieData(trieData);
                 }
@@ -864,15 +1160,13 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         int getMaxDepth() {
             int ret = 0;
 
-            if (children != null) {
-                for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                    TrieNode<U> child = entry.getValue();
+            for (int i = 0; i < getChildCount(); i++) {
+                TrieNode<U> child = childNodes[i];
 
-                    int maxChildDepth = child.getMaxDepth();
+                int maxChildDepth = child.getMaxDepth();
 
-                    if (maxChildDepth > ret) {
-                        ret = maxChildDepth;
-                    }
+                if (maxChildDepth > ret) {
+                    ret = maxChildDepth;
                 }
             }
 
@@ -882,7 +1176,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
         TrieNode<U> getOrCreateChild(String str) {
             int len = str.length();
 
-            TrieNode<U> child = children.get(getLookupChar(str, 0));
+            TrieNode<U> child = getChild(getLookupChar(str, 0));
 
             if (child == null) {
                 child = new TrieNode<>(str);
@@ -929,8 +1223,32 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             return child;
         }
 
+        @SuppressWarnings("unchecked")
         private void addChild(TrieNode<U> child) {
-            children.put(getLookupChar(child.getStr(), 0), child);
+            final char key   = getLookupChar(child.getStr(), 0);
+            final int  index = findChildIndex(key);
+
+            if (index >= 0) {
+                childNodes[index] = child;
+            } else {
+                final int     insertAt   = -(index + 1);
+                final int     childCount = getChildCount();
+                char[]        newKeys    = new char[childCount + 1];
+                TrieNode<U>[] newNodes   = new TrieNode[childCount + 1];
+
+                if (childCount > 0) {
+                    System.arraycopy(childKeys, 0, newKeys, 0, insertAt);
+                    System.arraycopy(childNodes, 0, newNodes, 0, insertAt);
+                    System.arraycopy(childKeys, insertAt, newKeys, insertAt + 1, childCount - insertAt);
+                    System.arraycopy(childNodes, insertAt, newNodes, insertAt + 1, childCount - insertAt);
+                }
+
+                newKeys[insertAt]  = key;
+                newNodes[insertAt] = child;
+
+                childNodes = newNodes;
+                childKeys  = newKeys;
+            }
         }
 
         void addEvaluator(U evaluator) {
@@ -950,16 +1268,14 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             }
         }
 
-        void postSetup(Set<U> parentWildcardEvaluators) {
+        void postSetup(Set<U> parentWildcardEvaluators, int[] parentWildcardEvaluatorIndexes) {
 
-            setup(parentWildcardEvaluators);
+            setup(parentWildcardEvaluators, parentWildcardEvaluatorIndexes);
 
-            if (children != null) {
-                for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                    TrieNode<U> child = entry.getValue();
+            for (int i = 0; i < getChildCount(); i++) {
+                TrieNode<U> child = childNodes[i];
 
-                    child.postSetup(wildcardEvaluators);
-                }
+                child.postSetup(wildcardEvaluators, wildcardEvaluatorIndexes);
             }
         }
 
@@ -975,7 +1291,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
                     setupNeeded = !isSetup;
 
                     if (setupNeeded) {
-                        setup(parent.getWildcardEvaluators());
+                        setup(parent.getWildcardEvaluators(), parent.wildcardEvaluatorIndexes);
                         isSetup = true;
                         if (TRACE_LOG.isTraceEnabled()) {
                             StringBuilder sb = new StringBuilder();
@@ -987,7 +1303,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             }
         }
 
-        void setup(Set<U> parentWildcardEvaluators) {
+        void setup(Set<U> parentWildcardEvaluators, int[] parentWildcardEvaluatorIndexes) {
             // finalize wildcard-evaluators list by including parent's wildcard evaluators
             if (parentWildcardEvaluators != null) {
                 if (CollectionUtils.isEmpty(this.wildcardEvaluators)) {
@@ -1010,6 +1326,48 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
                     }
                 }
             }
+
+            // indexes are shared whenever the underlying evaluator set is shared
+            if (isSharingParentWildcardEvaluators && parentWildcardEvaluatorIndexes != null) {
+                this.wildcardEvaluatorIndexes = parentWildcardEvaluatorIndexes;
+            } else {
+                this.wildcardEvaluatorIndexes = toEvaluatorIndexes(wildcardEvaluators);
+            }
+
+            if (evaluators == wildcardEvaluators) {
+                this.evaluatorIndexes = wildcardEvaluatorIndexes;
+            } else {
+                this.evaluatorIndexes = toEvaluatorIndexes(evaluators);
+            }
+        }
+
+        private int[] toEvaluatorIndexes(Set<U> evaluators) {
+            final Map<T, Integer> indexMap = evaluatorIndexMap;
+
+            if (indexMap == null) {
+                return null;
+            }
+
+            if (CollectionUtils.isEmpty(evaluators)) {
+                return EMPTY_EVALUATOR_INDEXES;
+            }
+
+            int[] ret = new int[evaluators.size()];
+            int   i   = 0;
+
+            for (U evaluator : evaluators) {
+                Integer index = indexMap.get(evaluator);
+
+                if (index == null) { // evaluator not known to the index; callers fall back to evaluator sets
+                    return null;
+                }
+
+                ret[i++] = index;
+            }
+
+            Arrays.sort(ret);
+
+            return ret;
         }
 
         private void removeEvaluatorFromSubtree(T evaluator) {
@@ -1018,8 +1376,8 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
                     if (CollectionUtils.isEmpty(wildcardEvaluators)) {
                         wildcardEvaluators = null;
                     }
-                    for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                        entry.getValue().removeEvaluatorFromSubtree(evaluator);
+                    for (int i = 0; i < getChildCount(); i++) {
+                        childNodes[i].removeEvaluatorFromSubtree(evaluator);
                     }
                 }
             }
@@ -1038,7 +1396,7 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             sb.append("nodeValue=").append(nodeValue);
             sb.append("; isSetup=").append(isSetup);
             sb.append("; isSharingParentWildcardEvaluators=").append(isSharingParentWildcardEvaluators);
-            sb.append("; childCount=").append(children == null ? 0 : children.size());
+            sb.append("; childCount=").append(getChildCount());
             sb.append("; evaluators=[ ");
             if (evaluators != null) {
                 for (U evaluator : evaluators) {
@@ -1062,19 +1420,16 @@ public class RangerResourceTrie<T extends RangerPolicyResourceEvaluator> {
             toString(sb);
             sb.append("]\n");
 
-            if (children != null) {
-                for (Map.Entry<Character, TrieNode<U>> entry : children.entrySet()) {
-                    TrieNode<U> child = entry.getValue();
+            for (int i = 0; i < getChildCount(); i++) {
+                TrieNode<U> child = childNodes[i];
 
-                    child.toString(nodeValue, sb);
-                }
+                child.toString(nodeValue, sb);
             }
         }
 
         public void clear() {
-            if (children != null) {
-                children.clear();
-            }
+            childKeys  = null;
+            childNodes = null;
 
             evaluators         = null;
             wildcardEvaluators = null;
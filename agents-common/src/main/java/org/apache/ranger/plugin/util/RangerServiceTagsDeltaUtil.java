@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RangerServiceTagsDeltaUtil {
+
+    private static final Log LOG = LogFactory.getLog(RangerServiceTagsDeltaUtil.class);
+
+    private static final Log PERF_TAGS_DELTA_LOG = RangerPerfTracer.getPerfLogger("tags.delta");
+
+    /**
+     * Returns the complete set of tags got by applying the delta on the given serviceTags; serviceTags is not modified.
+     * Tags that are no longer associated with any service-resource are dropped from the result.
+     */
+    public static ServiceTags applyDelta(ServiceTags serviceTags, ServiceTags delta) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> applyDelta(serviceTags.version=" + (serviceTags == null ? null : serviceTags.getTagVersion()) + ", delta.version=" + (delta == null ? null : delta.getTagVersion()) + ")");
+        }
+
+        final ServiceTags ret;
+
+        if (delta == null || !Boolean.TRUE.equals(delta.getIsDelta())) {
+            ret = delta;
+        } else {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_TAGS_DELTA_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_TAGS_DELTA_LOG, "RangerServiceTagsDeltaUtil.applyDelta(serviceName=" + delta.getServiceName() + ", version=" + delta.getTagVersion() + ")");
+            }
+
+            // entries not touched by the delta are shared with serviceTags: the maps are converted to persistent maps
+            // once, after which each delta copies only the paths to the entries it changes
+            RangerPersistentLongMap.Editor<RangerTagDef>          tagDefs          = RangerPersistentLongMap.copyOf(serviceTags == null ? null : serviceTags.getTagDefinitions()).edit();
+            RangerPersistentLongMap.Editor<RangerTag>             tags             = RangerPersistentLongMap.copyOf(serviceTags == null ? null : serviceTags.getTags()).edit();
+            RangerPersistentLongMap.Editor<List<Long>>            resourceToTagIds = RangerPersistentLongMap.copyOf(serviceTags == null ? null : serviceTags.getResourceToTagIds()).edit();
+            RangerPersistentLongMap.Editor<RangerServiceResource> resources        = getResourcesById(serviceTags).edit();
+            RangerPersistentLongMap.Editor<Integer>               tagRefCounts     = getTagRefCounts(serviceTags).edit();
+
+            if (MapUtils.isNotEmpty(delta.getTagDefinitions())) {
+                for (Map.Entry<Long, RangerTagDef> entry : delta.getTagDefinitions().entrySet()) {
+                    tagDefs.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            Set<Long> unreferencedTagIds = new HashSet<>();
+
+            if (CollectionUtils.isNotEmpty(delta.getServiceResources())) {
+                Map<Long, List<Long>> deltaResourceToTagIds = delta.getResourceToTagIds();
+
+                for (RangerServiceResource resource : delta.getServiceResources()) {
+                    Long       resourceId = resource.getId();
+                    List<Long> oldTagIds  = resourceToTagIds.get(resourceId);
+                    List<Long> newTagIds  = deltaResourceToTagIds == null ? null : deltaResourceToTagIds.get(resourceId);
+
+                    if (isDeleted(resource)) {
+                        resources.remove(resourceId);
+
+                        newTagIds = null;
+                    } else {
+                        resources.put(resourceId, resource);
+                    }
+
+                    if (CollectionUtils.isEmpty(newTagIds)) {
+                        resourceToTagIds.remove(resourceId);
+                    } else {
+                        resourceToTagIds.put(resourceId, newTagIds);
+                    }
+
+                    if (oldTagIds != null) {
+                        for (Long tagId : new HashSet<>(oldTagIds)) {
+                            Integer refCount = tagRefCounts.get(tagId);
+
+                            if (refCount == null || refCount <= 1) {
+                                tagRefCounts.remove(tagId);
+
+                                unreferencedTagIds.add(tagId);
+                            } else {
+                                tagRefCounts.put(tagId, refCount - 1);
+                            }
+                        }
+                    }
+
+                    if (newTagIds != null) {
+                        for (Long tagId : new HashSet<>(newTagIds)) {
+                            Integer refCount = tagRefCounts.get(tagId);
+
+                            tagRefCounts.put(tagId, refCount == null ? 1 : refCount + 1);
+                        }
+                    }
+                }
+            }
+
+            if (MapUtils.isNotEmpty(delta.getTags())) {
+                for (Map.Entry<Long, RangerTag> entry : delta.getTags().entrySet()) {
+                    if (isDeleted(entry.getValue())) {
+                        tags.remove(entry.getKey());
+                    } else {
+                        tags.put(entry.getKey(), entry.getValue());
+
+                        unreferencedTagIds.add(entry.getKey());
+                    }
+                }
+            }
+
+            // drop tags that are no longer associated with any service-resource: only the tags whose reference count
+            // dropped to zero, or that the delta added, need to be looked at
+            for (Long tagId : unreferencedTagIds) {
+                if (tagRefCounts.get(tagId) == null) {
+                    tags.remove(tagId);
+                }
+            }
+
+            ret = new ServiceTags();
+
+            ret.setOp(serviceTags == null ? delta.getOp() : serviceTags.getOp());
+            ret.setServiceName(delta.getServiceName());
+            ret.setTagVersion(delta.getTagVersion());
+            ret.setTagUpdateTime(delta.getTagUpdateTime());
+            ret.setTagDefinitions(tagDefs.build());
+            ret.setTags(tags.build());
+            ret.setServiceResources(resources.build().valueList());
+            ret.setResourceToTagIds(resourceToTagIds.build());
+            ret.setIsDelta(Boolean.FALSE);
+            ret.setTagsChangeExtent(delta.getTagsChangeExtent());
+            ret.setTagRefCounts(tagRefCounts.build());
+
+            RangerPerfTracer.log(perf);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== applyDelta(serviceTags.version=" + (serviceTags == null ? null : serviceTags.getTagVersion()) + ", delta.version=" + (delta == null ? null : delta.getTagVersion()) + "): resources=" + (ret == null ? 0 : ret.getServiceResources().size()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * A service-resource in a delta with no resource-elements denotes a resource that is deleted or no longer tagged.
+     */
+    public static boolean isDeleted(RangerServiceResource resource) {
+        return resource == null || MapUtils.isEmpty(resource.getResourceElements());
+    }
+
+    /**
+     * A tag in a delta with no type denotes a deleted tag.
+     */
+    public static boolean isDeleted(RangerTag tag) {
+        return tag == null || StringUtils.isEmpty(tag.getType());
+    }
+
+    private static RangerPersistentLongMap<RangerServiceResource> getResourcesById(ServiceTags serviceTags) {
+        List<RangerServiceResource>                    resources = serviceTags == null ? null : serviceTags.getServiceResources();
+        RangerPersistentLongMap<RangerServiceResource> ret       = RangerPersistentLongMap.getMapOfValueList(resources);
+
+        if (ret == null) {
+            RangerPersistentLongMap.Editor<RangerServiceResource> editor = RangerPersistentLongMap.<RangerServiceResource>empty().edit();
+
+            if (resources != null) {
+                for (RangerServiceResource resource : resources) {
+                    editor.put(resource.getId(), resource);
+                }
+            }
+
+            ret = editor.build();
+        }
+
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RangerPersistentLongMap<Integer> getTagRefCounts(ServiceTags serviceTags) {
+        Map<Long, Integer> tagRefCounts = serviceTags == null ? null : serviceTags.getTagRefCounts();
+
+        if (tagRefCounts instanceof RangerPersistentLongMap) {
+            return (RangerPersistentLongMap<Integer>) tagRefCounts;
+        }
+
+        Map<Long, Integer> refCounts = new HashMap<>();
+
+        if (serviceTags != null && serviceTags.getResourceToTagIds() != null) {
+            for (List<Long> tagIds : serviceTags.getResourceToTagIds().values()) {
+                for (Long tagId : new HashSet<>(tagIds)) {
+                    Integer refCount = refCounts.get(tagId);
+
+                    refCounts.put(tagId, refCount == null ? 1 : refCount + 1);
+                }
+            }
+        }
+
+        return RangerPersistentLongMap.copyOf(refCounts);
+    }
+}
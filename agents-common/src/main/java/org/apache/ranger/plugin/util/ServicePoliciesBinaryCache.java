@@ -0,0 +1,869 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemRowFilterInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
+import org.apache.ranger.plugin.model.RangerValiditySchedule;
+import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
+import org.apache.ranger.plugin.util.ServicePolicies.TagPolicies;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Binary format for the plugin's local policy cache.
+ *
+ * <pre>
+ *   int    magic
+ *   int    format version
+ *   long   CRC32 of everything that follows the header
+ *   int    length of everything that follows the header
+ *   string table:   count, then each string as length + UTF-8 bytes
+ *   header:         ServicePolicies without policies (serviceDef, zones, deltas, ...), as JSON
+ *   policy sections (service, tag, one per zone): policy count, offset of each policy, encoded policies
+ * </pre>
+ *
+ * Strings (user/group names, access types, resource values ...) are stored once in the string table and referenced
+ * by index from the policies. The file is memory-mapped on read; the policy lists returned in ServicePolicies decode
+ * a policy only when it is first accessed.
+ */
+public class ServicePoliciesBinaryCache {
+	private static final Log LOG = LogFactory.getLog(ServicePoliciesBinaryCache.class);
+
+	public static final int MAGIC          = 0x52504243; // "RPBC"
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int HEADER_LENGTH = 4 + 4 + 8 + 4;
+
+	private static final byte SECTION_SERVICE_POLICIES = 0;
+	private static final byte SECTION_TAG_POLICIES     = 1;
+	private static final byte SECTION_ZONE_POLICIES    = 2;
+
+	private static final Type OPTIONS_TYPE            = new TypeToken<Map<String, Object>>() {}.getType();
+	private static final Type VALIDITY_SCHEDULES_TYPE = new TypeToken<List<RangerValiditySchedule>>() {}.getType();
+
+	private ServicePoliciesBinaryCache() {
+	}
+
+	public static void write(ServicePolicies policies, File file, Gson gson) throws IOException {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServicePoliciesBinaryCache.write(" + file + ")");
+		}
+
+		Encoder encoder = new Encoder(gson);
+		Buffer  body    = encoder.encode(policies);
+		CRC32   crc     = new CRC32();
+
+		crc.update(body.bytes, 0, body.length);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+
+		header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(crc.getValue()).putInt(body.length);
+
+		File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+		try (OutputStream out = new FileOutputStream(tmpFile)) {
+			out.write(header.array());
+			out.write(body.bytes, 0, body.length);
+		}
+
+		try {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException excp) {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServicePoliciesBinaryCache.write(" + file + "): policyVersion=" + policies.getPolicyVersion() + ", size=" + (HEADER_LENGTH + body.length));
+		}
+	}
+
+	/**
+	 * @return policies read from the file; policies are decoded as they are accessed
+	 * @throws IOException if the file can't be read, is not in this format, or fails the checksum
+	 */
+	public static ServicePolicies read(File file, Gson gson) throws IOException {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServicePoliciesBinaryCache.read(" + file + ")");
+		}
+
+		final MappedByteBuffer buffer;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.remaining() < HEADER_LENGTH) {
+			throw new IOException(file + ": not a policy cache file");
+		}
+
+		int  magic      = buffer.getInt();
+		int  version    = buffer.getInt();
+		long checksum   = buffer.getLong();
+		int  bodyLength = buffer.getInt();
+
+		if (magic != MAGIC) {
+			throw new IOException(file + ": not a policy cache file");
+		}
+
+		if (version != FORMAT_VERSION) {
+			throw new IOException(file + ": unsupported policy cache format version " + version + "; expected " + FORMAT_VERSION);
+		}
+
+		if (bodyLength != buffer.remaining()) {
+			throw new IOException(file + ": truncated policy cache file. Expected " + bodyLength + " bytes, found " + buffer.remaining());
+		}
+
+		ByteBuffer body = buffer.slice();
+		CRC32      crc  = new CRC32();
+
+		crc.update(body.duplicate());
+
+		if (crc.getValue() != checksum) {
+			throw new IOException(file + ": policy cache file checksum mismatch");
+		}
+
+		final ServicePolicies ret;
+
+		try {
+			ret = new Decoder(body, gson).decode();
+		} catch (BufferUnderflowException | IndexOutOfBoundsException excp) {
+			throw new IOException(file + ": corrupt policy cache file", excp);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServicePoliciesBinaryCache.read(" + file + "): policyVersion=" + ret.getPolicyVersion());
+		}
+
+		return ret;
+	}
+
+	private static final class Encoder {
+		private final Gson                 gson;
+		private final Map<String, Integer> stringIndex = new HashMap<>();
+		private final List<String>         strings     = new ArrayList<>();
+
+		Encoder(Gson gson) {
+			this.gson = gson;
+		}
+
+		Buffer encode(ServicePolicies policies) {
+			Buffer sections     = new Buffer();
+			int    sectionCount = 0;
+
+			encodeSection(sections, SECTION_SERVICE_POLICIES, null, policies.getPolicies());
+			sectionCount++;
+
+			if (policies.getTagPolicies() != null) {
+				encodeSection(sections, SECTION_TAG_POLICIES, null, policies.getTagPolicies().getPolicies());
+				sectionCount++;
+			}
+
+			if (MapUtils.isNotEmpty(policies.getSecurityZones())) {
+				for (Map.Entry<String, SecurityZoneInfo> entry : policies.getSecurityZones().entrySet()) {
+					encodeSection(sections, SECTION_ZONE_POLICIES, entry.getKey(), entry.getValue() == null ? null : entry.getValue().getPolicies());
+					sectionCount++;
+				}
+			}
+
+			byte[] header = gson.toJson(copyWithoutPolicies(policies)).getBytes(StandardCharsets.UTF_8);
+			Buffer ret    = new Buffer();
+
+			ret.writeVarInt(strings.size());
+
+			for (String str : strings) {
+				byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+				ret.writeVarInt(bytes.length);
+				ret.write(bytes, 0, bytes.length);
+			}
+
+			ret.writeVarInt(header.length);
+			ret.write(header, 0, header.length);
+			ret.writeVarInt(sectionCount);
+			ret.write(sections.bytes, 0, sections.length);
+
+			return ret;
+		}
+
+		private void encodeSection(Buffer out, byte sectionType, String zoneName, List<RangerPolicy> policies) {
+			int    count    = policies == null ? 0 : policies.size();
+			Buffer encoded  = new Buffer();
+			int[]  offsets  = new int[count + 1];
+
+			for (int i = 0; i < count; i++) {
+				offsets[i] = encoded.length;
+
+				encodePolicy(encoded, policies.get(i));
+			}
+
+			offsets[count] = encoded.length;
+
+			out.writeByte(sectionType);
+			writeString(out, zoneName);
+			out.writeVarInt(count);
+
+			for (int offset : offsets) {
+				out.writeInt(offset);
+			}
+
+			out.write(encoded.bytes, 0, encoded.length);
+		}
+
+		private void encodePolicy(Buffer out, RangerPolicy policy) {
+			writeLong(out, policy.getId());
+			writeString(out, policy.getGuid());
+			writeBoolean(out, policy.getIsEnabled());
+			writeString(out, policy.getCreatedBy());
+			writeString(out, policy.getUpdatedBy());
+			writeDate(out, policy.getCreateTime());
+			writeDate(out, policy.getUpdateTime());
+			writeLong(out, policy.getVersion());
+
+			writeString(out, policy.getService());
+			writeString(out, policy.getName());
+			writeInteger(out, policy.getPolicyType());
+			writeInteger(out, policy.getPolicyPriority());
+			writeString(out, policy.getDescription());
+			writeString(out, policy.getResourceSignature());
+			writeBoolean(out, policy.getIsAuditEnabled());
+
+			Map<String, RangerPolicyResource> resources = policy.getResources();
+
+			out.writeVarInt(resources == null ? 0 : resources.size() + 1);
+
+			if (resources != null) {
+				for (Map.Entry<String, RangerPolicyResource> entry : resources.entrySet()) {
+					RangerPolicyResource resource = entry.getValue();
+
+					writeString(out, entry.getKey());
+					out.writeByte(resource == null ? 0 : 1);
+
+					if (resource != null) {
+						writeStrings(out, resource.getValues());
+						writeBoolean(out, resource.getIsExcludes());
+						writeBoolean(out, resource.getIsRecursive());
+					}
+				}
+			}
+
+			writeConditions(out, policy.getConditions());
+			writePolicyItems(out, policy.getPolicyItems());
+			writePolicyItems(out, policy.getDenyPolicyItems());
+			writePolicyItems(out, policy.getAllowExceptions());
+			writePolicyItems(out, policy.getDenyExceptions());
+
+			List<RangerDataMaskPolicyItem> dataMaskItems = policy.getDataMaskPolicyItems();
+
+			out.writeVarInt(dataMaskItems == null ? 0 : dataMaskItems.size() + 1);
+
+			if (dataMaskItems != null) {
+				for (RangerDataMaskPolicyItem item : dataMaskItems) {
+					RangerPolicyItemDataMaskInfo dataMaskInfo = item.getDataMaskInfo();
+
+					writePolicyItem(out, item);
+					out.writeByte(dataMaskInfo == null ? 0 : 1);
+
+					if (dataMaskInfo != null) {
+						writeString(out, dataMaskInfo.getDataMaskType());
+						writeString(out, dataMaskInfo.getConditionExpr());
+						writeString(out, dataMaskInfo.getValueExpr());
+					}
+				}
+			}
+
+			List<RangerRowFilterPolicyItem> rowFilterItems = policy.getRowFilterPolicyItems();
+
+			out.writeVarInt(rowFilterItems == null ? 0 : rowFilterItems.size() + 1);
+
+			if (rowFilterItems != null) {
+				for (RangerRowFilterPolicyItem item : rowFilterItems) {
+					RangerPolicyItemRowFilterInfo rowFilterInfo = item.getRowFilterInfo();
+
+					writePolicyItem(out, item);
+					out.writeByte(rowFilterInfo == null ? 0 : 1);
+
+					if (rowFilterInfo != null) {
+						writeString(out, rowFilterInfo.getFilterExpr());
+					}
+				}
+			}
+
+			writeString(out, policy.getServiceType());
+			// rarely used and free-form: kept as JSON
+			writeString(out, MapUtils.isEmpty(policy.getOptions()) ? null : gson.toJson(policy.getOptions()));
+			writeString(out, policy.getValiditySchedules() == null || policy.getValiditySchedules().isEmpty() ? null : gson.toJson(policy.getValiditySchedules()));
+			writeStrings(out, policy.getPolicyLabels());
+			writeString(out, policy.getZoneName());
+			writeBoolean(out, policy.getIsDenyAllElse());
+		}
+
+		private void writePolicyItems(Buffer out, List<RangerPolicyItem> items) {
+			out.writeVarInt(items == null ? 0 : items.size() + 1);
+
+			if (items != null) {
+				for (RangerPolicyItem item : items) {
+					writePolicyItem(out, item);
+				}
+			}
+		}
+
+		private void writePolicyItem(Buffer out, RangerPolicyItem item) {
+			List<RangerPolicyItemAccess> accesses = item.getAccesses();
+
+			out.writeVarInt(accesses == null ? 0 : accesses.size() + 1);
+
+			if (accesses != null) {
+				for (RangerPolicyItemAccess access : accesses) {
+					writeString(out, access.getType());
+					writeBoolean(out, access.getIsAllowed());
+				}
+			}
+
+			writeStrings(out, item.getUsers());
+			writeStrings(out, item.getGroups());
+			writeConditions(out, item.getConditions());
+			writeBoolean(out, item.getDelegateAdmin());
+		}
+
+		private void writeConditions(Buffer out, List<RangerPolicyItemCondition> conditions) {
+			out.writeVarInt(conditions == null ? 0 : conditions.size() + 1);
+
+			if (conditions != null) {
+				for (RangerPolicyItemCondition condition : conditions) {
+					writeString(out, condition.getType());
+					writeStrings(out, condition.getValues());
+				}
+			}
+		}
+
+		private void writeStrings(Buffer out, List<String> values) {
+			out.writeVarInt(values == null ? 0 : values.size() + 1);
+
+			if (values != null) {
+				for (String value : values) {
+					writeString(out, value);
+				}
+			}
+		}
+
+		// 0 for null, otherwise 1 + index in the string table
+		private void writeString(Buffer out, String value) {
+			if (value == null) {
+				out.writeVarInt(0);
+			} else {
+				Integer idx = stringIndex.get(value);
+
+				if (idx == null) {
+					idx = strings.size();
+
+					strings.add(value);
+					stringIndex.put(value, idx);
+				}
+
+				out.writeVarInt(idx + 1);
+			}
+		}
+
+		private static void writeBoolean(Buffer out, Boolean value) {
+			out.writeByte(value == null ? 0 : (value ? 2 : 1));
+		}
+
+		private static void writeInteger(Buffer out, Integer value) {
+			writeLong(out, value == null ? null : value.longValue());
+		}
+
+		private static void writeDate(Buffer out, Date value) {
+			writeLong(out, value == null ? null : value.getTime());
+		}
+
+		private static void writeLong(Buffer out, Long value) {
+			if (value == null) {
+				out.writeByte(0);
+			} else {
+				out.writeByte(1);
+				out.writeVarLong((value << 1) ^ (value >> 63));
+			}
+		}
+
+		private static ServicePolicies copyWithoutPolicies(ServicePolicies source) {
+			ServicePolicies ret = new ServicePolicies();
+
+			ret.setServiceName(source.getServiceName());
+			ret.setServiceId(source.getServiceId());
+			ret.setPolicyVersion(source.getPolicyVersion());
+			ret.setPolicyUpdateTime(source.getPolicyUpdateTime());
+			ret.setServiceDef(source.getServiceDef());
+			ret.setAuditMode(source.getAuditMode());
+			ret.setPolicyDeltas(source.getPolicyDeltas());
+
+			if (source.getTagPolicies() != null) {
+				TagPolicies tagPolicies = ServicePolicies.copyHeader(source.getTagPolicies());
+
+				tagPolicies.setPolicies(null);
+
+				ret.setTagPolicies(tagPolicies);
+			}
+
+			if (source.getSecurityZones() != null) {
+				Map<String, SecurityZoneInfo> zones = new LinkedHashMap<>();
+
+				for (Map.Entry<String, SecurityZoneInfo> entry : source.getSecurityZones().entrySet()) {
+					SecurityZoneInfo zoneInfo = entry.getValue();
+					SecurityZoneInfo copy     = null;
+
+					if (zoneInfo != null) {
+						copy = new SecurityZoneInfo();
+
+						copy.setZoneName(zoneInfo.getZoneName());
+						copy.setResources(zoneInfo.getResources());
+						copy.setPolicyDeltas(zoneInfo.getPolicyDeltas());
+						copy.setContainsAssociatedTagService(zoneInfo.getContainsAssociatedTagService());
+					}
+
+					zones.put(entry.getKey(), copy);
+				}
+
+				ret.setSecurityZones(zones);
+			}
+
+			return ret;
+		}
+	}
+
+	private static final class Decoder {
+		private final ByteBuffer body;
+		private final Gson       gson;
+
+		Decoder(ByteBuffer body, Gson gson) {
+			this.body = body;
+			this.gson = gson;
+		}
+
+		ServicePolicies decode() {
+			int      stringCount = readVarInt(body);
+			String[] strings     = new String[stringCount];
+
+			for (int i = 0; i < stringCount; i++) {
+				strings[i] = readUtf8(body);
+			}
+
+			ServicePolicies ret          = gson.fromJson(readUtf8(body), ServicePolicies.class);
+			int             sectionCount = readVarInt(body);
+
+			for (int i = 0; i < sectionCount; i++) {
+				byte   sectionType = body.get();
+				int    zoneIdx     = readVarInt(body);
+				String zoneName    = zoneIdx == 0 ? null : strings[zoneIdx - 1];
+				int    count       = readVarInt(body);
+				int[]  offsets     = new int[count + 1];
+
+				for (int j = 0; j <= count; j++) {
+					offsets[j] = body.getInt();
+				}
+
+				ByteBuffer policyData = body.slice();
+
+				policyData.limit(offsets[count]);
+				body.position(body.position() + offsets[count]);
+
+				List<RangerPolicy> policies = new LazyPolicyList(policyData, offsets, strings, gson);
+
+				switch (sectionType) {
+					case SECTION_SERVICE_POLICIES:
+						ret.setPolicies(policies);
+					break;
+
+					case SECTION_TAG_POLICIES:
+						if (ret.getTagPolicies() != null) {
+							ret.getTagPolicies().setPolicies(policies);
+						}
+					break;
+
+					case SECTION_ZONE_POLICIES:
+						SecurityZoneInfo zoneInfo = ret.getSecurityZones() == null ? null : ret.getSecurityZones().get(zoneName);
+
+						if (zoneInfo != null) {
+							zoneInfo.setPolicies(policies);
+						}
+					break;
+
+					default:
+						LOG.warn("ServicePoliciesBinaryCache: ignoring unknown section type " + sectionType);
+					break;
+				}
+			}
+
+			return ret;
+		}
+	}
+
+	/**
+	 * Policies of one section; each policy is decoded from the mapped file when first accessed.
+	 */
+	private static final class LazyPolicyList extends AbstractList<RangerPolicy> implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final transient ByteBuffer     data;
+		private final transient int[]          offsets;
+		private final transient String[]       strings;
+		private final transient Gson           gson;
+		private final transient RangerPolicy[] policies;
+
+		LazyPolicyList(ByteBuffer data, int[] offsets, String[] strings, Gson gson) {
+			this.data     = data;
+			this.offsets  = offsets;
+			this.strings  = strings;
+			this.gson     = gson;
+			this.policies = new RangerPolicy[offsets.length - 1];
+		}
+
+		@Override
+		public synchronized RangerPolicy get(int index) {
+			RangerPolicy ret = policies[index];
+
+			if (ret == null) {
+				ByteBuffer in = data.duplicate();
+
+				in.position(offsets[index]);
+				in.limit(offsets[index + 1]);
+
+				ret = decodePolicy(in);
+
+				policies[index] = ret;
+			}
+
+			return ret;
+		}
+
+		@Override
+		public int size() {
+			return policies.length;
+		}
+
+		private Object writeReplace() throws ObjectStreamException {
+			return new ArrayList<>(this);
+		}
+
+		private RangerPolicy decodePolicy(ByteBuffer in) {
+			RangerPolicy ret = new RangerPolicy();
+
+			ret.setId(readLong(in));
+			ret.setGuid(readString(in));
+			ret.setIsEnabled(readBoolean(in));
+			ret.setCreatedBy(readString(in));
+			ret.setUpdatedBy(readString(in));
+			ret.setCreateTime(readDate(in));
+			ret.setUpdateTime(readDate(in));
+			ret.setVersion(readLong(in));
+
+			ret.setService(readString(in));
+			ret.setName(readString(in));
+			ret.setPolicyType(readInteger(in));
+			ret.setPolicyPriority(readInteger(in));
+			ret.setDescription(readString(in));
+			ret.setResourceSignature(readString(in));
+			ret.setIsAuditEnabled(readBoolean(in));
+
+			int resourceCount = readVarInt(in) - 1;
+
+			for (int i = 0; i < resourceCount; i++) {
+				String               name     = readString(in);
+				RangerPolicyResource resource = null;
+
+				if (in.get() != 0) {
+					List<String> values      = readStrings(in);
+					Boolean      isExcludes  = readBoolean(in);
+					Boolean      isRecursive = readBoolean(in);
+
+					resource = new RangerPolicyResource(values, isExcludes, isRecursive);
+				}
+
+				ret.getResources().put(name, resource);
+			}
+
+			ret.setConditions(readConditions(in));
+			readPolicyItems(in, ret.getPolicyItems());
+			readPolicyItems(in, ret.getDenyPolicyItems());
+			readPolicyItems(in, ret.getAllowExceptions());
+			readPolicyItems(in, ret.getDenyExceptions());
+
+			int dataMaskItemCount = readVarInt(in) - 1;
+
+			for (int i = 0; i < dataMaskItemCount; i++) {
+				RangerDataMaskPolicyItem item = new RangerDataMaskPolicyItem();
+
+				readPolicyItem(in, item);
+
+				if (in.get() != 0) {
+					item.setDataMaskInfo(new RangerPolicyItemDataMaskInfo(readString(in), readString(in), readString(in)));
+				}
+
+				ret.getDataMaskPolicyItems().add(item);
+			}
+
+			int rowFilterItemCount = readVarInt(in) - 1;
+
+			for (int i = 0; i < rowFilterItemCount; i++) {
+				RangerRowFilterPolicyItem item = new RangerRowFilterPolicyItem();
+
+				readPolicyItem(in, item);
+
+				if (in.get() != 0) {
+					item.setRowFilterInfo(new RangerPolicyItemRowFilterInfo(readString(in)));
+				}
+
+				ret.getRowFilterPolicyItems().add(item);
+			}
+
+			ret.setServiceType(readString(in));
+
+			String options           = readString(in);
+			String validitySchedules = readString(in);
+
+			if (options != null) {
+				ret.setOptions(gson.<Map<String, Object>>fromJson(options, OPTIONS_TYPE));
+			}
+
+			if (validitySchedules != null) {
+				ret.setValiditySchedules(gson.<List<RangerValiditySchedule>>fromJson(validitySchedules, VALIDITY_SCHEDULES_TYPE));
+			}
+
+			ret.setPolicyLabels(readStrings(in));
+			ret.setZoneName(readString(in));
+			ret.setIsDenyAllElse(readBoolean(in));
+
+			return ret;
+		}
+
+		private void readPolicyItems(ByteBuffer in, List<RangerPolicyItem> items) {
+			int count = readVarInt(in) - 1;
+
+			for (int i = 0; i < count; i++) {
+				RangerPolicyItem item = new RangerPolicyItem();
+
+				readPolicyItem(in, item);
+
+				items.add(item);
+			}
+		}
+
+		private void readPolicyItem(ByteBuffer in, RangerPolicyItem item) {
+			int accessCount = readVarInt(in) - 1;
+
+			for (int i = 0; i < accessCount; i++) {
+				String  type      = readString(in);
+				Boolean isAllowed = readBoolean(in);
+
+				item.getAccesses().add(new RangerPolicyItemAccess(type, isAllowed));
+			}
+
+			item.setUsers(readStrings(in));
+			item.setGroups(readStrings(in));
+			item.setConditions(readConditions(in));
+			item.setDelegateAdmin(readBoolean(in));
+		}
+
+		private List<RangerPolicyItemCondition> readConditions(ByteBuffer in) {
+			int count = readVarInt(in) - 1;
+
+			if (count < 0) {
+				return null;
+			}
+
+			List<RangerPolicyItemCondition> ret = new ArrayList<>(count);
+
+			for (int i = 0; i < count; i++) {
+				String       type   = readString(in);
+				List<String> values = readStrings(in);
+
+				ret.add(new RangerPolicyItemCondition(type, values));
+			}
+
+			return ret;
+		}
+
+		private List<String> readStrings(ByteBuffer in) {
+			int count = readVarInt(in) - 1;
+
+			if (count < 0) {
+				return null;
+			}
+
+			String[] ret = new String[count];
+
+			for (int i = 0; i < count; i++) {
+				ret[i] = readString(in);
+			}
+
+			return Arrays.asList(ret);
+		}
+
+		private String readString(ByteBuffer in) {
+			int idx = readVarInt(in);
+
+			return idx == 0 ? null : strings[idx - 1];
+		}
+
+		private static Boolean readBoolean(ByteBuffer in) {
+			byte val = in.get();
+
+			return val == 0 ? null : (val == 2 ? Boolean.TRUE : Boolean.FALSE);
+		}
+
+		private static Integer readInteger(ByteBuffer in) {
+			Long val = readLong(in);
+
+			return val == null ? null : val.intValue();
+		}
+
+		private static Date readDate(ByteBuffer in) {
+			Long val = readLong(in);
+
+			return val == null ? null : new Date(val);
+		}
+
+		private static Long readLong(ByteBuffer in) {
+			if (in.get() == 0) {
+				return null;
+			}
+
+			long val = readVarLong(in);
+
+			return (val >>> 1) ^ -(val & 1);
+		}
+	}
+
+	private static String readUtf8(ByteBuffer in) {
+		int    length = readVarInt(in);
+		byte[] bytes  = new byte[length];
+
+		in.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int readVarInt(ByteBuffer in) {
+		return (int) readVarLong(in);
+	}
+
+	private static long readVarLong(ByteBuffer in) {
+		long ret   = 0;
+		int  shift = 0;
+
+		while (true) {
+			byte b = in.get();
+
+			ret |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0) {
+				return ret;
+			}
+
+			shift += 7;
+		}
+	}
+
+	private static final class Buffer {
+		byte[] bytes  = new byte[4096];
+		int    length = 0;
+
+		void writeByte(int b) {
+			ensureCapacity(1);
+
+			bytes[length++] = (byte) b;
+		}
+
+		void writeInt(int val) {
+			ensureCapacity(4);
+
+			bytes[length++] = (byte) (val >>> 24);
+			bytes[length++] = (byte) (val >>> 16);
+			bytes[length++] = (byte) (val >>> 8);
+			bytes[length++] = (byte) val;
+		}
+
+		void writeVarInt(int val) {
+			writeVarLong(val & 0xFFFFFFFFL);
+		}
+
+		void writeVarLong(long val) {
+			ensureCapacity(10);
+
+			while ((val & ~0x7FL) != 0) {
+				bytes[length++] = (byte) ((val & 0x7F) | 0x80);
+				val >>>= 7;
+			}
+
+			bytes[length++] = (byte) val;
+		}
+
+		void write(byte[] src, int offset, int len) {
+			ensureCapacity(len);
+
+			System.arraycopy(src, offset, bytes, length, len);
+
+			length += len;
+		}
+
+		private void ensureCapacity(int len) {
+			if (length + len > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + len));
+			}
+		}
+	}
+}
@@ -50,6 +50,17 @@ public class ServiceTags implements java.io.Serializable {
 	public static final String OP_DELETE        = "delete";
 	public static final String OP_REPLACE       = "replace";
 
+	/**
+	 * Extent of the changes carried by a delta: TAGS when only tag contents changed, SERVICE_RESOURCE when
+	 * service-resources or their tag associations changed as well.
+	 */
+	public enum TagsChangeExtent { NONE, TAGS, SERVICE_RESOURCE, ALL }
+
+	/**
+	 * Type of a recorded tag change. Persisted by ordinal in x_tag_change_log - only append new values.
+	 */
+	public enum TagsChangeType { NONE, SERVICE_RESOURCE_UPDATE, TAG_UPDATE, TAG_RESOURCE_MAP_UPDATE, ALL }
+
 	private String                      op = OP_ADD_OR_UPDATE;
 	private String                      serviceName;
 	private Long                        tagVersion;
@@ -58,6 +69,11 @@ public class ServiceTags implements java.io.Serializable {
 	private Map<Long, RangerTag>        tags;
 	private List<RangerServiceResource> serviceResources;
 	private Map<Long, List<Long>>       resourceToTagIds;
+	private Boolean                     isDelta = Boolean.FALSE;
+	private TagsChangeExtent            tagsChangeExtent;
+
+	// number of service-resources associated with each tag; kept by RangerServiceTagsDeltaUtil.applyDelta(), not serialized
+	private transient Map<Long, Integer> tagRefCounts;
 
 	public ServiceTags() {
 		this(OP_ADD_OR_UPDATE, null, 0L, null, null, null, null, null);
@@ -162,6 +178,35 @@ public class ServiceTags implements java.io.Serializable {
 		this.resourceToTagIds = resourceToTagIds == null ? new HashMap<Long, List<Long>>() : resourceToTagIds;
 	}
 
+	/**
+	 * When true, this object carries only the changes since an earlier tag version: serviceResources, tags and
+	 * resourceToTagIds contain the updated entries only. A service-resource with no resource-elements, or a tag with
+	 * no type, denotes a deleted entry. Use RangerServiceTagsDeltaUtil.applyDelta() to get the complete set.
+	 */
+	public Boolean getIsDelta() {
+		return isDelta;
+	}
+
+	public void setIsDelta(Boolean isDelta) {
+		this.isDelta = isDelta;
+	}
+
+	public TagsChangeExtent getTagsChangeExtent() {
+		return tagsChangeExtent;
+	}
+
+	public void setTagsChangeExtent(TagsChangeExtent tagsChangeExtent) {
+		this.tagsChangeExtent = tagsChangeExtent;
+	}
+
+	Map<Long, Integer> getTagRefCounts() {
+		return tagRefCounts;
+	}
+
+	void setTagRefCounts(Map<Long, Integer> tagRefCounts) {
+		this.tagRefCounts = tagRefCounts;
+	}
+
 	@Override
 	public String toString( ) {
 		StringBuilder sb = new StringBuilder();
@@ -176,7 +221,9 @@ public class ServiceTags implements java.io.Serializable {
 				.append("op=").append(op).append(", ")
 				.append("serviceName=").append(serviceName).append(", ")
 				.append("tagVersion=").append(tagVersion).append(", ")
-				.append("tagUpdateTime={").append(tagUpdateTime).append("}")
+				.append("tagUpdateTime={").append(tagUpdateTime).append("}, ")
+				.append("isDelta=").append(isDelta).append(", ")
+				.append("tagsChangeExtent=").append(tagsChangeExtent)
 				.append("}");
 
 		return sb;
@@ -25,9 +25,12 @@ import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -221,6 +224,69 @@ public class RangerIpMatcherTest {
 		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.20.33.10")));
 	}
 	
+	@Test
+	public void test_cidr() {
+		RangerIpMatcher ipMatcher = createMatcher(new String[]{"10.1.0.0/16", "192.168.1.7/32", "172.16.5.0/20", "2001:db8::/32"} );
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.1.0.0")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.1.255.255")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("192.168.1.7")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("172.16.15.255"))); // host bits in the policy value are ignored
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:DB8:ffff::1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.2.0.0")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("192.168.1.8")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("172.16.16.0")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("2001:db9::1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.1.boo")));
+
+		// invalid CIDR blocks match only literally
+		ipMatcher = createMatcher(new String[]{"10.1.0.0/33", "10.2.0.0/"} );
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.1.0.0")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.2.0.0")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.1.0.0/33")));
+	}
+
+	@Test
+	public void test_ipv6() {
+		// wildcards and addresses are matched by value, not by their text
+		RangerIpMatcher ipMatcher = createMatcher(new String[]{"2001:db8:*", "fe80::1"} );
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:0db8:0:0:0:0:0:1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("FE80:0:0:0:0:0:0:1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("2001:db80::1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("fe80::2")));
+	}
+
+	@Test
+	public void test_manyValues() {
+		String[] ips = new String[256];
+
+		for (int i = 0; i < ips.length; i++) {
+			ips[i] = (i % 2 == 0) ? ("10." + i + ".0.0/16") : ("11." + i + ".*");
+		}
+
+		RangerIpMatcher ipMatcher = createMatcher(ips);
+		for (int i = 0; i < ips.length; i++) {
+			Assert.assertEquals(i % 2 == 0, ipMatcher.isMatched(createRequest("10." + i + ".1.2")));
+			Assert.assertEquals(i % 2 == 1, ipMatcher.isMatched(createRequest("11." + i + ".1.2")));
+		}
+	}
+
+	@Test
+	public void test_addressParsedOncePerRequest() {
+		RangerAccessRequestImpl request = new RangerAccessRequestImpl();
+		request.setClientIPAddress("10.1.2.3");
+
+		RangerIpAddress address = RangerIpMatcher.getParsedAddress(request, "10.1.2.3");
+		Assert.assertNotNull(address);
+		Assert.assertSame(address, RangerIpMatcher.getParsedAddress(request, "10.1.2.3"));
+		Assert.assertNull(RangerIpMatcher.getParsedAddress(request, "10.1.2"));
+		Assert.assertTrue(request.getContext().get(RangerAccessRequestUtil.KEY_CONTEXT_IP_ADDRESSES) instanceof Map);
+
+		Assert.assertTrue(createMatcher(new String[]{"10.1.0.0/16"}).isMatched(request));
+		Assert.assertFalse(createMatcher(new String[]{"10.2.*"}).isMatched(request));
+	}
+
 	RangerIpMatcher createMatcher(String[] ipArray) {
 		RangerIpMatcher matcher = new RangerIpMatcher();
 
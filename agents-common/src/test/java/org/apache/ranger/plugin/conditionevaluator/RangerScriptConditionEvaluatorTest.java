@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.ScriptEngineManager;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RangerScriptConditionEvaluatorTest {
+
+	@Before
+	public void setUp() {
+		// scripts run on the JavaScript engine of the JRE
+		Assume.assumeNotNull(new ScriptEngineManager().getEngineByName("JavaScript"));
+	}
+
+	@Test
+	public void test_compiledScript() {
+		// not an expression, so this is evaluated by the script engine, from the script compiled in init()
+		RangerScriptConditionEvaluator evaluator = createEvaluator("var users = ['alice', 'carol']; users.indexOf(ctx.getUser()) >= 0");
+
+		Assert.assertTrue(evaluator.isMatched(createRequest("alice", new HashMap<String, Object>())));
+		Assert.assertFalse(evaluator.isMatched(createRequest("bob", new HashMap<String, Object>())));
+		Assert.assertTrue(evaluator.isMatched(createRequest("carol", new HashMap<String, Object>())));
+
+		// ctx.result is the result of scripts that don't evaluate to a boolean
+		evaluator = createEvaluator("if (ctx.getUser() == 'alice') { ctx.result = true; }");
+
+		Assert.assertTrue(evaluator.isMatched(createRequest("alice", new HashMap<String, Object>())));
+		Assert.assertFalse(evaluator.isMatched(createRequest("bob", new HashMap<String, Object>())));
+	}
+
+	@Test
+	public void test_globalsAreNotShared() {
+		// both conditions run with the same bindings of this thread
+		RangerScriptConditionEvaluator setter  = createEvaluator("var leaked = 'x'; assigned = 'y'; true");
+		RangerScriptConditionEvaluator checker = createEvaluator("typeof leaked == 'undefined' && typeof assigned == 'undefined'");
+
+		Assert.assertTrue(setter.isMatched(createRequest("alice", new HashMap<String, Object>())));
+		Assert.assertTrue(checker.isMatched(createRequest("alice", new HashMap<String, Object>())));
+		Assert.assertTrue(setter.isMatched(createRequest("alice", new HashMap<String, Object>())));
+		Assert.assertTrue(checker.isMatched(createRequest("alice", new HashMap<String, Object>())));
+	}
+
+	@Test
+	public void test_resultsOfRequest() {
+		String                         script     = "ctx.getRequestContextAttribute('counter') != null && ctx.getRequestContext().get('counter').incrementAndGet() > 0 && ctx.getUser() == 'alice'";
+		RangerScriptConditionEvaluator evaluator1 = createEvaluator(script);
+		RangerScriptConditionEvaluator evaluator2 = createEvaluator(script); // same script in another policy
+		AtomicInteger                  counter    = new AtomicInteger();
+		Map<String, Object>            context    = new HashMap<>();
+
+		context.put("counter", counter);
+
+		RangerAccessRequestImpl request = createRequest("alice", context);
+
+		Assert.assertTrue(evaluator1.isMatched(request));
+		Assert.assertTrue(evaluator2.isMatched(request));
+		Assert.assertTrue(evaluator1.isMatched(request));
+		Assert.assertEquals(1, counter.get());
+
+		// another request with the same context - and no tag, like the request for the tag of another access - is evaluated again
+		RangerAccessRequestImpl other = createRequest("bob", context);
+
+		Assert.assertFalse(evaluator1.isMatched(other));
+		Assert.assertFalse(evaluator2.isMatched(other));
+		Assert.assertEquals(2, counter.get());
+
+		Assert.assertTrue(evaluator1.isMatched(request));
+		Assert.assertEquals(3, counter.get());
+
+		// results aren't kept for requests with a read-only context
+		RangerAccessRequestImpl readOnly = createRequest("alice", Collections.<String, Object>singletonMap("counter", counter));
+
+		Assert.assertTrue(evaluator1.isMatched(readOnly));
+		Assert.assertTrue(evaluator1.isMatched(readOnly));
+		Assert.assertEquals(5, counter.get());
+	}
+
+	private RangerScriptConditionEvaluator createEvaluator(String script) {
+		RangerScriptConditionEvaluator ret = new RangerScriptConditionEvaluator();
+
+		ret.setConditionDef(new RangerPolicyConditionDef(1L, "expression", RangerScriptConditionEvaluator.class.getName(), Collections.singletonMap(RangerScriptConditionEvaluator.OPTION_ENGINE_NAME, "JavaScript")));
+		ret.setPolicyItemCondition(new RangerPolicyItemCondition("expression", Collections.singletonList(script)));
+		ret.init();
+
+		return ret;
+	}
+
+	private RangerAccessRequestImpl createRequest(String user, Map<String, Object> context) {
+		RangerAccessRequestImpl ret = new RangerAccessRequestImpl();
+
+		ret.setUser(user);
+		ret.setContext(context);
+
+		return ret;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RangerScriptConditionExpressionTest {
+
+	@Test
+	public void test_parse_supportedForms() {
+		String[] scripts = new String[] {
+				"tagAttr.get('level') == 'high'",
+				"tagAttr['level'] != \"high\";",
+				"tagAttr.get('score') >= 10",
+				"if ( tagAttr.get('score') < 10.5 ) { ctx.result = true; }",
+				"ctx.isAccessedAfter('expiry_date')",
+				"ctx.isAccessedBefore('PII', 'expiry_date');",
+		};
+
+		for (String script : scripts) {
+			Assert.assertNotNull(script, RangerScriptConditionExpression.parse(script));
+		}
+	}
+
+	@Test
+	public void test_parse_unsupportedForms() {
+		String[] scripts = new String[] {
+				"",
+				"tagAttr.get('level') == 'high' && tagAttr.get('score') > 1",
+				"tagAttr['class'] == 'x'",
+				"ctx.getUser() == 'admin'",
+				"var x = tagAttr.get('level'); x == 'high'",
+		};
+
+		for (String script : scripts) {
+			Assert.assertNull(script, RangerScriptConditionExpression.parse(script));
+		}
+	}
+
+	@Test
+	public void test_evaluate_comparisons() {
+		Map<String, String> tagAttribs = new HashMap<>();
+
+		tagAttribs.put("level", "high");
+		tagAttribs.put("score", "12");
+
+		check("tagAttr.get('level') == 'high'", tagAttribs, Boolean.TRUE);
+		check("tagAttr.get('level') !== 'high'", tagAttribs, Boolean.FALSE);
+		check("tagAttr.get('level') < 'low'", tagAttribs, Boolean.TRUE);
+		check("tagAttr.get('score') > 10", tagAttribs, Boolean.TRUE);
+		check("tagAttr.get('score') == 12.0", tagAttribs, Boolean.TRUE);
+		check("tagAttr.get('score') === 12", tagAttribs, Boolean.FALSE);
+		check("tagAttr.get('missing') != 'x'", tagAttribs, Boolean.TRUE);
+
+		// left to the script engine
+		check("tagAttr.get('missing') > 1", tagAttribs, null);
+		check("tagAttr.get('level') > 1", tagAttribs, null);
+	}
+
+	private void check(String script, Map<String, String> tagAttribs, Boolean expected) {
+		RangerScriptConditionExpression expression = RangerScriptConditionExpression.parse(script);
+		RangerScriptExecutionContext     context    = new RangerScriptExecutionContext(new RangerAccessRequestImpl());
+
+		Assert.assertNotNull(script, expression);
+		Assert.assertEquals(script, expected, expression.evaluate(context, tagAttribs));
+	}
+}
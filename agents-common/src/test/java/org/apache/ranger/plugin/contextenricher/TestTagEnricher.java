@@ -26,6 +26,7 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import org.apache.ranger.plugin.contextenricher.TestTagEnricher.TagEnricherTestCase.TestData;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
@@ -41,7 +42,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -68,19 +71,26 @@ public class TestTagEnricher {
     public void testTagEnricher_hive() {
         String[] hiveTestResourceFiles = { "/contextenricher/test_tagenricher_hive.json" };
 
-        runTestsFromResourceFiles(hiveTestResourceFiles);
+        runTestsFromResourceFiles(hiveTestResourceFiles, false);
     }
 
-    private void runTestsFromResourceFiles(String[] resourceNames) {
+    @Test
+    public void testTagEnricher_hive_delta() {
+        String[] hiveTestResourceFiles = { "/contextenricher/test_tagenricher_hive.json" };
+
+        runTestsFromResourceFiles(hiveTestResourceFiles, true);
+    }
+
+    private void runTestsFromResourceFiles(String[] resourceNames, boolean useDelta) {
         for(String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
             InputStreamReader reader   = new InputStreamReader(inStream);
 
-            runTests(reader, resourceName);
+            runTests(reader, resourceName, useDelta);
         }
     }
 
-    private void runTests(InputStreamReader reader, String testName) {
+    private void runTests(InputStreamReader reader, String testName, boolean useDelta) {
         TagEnricherTestCase testCase = gsonBuilder.fromJson(reader, TagEnricherTestCase.class);
 
         assertTrue("invalid input: " + testName, testCase != null && testCase.serviceDef != null && testCase.serviceResources != null && testCase.tests != null);
@@ -96,7 +106,12 @@ public class TestTagEnricher {
 
         tagEnricher.setServiceName(testCase.serviceName);
         tagEnricher.setServiceDef(testCase.serviceDef);
-        tagEnricher.setServiceTags(serviceTags);
+
+        if (useDelta) {
+            setServiceTagsWithDelta(tagEnricher, serviceTags);
+        } else {
+            tagEnricher.setServiceTags(serviceTags);
+        }
 
         List<String> expectedTags = new ArrayList<>();
         List<String> resultTags   = new ArrayList<>();
@@ -130,6 +145,74 @@ public class TestTagEnricher {
         }
     }
 
+    // sets up the enricher with outdated tags, and then brings it to the given tags by applying a delta
+    private void setServiceTagsWithDelta(RangerTagEnricher tagEnricher, ServiceTags serviceTags) {
+        final Long                        removedResourceId = 1000L;
+        final List<RangerServiceResource> resources         = serviceTags.getServiceResources();
+        final RangerServiceResource       firstResource     = resources.get(0);
+        final RangerServiceResource       lastResource      = resources.get(resources.size() - 1);
+
+        // first resource with different resource-elements, last resource missing, and a resource that is no longer tagged
+        RangerServiceResource outdatedResource = new RangerServiceResource(serviceTags.getServiceName(), Collections.singletonMap("database", new RangerPolicyResource("outdated_db")));
+        RangerServiceResource removedResource  = new RangerServiceResource(serviceTags.getServiceName(), Collections.singletonMap("database", new RangerPolicyResource("removed_db")));
+
+        outdatedResource.setId(firstResource.getId());
+        removedResource.setId(removedResourceId);
+
+        List<RangerServiceResource> baseResources    = new ArrayList<>(resources.subList(1, resources.size() - 1));
+        Map<Long, List<Long>>       resourceToTagIds = new HashMap<>(serviceTags.getResourceToTagIds());
+
+        baseResources.add(0, outdatedResource);
+        baseResources.add(removedResource);
+        resourceToTagIds.remove(lastResource.getId());
+        resourceToTagIds.put(removedResourceId, serviceTags.getResourceToTagIds().get(firstResource.getId()));
+
+        ServiceTags base = new ServiceTags();
+
+        base.setServiceName(serviceTags.getServiceName());
+        base.setTagVersion(1L);
+        base.setTagDefinitions(serviceTags.getTagDefinitions());
+        base.setTags(new HashMap<>(serviceTags.getTags()));
+        base.setServiceResources(baseResources);
+        base.setResourceToTagIds(resourceToTagIds);
+
+        RangerServiceResource deletedResource = new RangerServiceResource();
+        Map<Long, RangerTag>  deltaTags       = new HashMap<>();
+        Map<Long, List<Long>> deltaMappings   = new HashMap<>();
+
+        deletedResource.setId(removedResourceId);
+
+        for (RangerServiceResource resource : Arrays.asList(firstResource, lastResource)) {
+            List<Long> tagIds = serviceTags.getResourceToTagIds().get(resource.getId());
+
+            for (Long tagId : tagIds) {
+                deltaTags.put(tagId, serviceTags.getTags().get(tagId));
+            }
+
+            deltaMappings.put(resource.getId(), tagIds);
+        }
+
+        ServiceTags delta = new ServiceTags();
+
+        delta.setServiceName(serviceTags.getServiceName());
+        delta.setTagVersion(2L);
+        delta.setTags(deltaTags);
+        delta.setServiceResources(Arrays.asList(firstResource, lastResource, deletedResource));
+        delta.setResourceToTagIds(deltaMappings);
+        delta.setIsDelta(Boolean.TRUE);
+        delta.setTagsChangeExtent(ServiceTags.TagsChangeExtent.SERVICE_RESOURCE);
+
+        tagEnricher.setServiceTags(base);
+        tagEnricher.setServiceTags(delta);
+
+        ServiceTags allServiceTags = tagEnricher.getServiceTags();
+
+        assertEquals(Long.valueOf(2L), allServiceTags.getTagVersion());
+        assertEquals(resources.size(), allServiceTags.getServiceResources().size());
+        assertEquals(serviceTags.getResourceToTagIds(), allServiceTags.getResourceToTagIds());
+        assertEquals(serviceTags.getTags().keySet(), allServiceTags.getTags().keySet());
+    }
+
     static class TagEnricherTestCase {
         public String                      serviceName;
         public RangerServiceDef            serviceDef;
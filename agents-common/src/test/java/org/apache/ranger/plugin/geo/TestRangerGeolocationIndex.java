@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestRangerGeolocationIndex {
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	@Test
+	public void testFind() {
+		RangerGeolocationIndex index = createIndex();
+
+		assertLocation(index, "10.0.0.255", "US", "CA");
+		assertLocation(index, "10.0.3.0", "US", "CA");
+		assertLocation(index, "20.0.100.85", "CA", "Canada");
+		assertLocation(index, "255.255.255.255", "CN", "China");
+		assertLocation(index, "2001:db8::1", "DE", "Germany");
+		assertLocation(index, "2001:db8:ffff:ffff:ffff:ffff:ffff:ffff", "DE", "Germany");
+		assertLocation(index, "::ffff:20.0.100.80", "CA", "Canada"); // IPv4-mapped IPv6 address
+
+		assertNull(index.find(RangerGeolocationData.ipAddressToBytes("10.0.0.254", true)));
+		assertNull(index.find(RangerGeolocationData.ipAddressToBytes("10.0.3.1", true)));
+		assertNull(index.find(RangerGeolocationData.ipAddressToBytes("2001:db9::", true)));
+		assertNull(index.find(RangerGeolocationData.ipAddressToBytes("0.0.0.1", true)));
+		assertNull(index.find(null));
+	}
+
+	@Test
+	public void testRowsAreShared() {
+		RangerGeolocationIndex index = createIndex();
+
+		RangerGeolocationData data1 = index.find(RangerGeolocationData.ipAddressToBytes("10.0.1.1", true));
+		RangerGeolocationData data2 = index.find(RangerGeolocationData.ipAddressToBytes("30.0.0.1", true));
+
+		assertTrue(data1.getLocationData() == data2.getLocationData());
+	}
+
+	@Test
+	public void testIntegerAddresses() {
+		assertArrayEquals(new byte[] { 10, 0, 0, (byte) 255 }, RangerGeolocationData.ipAddressToBytes("167772415", false));
+		assertEquals(16, RangerGeolocationData.ipAddressToBytes("42540766411282592856903984951653826561", false).length);
+		assertNull(RangerGeolocationData.ipAddressToBytes("10.0.0.1", false));
+		assertNull(RangerGeolocationData.ipAddressToBytes("", false));
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		RangerGeolocationIndex index = createIndex();
+		File                   file  = tmpFolder.newFile("geo.bin");
+
+		index.write(file);
+
+		assertTrue(RangerGeolocationIndex.isIndexFile(file));
+
+		RangerGeolocationIndex read = RangerGeolocationIndex.read(file);
+
+		assertArrayEquals(index.getAttributeNames(), read.getAttributeNames());
+		assertEquals(index.getRangeCount(), read.getRangeCount());
+
+		assertLocation(read, "10.0.2.0", "US", "CA");
+		assertLocation(read, "20.0.100.89", "CA", "Canada");
+		assertLocation(read, "2001:db8::abcd", "DE", "Germany");
+		assertNull(read.find(RangerGeolocationData.ipAddressToBytes("20.0.100.90", true)));
+	}
+
+	@Test
+	public void testCorruptFileIsRejected() throws Exception {
+		File file = tmpFolder.newFile("geo.bin");
+
+		createIndex().write(file);
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			long pos = raf.length() / 2;
+
+			raf.seek(pos);
+
+			int b = raf.read();
+
+			raf.seek(pos);
+			raf.write(b ^ 0xFF);
+		}
+
+		try {
+			RangerGeolocationIndex.read(file);
+
+			fail("expected checksum failure");
+		} catch (IOException excp) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTextFileIsNotIndexFile() throws Exception {
+		File file = tmpFolder.newFile("geo.txt");
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.writeBytes("FROM_IP,TO_IP,COUNTRY_CODE,COUNTRY_NAME\n10.0.0.0,10.0.0.255,US,United States\n");
+		}
+
+		assertFalse(RangerGeolocationIndex.isIndexFile(file));
+	}
+
+	private RangerGeolocationIndex createIndex() {
+		RangerGeolocationIndex.Builder builder = new RangerGeolocationIndex.Builder(new String[] { "COUNTRY_CODE", "COUNTRY_NAME" });
+
+		// out of order, as in the sample geo.txt
+		add(builder, "20.0.100.80", "20.0.100.89", "CA", "Canada");
+		add(builder, "10.0.0.255", "10.0.3.0", "US", "CA");
+		add(builder, "255.255.255.0", "255.255.255.255", "CN", "China");
+		add(builder, "30.0.0.0", "30.0.0.255", "US", "CA");
+		add(builder, "2001:db8::", "2001:db8:ffff:ffff:ffff:ffff:ffff:ffff", "DE", "Germany");
+
+		assertFalse(builder.add(RangerGeolocationData.ipAddressToBytes("10.0.0.2", true), RangerGeolocationData.ipAddressToBytes("10.0.0.1", true), new String[] { "XX" }));
+		assertFalse(builder.add(RangerGeolocationData.ipAddressToBytes("10.0.0.1", true), RangerGeolocationData.ipAddressToBytes("::1", true), new String[] { "XX" }));
+
+		return builder.build();
+	}
+
+	private void add(RangerGeolocationIndex.Builder builder, String from, String to, String... locationData) {
+		assertTrue(builder.add(RangerGeolocationData.ipAddressToBytes(from, true), RangerGeolocationData.ipAddressToBytes(to, true), locationData));
+	}
+
+	private void assertLocation(RangerGeolocationIndex index, String ipAddress, String... expected) {
+		RangerGeolocationData data = index.find(RangerGeolocationData.ipAddressToBytes(ipAddress, true));
+
+		assertArrayEquals(ipAddress, expected, data != null ? data.getLocationData() : null);
+	}
+}
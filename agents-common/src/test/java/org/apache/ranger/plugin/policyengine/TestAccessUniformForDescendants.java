@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class TestAccessUniformForDescendants {
+	private static RangerPolicyEngine policyEngine;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Gson             gson       = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+		RangerServiceDef serviceDef;
+
+		try (InputStream inStream = TestAccessUniformForDescendants.class.getResourceAsStream("/policyengine/test_policyengine_hdfs.json")) {
+			JsonObject testCase = new JsonParser().parse(new InputStreamReader(inStream, StandardCharsets.UTF_8)).getAsJsonObject();
+
+			serviceDef = gson.fromJson(testCase.get("serviceDef"), RangerServiceDef.class);
+		}
+
+		List<RangerPolicy> policies = new ArrayList<>();
+
+		policies.add(createPolicy(1, "/data", true, "user1"));
+		policies.add(createPolicy(2, "/data/x/secret", true, "user2"));
+		policies.add(createPolicy(3, "/home/*/private", true, "user1"));
+		policies.add(createPolicy(4, "/owned", true, RangerPolicyEngine.RESOURCE_OWNER));
+		policies.add(createPolicy(5, "/flat/*", false, "user1"));
+
+		ServicePolicies servicePolicies = new ServicePolicies();
+
+		servicePolicies.setServiceName("hdfsdev");
+		servicePolicies.setServiceDef(serviceDef);
+		servicePolicies.setPolicies(policies);
+
+		policyEngine = new RangerPolicyEngineImpl("test-uniform-descendants", servicePolicies, new RangerPolicyEngineOptions());
+	}
+
+	@Test
+	public void testUniformSubtrees() {
+		// only the recursive policy on /data matches descendants of /data/y
+		assertTrue(isAccessUniformForDescendants("/data/y"));
+		assertTrue(isAccessUniformForDescendants("/data/y/"));
+		assertTrue(isAccessUniformForDescendants("/data/x/secret"));
+		assertTrue(isAccessUniformForDescendants("/data/x/secret/a"));
+		// no policy matches any descendant
+		assertTrue(isAccessUniformForDescendants("/other"));
+	}
+
+	@Test
+	public void testDistinguishedSubtrees() {
+		// policy on /data/x/secret applies to only some descendants
+		assertFalse(isAccessUniformForDescendants("/data"));
+		assertFalse(isAccessUniformForDescendants("/data/x"));
+		assertFalse(isAccessUniformForDescendants("/"));
+		// wildcard policy that matches some descendants of /home/u1
+		assertFalse(isAccessUniformForDescendants("/home/u1"));
+		// policies that depend on owner of each descendant, and non-recursive policies
+		assertFalse(isAccessUniformForDescendants("/owned/a"));
+		assertFalse(isAccessUniformForDescendants("/flat/a"));
+	}
+
+	private boolean isAccessUniformForDescendants(String path) {
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+		resource.setValue("path", path);
+
+		RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "read", "user1", Collections.singleton("public"));
+
+		return policyEngine.isAccessUniformForDescendants(request);
+	}
+
+	private static RangerPolicy createPolicy(long id, String path, boolean isRecursive, String user) {
+		Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("path", new RangerPolicyResource(path, false, isRecursive));
+
+		RangerPolicyItem policyItem = new RangerPolicyItem(Collections.singletonList(new RangerPolicyItemAccess("read")), Collections.singletonList(user), null, null, false);
+		RangerPolicy     ret        = new RangerPolicy("hdfsdev", "policy-" + id, RangerPolicy.POLICY_TYPE_ACCESS, RangerPolicy.POLICY_PRIORITY_NORMAL, null, resources, Collections.singletonList(policyItem), null, null, null, null);
+
+		ret.setId(id);
+		ret.setIsEnabled(true);
+
+		return ret;
+	}
+}
@@ -455,6 +455,9 @@ public class TestPolicyEngine {
 
         RangerAccessRequest request = null;
 
+        List<RangerAccessRequest> accessRequests = new ArrayList<>();
+        List<TestData>            accessTests    = new ArrayList<>();
+
         for(TestData test : tests) {
 			request = test.request;
 			if ((requestCount++ % 10) == 1) {
@@ -538,6 +541,9 @@ public class TestPolicyEngine {
 				assertNotNull("result was null! - " + test.name, result);
 				assertEquals("isAllowed mismatched! - " + test.name, expected.getIsAllowed(), result.getIsAllowed());
 				assertEquals("isAudited mismatched! - " + test.name, expected.getIsAudited(), result.getIsAudited());
+
+				accessRequests.add(request);
+				accessTests.add(test);
 			}
 
 			if(test.dataMaskResult != null) {
@@ -573,6 +579,21 @@ public class TestPolicyEngine {
 			}
 		}
 
+		// evaluating the requests together should give the same results as evaluating them one at a time
+		if(!accessRequests.isEmpty()) {
+			List<RangerAccessResult> results = new ArrayList<>(policyEngine.evaluatePolicies(accessRequests, RangerPolicy.POLICY_TYPE_ACCESS, null));
+
+			assertEquals("result count mismatched! - " + testName, accessRequests.size(), results.size());
+
+			for(int i = 0; i < results.size(); i++) {
+				RangerAccessResult expected = accessTests.get(i).result;
+				RangerAccessResult result   = results.get(i);
+
+				assertNotNull("batch result was null! - " + accessTests.get(i).name, result);
+				assertEquals("isAllowed mismatched in batch! - " + accessTests.get(i).name, expected.getIsAllowed(), result.getIsAllowed());
+				assertEquals("isAudited mismatched in batch! - " + accessTests.get(i).name, expected.getIsAudited(), result.getIsAudited());
+			}
+		}
 	}
 
 	static class PolicyEngineTestCase {
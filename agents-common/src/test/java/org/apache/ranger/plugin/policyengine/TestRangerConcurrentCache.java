@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerConcurrentCache {
+
+	@Test
+	public void testGetAndPut() {
+		RangerConcurrentCache<String, String> cache = new RangerConcurrentCache<>("test", 16, 1);
+
+		assertNull(cache.get("key"));
+
+		cache.put("key", "value1");
+		assertEquals("value1", cache.get("key"));
+
+		cache.put("key", "value2");
+		assertEquals("value2", cache.get("key"));
+
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testSizeIsBounded() {
+		final int capacity = 64;
+
+		RangerConcurrentCache<Integer, Integer> cache = new RangerConcurrentCache<>("test", capacity, 4);
+
+		for (int i = 0; i < capacity * 10; i++) {
+			cache.put(i, i);
+		}
+
+		assertTrue(cache.size() <= capacity);
+		assertEquals(capacity * 10 - cache.size(), cache.getEvictionCount());
+	}
+
+	@Test
+	public void testRecentlyReadEntrySurvivesEviction() {
+		RangerConcurrentCache<String, String> cache = new RangerConcurrentCache<>("test", 4, 1);
+
+		for (int i = 0; i < 4; i++) {
+			cache.put("key" + i, "value" + i);
+		}
+
+		assertNotNull(cache.get("key0"));
+
+		cache.put("key4", "value4");
+
+		assertEquals("value0", cache.get("key0"));
+		assertNull(cache.get("key1"));
+		assertEquals("value4", cache.get("key4"));
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testClear() {
+		RangerConcurrentCache<String, String> cache = new RangerConcurrentCache<>("test", 8);
+
+		cache.put("key", "value");
+		cache.clear();
+
+		assertEquals(0, cache.size());
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		final int                                      capacity = 256;
+		final RangerConcurrentCache<Integer, Integer> cache    = new RangerConcurrentCache<>("test", capacity, 8);
+		final AtomicBoolean                            failed   = new AtomicBoolean(false);
+		List<Thread>                                   threads  = new ArrayList<>();
+
+		for (int t = 0; t < 8; t++) {
+			final int seed = t;
+
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						int     key   = (i * 31 + seed) % (capacity * 4);
+						Integer value = cache.get(key);
+
+						if (value == null) {
+							cache.put(key, key);
+						} else if (value != key) {
+							failed.set(true);
+						}
+					}
+				}
+			});
+
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertFalse(failed.get());
+		assertTrue(cache.size() <= capacity);
+		assertEquals(8 * 10000, cache.getHitCount() + cache.getMissCount());
+	}
+}
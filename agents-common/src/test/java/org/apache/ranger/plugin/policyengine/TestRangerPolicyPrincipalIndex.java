@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerPrincipalDictionary;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestRangerPolicyPrincipalIndex {
+
+	@Test
+	public void testMatchByUserGroupAndPublic() {
+		List<RangerPolicyEvaluator> evaluators = new ArrayList<>();
+
+		evaluators.add(evaluator(allowItem(Arrays.asList("pi-alice"), null), false));                        // 0
+		evaluators.add(evaluator(allowItem(null, Arrays.asList(RangerPolicyEngine.GROUP_PUBLIC)), false));   // 1
+		evaluators.add(evaluator(allowItem(null, Arrays.asList("pi-eng")), false));                          // 2
+		evaluators.add(evaluator(allowItem(Arrays.asList("pi-carol"), null), true));                          // 3: deny-all-else
+		evaluators.add(evaluator(allowItem(Arrays.asList(RangerPolicyEngine.RESOURCE_OWNER), null), false)); // 4
+		evaluators.add(evaluator(denyItem(null, Arrays.asList("pi-sales")), false));                         // 5
+
+		RangerPrincipalDictionary  dictionary = new RangerPrincipalDictionary();
+		RangerPolicyPrincipalIndex index      = new RangerPolicyPrincipalIndex(evaluators, dictionary);
+
+		int[][] alice = index.getEvaluatorIndexes(principals(dictionary, "pi-alice", "pi-eng"));
+		int[][] bob   = index.getEvaluatorIndexes(principals(dictionary, "pi-bob", "pi-sales", "pi-unknown"));
+
+		assertNotNull(alice);
+		assertNotNull(bob);
+
+		assertTrue(index.mayMatch(0, alice));
+		assertTrue(index.mayMatch(1, alice));
+		assertTrue(index.mayMatch(2, alice));
+		assertTrue(index.mayMatch(3, alice));
+		assertTrue(index.mayMatch(4, alice));
+		assertFalse(index.mayMatch(5, alice));
+
+		assertFalse(index.mayMatch(0, bob));
+		assertTrue(index.mayMatch(1, bob));
+		assertFalse(index.mayMatch(2, bob));
+		assertTrue(index.mayMatch(3, bob));
+		assertTrue(index.mayMatch(4, bob));
+		assertTrue(index.mayMatch(5, bob));
+	}
+
+	@Test
+	public void testPrincipalsResolvedBeforeIndex() {
+		RangerPrincipalDictionary                   dictionary = new RangerPrincipalDictionary();
+		RangerPrincipalDictionary.RequestPrincipals principals = principals(dictionary, "pi-dave", "pi-new-group");
+
+		RangerPolicyPrincipalIndex index = new RangerPolicyPrincipalIndex(Collections.singletonList(evaluator(allowItem(null, Arrays.asList("pi-new-group")), false)), dictionary);
+
+		// the group was added to the dictionary after the request principals were resolved; no evaluator can be ruled out
+		assertNull(index.getEvaluatorIndexes(principals));
+		assertTrue(index.mayMatch(0, index.getEvaluatorIndexes(principals(dictionary, "pi-dave", "pi-new-group"))));
+	}
+
+	@Test
+	public void testPrincipalsOfAnotherDictionary() {
+		RangerPrincipalDictionary  dictionary = new RangerPrincipalDictionary();
+		RangerPolicyPrincipalIndex index      = new RangerPolicyPrincipalIndex(Collections.singletonList(evaluator(allowItem(Arrays.asList("pi-erin"), null), false)), dictionary);
+
+		assertNotNull(index.getEvaluatorIndexes(principals(dictionary, "pi-erin")));
+
+		// ids of another engine's dictionary can't be looked up in this index
+		RangerPrincipalDictionary other = new RangerPrincipalDictionary();
+
+		other.getUsers().getOrAddId("pi-erin");
+
+		assertNull(index.getEvaluatorIndexes(principals(other, "pi-erin")));
+	}
+
+	@Test
+	public void testIndexOfUpdatedRepository() {
+		RangerPolicyEvaluator alice = evaluator(allowItem(Arrays.asList("pi-alice"), null), false);
+		RangerPolicyEvaluator eng   = evaluator(allowItem(null, Arrays.asList("pi-eng")), false);
+		RangerPolicyEvaluator sales = evaluator(denyItem(null, Arrays.asList("pi-sales")), false);
+		RangerPolicyEvaluator frank = evaluator(allowItem(Arrays.asList("pi-frank"), null), false);
+
+		RangerPrincipalDictionary  dictionary = new RangerPrincipalDictionary();
+		RangerPolicyPrincipalIndex index      = new RangerPolicyPrincipalIndex(Arrays.asList(alice, eng, sales), dictionary);
+
+		// after deltas: sales deleted, frank created, and the evaluator list re-sorted
+		RangerPolicyPrincipalIndex updated = new RangerPolicyPrincipalIndex(Arrays.asList(frank, eng, alice), index);
+
+		int[][] frankIndexes = updated.getEvaluatorIndexes(principals(dictionary, "pi-frank", "pi-sales"));
+		int[][] aliceIndexes = updated.getEvaluatorIndexes(principals(dictionary, "pi-alice", "pi-eng"));
+
+		assertNotNull(frankIndexes);
+		assertNotNull(aliceIndexes);
+
+		assertTrue(updated.mayMatch(0, frankIndexes));
+		assertFalse(updated.mayMatch(1, frankIndexes));
+		assertFalse(updated.mayMatch(2, frankIndexes));
+
+		assertFalse(updated.mayMatch(0, aliceIndexes));
+		assertTrue(updated.mayMatch(1, aliceIndexes));
+		assertTrue(updated.mayMatch(2, aliceIndexes));
+
+		// policies of evaluators carried over are not read again
+		verify(alice, times(1)).getPolicy();
+		verify(eng, times(1)).getPolicy();
+		verify(frank, times(1)).getPolicy();
+	}
+
+	private static RangerPrincipalDictionary.RequestPrincipals principals(RangerPrincipalDictionary dictionary, String user, String... groups) {
+		Set<String> userGroups = new HashSet<>(Arrays.asList(groups));
+
+		return dictionary.getRequestPrincipals(user, userGroups);
+	}
+
+	private static RangerPolicyEvaluator evaluator(RangerPolicy policy, boolean isDenyAllElse) {
+		RangerPolicyEvaluator ret = mock(RangerPolicyEvaluator.class);
+
+		policy.setIsDenyAllElse(isDenyAllElse);
+
+		when(ret.getPolicy()).thenReturn(policy);
+
+		return ret;
+	}
+
+	private static RangerPolicy allowItem(List<String> users, List<String> groups) {
+		RangerPolicy ret = new RangerPolicy();
+
+		ret.getPolicyItems().add(new RangerPolicy.RangerPolicyItem(null, users, groups, null, false));
+
+		return ret;
+	}
+
+	private static RangerPolicy denyItem(List<String> users, List<String> groups) {
+		RangerPolicy ret = new RangerPolicy();
+
+		ret.getDenyPolicyItems().add(new RangerPolicy.RangerPolicyItem(null, users, groups, null, false));
+
+		return ret;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestWildcardPattern {
+	private static final String[] PATTERNS = {
+		"", "*", "**", "?", "??", "*?", "?*", "a", "A", "abc", "a*", "*a", "*a*", "a*c", "a?c", "a*b*c", "a**c", "*b?",
+		"ab*ab", "*aa*aa", "a*a*a", "a*?", "a*?c", "*?*", "**?b", "?*?", "*b*?*", "*.db", "test*", "TEST*", "/app/*", "/app/hive/*", "/app/*/test.db", "/app/hive/test*",
+		"*/test.db", "/", "/*", "ß*", "*İ", "ı?",
+	};
+
+	private static final String[] VALUES = {
+		"", "a", "A", "b", "ab", "abc", "ABC", "aXc", "abbc", "aabc", "abcc", "abab", "ababab", "aaaaaa", "aaa", "aa",
+		"test.db", "TEST.DB", "test", "/app", "/app/", "/app/hive", "/app/hive/test.db", "/app/hbase/test.tbl",
+		"/app/HIVE/Test.db", "/", "ß", "ẞİ", "iİ", "ıx", "Ix",
+	};
+
+	@Test
+	public void testMatchesFilenameUtils() {
+		for (IOCase ioCase : new IOCase[] { IOCase.SENSITIVE, IOCase.INSENSITIVE }) {
+			for (String pattern : PATTERNS) {
+				WildcardPattern wildcardPattern = WildcardPattern.compile(pattern, ioCase == IOCase.INSENSITIVE);
+
+				for (String value : VALUES) {
+					assertEquals(pattern + " ~ " + value + " (" + ioCase + ")", FilenameUtils.wildcardMatch(value, pattern, ioCase), wildcardPattern.isMatch(value));
+				}
+
+				assertFalse(wildcardPattern.isMatch(null));
+			}
+		}
+	}
+
+	@Test
+	public void testMatchPrefix() {
+		WildcardPattern wildcardPattern = WildcardPattern.compile("/app/*", false);
+
+		assertTrue(wildcardPattern.isMatch("/app/hive/test.db", 9));
+		assertFalse(wildcardPattern.isMatch("/app/hive/test.db", 4));
+		assertTrue(WildcardPattern.compile("/app", false).isMatch("/app/hive", 4));
+	}
+
+	@Test
+	public void testRecursiveMatch() {
+		String[] paths = { "/", "//", "/app", "/app/", "/app/hive/test.db", "/app//hive/test.db", "app/hive", "/APP/Hive/x" };
+		String[] patterns = { "/", "/*", "/app", "/app/*", "/app/hive", "/app/h*", "/app/hive/*.db", "app", "*/hive", "/app/hive/" };
+
+		for (boolean ignoreCase : new boolean[] { false, true }) {
+			for (String pattern : patterns) {
+				WildcardPattern wildcardPattern = WildcardPattern.compile(pattern, ignoreCase);
+
+				for (String path : paths) {
+					assertEquals(pattern + " ~ " + path + " (ignoreCase=" + ignoreCase + ")",
+					             expectedRecursiveMatch(path, pattern, ignoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE),
+					             RangerPathResourceMatcher.isRecursiveWildCardMatch(path, wildcardPattern, '/'));
+				}
+			}
+		}
+	}
+
+	// match each path prefix, at separators, with empty levels removed
+	private static boolean expectedRecursiveMatch(String path, String pattern, IOCase ioCase) {
+		String[] elements = path.split("/+");
+		StringBuilder sb  = new StringBuilder();
+		boolean hasLevel  = false;
+
+		if (path.startsWith("/")) {
+			sb.append('/');
+		}
+
+		for (String element : elements) {
+			if (element.isEmpty()) {
+				continue;
+			}
+
+			hasLevel = true;
+
+			sb.append(element);
+
+			if (FilenameUtils.wildcardMatch(sb.toString(), pattern, ioCase)) {
+				return true;
+			}
+
+			sb.append('/');
+		}
+
+		return !hasLevel && FilenameUtils.wildcardMatch(path, pattern, ioCase);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestChangeNotificationWatcher {
+
+	@Test
+	public void testDownloadIsTriggeredOnVersionChange() throws Exception {
+		final BlockingQueue<DownloadTrigger> queue   = new LinkedBlockingQueue<>();
+		final AtomicInteger                  version = new AtomicInteger(1);
+
+		ChangeNotificationWatcher.VersionSource source = new ChangeNotificationWatcher.VersionSource() {
+			@Override
+			public long getLastKnownVersion() {
+				return version.get();
+			}
+
+			@Override
+			public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+				Thread.sleep(10);
+
+				return lastKnownVersion == 1 ? 2L : null;
+			}
+		};
+
+		ChangeNotificationWatcher watcher = new ChangeNotificationWatcher("test", source, queue, 1000, 60 * 1000);
+
+		watcher.start();
+
+		DownloadTrigger trigger = queue.poll(10, TimeUnit.SECONDS);
+
+		assertNotNull(trigger);
+
+		// simulate the refresher downloading the new version
+		version.set(2);
+		trigger.signalCompletion();
+
+		assertNull(queue.poll(200, TimeUnit.MILLISECONDS));
+
+		watcher.stopWatcher();
+		watcher.join(10 * 1000);
+
+		assertFalse(watcher.isAlive());
+	}
+
+	@Test
+	public void testWatcherExitsWhenNotificationsAreNotSupported() throws Exception {
+		final BlockingQueue<DownloadTrigger> queue = new LinkedBlockingQueue<>();
+		final AtomicInteger                  calls = new AtomicInteger();
+
+		ChangeNotificationWatcher.VersionSource source = new ChangeNotificationWatcher.VersionSource() {
+			@Override
+			public long getLastKnownVersion() {
+				return 1;
+			}
+
+			@Override
+			public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+				calls.incrementAndGet();
+
+				throw new UnsupportedOperationException("not supported");
+			}
+		};
+
+		ChangeNotificationWatcher watcher = new ChangeNotificationWatcher("test", source, queue, 1000, 10);
+
+		watcher.start();
+		watcher.join(10 * 1000);
+
+		assertFalse(watcher.isAlive());
+		assertEquals(1, calls.get());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testWatcherRetriesOnOtherFailures() throws Exception {
+		final BlockingQueue<DownloadTrigger> queue = new LinkedBlockingQueue<>();
+		final AtomicInteger                  calls = new AtomicInteger();
+
+		ChangeNotificationWatcher.VersionSource source = new ChangeNotificationWatcher.VersionSource() {
+			@Override
+			public long getLastKnownVersion() {
+				return 1;
+			}
+
+			@Override
+			public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+				// e.g. Admin restarting; a 404, for a service not created yet, is retried as well
+				int call = calls.incrementAndGet();
+
+				if (call <= 3) {
+					throw call == 2 ? new ChangeNotificationWatcher.NotFoundException("HTTP 404") : new Exception("HTTP 503");
+				}
+
+				return 2L;
+			}
+		};
+
+		ChangeNotificationWatcher watcher = new ChangeNotificationWatcher("test", source, queue, 1000, 10);
+
+		watcher.start();
+
+		DownloadTrigger trigger = queue.poll(10, TimeUnit.SECONDS);
+
+		assertNotNull(trigger);
+		assertEquals(4, calls.get());
+
+		watcher.stopWatcher();
+		trigger.signalCompletion();
+		watcher.join(10 * 1000);
+
+		assertFalse(watcher.isAlive());
+	}
+
+	@Test
+	public void testWatcherExitsOnRepeatedNotFound() throws Exception {
+		final BlockingQueue<DownloadTrigger> queue = new LinkedBlockingQueue<>();
+		final AtomicInteger                  calls = new AtomicInteger();
+
+		ChangeNotificationWatcher.VersionSource source = new ChangeNotificationWatcher.VersionSource() {
+			@Override
+			public long getLastKnownVersion() {
+				return 1;
+			}
+
+			@Override
+			public Long waitForUpdate(long lastKnownVersion, long timeoutMs) throws Exception {
+				calls.incrementAndGet();
+
+				// e.g. an Admin that doesn't have the wait endpoint
+				throw new ChangeNotificationWatcher.NotFoundException("HTTP 404");
+			}
+		};
+
+		ChangeNotificationWatcher watcher = new ChangeNotificationWatcher("test", source, queue, 1000, 10);
+
+		watcher.start();
+		watcher.join(10 * 1000);
+
+		assertFalse(watcher.isAlive());
+		assertEquals(ChangeNotificationWatcher.MAX_NOT_FOUND_COUNT, calls.get());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testRetryBackoff() {
+		ChangeNotificationWatcher watcher = new ChangeNotificationWatcher("test", null, null, 1000, 30 * 1000);
+
+		assertEquals(30 * 1000, watcher.getRetryIntervalMs(1));
+		assertEquals(60 * 1000, watcher.getRetryIntervalMs(2));
+		assertEquals(120 * 1000, watcher.getRetryIntervalMs(3));
+		assertEquals(ChangeNotificationWatcher.MAX_RETRY_INTERVAL_MS, watcher.getRetryIntervalMs(10));
+		assertEquals(ChangeNotificationWatcher.MAX_RETRY_INTERVAL_MS, watcher.getRetryIntervalMs(1000));
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.ranger.plugin.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerPersistentLongMap {
+	@Test
+	public void testEditsMatchHashMap() {
+		Random                            random   = new Random(7);
+		Map<Long, String>                 expected = new HashMap<>();
+		RangerPersistentLongMap<String>   map      = RangerPersistentLongMap.empty();
+		long[]                            keys     = { 0L, 1L, 31L, 32L, 1023L, 1024L, 123456789L, Long.MAX_VALUE, -1L, Long.MIN_VALUE };
+
+		for (int round = 0; round < 50; round++) {
+			RangerPersistentLongMap.Editor<String> editor = map.edit();
+
+			for (int i = 0; i < 100; i++) {
+				long key = random.nextBoolean() ? keys[random.nextInt(keys.length)] : random.nextInt(5000);
+
+				if (random.nextInt(3) == 0) {
+					editor.remove(key);
+					expected.remove(key);
+				} else {
+					editor.put(key, "value-" + round + "-" + i);
+					expected.put(key, "value-" + round + "-" + i);
+				}
+			}
+
+			map = editor.build();
+
+			assertEquals(expected, map);
+			assertEquals(expected.size(), map.size());
+			assertEquals(expected.hashCode(), map.hashCode());
+		}
+
+		assertNull(map.get("not-a-long"));
+		assertFalse(map.containsKey(5001L));
+	}
+
+	@Test
+	public void testEarlierMapIsNotChanged() {
+		RangerPersistentLongMap.Editor<String> editor = RangerPersistentLongMap.<String>empty().edit();
+
+		for (long key = 0; key < 2000; key++) {
+			editor.put(key, "v" + key);
+		}
+
+		RangerPersistentLongMap<String> map1 = editor.build();
+		RangerPersistentLongMap<String> map2 = map1.edit().put(10L, "changed").remove(20L).put(5000L, "added").build();
+
+		assertEquals(2000, map1.size());
+		assertEquals("v10", map1.get(10L));
+		assertEquals("v20", map1.get(20L));
+		assertNull(map1.get(5000L));
+
+		assertEquals(2000, map2.size());
+		assertEquals("changed", map2.get(10L));
+		assertNull(map2.get(20L));
+		assertEquals("added", map2.get(5000L));
+	}
+
+	@Test
+	public void testIterationAndValueListAreInKeyOrder() {
+		Random                          random   = new Random(11);
+		TreeMap<Long, Integer>          expected = new TreeMap<>();
+		RangerPersistentLongMap<Integer> map;
+
+		for (int i = 0; i < 3000; i++) {
+			long key = random.nextInt(100000);
+
+			expected.put(key, (int) key);
+		}
+
+		map = RangerPersistentLongMap.copyOf(expected);
+
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+
+		List<Integer> values   = map.valueList();
+		List<Integer> expectedValues = new ArrayList<>(expected.values());
+
+		assertEquals(expectedValues, values);
+
+		for (int i = 0; i < expectedValues.size(); i += 97) {
+			assertEquals(expectedValues.get(i), values.get(i));
+		}
+
+		assertTrue(RangerPersistentLongMap.copyOf(map) == map);
+		assertTrue(RangerPersistentLongMap.getMapOfValueList(values) == map);
+	}
+
+	@Test
+	public void testSerializedAsStandardCollections() throws Exception {
+		RangerPersistentLongMap<String> map = RangerPersistentLongMap.<String>empty().edit().put(1L, "one").put(2L, "two").build();
+
+		Object copy       = serializeAndRead(map);
+		Object valuesCopy = serializeAndRead(map.valueList());
+
+		assertTrue(copy instanceof HashMap);
+		assertEquals(map, copy);
+		assertTrue(valuesCopy instanceof ArrayList);
+		assertEquals(Arrays.asList("one", "two"), valuesCopy);
+	}
+
+	@Test
+	public void testApplyTagsDelta() {
+		ServiceTags serviceTags = new ServiceTags();
+
+		serviceTags.setServiceName("cl1_hive");
+		serviceTags.setTagVersion(1L);
+		serviceTags.setTags(new HashMap<>(mapOf(1L, createTag(1L, "PII"), 2L, createTag(2L, "PCI"))));
+		serviceTags.setServiceResources(new ArrayList<>(Arrays.asList(createResource(1L, "db1"), createResource(2L, "db2"))));
+		serviceTags.setResourceToTagIds(new HashMap<>(mapOf(1L, Arrays.asList(1L, 2L), 2L, Collections.singletonList(2L))));
+
+		// resource 1 loses its tags; tag 1 is no longer used, while tag 2 is still used by resource 2
+		ServiceTags delta1 = createDelta(2L);
+
+		delta1.getServiceResources().add(createResource(1L, "db1"));
+
+		ServiceTags tags1 = RangerServiceTagsDeltaUtil.applyDelta(serviceTags, delta1);
+
+		assertEquals(Collections.singleton(2L), tags1.getTags().keySet());
+		assertEquals(Collections.singleton(2L), tags1.getResourceToTagIds().keySet());
+		assertEquals(2, tags1.getServiceResources().size());
+		assertEquals(2, serviceTags.getTags().size());
+
+		// resource 2 is deleted, resource 3 is added with a new tag; tag 2 is dropped with its last resource
+		ServiceTags delta2 = createDelta(3L);
+
+		delta2.getServiceResources().add(createResource(2L, null));
+		delta2.getServiceResources().add(createResource(3L, "db3"));
+		delta2.getTags().put(3L, createTag(3L, "SENSITIVE"));
+		delta2.getResourceToTagIds().put(3L, Collections.singletonList(3L));
+
+		ServiceTags tags2 = RangerServiceTagsDeltaUtil.applyDelta(tags1, delta2);
+
+		assertEquals(Collections.singleton(3L), tags2.getTags().keySet());
+		assertEquals(Collections.singleton(3L), tags2.getResourceToTagIds().keySet());
+		assertEquals(Arrays.asList(1L, 3L), Arrays.asList(tags2.getServiceResources().get(0).getId(), tags2.getServiceResources().get(1).getId()));
+		assertEquals(Collections.singleton(2L), tags1.getTags().keySet());
+
+		// a tag not associated with any resource is not added
+		ServiceTags delta3 = createDelta(4L);
+
+		delta3.getTags().put(4L, createTag(4L, "UNUSED"));
+
+		ServiceTags tags3 = RangerServiceTagsDeltaUtil.applyDelta(tags2, delta3);
+
+		assertEquals(Collections.singleton(3L), tags3.getTags().keySet());
+	}
+
+	private static ServiceTags createDelta(long version) {
+		ServiceTags ret = new ServiceTags();
+
+		ret.setServiceName("cl1_hive");
+		ret.setTagVersion(version);
+		ret.setIsDelta(Boolean.TRUE);
+
+		return ret;
+	}
+
+	private static RangerTag createTag(long id, String type) {
+		RangerTag ret = new RangerTag();
+
+		ret.setId(id);
+		ret.setType(type);
+
+		return ret;
+	}
+
+	private static RangerServiceResource createResource(long id, String database) {
+		RangerServiceResource ret = new RangerServiceResource();
+
+		ret.setId(id);
+
+		if (database != null) {
+			ret.getResourceElements().put("database", new RangerPolicyResource(database));
+		}
+
+		return ret;
+	}
+
+	private static <V> Map<Long, V> mapOf(Long key1, V value1, Long key2, V value2) {
+		Map<Long, V> ret = new HashMap<>();
+
+		ret.put(key1, value1);
+		ret.put(key2, value2);
+
+		return ret;
+	}
+
+	private static Object serializeAndRead(Object obj) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(obj);
+		}
+
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return in.readObject();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.ranger.plugin.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerPrincipalDictionary {
+	@Test
+	public void testIdsAreStable() {
+		RangerPrincipalDictionary.Names users = new RangerPrincipalDictionary().getUsers();
+
+		int id1 = users.getOrAddId("dict-test-user1");
+		int id2 = users.getOrAddId("dict-test-user2");
+
+		assertNotEquals(id1, id2);
+		assertEquals(id1, users.getOrAddId("dict-test-user1"));
+		assertEquals(id2, users.getId("dict-test-user2"));
+		assertEquals(-1, users.getId("dict-test-unknown-user"));
+		assertEquals(-1, users.getId(null));
+		assertEquals(2, users.size());
+	}
+
+	@Test
+	public void testRequestGroupsMatchPolicyItemGroups() {
+		RangerPrincipalDictionary       dictionary = new RangerPrincipalDictionary();
+		RangerPrincipalDictionary.Names groups     = dictionary.getGroups();
+
+		BitSet itemGroups1 = groups.getOrAddIds(Arrays.asList("dict-test-finance", "dict-test-hr"));
+		BitSet itemGroups2 = groups.getOrAddIds(Arrays.asList("dict-test-it"));
+
+		Set<String>                                 userGroups = new HashSet<>(Arrays.asList("dict-test-hr", "dict-test-unknown-group"));
+		RangerPrincipalDictionary.RequestPrincipals principals = dictionary.getRequestPrincipals("dict-test-user1", userGroups);
+
+		assertEquals(1, principals.getGroupIds().cardinality());
+		assertTrue(itemGroups1.intersects(principals.getGroupIds()));
+		assertFalse(itemGroups2.intersects(principals.getGroupIds()));
+		assertTrue(itemGroups1.length() <= principals.getGroupIdLimit());
+
+		// a group added after the request's ids were looked up is beyond the request's limit
+		BitSet itemGroups3 = groups.getOrAddIds(Arrays.asList("dict-test-added-later"));
+
+		assertTrue(itemGroups3.length() > principals.getGroupIdLimit());
+	}
+
+	@Test
+	public void testRequestPrincipalsAreForTheSameUserAndGroups() {
+		RangerPrincipalDictionary                   dictionary = new RangerPrincipalDictionary();
+		Set<String>                                 userGroups = new HashSet<>(Arrays.asList("dict-test-hr"));
+		RangerPrincipalDictionary.RequestPrincipals principals = dictionary.getRequestPrincipals("dict-test-user1", userGroups);
+
+		assertTrue(principals.isFor("dict-test-user1", userGroups));
+		assertFalse(principals.isFor("dict-test-user2", userGroups));
+		assertFalse(principals.isFor("dict-test-user1", new HashSet<>(userGroups)));
+	}
+
+	@Test
+	public void testDictionariesAreIndependent() {
+		RangerPrincipalDictionary dictionary1 = new RangerPrincipalDictionary();
+		RangerPrincipalDictionary dictionary2 = new RangerPrincipalDictionary();
+
+		dictionary1.getGroups().getOrAddId("dict-test-finance");
+
+		int hrId = dictionary1.getGroups().getOrAddId("dict-test-hr");
+
+		// ids are assigned per dictionary, so the same name can have different ids
+		assertNotEquals(hrId, dictionary2.getGroups().getOrAddId("dict-test-hr"));
+		assertEquals(-1, dictionary2.getGroups().getId("dict-test-finance"));
+
+		RangerPrincipalDictionary.RequestPrincipals principals = dictionary2.getRequestPrincipals("dict-test-user1", new HashSet<>(Arrays.asList("dict-test-hr")));
+
+		assertTrue(principals.isFrom(dictionary2));
+		assertFalse(principals.isFrom(dictionary1));
+		assertFalse(principals.isFrom(null));
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class TestServicePoliciesBinaryCache {
+	private static final Gson gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+
+	@Rule
+	public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	@Test
+	public void testRoundTripWithDataMaskAndRowFilterPolicies() throws Exception {
+		ServicePolicies policies = readServicePolicies("/policyengine/test_policyengine_hive_mask_filter.json");
+
+		policies.setPolicyVersion(42L);
+		policies.setPolicyUpdateTime(new Date());
+
+		assertRoundTrip(policies);
+	}
+
+	@Test
+	public void testRoundTripWithSecurityZonesAndTagPolicies() throws Exception {
+		ServicePolicies policies = readServicePolicies("/policyengine/test_policyengine_hdfs_zones.json");
+
+		ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+		tagPolicies.setServiceName("cl1_tag");
+		tagPolicies.setPolicyVersion(7L);
+		tagPolicies.setPolicies(new ArrayList<>(policies.getPolicies().subList(0, 1)));
+
+		policies.setTagPolicies(tagPolicies);
+
+		assertRoundTrip(policies);
+	}
+
+	@Test
+	public void testCorruptFileIsRejected() throws Exception {
+		ServicePolicies policies = readServicePolicies("/policyengine/test_policyengine_hive_mask_filter.json");
+		File            file     = tmpFolder.newFile("hive_cl1.bin");
+
+		ServicePoliciesBinaryCache.write(policies, file, gson);
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			long pos = raf.length() / 2;
+
+			raf.seek(pos);
+
+			int b = raf.read();
+
+			raf.seek(pos);
+			raf.write(b ^ 0xFF);
+		}
+
+		try {
+			ServicePoliciesBinaryCache.read(file, gson);
+
+			fail("expected checksum failure");
+		} catch (IOException excp) {
+			// expected
+		}
+	}
+
+	private void assertRoundTrip(ServicePolicies policies) throws Exception {
+		File file = tmpFolder.newFile(policies.getServiceName() + ".bin");
+
+		ServicePoliciesBinaryCache.write(policies, file, gson);
+
+		ServicePolicies read = ServicePoliciesBinaryCache.read(file, gson);
+
+		assertNotNull(read);
+		assertEquals(policies.getPolicies().size(), read.getPolicies().size());
+
+		// compare as JSON trees, so that map ordering doesn't matter
+		assertEquals(new JsonParser().parse(gson.toJson(policies)), new JsonParser().parse(gson.toJson(read)));
+
+		for (RangerPolicy policy : read.getPolicies()) {
+			assertNotNull(policy.getResources());
+		}
+	}
+
+	private ServicePolicies readServicePolicies(String resourceName) throws Exception {
+		try (InputStream in = TestServicePoliciesBinaryCache.class.getResourceAsStream(resourceName)) {
+			return gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), ServicePolicies.class);
+		}
+	}
+}
@@ -77,6 +77,8 @@ public class RangerAuthorizationCoprocessor implements AccessControlService.Inte
         private UserProvider userProvider;
         private RegionCoprocessorEnvironment regionEnv;
 	private Map<InternalScanner, String> scannerOwners = new MapMaker().weakKeys().makeMap();
+	// filters that hold aggregated audit events of open scanners, to be logged when the scanner is closed
+	private Map<InternalScanner, RangerAuthorizationFilter> scannerFilters = new MapMaker().weakKeys().makeMap();
 	
 	/*
 	 * These are package level only for testability and aren't meant to be exposed outside via getters/setters or made available to derived classes.
@@ -761,6 +763,10 @@ public class RangerAuthorizationCoprocessor implements AccessControlService.Inte
 	@Override
 	public void postScannerClose(ObserverContext<RegionCoprocessorEnvironment> c, InternalScanner s) throws IOException {
 		scannerOwners.remove(s);
+		RangerAuthorizationFilter filter = scannerFilters.remove(s);
+		if (filter != null) {
+			filter.flushAudits();
+		}
 	}
 	@Override
 	public RegionScanner postScannerOpen(ObserverContext<RegionCoprocessorEnvironment> c, Scan scan, RegionScanner s) throws IOException {
@@ -768,6 +774,10 @@ public class RangerAuthorizationCoprocessor implements AccessControlService.Inte
 		if (user != null && user.getShortName() != null) {
 			scannerOwners.put(s, user.getShortName());
 		}
+		RangerAuthorizationFilter filter = RangerAuthorizationFilter.getAuthorizationFilter(scan.getFilter());
+		if (filter != null) {
+			scannerFilters.put(s, filter);
+		}
 		return s;
 	}
 
@@ -1147,6 +1157,14 @@ public class RangerAuthorizationCoprocessor implements AccessControlService.Inte
 		}
 	}
 	@Override
+	public void postGetOp(final ObserverContext<RegionCoprocessorEnvironment> rEnv, final Get get, final List<Cell> result) throws IOException {
+		// log the audit events aggregated by the filter added in preGetOp
+		RangerAuthorizationFilter filter = RangerAuthorizationFilter.getAuthorizationFilter(get.getFilter());
+		if (filter != null) {
+			filter.flushAudits();
+		}
+	}
+	@Override
 	public void preRegionOffline(ObserverContext<MasterCoprocessorEnvironment> c, RegionInfo regionInfo) throws IOException {
 	    requirePermission(c, "regionOffline", regionInfo.getTable().getName(), null, null, Action.ADMIN);
 	}
@@ -20,7 +20,9 @@
 package org.apache.ranger.authorization.hbase;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,34 +30,78 @@ import com.google.common.base.MoreObjects;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hbase.Cell;
-import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterBase;
+import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 
+/**
+ * Filters out the cells of a scan or get that the user isn't allowed to read. Decisions for each (family, qualifier) are
+ * looked up by comparing the bytes of the cell in place, and are cached for the lifetime of the filter - i.e. of the scan.
+ * Audit events of columns read repeatedly are aggregated into one event per column, with eventCount set to the number
+ * of cells read; these are logged by flushAudits(), which is called when the scanner is closed, and periodically
+ * between rows for long running scans.
+ */
 public class RangerAuthorizationFilter extends FilterBase {
 
 	private static final Log LOG = LogFactory.getLog(RangerAuthorizationFilter.class.getName());
+
+	// decisions are not cached beyond this number of columns, to bound the memory used by scans of very wide tables
+	static final int MAX_CACHED_COLUMNS = 10000;
+	static final long AUDIT_FLUSH_INTERVAL_MS = 30 * 1000L;
+
 	final Set<String> _familiesAccessAllowed;
 	final Set<String> _familiesAccessDenied;
 	final Set<String> _familiesAccessIndeterminate;
 	final Map<String, Set<String>> _columnsAccessAllowed;
 	final AuthorizationSession _session;
-	final HbaseAuditHandler _auditHandler = HbaseFactory.getInstance().getAuditHandler();
+	final HbaseAuditHandler _auditHandler;
+	final FamilyAccess[] _familyAccesses;
+	final List<ColumnDecision> _pendingAudits = new ArrayList<>();
+	int _cachedColumnCount = 0;
+	long _lastAuditFlushTime = System.currentTimeMillis();
 
 	public RangerAuthorizationFilter(AuthorizationSession session, Set<String> familiesAccessAllowed, Set<String> familiesAccessDenied, Set<String> familiesAccessIndeterminate,
 									 Map<String, Set<String>> columnsAccessAllowed) {
+		this(session, HbaseFactory.getInstance().getAuditHandler(), familiesAccessAllowed, familiesAccessDenied, familiesAccessIndeterminate, columnsAccessAllowed);
+	}
+
+	RangerAuthorizationFilter(AuthorizationSession session, HbaseAuditHandler auditHandler, Set<String> familiesAccessAllowed, Set<String> familiesAccessDenied, Set<String> familiesAccessIndeterminate,
+							  Map<String, Set<String>> columnsAccessAllowed) {
 		// the class assumes that all of these can be empty but none of these can be null
 		_familiesAccessAllowed = familiesAccessAllowed;
 		_familiesAccessDenied = familiesAccessDenied;
 		_familiesAccessIndeterminate = familiesAccessIndeterminate;
 		_columnsAccessAllowed = columnsAccessAllowed;
+		_auditHandler = auditHandler;
 		// this session should have everything set on it except family and column which would be altered based on need
 		_session = session;
 		// we don't want to audit denial, so we need to make sure the hander is what we need it to be.
 		_session.auditHandler(_auditHandler);
+
+		// in the order families were looked up in these collections earlier, in case a family is in more than one
+		List<FamilyAccess> familyAccesses = new ArrayList<>();
+		for (String family : familiesAccessDenied) {
+			addFamilyAccess(familyAccesses, family, FamilyAccess.DENIED);
+		}
+		for (Map.Entry<String, Set<String>> entry : columnsAccessAllowed.entrySet()) {
+			FamilyAccess familyAccess = addFamilyAccess(familyAccesses, entry.getKey(), FamilyAccess.COLUMNS);
+			if (familyAccess != null && entry.getValue() != null) {
+				for (String column : entry.getValue()) {
+					familyAccess.columns.put(Bytes.toBytes(column), new ColumnDecision(column, ReturnCode.INCLUDE, false));
+				}
+			}
+		}
+		for (String family : familiesAccessAllowed) {
+			addFamilyAccess(familyAccesses, family, FamilyAccess.ALLOWED);
+		}
+		for (String family : familiesAccessIndeterminate) {
+			addFamilyAccess(familyAccesses, family, FamilyAccess.INDETERMINATE);
+		}
+		_familyAccesses = familyAccesses.toArray(new FamilyAccess[familyAccesses.size()]);
 	}
-	
+
 	@Override
 	public ReturnCode filterKeyValue(Cell kv) throws IOException {
 
@@ -63,74 +109,180 @@ public class RangerAuthorizationFilter extends FilterBase {
 			LOG.debug("==> filterKeyValue");
 		}
 
-		String family = null;
-		byte[] familyBytes = CellUtil.cloneFamily(kv);
-		if (familyBytes != null && familyBytes.length > 0) {
-			family = Bytes.toString(familyBytes);
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("filterKeyValue: evaluating family[" + family + "].");
+		ReturnCode result = ReturnCode.NEXT_COL;
+		FamilyAccess familyAccess = getFamilyAccess(kv);
+		if (familyAccess == null) {
+			if (kv.getFamilyLength() == 0) {
+				LOG.warn("filterKeyValue: Unexpected - null/empty family! Access denied!");
+			} else {
+				LOG.warn("filterKeyValue: Unexpected - alien family encountered that wasn't seen by pre-hook!  Access Denied.!");
+			}
+		} else if (familyAccess.access == FamilyAccess.DENIED) {
+			LOG.debug("filterKeyValue: family found in access denied families cache.  Access denied.");
+		} else {
+			ColumnDecision decision = familyAccess.columns.get(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierLength());
+			if (familyAccess.access == FamilyAccess.COLUMNS) {
+				LOG.debug("filterKeyValue: family found in column level access results cache.");
+				if (decision != null) {
+					LOG.debug("filterKeyValue: family/column found in column level access results cache. Access allowed.");
+					result = decision.result;
+				} else {
+					LOG.debug("filterKeyValue: family/column not in column level access results cache. Access denied.");
+				}
+			} else {
+				if (decision == null) {
+					// family in allowed families must be re-authorized for correct audit generation; indeterminate ones need evaluation
+					decision = authorize(familyAccess, kv);
+				} else {
+					LOG.debug("filterKeyValue: family/column found in scan's access results cache.");
+					if (decision.isAudited) {
+						addToPendingAudit(familyAccess, decision);
+					}
+				}
+				result = decision.result;
 			}
 		}
-		String column = null;
-		byte[] qualifier = CellUtil.cloneQualifier(kv);
-                if (qualifier != null && qualifier.length > 0) {
-			column = Bytes.toString(qualifier);
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("filterKeyValue: evaluating column[" + column + "].");
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("filterKeyValue: " + result);
+		}
+		return result;
+	}
+
+	@Override
+	public void reset() throws IOException {
+		// between rows: log aggregated audits of long running scans periodically
+		if (!_pendingAudits.isEmpty() && System.currentTimeMillis() - _lastAuditFlushTime >= AUDIT_FLUSH_INTERVAL_MS) {
+			flushAudits();
+		}
+	}
+
+	/**
+	 * Logs aggregated audit events of the columns read since the last call.
+	 */
+	public void flushAudits() {
+		_lastAuditFlushTime = System.currentTimeMillis();
+
+		if (_pendingAudits.isEmpty()) {
+			return;
+		}
+
+		List<AuthzAuditEvent> auditEvents = new ArrayList<>(_pendingAudits.size());
+		for (ColumnDecision decision : _pendingAudits) {
+			decision.pendingAuditEvent.setEventCount(decision.pendingAuditCount);
+			auditEvents.add(decision.pendingAuditEvent);
+			decision.pendingAuditEvent = null;
+			decision.pendingAuditCount = 0;
+		}
+		_pendingAudits.clear();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("flushAudits: logging " + auditEvents.size() + " audit events");
+		}
+		_auditHandler.logAuthzAudits(auditEvents);
+	}
+
+	/**
+	 * Returns the RangerAuthorizationFilter in the given filter, which could be a FilterList that combines it with other filters
+	 */
+	static RangerAuthorizationFilter getAuthorizationFilter(Filter filter) {
+		RangerAuthorizationFilter ret = null;
+		if (filter instanceof RangerAuthorizationFilter) {
+			ret = (RangerAuthorizationFilter) filter;
+		} else if (filter instanceof FilterList) {
+			for (Filter childFilter : ((FilterList) filter).getFilters()) {
+				ret = getAuthorizationFilter(childFilter);
+				if (ret != null) {
+					break;
+				}
 			}
+		}
+		return ret;
+	}
+
+	private ColumnDecision authorize(FamilyAccess familyAccess, Cell kv) {
+		String column = null;
+		if (kv.getQualifierLength() > 0) {
+			column = Bytes.toString(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierLength());
 		} else {
 			LOG.warn("filterKeyValue: empty/null column set! Unexpected!");
 		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("filterKeyValue: Checking authorization for family[" + familyAccess.family + "], column[" + column + "]...");
+		}
 
-		ReturnCode result = ReturnCode.NEXT_COL;
-		boolean authCheckNeeded = false;
-		if (family == null) {
-			LOG.warn("filterKeyValue: Unexpected - null/empty family! Access denied!");
-		} else if (_familiesAccessDenied.contains(family)) {
-			LOG.debug("filterKeyValue: family found in access denied families cache.  Access denied.");
-		} else if (_columnsAccessAllowed.containsKey(family)) {
-			LOG.debug("filterKeyValue: family found in column level access results cache.");
-			if (_columnsAccessAllowed.get(family).contains(column)) {
-				LOG.debug("filterKeyValue: family/column found in column level access results cache. Access allowed.");
-				result = ReturnCode.INCLUDE;
+		AuthzAuditEvent auditEvent = authorize(familyAccess.family, column);
+		ColumnDecision ret;
+		if (_session.isAuthorized()) {
+			LOG.debug("filterKeyValue: Access granted.");
+			ret = new ColumnDecision(column, ReturnCode.INCLUDE, auditEvent != null);
+			if (auditEvent != null) {
+				LOG.debug("filterKeyValue: access is audited.");
+				ret.pendingAuditEvent = auditEvent;
+				addToPendingAudit(familyAccess, ret);
 			} else {
-				LOG.debug("filterKeyValue: family/column not in column level access results cache. Access denied.");
+				LOG.debug("filterKeyValue: no audit event returned.  Access not audited.");
 			}
-		} else if (_familiesAccessAllowed.contains(family)) {
-			LOG.debug("filterKeyValue: family found in access allowed families cache.  Must re-authorize for correct audit generation.");
-			authCheckNeeded = true;
-		} else if (_familiesAccessIndeterminate.contains(family)) {
-			LOG.debug("filterKeyValue: family found in indeterminate families cache.  Evaluating access...");
-			authCheckNeeded = true;
 		} else {
-			LOG.warn("filterKeyValue: Unexpected - alien family encountered that wasn't seen by pre-hook!  Access Denied.!");
-		}
-
-		if (authCheckNeeded) {
-			LOG.debug("filterKeyValue: Checking authorization...");
-			_session.columnFamily(family)
-					.column(column)
-					.buildRequest()
-					.authorize();
-			// must always purge the captured audit event out of the audit handler to avoid messing up the next check
-			AuthzAuditEvent auditEvent = _auditHandler.getAndDiscardMostRecentEvent();
-			if (_session.isAuthorized()) {
-				LOG.debug("filterKeyValue: Access granted.");
-				result = ReturnCode.INCLUDE;
-				if (auditEvent != null) {
-					LOG.debug("filterKeyValue: access is audited.");
-					_auditHandler.logAuthzAudits(Collections.singletonList(auditEvent));
-				} else {
-					LOG.debug("filterKeyValue: no audit event returned.  Access not audited.");
+			LOG.debug("filterKeyValue: Access denied.  Denial not audited.");
+			ret = new ColumnDecision(column, ReturnCode.NEXT_COL, false);
+		}
+
+		if (_cachedColumnCount < MAX_CACHED_COLUMNS) {
+			familyAccess.columns.put(Arrays.copyOfRange(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierOffset() + kv.getQualifierLength()), ret);
+			_cachedColumnCount++;
+		} else if (ret.pendingAuditEvent != null) {
+			// this decision won't be found again, hence log its audit now
+			flushAudits();
+		}
+		return ret;
+	}
+
+	private AuthzAuditEvent authorize(String family, String column) {
+		_session.columnFamily(family)
+				.column(column)
+				.buildRequest()
+				.authorize();
+		// must always purge the captured audit event out of the audit handler to avoid messing up the next check
+		return _auditHandler.getAndDiscardMostRecentEvent();
+	}
+
+	private void addToPendingAudit(FamilyAccess familyAccess, ColumnDecision decision) {
+		if (decision.pendingAuditEvent == null) {
+			// audit of earlier reads of the column has been logged; an event is needed for the reads from now on
+			decision.pendingAuditEvent = authorize(familyAccess.family, decision.column);
+			if (decision.pendingAuditEvent == null) {
+				return;
+			}
+		}
+		if (decision.pendingAuditCount == 0) {
+			_pendingAudits.add(decision);
+		}
+		decision.pendingAuditCount++;
+	}
+
+	private FamilyAccess getFamilyAccess(Cell kv) {
+		int length = kv.getFamilyLength();
+		if (length > 0) {
+			byte[] array = kv.getFamilyArray();
+			int offset = kv.getFamilyOffset();
+			for (FamilyAccess familyAccess : _familyAccesses) {
+				if (Bytes.equals(familyAccess.familyBytes, 0, familyAccess.familyBytes.length, array, offset, length)) {
+					return familyAccess;
 				}
-			} else {
-				LOG.debug("filterKeyValue: Access denied.  Denial not audited.");
 			}
 		}
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("filterKeyValue: " + result);
+		return null;
+	}
+
+	private static FamilyAccess addFamilyAccess(List<FamilyAccess> familyAccesses, String family, int access) {
+		for (FamilyAccess familyAccess : familyAccesses) {
+			if (familyAccess.family.equals(family)) {
+				return null;
+			}
 		}
-		return result;
+		FamilyAccess ret = new FamilyAccess(family, access);
+		familyAccesses.add(ret);
+		return ret;
 	}
 
 	@Override
@@ -144,4 +296,89 @@ public class RangerAuthorizationFilter extends FilterBase {
 
 	}
 
+	static final class FamilyAccess {
+		static final int DENIED = 0;
+		static final int COLUMNS = 1; // access allowed only to the columns given in columnsAccessAllowed
+		static final int ALLOWED = 2;
+		static final int INDETERMINATE = 3;
+
+		final String family;
+		final byte[] familyBytes;
+		final int access;
+		final ColumnDecisions columns = new ColumnDecisions();
+
+		FamilyAccess(String family, int access) {
+			this.family = family;
+			this.familyBytes = Bytes.toBytes(family);
+			this.access = access;
+		}
+	}
+
+	static final class ColumnDecision {
+		final String column;
+		final ReturnCode result;
+		final boolean isAudited;
+		AuthzAuditEvent pendingAuditEvent = null;
+		long pendingAuditCount = 0;
+
+		ColumnDecision(String column, ReturnCode result, boolean isAudited) {
+			this.column = column;
+			this.result = result;
+			this.isAudited = isAudited;
+		}
+	}
+
+	/**
+	 * Open addressing hash table of decisions keyed by qualifier, which is looked up with the bytes of the cell in place
+	 */
+	static final class ColumnDecisions {
+		private byte[][] keys = new byte[16][];
+		private ColumnDecision[] values = new ColumnDecision[16];
+		private int size = 0;
+
+		ColumnDecision get(byte[] array, int offset, int length) {
+			int mask = keys.length - 1;
+			for (int i = Bytes.hashCode(array, offset, length) & mask; keys[i] != null; i = (i + 1) & mask) {
+				if (Bytes.equals(keys[i], 0, keys[i].length, array, offset, length)) {
+					return values[i];
+				}
+			}
+			return null;
+		}
+
+		void put(byte[] key, ColumnDecision value) {
+			if ((size + 1) * 2 > keys.length) {
+				resize();
+			}
+			if (insert(keys, values, key, value)) {
+				size++;
+			}
+		}
+
+		private void resize() {
+			byte[][] newKeys = new byte[keys.length * 2][];
+			ColumnDecision[] newValues = new ColumnDecision[values.length * 2];
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != null) {
+					insert(newKeys, newValues, keys[i], values[i]);
+				}
+			}
+			keys = newKeys;
+			values = newValues;
+		}
+
+		private static boolean insert(byte[][] keys, ColumnDecision[] values, byte[] key, ColumnDecision value) {
+			int mask = keys.length - 1;
+			int i = Bytes.hashCode(key, 0, key.length) & mask;
+			for (; keys[i] != null; i = (i + 1) & mask) {
+				if (Bytes.equals(keys[i], key)) {
+					values[i] = value;
+					return false;
+				}
+			}
+			keys[i] = key;
+			values[i] = value;
+			return true;
+		}
+	}
 }
@@ -19,11 +19,17 @@
 package org.apache.ranger.authorization.hbase;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -31,7 +37,9 @@ import java.util.Set;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.filter.Filter.ReturnCode;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class RangerAuthorizationFilterTest {
 
@@ -98,6 +106,53 @@ public class RangerAuthorizationFilterTest {
 		}
 	}
 
+	@Test
+	public void testFilterKeyValueCell_cachesDecisionsAndAggregatesAudits() throws IOException {
+		Set<String> familiesAccessAllowed = ImmutableSet.of("family1");
+		Set<String> familiesAccessIndeterminate = ImmutableSet.of("family2");
+		Set<String> empty = Collections.emptySet();
+		Map<String, Set<String>> columnsAccessAllowed = new HashMap<String, Set<String>>();
+
+		AuthorizationSession session = createSessionMock();
+		HbaseAuditHandler auditHandler = mock(HbaseAuditHandler.class);
+		when(auditHandler.getAndDiscardMostRecentEvent()).thenReturn(new AuthzAuditEvent(), new AuthzAuditEvent());
+		RangerAuthorizationFilter filter = new RangerAuthorizationFilter(session, auditHandler, familiesAccessAllowed, empty, familiesAccessIndeterminate, columnsAccessAllowed);
+
+		// qualifier bytes are looked up in place, at an offset in a larger array - like in cells of a scan
+		Cell aCell = mock(Cell.class);
+		setFamilyArray(aCell, "family1".getBytes());
+		byte[] row = "xxcolumn1yy".getBytes();
+		when(aCell.getQualifierArray()).thenReturn(row);
+		when(aCell.getQualifierOffset()).thenReturn(2);
+		when(aCell.getQualifierLength()).thenReturn(7);
+
+		when(session.isAuthorized()).thenReturn(true);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(ReturnCode.INCLUDE, filter.filterKeyValue(aCell));
+		}
+		// denied column of indeterminate family: evaluated once, not audited
+		when(session.isAuthorized()).thenReturn(false);
+		setFamilyArray(aCell, "family2".getBytes());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(ReturnCode.NEXT_COL, filter.filterKeyValue(aCell));
+		}
+		verify(session, times(2)).authorize();
+		verify(session, times(2)).column("column1");
+		verify(auditHandler, never()).logAuthzAudits(any());
+
+		// one event for the 5 reads of the allowed column
+		filter.flushAudits();
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		ArgumentCaptor<Collection<AuthzAuditEvent>> captor = ArgumentCaptor.forClass((Class) Collection.class);
+		verify(auditHandler).logAuthzAudits(captor.capture());
+		assertEquals(1, captor.getValue().size());
+		assertEquals(5, captor.getValue().iterator().next().getEventCount());
+
+		// nothing more to log
+		filter.flushAudits();
+		verify(auditHandler, times(1)).logAuthzAudits(any());
+	}
+
 	private void setFamilyArray(Cell aCell, byte[] familyArray) {
 		when(aCell.getFamilyArray()).thenReturn(familyArray);
 		when(aCell.getFamilyLength()).thenReturn((byte) familyArray.length);
@@ -26,12 +26,22 @@ import static org.apache.ranger.authorization.hadoop.constants.RangerHadoopConst
 
 import java.net.InetAddress;
 import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
@@ -58,6 +68,7 @@ import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerConcurrentCache;
 import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
@@ -78,6 +89,9 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 	private static final Log LOG = LogFactory.getLog(RangerHdfsAuthorizer.class);
 	private static final Log PERF_HDFSAUTH_REQUEST_LOG = RangerPerfTracer.getPerfLogger("hdfsauth.request");
 
+	// number of directories evaluated in the caller's thread, before the rest of the tree is handed to the subAccess pool
+	private static final int SUBACCESS_SEQUENTIAL_DIRECTORY_COUNT = 100;
+
 	private RangerHdfsPlugin           rangerPlugin            = null;
 	private Map<FsAction, Set<String>> access2ActionListMapper = new HashMap<FsAction, Set<String>>();
 
@@ -103,6 +117,8 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 			LOG.info(RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP + " is enabled");
 		}
 
+		LOG.info(RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_PARALLELISM_PROP + "=" + RangerHdfsPlugin.getSubAccessParallelism());
+
 		access2ActionListMapper.put(FsAction.NONE,          new HashSet<String>());
 		access2ActionListMapper.put(FsAction.ALL,           Sets.newHashSet(READ_ACCCESS_TYPE, WRITE_ACCCESS_TYPE, EXECUTE_ACCCESS_TYPE));
 		access2ActionListMapper.put(FsAction.READ,          Sets.newHashSet(READ_ACCCESS_TYPE));
@@ -136,6 +152,22 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 		}
 	}
 
+	public RangerBasePlugin getRangerPlugin() {
+		return rangerPlugin;
+	}
+
+	public long getTraversalDecisionCacheHits() {
+		RangerHdfsPlugin plugin = rangerPlugin;
+
+		return plugin != null ? plugin.getTraversalDecisionCacheHits() : 0;
+	}
+
+	public long getTraversalDecisionCacheMisses() {
+		RangerHdfsPlugin plugin = rangerPlugin;
+
+		return plugin != null ? plugin.getTraversalDecisionCacheMisses() : 0;
+	}
+
 	@Override
 	public INodeAttributes getAttributes(String fullPath, INodeAttributes inode) {
 		if(LOG.isDebugEnabled()) {
@@ -383,38 +415,8 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 
 					// checkSubAccess
 					if(authzStatus == AuthzStatus.ALLOW && subAccess != null && inode != null && inode.isDirectory()) {
-						Stack<SubAccessData> directories = new Stack<>();
+						authzStatus = checkSubAccess(inode.asDirectory(), resourcePath, subAccess, snapshotId, ignoreEmptyDir, user, groups, plugin, auditHandler);
 
-						for(directories.push(new SubAccessData(inode.asDirectory(), resourcePath)); !directories.isEmpty(); ) {
-							SubAccessData data = directories.pop();
-							ReadOnlyList<INode> cList = data.dir.getChildrenList(snapshotId);
-
-							if (!(cList.isEmpty() && ignoreEmptyDir)) {
-								INodeAttributes dirAttribs = data.dir.getSnapshotINode(snapshotId);
-
-								authzStatus = isAccessAllowed(data.dir, dirAttribs, data.resourcePath, subAccess, user, groups, plugin, auditHandler);
-
-								if(authzStatus != AuthzStatus.ALLOW) {
-									break;
-								}
-
-								AuthzStatus subDirAuthStatus = AuthzStatus.NOT_DETERMINED;
-
-								boolean optimizeSubAccessAuthEnabled = RangerHdfsPlugin.isOptimizeSubAccessAuthEnabled();
-
-								if (optimizeSubAccessAuthEnabled) {
-									subDirAuthStatus = isAccessAllowedForHierarchy(data.dir, dirAttribs, data.resourcePath, subAccess, user, groups, plugin);
-								}
-
-								if (subDirAuthStatus != AuthzStatus.ALLOW) {
-									for(INode child : cList) {
-										if (child.isDirectory()) {
-											directories.push(new SubAccessData(child.asDirectory(), resourcePath + org.apache.hadoop.fs.Path.SEPARATOR_CHAR + child.getLocalName()));
-										}
-									}
-								}
-							}
-						}
 						if (authzStatus == AuthzStatus.NOT_DETERMINED) {
 
 							authzStatus = checkDefaultEnforcer(fsOwner, superGroup, ugi, inodeAttrs, inodes,
@@ -473,6 +475,205 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 		    Check if parent or ancestor of the file being accessed is denied EXECUTE permission. If not, assume that Ranger-acls
 		    allowed EXECUTE access. Do not audit this authorization check if resource is a file unless access is explicitly denied
 		 */
+		private AuthzStatus checkSubAccess(INodeDirectory dir, String resourcePath, FsAction subAccess, int snapshotId, boolean ignoreEmptyDir,
+										   String user, Set<String> groups, RangerHdfsPlugin plugin, RangerHdfsAuditHandler auditHandler) {
+			if(LOG.isDebugEnabled()) {
+				LOG.debug("==> RangerAccessControlEnforcer.checkSubAccess(" + resourcePath + ", " + subAccess + ", " + user + ")");
+			}
+
+			RangerPerfTracer perf = null;
+
+			if(RangerPerfTracer.isPerfTraceEnabled(PERF_HDFSAUTH_REQUEST_LOG)) {
+				perf = RangerPerfTracer.getPerfTracer(PERF_HDFSAUTH_REQUEST_LOG, "RangerAccessControlEnforcer.checkSubAccess(path=" + resourcePath + ")");
+			}
+
+			SubAccessCheck subAccessCheck = new SubAccessCheck(subAccess, snapshotId, ignoreEmptyDir, user, groups, plugin);
+			AuthzStatus    ret            = subAccessCheck.check(new SubAccessData(dir, resourcePath), auditHandler);
+
+			RangerPerfTracer.log(perf);
+
+			if(LOG.isDebugEnabled()) {
+				LOG.debug("<== RangerAccessControlEnforcer.checkSubAccess(" + resourcePath + ", " + subAccess + ", " + user + "): " + ret
+						+ ", evaluatedDirectories=" + subAccessCheck.evaluatedCount + ", decidedSubtrees=" + subAccessCheck.decidedSubtreeCount);
+			}
+
+			return ret;
+		}
+
+		/*
+		 * subAccess check of a directory tree, which must be allowed on every directory in the tree (except on empty directories
+		 * when ignoreEmptyDir is set). Directories are evaluated in the caller's thread until SUBACCESS_SEQUENTIAL_DIRECTORY_COUNT
+		 * of them are evaluated; the rest of the tree is then evaluated in the plugin's subAccess pool, when one is configured.
+		 * The tree doesn't change during the check, as the caller holds the namesystem lock until the check completes.
+		 *
+		 * When the policy engine finds that all descendants of a directory are matched by the same policies, access to the
+		 * subtree is decided by evaluating just one of them.
+		 */
+		class SubAccessCheck {
+			final FsAction                       access;
+			final int                            snapshotId;
+			final boolean                        ignoreEmptyDir;
+			final String                         user;
+			final Set<String>                    groups;
+			final RangerHdfsPlugin               plugin;
+			final String                         clientIp            = RangerHdfsAccessRequest.getRemoteIp(); // not available in pool threads
+			final AtomicReference<SubAccessData> deniedDir           = new AtomicReference<>();
+			final AtomicInteger                  evaluatedCount      = new AtomicInteger();
+			final AtomicInteger                  decidedSubtreeCount = new AtomicInteger();
+			volatile AuthzStatus                 deniedStatus        = AuthzStatus.ALLOW;
+
+			SubAccessCheck(FsAction access, int snapshotId, boolean ignoreEmptyDir, String user, Set<String> groups, RangerHdfsPlugin plugin) {
+				this.access         = access;
+				this.snapshotId     = snapshotId;
+				this.ignoreEmptyDir = ignoreEmptyDir;
+				this.user           = user;
+				this.groups         = groups;
+				this.plugin         = plugin;
+			}
+
+			AuthzStatus check(SubAccessData root, RangerHdfsAuditHandler auditHandler) {
+				final Deque<SubAccessData> pending = new ArrayDeque<>();
+
+				// only the top directory, and the one access is denied on, are evaluated with the audit handler
+				checkDirectory(root, pending, auditHandler);
+
+				while (!pending.isEmpty() && deniedDir.get() == null) {
+					ForkJoinPool pool = RangerHdfsPlugin.getSubAccessPool();
+
+					if (pool != null && evaluatedCount.get() >= SUBACCESS_SEQUENTIAL_DIRECTORY_COUNT) {
+						pool.invoke(new RecursiveAction() {
+							@Override
+							protected void compute() {
+								List<SubtreeTask> tasks = new ArrayList<>(pending.size());
+
+								for (SubAccessData data : pending) {
+									tasks.add(new SubtreeTask(data));
+								}
+
+								invokeAll(tasks);
+							}
+						});
+
+						break;
+					}
+
+					checkDirectory(pending.pop(), pending, null);
+				}
+
+				SubAccessData denied = deniedDir.get();
+
+				if (denied != null && denied != root && auditHandler != null) {
+					isAccessAllowed(denied.dir, denied.dir.getSnapshotINode(snapshotId), denied.resourcePath, access, user, groups, plugin, auditHandler);
+				}
+
+				return deniedStatus;
+			}
+
+			// evaluates access on the directory, and adds its subdirectories that need to be checked to pending
+			void checkDirectory(SubAccessData data, Deque<SubAccessData> pending, RangerHdfsAuditHandler auditHandler) {
+				ReadOnlyList<INode> cList = data.dir.getChildrenList(snapshotId);
+
+				if (!(cList.isEmpty() && ignoreEmptyDir)) {
+					INodeAttributes dirAttribs = data.dir.getSnapshotINode(snapshotId);
+					AuthzStatus     status     = isAccessAllowed(data.dir, dirAttribs, data.resourcePath, access, user, groups, plugin, auditHandler, clientIp);
+
+					evaluatedCount.incrementAndGet();
+
+					if (status != AuthzStatus.ALLOW) {
+						if (deniedDir.compareAndSet(null, data)) {
+							deniedStatus = status;
+						}
+					} else if (!isSubtreeAllowed(data, dirAttribs, cList)) {
+						for (INode child : cList) {
+							if (child.isDirectory()) {
+								pending.push(new SubAccessData(child.asDirectory(), getChildPath(data.resourcePath, child)));
+							}
+						}
+					}
+				}
+			}
+
+			// returns true when access is known to be allowed on all directories beneath the given directory
+			boolean isSubtreeAllowed(SubAccessData data, INodeAttributes dirAttribs, ReadOnlyList<INode> cList) {
+				if (RangerHdfsPlugin.isOptimizeSubAccessAuthEnabled() && isAccessAllowedForHierarchy(data.dir, dirAttribs, data.resourcePath, access, user, groups, plugin) == AuthzStatus.ALLOW) {
+					return true;
+				}
+
+				INodeDirectory childDir = null;
+
+				for (INode child : cList) {
+					if (child.isDirectory()) {
+						childDir = child.asDirectory();
+
+						break;
+					}
+				}
+
+				boolean ret = false;
+
+				if (childDir != null && isAccessUniformForDescendants(data, dirAttribs)) {
+					AuthzStatus status = isAccessAllowed(childDir, childDir.getSnapshotINode(snapshotId), getChildPath(data.resourcePath, childDir), access, user, groups, plugin, null, clientIp);
+
+					evaluatedCount.incrementAndGet();
+
+					if (status == AuthzStatus.ALLOW) {
+						decidedSubtreeCount.incrementAndGet();
+
+						ret = true;
+					}
+				}
+
+				return ret;
+			}
+
+			boolean isAccessUniformForDescendants(SubAccessData data, INodeAttributes dirAttribs) {
+				String      path        = RangerHadoopConstants.HDFS_ROOT_FOLDER_PATH_ALT.equals(data.resourcePath) ? HDFS_ROOT_FOLDER_PATH : data.resourcePath;
+				String      pathOwner   = dirAttribs != null ? dirAttribs.getUserName() : data.dir.getUserName();
+				Set<String> accessTypes = access2ActionListMapper.get(access);
+				String      accessType  = accessTypes == null || accessTypes.isEmpty() ? READ_ACCCESS_TYPE : accessTypes.iterator().next();
+
+				return plugin.isAccessUniformForDescendants(new RangerHdfsAccessRequest(null, path, pathOwner, access, accessType, user, groups, plugin.getClusterName(), clientIp));
+			}
+
+			class SubtreeTask extends RecursiveAction {
+				private final SubAccessData data;
+
+				SubtreeTask(SubAccessData data) {
+					this.data = data;
+				}
+
+				@Override
+				protected void compute() {
+					List<SubtreeTask>    forked  = new ArrayList<>();
+					Deque<SubAccessData> pending = new ArrayDeque<>();
+
+					for (SubAccessData next = data; next != null && deniedDir.get() == null; next = pending.poll()) {
+						checkDirectory(next, pending, null);
+
+						// continue with one of the subdirectories in this thread, and share the rest with other threads of the pool
+						while (pending.size() > 1) {
+							SubtreeTask task = new SubtreeTask(pending.removeLast());
+
+							task.fork();
+							forked.add(task);
+						}
+					}
+
+					for (SubtreeTask task : forked) {
+						task.join();
+					}
+				}
+			}
+		}
+
+		private String getChildPath(String parentPath, INode child) {
+			if (parentPath.isEmpty() || parentPath.charAt(parentPath.length() - 1) != org.apache.hadoop.fs.Path.SEPARATOR_CHAR) {
+				return parentPath + org.apache.hadoop.fs.Path.SEPARATOR_CHAR + child.getLocalName();
+			} else {
+				return parentPath + child.getLocalName();
+			}
+		}
+
 		private AuthzStatus traverseOnlyCheck(INode inode, INodeAttributes[] inodeAttrs, String path, byte[][] components, INode parent, INode ancestor, int ancestorIndex,
 											  String user, Set<String> groups, RangerHdfsPlugin plugin, RangerHdfsAuditHandler auditHandler) {
 
@@ -536,18 +737,31 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 				LOG.debug("==> RangerAccessControlEnforcer.isAccessAllowedForTraversal(" + path + ", " + access + ", " + user + ", " + skipAuditOnAllow + ")");
 			}
 
-			RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(inode, path, pathOwner, access, EXECUTE_ACCCESS_TYPE, user, groups, clusterName);
+			String                             clientIp = RangerHdfsAccessRequest.getRemoteIp();
+			RangerHdfsPlugin.TraversalCacheKey cacheKey = plugin.isTraversalDecisionCacheEnabled() ? new RangerHdfsPlugin.TraversalCacheKey(user, groups, path, pathOwner, clientIp) : null;
 
-			RangerAccessResult result = plugin.isAccessAllowed(request, null);
-
-			if (result != null && result.getIsAccessDetermined() && !result.getIsAllowed()) {
-				ret = AuthzStatus.DENY;
-			} else {
+			if (cacheKey != null && plugin.isTraversalAllowedInCache(cacheKey, skipAuditOnAllow)) {
 				ret = AuthzStatus.ALLOW;
-			}
+			} else {
+				long cacheGeneration = plugin.getTraversalDecisionCacheGeneration(); // read before evaluation, so that a decision made with older policies isn't used
+
+				RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(inode, path, pathOwner, access, EXECUTE_ACCCESS_TYPE, user, groups, clusterName, clientIp);
+
+				RangerAccessResult result = plugin.isAccessAllowed(request, null);
+
+				if (result != null && result.getIsAccessDetermined() && !result.getIsAllowed()) {
+					ret = AuthzStatus.DENY;
+				} else {
+					ret = AuthzStatus.ALLOW;
+				}
 
-			if (ret == AuthzStatus.DENY || (!skipAuditOnAllow && result != null && result.getIsAccessDetermined())) {
-				auditHandler.processResult(result);
+				if (ret == AuthzStatus.DENY || (!skipAuditOnAllow && result != null && result.getIsAccessDetermined())) {
+					auditHandler.processResult(result);
+				}
+
+				if (cacheKey != null && ret == AuthzStatus.ALLOW) {
+					plugin.cacheTraversalAllowed(cacheKey, result != null && result.getIsAccessDetermined(), cacheGeneration);
+				}
 			}
 
 			if (LOG.isDebugEnabled()) {
@@ -637,6 +851,10 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 		}
 
 		private AuthzStatus isAccessAllowed(INode inode, INodeAttributes inodeAttribs, String path, FsAction access, String user, Set<String> groups, RangerHdfsPlugin plugin, RangerHdfsAuditHandler auditHandler) {
+			return isAccessAllowed(inode, inodeAttribs, path, access, user, groups, plugin, auditHandler, RangerHdfsAccessRequest.getRemoteIp());
+		}
+
+		private AuthzStatus isAccessAllowed(INode inode, INodeAttributes inodeAttribs, String path, FsAction access, String user, Set<String> groups, RangerHdfsPlugin plugin, RangerHdfsAuditHandler auditHandler, String clientIp) {
 			AuthzStatus ret       = null;
 			String      pathOwner = inodeAttribs != null ? inodeAttribs.getUserName() : null;
 			String 		clusterName = plugin.getClusterName();
@@ -662,7 +880,7 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 			}
 
 			for(String accessType : accessTypes) {
-				RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(inode, path, pathOwner, access, accessType, user, groups, clusterName);
+				RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(inode, path, pathOwner, access, accessType, user, groups, clusterName, clientIp);
 
 				RangerAccessResult result = plugin.isAccessAllowed(request, auditHandler);
 
@@ -757,10 +975,20 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 
 
 class RangerHdfsPlugin extends RangerBasePlugin {
+	private static final Log LOG = LogFactory.getLog(RangerHdfsPlugin.class);
+
 	private static boolean hadoopAuthEnabled = RangerHadoopConstants.RANGER_ADD_HDFS_PERMISSION_DEFAULT;
 	private static String fileNameExtensionSeparator;
 	private static boolean optimizeSubAccessAuthEnabled = RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT;
 	private static String randomizedWildcardPathName;
+	private static int subAccessParallelism = RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_PARALLELISM_DEFAULT;
+	private static volatile ForkJoinPool subAccessPool;
+
+	private volatile RangerConcurrentCache<TraversalCacheKey, TraversalDecision> traversalDecisionCache;
+	private          long                                                        traversalDecisionCacheTtlMs;
+	private final    AtomicLong                                                  traversalDecisionCacheGeneration = new AtomicLong();
+	private final    LongAdder                                                   traversalDecisionCacheHits       = new LongAdder();
+	private final    LongAdder                                                   traversalDecisionCacheMisses     = new LongAdder();
 
 	public RangerHdfsPlugin() {
 		super("hdfs", "hdfs");
@@ -773,10 +1001,52 @@ class RangerHdfsPlugin extends RangerBasePlugin {
 		RangerHdfsPlugin.fileNameExtensionSeparator = RangerConfiguration.getInstance().get(RangerHdfsAuthorizer.RANGER_FILENAME_EXTENSION_SEPARATOR_PROP, RangerHdfsAuthorizer.DEFAULT_FILENAME_EXTENSION_SEPARATOR);
 		RangerHdfsPlugin.optimizeSubAccessAuthEnabled = RangerConfiguration.getInstance().getBoolean(RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP, RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT);
 
+		RangerHdfsPlugin.subAccessParallelism = RangerConfiguration.getInstance().getInt(RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_PARALLELISM_PROP, RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_PARALLELISM_DEFAULT);
+		RangerHdfsPlugin.subAccessPool = subAccessParallelism > 1 ? new ForkJoinPool(subAccessParallelism) : null;
+
+		int traversalDecisionCacheSize = RangerConfiguration.getInstance().getInt(RangerHadoopConstants.RANGER_TRAVERSAL_DECISION_CACHE_SIZE_PROP, RangerHadoopConstants.RANGER_TRAVERSAL_DECISION_CACHE_SIZE_DEFAULT);
+
+		traversalDecisionCacheTtlMs = RangerConfiguration.getInstance().getLong(RangerHadoopConstants.RANGER_TRAVERSAL_DECISION_CACHE_TTL_MS_PROP, RangerHadoopConstants.RANGER_TRAVERSAL_DECISION_CACHE_TTL_MS_DEFAULT);
+		traversalDecisionCache      = traversalDecisionCacheSize > 0 && traversalDecisionCacheTtlMs > 0 ? new RangerConcurrentCache<TraversalCacheKey, TraversalDecision>("hdfs-traversal-decisions", traversalDecisionCacheSize) : null;
+
+		LOG.info("Traversal decision cache: " + (traversalDecisionCache != null ? ("size=" + traversalDecisionCacheSize + ", ttlMs=" + traversalDecisionCacheTtlMs) : "disabled"));
+
 		String random = generateString("^&#@!%()-_+=@:;'<>`~abcdefghijklmnopqrstuvwxyz01234567890");
 		randomizedWildcardPathName = RangerPathResourceMatcher.WILDCARD_ASTERISK + random + RangerPathResourceMatcher.WILDCARD_ASTERISK;
 	}
 
+	@Override
+	public void contextChanged() {
+		super.contextChanged();
+
+		// policies or tags changed: decisions cached so far may no longer be valid
+		RangerConcurrentCache<TraversalCacheKey, TraversalDecision> cache = traversalDecisionCache;
+
+		if (cache != null) {
+			traversalDecisionCacheGeneration.incrementAndGet();
+			cache.clear();
+
+			LOG.info("Traversal decision cache cleared: " + getTraversalDecisionCacheStats());
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		super.cleanup();
+
+		ForkJoinPool pool = RangerHdfsPlugin.subAccessPool;
+
+		RangerHdfsPlugin.subAccessPool = null;
+
+		if (pool != null) {
+			pool.shutdown();
+		}
+
+		if (traversalDecisionCache != null) {
+			LOG.info("Traversal decision cache: " + getTraversalDecisionCacheStats());
+		}
+	}
+
 	// Build random string of length between 56 and 112 characters
 	private static String generateString(String source)
 	{
@@ -809,6 +1079,131 @@ class RangerHdfsPlugin extends RangerBasePlugin {
 	public static String getRandomizedWildcardPathName() {
 		return RangerHdfsPlugin.randomizedWildcardPathName;
 	}
+	public static int getSubAccessParallelism() {
+		return RangerHdfsPlugin.subAccessParallelism;
+	}
+	public static ForkJoinPool getSubAccessPool() {
+		return RangerHdfsPlugin.subAccessPool;
+	}
+
+	public boolean isTraversalDecisionCacheEnabled() {
+		return traversalDecisionCache != null;
+	}
+
+	public long getTraversalDecisionCacheGeneration() {
+		return traversalDecisionCacheGeneration.get();
+	}
+
+	/*
+	 * Returns true if traversal was allowed for the key with current policies and tags. A decision made by a policy
+	 * is not used when the allowed access should be audited, as the audit event is generated from the evaluation result.
+	 */
+	public boolean isTraversalAllowedInCache(TraversalCacheKey key, boolean skipAuditOnAllow) {
+		RangerConcurrentCache<TraversalCacheKey, TraversalDecision> cache    = traversalDecisionCache;
+		TraversalDecision                                          decision = cache != null ? cache.get(key) : null;
+		boolean                                                    ret      = decision != null
+		                                                                      && decision.generation == traversalDecisionCacheGeneration.get()
+		                                                                      && decision.expiryTimeMs > System.currentTimeMillis()
+		                                                                      && (skipAuditOnAllow || !decision.isAccessDetermined);
+
+		if (ret) {
+			traversalDecisionCacheHits.increment();
+		} else {
+			traversalDecisionCacheMisses.increment();
+		}
+
+		return ret;
+	}
+
+	public void cacheTraversalAllowed(TraversalCacheKey key, boolean isAccessDetermined, long generation) {
+		RangerConcurrentCache<TraversalCacheKey, TraversalDecision> cache = traversalDecisionCache;
+
+		if (cache != null && generation == traversalDecisionCacheGeneration.get()) {
+			cache.put(key, new TraversalDecision(isAccessDetermined, generation, System.currentTimeMillis() + traversalDecisionCacheTtlMs));
+		}
+	}
+
+	public long getTraversalDecisionCacheHits() {
+		return traversalDecisionCacheHits.sum();
+	}
+
+	public long getTraversalDecisionCacheMisses() {
+		return traversalDecisionCacheMisses.sum();
+	}
+
+	public double getTraversalDecisionCacheHitRate() {
+		long hits  = getTraversalDecisionCacheHits();
+		long total = hits + getTraversalDecisionCacheMisses();
+
+		return total > 0 ? ((double) hits) / total : 0;
+	}
+
+	public String getTraversalDecisionCacheStats() {
+		RangerConcurrentCache<TraversalCacheKey, TraversalDecision> cache = traversalDecisionCache;
+
+		return "{hits=" + getTraversalDecisionCacheHits() + ", misses=" + getTraversalDecisionCacheMisses()
+				+ ", hitRate=" + String.format("%.3f", getTraversalDecisionCacheHitRate())
+				+ ", size=" + (cache != null ? cache.size() : 0) + ", evictions=" + (cache != null ? cache.getEvictionCount() : 0) + "}";
+	}
+
+	/*
+	 * The client address is part of the key, as policy conditions can depend on it; access time is covered by
+	 * expiring cached decisions after ranger.traversal-decision-cache.ttl.ms.
+	 */
+	static final class TraversalCacheKey {
+		private final String      user;
+		private final Set<String> groups;
+		private final String      path;
+		private final String      pathOwner;
+		private final String      clientIp;
+		private final int         hashCode;
+
+		TraversalCacheKey(String user, Set<String> groups, String path, String pathOwner, String clientIp) {
+			this.user      = user;
+			this.groups    = groups;
+			this.path      = path;
+			this.pathOwner = pathOwner;
+			this.clientIp  = clientIp;
+			this.hashCode  = Objects.hash(user, groups, path, pathOwner, clientIp);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof TraversalCacheKey)) {
+				return false;
+			}
+
+			TraversalCacheKey other = (TraversalCacheKey) obj;
+
+			return hashCode == other.hashCode
+					&& Objects.equals(path, other.path)
+					&& Objects.equals(user, other.user)
+					&& Objects.equals(pathOwner, other.pathOwner)
+					&& Objects.equals(clientIp, other.clientIp)
+					&& Objects.equals(groups, other.groups);
+		}
+	}
+
+	static final class TraversalDecision {
+		final boolean isAccessDetermined;
+		final long    generation;
+		final long    expiryTimeMs;
+
+		TraversalDecision(boolean isAccessDetermined, long generation, long expiryTimeMs) {
+			this.isAccessDetermined = isAccessDetermined;
+			this.generation         = generation;
+			this.expiryTimeMs       = expiryTimeMs;
+		}
+	}
 }
 
 class RangerHdfsResource extends RangerAccessResourceImpl {
@@ -822,12 +1217,16 @@ class RangerHdfsResource extends RangerAccessResourceImpl {
 class RangerHdfsAccessRequest extends RangerAccessRequestImpl {
 
 	public RangerHdfsAccessRequest(INode inode, String path, String pathOwner, FsAction access, String accessType, String user, Set<String> groups, String clusterName) {
+		this(inode, path, pathOwner, access, accessType, user, groups, clusterName, getRemoteIp());
+	}
+
+	public RangerHdfsAccessRequest(INode inode, String path, String pathOwner, FsAction access, String accessType, String user, Set<String> groups, String clusterName, String clientIp) {
 		super.setResource(new RangerHdfsResource(path, pathOwner));
 		super.setAccessType(accessType);
 		super.setUser(user);
 		super.setUserGroups(groups);
 		super.setAccessTime(new Date());
-		super.setClientIPAddress(getRemoteIp());
+		super.setClientIPAddress(clientIp);
 		super.setAction(access.toString());
 		super.setClusterName(clusterName);
 
@@ -836,7 +1235,7 @@ class RangerHdfsAccessRequest extends RangerAccessRequestImpl {
 		}
 	}
 
-	private static String getRemoteIp() {
+	static String getRemoteIp() {
 		String ret = null;
 		InetAddress ip = Server.getRemoteIp();
 		if (ip != null) {
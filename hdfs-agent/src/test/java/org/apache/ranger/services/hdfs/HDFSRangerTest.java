@@ -365,6 +365,57 @@ public class HDFSRangerTest {
         HDFSGetContentSummary("/tmp/get-content-summary");
     }
 
+    @org.junit.Test
+    public void HDFSRecursiveDeleteTest() throws Exception {
+        FileSystem fileSystem = hdfsCluster.getFileSystem();
+
+        // "bob" has read, write and execute on "/tmp/tmpdir7", except for write on "/tmp/tmpdir7/b/3/secret". "/tmp/tmpdir7/a" has more
+        // directories than are checked in the caller's thread, so that the rest of them are checked by the subAccess pool
+        for (int i = 0; i < 12; i++) {
+            for (int j = 0; j < 10; j++) {
+                createFile("/tmp/tmpdir7/a/" + i + "/", j);
+            }
+        }
+
+        for (int i = 0; i < 5; i++) {
+            createFile("/tmp/tmpdir7/b/", i);
+        }
+
+        createFile("/tmp/tmpdir7/b/3/secret", null);
+
+        final Path dirA = new Path("/tmp/tmpdir7/a");
+        final Path dirB = new Path("/tmp/tmpdir7/b");
+
+        UserGroupInformation ugi = UserGroupInformation.createUserForTesting("bob", new String[] {});
+        ugi.doAs(new PrivilegedExceptionAction<Void>() {
+
+            public Void run() throws Exception {
+                Configuration conf = new Configuration();
+                conf.set("fs.defaultFS", defaultFs);
+
+                FileSystem fs = FileSystem.get(conf);
+
+                // write access is allowed on every directory under "/tmp/tmpdir7/a"
+                Assert.assertTrue(fs.delete(dirA, true));
+
+                // write access is denied on "/tmp/tmpdir7/b/3/secret"
+                try {
+                    fs.delete(dirB, true);
+                    Assert.fail("Failure expected on an incorrect permission");
+                } catch (RemoteException ex) {
+                    // expected
+                    Assert.assertTrue(RangerAccessControlException.class.getName().equals(ex.getClassName()));
+                }
+
+                fs.close();
+                return null;
+            }
+        });
+
+        Assert.assertFalse(fileSystem.exists(dirA));
+        Assert.assertTrue(fileSystem.exists(new Path("/tmp/tmpdir7/b/3/secret/dummy-data")));
+    }
+
     void HDFSReadTest(String fileName) throws Exception {
         FileSystem fileSystem = hdfsCluster.getFileSystem();
 
@@ -36,6 +36,9 @@ import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.ranger.authorization.hadoop.RangerHdfsAuthorizer;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.util.ServicePolicies;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -245,6 +248,60 @@ public class RangerHdfsAuthorizerTest {
 
     }
 
+    @Test
+    public void traversalDecisionCacheTest() throws Exception {
+        final TestFileSystem fs = new TestFileSystem("/tmp/tmpdir2/data-file4");
+
+        // repeated traverse checks are served from the traversal decision cache, which must not mix up users or groups
+        for (int i = 0; i < 3; i++) {
+            long hits = authorizer.getTraversalDecisionCacheHits();
+            long misses = authorizer.getTraversalDecisionCacheMisses();
+
+            fs.checkAccess(null, "bob"); // traverse check
+            fs.checkAccess(null, "alice", "IT"); // traverse check
+            fs.checkAccessBlocked(null, "eve"); // traverse deny check for public
+            fs.checkAccessBlocked(null, "dave", "finance"); // traverse deny check for public
+
+            // every traverse check is looked up in the cache; once bob and alice were allowed, they are found there.
+            // Denials are never cached. Other tests may have cached bob's traversal of /tmp/tmpdir2 already
+            hits = authorizer.getTraversalDecisionCacheHits() - hits;
+            misses = authorizer.getTraversalDecisionCacheMisses() - misses;
+
+            Assert.assertEquals(4, hits + misses);
+
+            if (i > 0) {
+                Assert.assertEquals(2, hits);
+            }
+        }
+
+        // a policy change must not be answered from the cache: remove bob from the deny exceptions of /tmp/tmpdir2
+        final ServicePolicies policies = getServicePolicies();
+        final ServicePolicies updatedPolicies = getServicePolicies();
+
+        for (RangerPolicy policy : updatedPolicies.getPolicies()) {
+            if ("/tmp/tmpdir2".equals(policy.getName())) {
+                for (RangerPolicyItem denyException : policy.getDenyExceptions()) {
+                    denyException.getUsers().remove("bob");
+                }
+            }
+        }
+
+        try {
+            authorizer.getRangerPlugin().setPolicies(updatedPolicies);
+
+            long hits = authorizer.getTraversalDecisionCacheHits();
+
+            fs.checkAccessBlocked(null, "bob"); // traverse deny check for public
+            fs.checkAccess(null, "alice", "IT"); // traverse check
+
+            Assert.assertEquals(0, authorizer.getTraversalDecisionCacheHits() - hits);
+        } finally {
+            authorizer.getRangerPlugin().setPolicies(policies);
+        }
+
+        fs.checkAccess(null, "bob"); // traverse check
+    }
+
     @Test
     public void HDFSFileNameTokenReadTest() throws AccessControlException {
         readPath("/tmp/tmpdir4/data-file");
@@ -306,4 +363,12 @@ public class RangerHdfsAuthorizerTest {
         when(mock.toString()).thenReturn(name);
         return mock;
     }
+
+    private static ServicePolicies getServicePolicies() throws Exception {
+        final RangerAdminClientImpl adminClient = new RangerAdminClientImpl();
+
+        adminClient.init("cl1_hadoop", "hdfs", "ranger.plugin.hdfs");
+
+        return adminClient.getServicePoliciesIfUpdated(-1, -1);
+    }
 }
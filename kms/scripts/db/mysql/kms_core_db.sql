@@ -43,3 +43,16 @@ CREATE TABLE `ranger_keystore` (
   `kms_encoded`varchar(2048),
   PRIMARY KEY (`id`)
 )ROW_FORMAT=DYNAMIC;
+
+DROP TABLE IF EXISTS `ranger_keystore_deleted`;
+CREATE TABLE `ranger_keystore_deleted` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `create_time` datetime DEFAULT NULL,
+  `update_time` datetime DEFAULT NULL,
+  `added_by_id` bigint(20) DEFAULT NULL,
+  `upd_by_id` bigint(20) DEFAULT NULL,
+  `kms_alias` varchar(255) NOT NULL,
+  `kms_keystore_id` bigint(20) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `ranger_ks_deleted_upd_time` (`update_time`)
+)ROW_FORMAT=DYNAMIC;
@@ -45,3 +45,16 @@ kms_attributes VARCHAR(1024) DEFAULT NULL NULL,
 kms_encoded VARCHAR(2048),
 PRIMARY KEY (id)
 );
+
+CREATE SEQUENCE RANGER_KEYSTORE_DELETED_SEQ START WITH 1 INCREMENT BY 1 NOCACHE NOCYCLE;
+CREATE TABLE ranger_keystore_deleted(
+id NUMBER(20) NOT NULL,
+create_time DATE DEFAULT NULL NULL,
+update_time DATE DEFAULT NULL NULL,
+added_by_id NUMBER(20) DEFAULT NULL NULL,
+upd_by_id NUMBER(20) DEFAULT NULL NULL,
+kms_alias VARCHAR(255) NOT NULL,
+kms_keystore_id NUMBER(20) DEFAULT NULL NULL,
+PRIMARY KEY (id)
+);
+CREATE INDEX ranger_ks_deleted_upd_time ON ranger_keystore_deleted(update_time);
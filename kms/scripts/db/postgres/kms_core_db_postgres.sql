@@ -49,3 +49,18 @@ kms_attributes VARCHAR(1024) DEFAULT NULL NULL,
 kms_encoded VARCHAR(2048),
 PRIMARY KEY (id)
 );
+
+DROP TABLE IF EXISTS ranger_keystore_deleted CASCADE;
+DROP SEQUENCE IF EXISTS RANGER_KEYSTORE_DELETED_SEQ;
+CREATE SEQUENCE RANGER_KEYSTORE_DELETED_SEQ;
+CREATE TABLE ranger_keystore_deleted(
+id BIGINT DEFAULT nextval('RANGER_KEYSTORE_DELETED_SEQ'::regclass),
+create_time TIMESTAMP DEFAULT NULL NULL,
+update_time TIMESTAMP DEFAULT NULL NULL,
+added_by_id BIGINT DEFAULT NULL NULL,
+upd_by_id BIGINT DEFAULT NULL NULL,
+kms_alias VARCHAR(255) NOT NULL,
+kms_keystore_id BIGINT DEFAULT NULL NULL,
+PRIMARY KEY (id)
+);
+CREATE INDEX ranger_ks_deleted_upd_time ON ranger_keystore_deleted(update_time);
@@ -0,0 +1,27 @@
+-- Licensed to the Apache Software Foundation (ASF) under one or more
+-- contributor license agreements.  See the NOTICE file distributed with
+-- this work for additional information regarding copyright ownership.
+-- The ASF licenses this file to You under the Apache License, Version 2.0
+-- (the "License"); you may not use this file except in compliance with
+-- the License.  You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+CREATE SEQUENCE RANGER_KEYSTORE_DELETED_SEQ;
+CREATE TABLE ranger_keystore_deleted(
+id BIGINT DEFAULT nextval('RANGER_KEYSTORE_DELETED_SEQ'::regclass),
+create_time TIMESTAMP DEFAULT NULL NULL,
+update_time TIMESTAMP DEFAULT NULL NULL,
+added_by_id BIGINT DEFAULT NULL NULL,
+upd_by_id BIGINT DEFAULT NULL NULL,
+kms_alias VARCHAR(255) NOT NULL,
+kms_keystore_id BIGINT DEFAULT NULL NULL,
+PRIMARY KEY (id)
+);
+CREATE INDEX ranger_ks_deleted_upd_time ON ranger_keystore_deleted(update_time);
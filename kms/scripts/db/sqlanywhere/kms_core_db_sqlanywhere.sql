@@ -43,4 +43,17 @@ CREATE TABLE ranger_keystore(
 	CONSTRAINT ranger_keystore_PK_id PRIMARY KEY CLUSTERED(id)
 )
 GO
+CREATE TABLE ranger_keystore_deleted(
+	id bigint IDENTITY NOT NULL,
+	create_time datetime DEFAULT NULL NULL,
+	update_time datetime DEFAULT NULL NULL,
+	added_by_id bigint DEFAULT NULL NULL,
+	upd_by_id bigint DEFAULT NULL NULL,
+	kms_alias varchar(255) NOT NULL,
+	kms_keystore_id bigint DEFAULT NULL NULL,
+	CONSTRAINT ranger_keystore_deleted_PK_id PRIMARY KEY CLUSTERED(id)
+)
+GO
+CREATE NONCLUSTERED INDEX ranger_ks_deleted_upd_time ON ranger_keystore_deleted(update_time)
+GO
 exit
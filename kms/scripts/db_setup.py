@@ -593,6 +593,8 @@ def main(argv):
 
 	x_db_version = 'x_db_version_h'
 	x_user = 'ranger_masterkey'
+	x_keystore_deleted = 'ranger_keystore_deleted'
+	keystore_deleted_patch_file = '001-create-ranger_keystore_deleted.sql'
 
 	db_ssl_enabled='false'
 	db_ssl_required='false'
@@ -640,11 +642,13 @@ def main(argv):
 		MYSQL_CONNECTOR_JAR=globalDict['SQL_CONNECTOR_JAR']
 		xa_sqlObj = MysqlConf(xa_db_host, MYSQL_CONNECTOR_JAR, JAVA_BIN,db_ssl_enabled,db_ssl_required,db_ssl_verifyServerCertificate,javax_net_ssl_keyStore,javax_net_ssl_keyStorePassword,javax_net_ssl_trustStore,javax_net_ssl_trustStorePassword,db_ssl_auth_type)
 		xa_db_core_file = os.path.join(RANGER_KMS_HOME , mysql_core_file)
+		xa_db_keystore_deleted_file = os.path.join(RANGER_KMS_HOME , mysql_patches, keystore_deleted_patch_file)
 		
 	elif XA_DB_FLAVOR == "ORACLE":
 		ORACLE_CONNECTOR_JAR=globalDict['SQL_CONNECTOR_JAR']
 		xa_sqlObj = OracleConf(xa_db_host, ORACLE_CONNECTOR_JAR, JAVA_BIN)
 		xa_db_core_file = os.path.join(RANGER_KMS_HOME ,oracle_core_file)
+		xa_db_keystore_deleted_file = os.path.join(RANGER_KMS_HOME , oracle_patches, keystore_deleted_patch_file)
 
 	elif XA_DB_FLAVOR == "POSTGRES":
 		db_user=db_user.lower()
@@ -652,11 +656,13 @@ def main(argv):
 		POSTGRES_CONNECTOR_JAR = globalDict['SQL_CONNECTOR_JAR']
 		xa_sqlObj = PostgresConf(xa_db_host, POSTGRES_CONNECTOR_JAR, JAVA_BIN,db_ssl_enabled,db_ssl_required,db_ssl_verifyServerCertificate,javax_net_ssl_keyStore,javax_net_ssl_keyStorePassword,javax_net_ssl_trustStore,javax_net_ssl_trustStorePassword,db_ssl_auth_type)
 		xa_db_core_file = os.path.join(RANGER_KMS_HOME , postgres_core_file)
+		xa_db_keystore_deleted_file = os.path.join(RANGER_KMS_HOME , postgres_patches, keystore_deleted_patch_file)
 
 	elif XA_DB_FLAVOR == "MSSQL":
 		SQLSERVER_CONNECTOR_JAR = globalDict['SQL_CONNECTOR_JAR']
 		xa_sqlObj = SqlServerConf(xa_db_host, SQLSERVER_CONNECTOR_JAR, JAVA_BIN)
 		xa_db_core_file = os.path.join(RANGER_KMS_HOME , sqlserver_core_file)
+		xa_db_keystore_deleted_file = os.path.join(RANGER_KMS_HOME , sqlserver_patches, keystore_deleted_patch_file)
 
 	elif XA_DB_FLAVOR == "SQLA":
 		if not os_name == "WINDOWS" :
@@ -666,6 +672,7 @@ def main(argv):
 		SQLANYWHERE_CONNECTOR_JAR = globalDict['SQL_CONNECTOR_JAR']
 		xa_sqlObj = SqlAnywhereConf(xa_db_host, SQLANYWHERE_CONNECTOR_JAR, JAVA_BIN)
 		xa_db_core_file = os.path.join(RANGER_KMS_HOME , sqlanywhere_core_file)
+		xa_db_keystore_deleted_file = os.path.join(RANGER_KMS_HOME , sqlanywhere_patches, keystore_deleted_patch_file)
 
 	else:
 		log("[E] --------- NO SUCH SUPPORTED DB FLAVOUR!! ---------", "error")
@@ -683,5 +690,12 @@ def main(argv):
 			log("[I] --------- Importing Ranger Core DB Schema ---------","info")
 			xa_sqlObj.import_db_file(db_name, db_user, db_password, xa_db_core_file)
 
+		# added after the core schema: create it in databases set up by earlier versions
+		if xa_sqlObj.check_table(db_name, db_user, db_password, x_keystore_deleted):
+			pass
+		else:
+			log("[I] --------- Creating table " + x_keystore_deleted + " ---------","info")
+			xa_sqlObj.import_db_file(db_name, db_user, db_password, xa_db_keystore_deleted_file)
+
 
 main(sys.argv)
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.crypto.key;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Bounded, least-recently-used cache of unsealed key material, so that RangerKeyStore does not run the PBE key
+ * derivation and decryption on every engineGetKey() call. An entry expires ttlMs after it is added, and is valid only
+ * for the keystore entry it was unsealed from and the password array it was unsealed with: a reload, re-add or delete
+ * of the alias invalidates it. The material is held in byte arrays owned by the cache, which are zeroed when the entry
+ * is evicted, expires or is invalidated; callers get copies.
+ */
+class RangerKeyMaterialCache {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final Map<String, CachedKey> entries;
+
+    RangerKeyMaterialCache(int maxSize, long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<String, CachedKey>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedKey> eldest) {
+                boolean ret = size() > RangerKeyMaterialCache.this.maxSize;
+                if (ret) {
+                    eldest.getValue().clear();
+                }
+                return ret;
+            }
+        };
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0 && ttlMs > 0;
+    }
+
+    synchronized SecretKeySpec get(String alias, Object source, char[] password) {
+        CachedKey cached = entries.get(alias);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.source != source || cached.password != password || System.currentTimeMillis() > cached.expiryTime) {
+            entries.remove(alias);
+            cached.clear();
+            return null;
+        }
+        // SecretKeySpec copies the material
+        return new SecretKeySpec(cached.material, cached.algorithm);
+    }
+
+    synchronized void put(String alias, Object source, char[] password, SecretKeySpec key) {
+        if (!isEnabled()) {
+            return;
+        }
+        byte[] material = key.getEncoded();
+        if (material == null || material.length == 0) {
+            return;
+        }
+        CachedKey previous = entries.put(alias, new CachedKey(source, password, material, key.getAlgorithm(), System.currentTimeMillis() + ttlMs));
+        if (previous != null) {
+            previous.clear();
+        }
+    }
+
+    synchronized void invalidate(String alias) {
+        CachedKey cached = entries.remove(alias);
+        if (cached != null) {
+            cached.clear();
+        }
+    }
+
+    synchronized void clear() {
+        for (Iterator<CachedKey> iter = entries.values().iterator(); iter.hasNext(); ) {
+            iter.next().clear();
+            iter.remove();
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class CachedKey {
+        final Object source;
+        final char[] password;
+        final byte[] material;
+        final String algorithm;
+        final long expiryTime;
+
+        CachedKey(Object source, char[] password, byte[] material, String algorithm, long expiryTime) {
+            this.source = source;
+            this.password = password;
+            this.material = material;
+            this.algorithm = algorithm;
+            this.expiryTime = expiryTime;
+        }
+
+        void clear() {
+            Arrays.fill(material, (byte) 0);
+        }
+    }
+}
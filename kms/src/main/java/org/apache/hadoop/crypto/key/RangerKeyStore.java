@@ -48,9 +48,12 @@ import java.security.cert.CertificateException;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -62,13 +65,16 @@ import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.PBEParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 
 import org.apache.hadoop.crypto.key.KeyProvider.Metadata;
 import org.apache.log4j.Logger;
 import org.apache.ranger.entity.XXRangerKeyStore;
+import org.apache.ranger.entity.XXRangerKeyStoreDeleted;
 import org.apache.ranger.kms.dao.DaoManager;
 import org.apache.ranger.kms.dao.RangerKMSDao;
+import org.apache.ranger.kms.dao.RangerKeyStoreDeletedDao;
 
 /**
  * This class provides the Database store implementation.
@@ -98,16 +104,57 @@ public class RangerKeyStore extends KeyStoreSpi {
         String description;
         String attributes;
         int version;
+        // the database row this entry was read from, and the password it was verified with, to tell whether the row
+        // changed since
+        Long rowId;
+        long rowUpdateTime;
+        int rowEncodedHash;
+        char[] rowPassword;
+
+        void setReadFrom(XXRangerKeyStore row, char[] password) {
+            rowPassword = password;
+            rowId = row.getId();
+            rowUpdateTime = row.getUpdateTime() != null ? row.getUpdateTime().getTime() : 0;
+            rowEncodedHash = row.getEncoded() != null ? row.getEncoded().hashCode() : 0;
+        }
+
+        boolean isReadFrom(XXRangerKeyStore row, char[] password) {
+            return rowPassword == password && rowId != null && rowId.equals(row.getId())
+                    && rowUpdateTime == (row.getUpdateTime() != null ? row.getUpdateTime().getTime() : 0)
+                    && rowEncodedHash == (row.getEncoded() != null ? row.getEncoded().hashCode() : 0);
+        }
     }
 
     private Map<String, Object> keyEntries = new ConcurrentHashMap<>();
     private Map<String, Object> deltaEntries = new ConcurrentHashMap<>();
 
+    // unsealed key material, by alias; disabled unless sized by the caller
+    private final RangerKeyMaterialCache keyMaterialCache;
+
+    private static final long NOT_LOADED = -1;
+    private static final long CHANGE_WINDOW_MS = 60 * 1000L;
+    // deletions are logged in ranger_keystore_deleted for this long; a keystore not refreshed within it is reloaded
+    static final long DELETED_LOG_RETENTION_MS = 24 * 60 * 60 * 1000L;
+
+    // the latest UPDATE_TIME of the rows loaded from the database
+    private long lastUpdateTime = NOT_LOADED;
+    // local time of the last load
+    private long lastLoadTimeMs = NOT_LOADED;
+    // false if ranger_keystore_deleted is not available, e.g. in a database not yet upgraded; deletions are then found
+    // by reading all aliases
+    private volatile boolean isDeletedLogAvailable = true;
+
     RangerKeyStore() {
+        this(null);
     }
 
     public RangerKeyStore(DaoManager daoManager) {
+        this(daoManager, 0, 0);
+    }
+
+    public RangerKeyStore(DaoManager daoManager, int keyMaterialCacheSize, long keyMaterialCacheTtlMs) {
         this.daoManager = daoManager;
+        this.keyMaterialCache = new RangerKeyMaterialCache(keyMaterialCacheSize, keyMaterialCacheTtlMs);
     }
 
     String convertAlias(String alias) {
@@ -121,16 +168,25 @@ public class RangerKeyStore extends KeyStoreSpi {
         }
         Key key = null;
 
-        Object entry = keyEntries.get(convertAlias(alias));
+        String convertedAlias = convertAlias(alias);
+        Object entry = keyEntries.get(convertedAlias);
 
         if (!(entry instanceof SecretKeyEntry)) {
             return null;
         }
 
-        try {
-            key = unsealKey(((SecretKeyEntry) entry).sealedKey, password);
-        } catch (Exception e) {
-            logger.error("==> RangerKeyStore.engineGetKey() error: ", e);
+        key = keyMaterialCache.get(convertedAlias, entry, password);
+
+        if (key == null) {
+            try {
+                key = unsealKey(((SecretKeyEntry) entry).sealedKey, password);
+                // only key versions are cached; metadata entries are cached by RangerKeyStoreProvider
+                if (key instanceof SecretKeySpec) {
+                    keyMaterialCache.put(convertedAlias, entry, password, (SecretKeySpec) key);
+                }
+            } catch (Exception e) {
+                logger.error("==> RangerKeyStore.engineGetKey() error: ", e);
+            }
         }
         if (logger.isDebugEnabled()) {
             logger.debug("<== RangerKeyStore.engineGetKey()");
@@ -179,6 +235,7 @@ public class RangerKeyStore extends KeyStoreSpi {
         synchronized (keyEntries) {
             try {
                 keyEntries.put(convertAlias(alias), entry);
+                keyMaterialCache.invalidate(convertAlias(alias));
             } catch (Exception e) {
                 logger.error("==> RangerKeyStore.addKeyEntry() error: ", e);
                 throw new KeyStoreException(e.getMessage());
@@ -244,6 +301,7 @@ public class RangerKeyStore extends KeyStoreSpi {
         synchronized (keyEntries) {
             dbOperationDelete(convertAlias(alias));
             keyEntries.remove(convertAlias(alias));
+            keyMaterialCache.invalidate(convertAlias(alias));
         }
         synchronized (deltaEntries) {
             deltaEntries.remove(convertAlias(alias));
@@ -258,6 +316,18 @@ public class RangerKeyStore extends KeyStoreSpi {
         try {
             if (daoManager != null) {
                 RangerKMSDao rangerKMSDao = new RangerKMSDao(daoManager);
+                if (isDeletedLogAvailable) {
+                    try {
+                        dbOperationDeleteAndLog(rangerKMSDao, alias);
+                        return;
+                    } catch (RuntimeException e) {
+                        // marks the log unavailable if ranger_keystore_deleted doesn't exist
+                        dbOperationLoadDeletedSince(new Date());
+                        if (isDeletedLogAvailable) {
+                            throw e;
+                        }
+                    }
+                }
                 rangerKMSDao.deleteByAlias(alias);
             }
         } catch (Exception e) {
@@ -265,6 +335,31 @@ public class RangerKeyStore extends KeyStoreSpi {
         }
     }
 
+    // deletes the row and logs the deletion in the same transaction; log entries past the retention are purged
+    private void dbOperationDeleteAndLog(RangerKMSDao rangerKMSDao, String alias) {
+        RangerKeyStoreDeletedDao deletedDao = new RangerKeyStoreDeletedDao(daoManager);
+        XXRangerKeyStore rangerKey = rangerKMSDao.findByAlias(alias);
+        boolean trxBegan = rangerKMSDao.beginTransaction();
+        try {
+            rangerKMSDao.deleteByAlias(alias);
+            if (rangerKey != null) {
+                XXRangerKeyStoreDeleted deleted = new XXRangerKeyStoreDeleted();
+                deleted.setAlias(alias);
+                deleted.setKeyStoreId(rangerKey.getId());
+                deletedDao.getEntityManager().persist(deleted);
+                deletedDao.deleteOlderThan(new Date(deleted.getUpdateTime().getTime() - DELETED_LOG_RETENTION_MS));
+            }
+            if (trxBegan) {
+                rangerKMSDao.commitTransaction();
+            }
+        } catch (RuntimeException e) {
+            if (trxBegan) {
+                rangerKMSDao.rollbackTransaction();
+            }
+            throw e;
+        }
+    }
+
 
     @Override
     public Enumeration<String> engineAliases() {
@@ -375,6 +470,7 @@ public class RangerKeyStore extends KeyStoreSpi {
         xxRangerKeyStore.setDescription(rangerKMSKeyStore.getDescription());
         xxRangerKeyStore.setVersion(rangerKMSKeyStore.getVersion());
         xxRangerKeyStore.setAttributes(rangerKMSKeyStore.getAttributes());
+        xxRangerKeyStore.setUpdateTime(rangerKMSKeyStore.getUpdateTime());
         return xxRangerKeyStore;
     }
 
@@ -388,9 +484,6 @@ public class RangerKeyStore extends KeyStoreSpi {
         synchronized (keyEntries) {
             List<XXRangerKeyStore> rangerKeyDetails = dbOperationLoad();
 
-            DataInputStream dis;
-            MessageDigest md = null;
-
             if (rangerKeyDetails == null || rangerKeyDetails.size() < 1) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("RangerKeyStore might be null or key is not present in the database.");
@@ -398,82 +491,245 @@ public class RangerKeyStore extends KeyStoreSpi {
                 return;
             }
 
-            keyEntries.clear();
-            if (password != null) {
-                md = getKeyedMessageDigest(password);
+            EntryReader reader = new EntryReader(password);
+            Map<String, Object> loadedEntries = new HashMap<>();
+
+            for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+                loadedEntries.put(rangerKey.getAlias(), reader.read(rangerKey, keyEntries.get(rangerKey.getAlias())));
+                updateLastUpdateTime(rangerKey);
             }
 
-            byte computed[] = {};
-            if (md != null) {
-                computed = md.digest();
+            // entries that are unchanged are kept, so that their key material stays cached
+            for (String alias : keyEntries.keySet()) {
+                if (!loadedEntries.containsKey(alias)) {
+                    keyEntries.remove(alias);
+                    keyMaterialCache.invalidate(alias);
+                }
             }
-            for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+            for (Entry<String, Object> entry : loadedEntries.entrySet()) {
+                if (keyEntries.put(entry.getKey(), entry.getValue()) != entry.getValue()) {
+                    keyMaterialCache.invalidate(entry.getKey());
+                }
+            }
+        }
+    }
 
-                String encoded = rangerKey.getEncoded();
-                byte[] data = DatatypeConverter.parseBase64Binary(encoded);
+    /**
+     * Loads the entry of the given alias from the database, replacing the entry in this keystore if the row changed.
+     *
+     * @return false if the alias is not in the database
+     */
+    public boolean engineLoadAlias(String alias, char[] password) throws IOException, NoSuchAlgorithmException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> RangerKeyStore.engineLoadAlias(" + alias + ")");
+        }
+        boolean ret = false;
+        synchronized (keyEntries) {
+            XXRangerKeyStore rangerKey = dbOperationFind(convertAlias(alias));
 
-                if (data != null && data.length > 0) {
-                    stream = new ByteArrayInputStream(data);
-                } else {
-                    logger.error("No Key found for alias " + rangerKey.getAlias());
+            if (rangerKey != null) {
+                loadEntry(new EntryReader(password), rangerKey);
+                ret = true;
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("<== RangerKeyStore.engineLoadAlias(" + alias + "): ret=" + ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Brings this keystore up to date with the database without reading every row: loads the rows updated since the
+     * last load, and drops the entries whose rows were deleted since, as logged in ranger_keystore_deleted. Entries
+     * added to this keystore but not yet stored are kept. Rows are matched by UPDATE_TIME, which is set by the KMS node
+     * that writes the row; rows updated up to CHANGE_WINDOW_MS before the last seen update are read again, to allow for
+     * clock differences between the nodes and for transactions that commit out of order. The keystore is reloaded if
+     * it was not refreshed within DELETED_LOG_RETENTION_MS, as the deletions since may have been purged from the log.
+     *
+     * @return aliases that were added, updated or removed
+     */
+    public Set<String> engineLoadChanges(char[] password) throws IOException, NoSuchAlgorithmException, CertificateException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> RangerKeyStore.engineLoadChanges()");
+        }
+        Set<String> ret = new HashSet<>();
+        synchronized (keyEntries) {
+            long now = System.currentTimeMillis();
+
+            if (lastUpdateTime == NOT_LOADED || now - lastLoadTimeMs > DELETED_LOG_RETENTION_MS - CHANGE_WINDOW_MS) {
+                Set<String> aliasesBefore = new HashSet<>(keyEntries.keySet());
+                engineLoad(null, password);
+                lastLoadTimeMs = now;
+                ret.addAll(aliasesBefore);
+                ret.addAll(keyEntries.keySet());
+                return ret;
+            }
+
+            Date since = new Date(lastUpdateTime - CHANGE_WINDOW_MS);
+            List<XXRangerKeyStore> updatedKeys = dbOperationLoadUpdatedSince(since);
+            List<XXRangerKeyStoreDeleted> deletedKeys = updatedKeys != null && isDeletedLogAvailable ? dbOperationLoadDeletedSince(since) : null;
+            List<String> aliases = updatedKeys != null && deletedKeys == null ? dbOperationLoadAliases() : null;
+
+            if (updatedKeys == null || (deletedKeys == null && aliases == null)) {
+                logger.error("RangerKeyStore.engineLoadChanges(): failed to read changes from the database");
+                return ret;
+            }
+
+            EntryReader reader = new EntryReader(password);
+            Set<String> updatedAliases = new HashSet<>();
+            for (XXRangerKeyStore rangerKey : updatedKeys) {
+                updatedAliases.add(rangerKey.getAlias());
+                if (loadEntry(reader, rangerKey)) {
+                    ret.add(rangerKey.getAlias());
                 }
+            }
 
-                if (computed != null) {
-                    int counter = 0;
-                    for (int i = computed.length - 1; i >= 0; i--) {
-                        if (computed[i] != data[data.length - (1 + counter)]) {
-                            Throwable t = new UnrecoverableKeyException
-                                    ("Password verification failed");
-                            logger.error("Keystore was tampered with, or password was incorrect.", t);
-                            throw (IOException) new IOException
-                                    ("Keystore was tampered with, or "
-                                            + "password was incorrect").initCause(t);
-                        } else {
-                            counter++;
+            if (deletedKeys != null) {
+                for (XXRangerKeyStoreDeleted deleted : deletedKeys) {
+                    updateLastUpdateTime(deleted.getUpdateTime());
+                    // the alias may have been created again since; only the entry read from the deleted row is dropped
+                    if (!updatedAliases.contains(deleted.getAlias()) && !deltaEntries.containsKey(deleted.getAlias())) {
+                        Object entry = keyEntries.get(deleted.getAlias());
+                        if (entry instanceof SecretKeyEntry && isReadFromRow((SecretKeyEntry) entry, deleted.getKeyStoreId())) {
+                            keyEntries.remove(deleted.getAlias());
+                            keyMaterialCache.invalidate(deleted.getAlias());
+                            ret.add(deleted.getAlias());
                         }
                     }
                 }
-
-                if (password != null) {
-                    dis = new DataInputStream(new DigestInputStream(stream, md));
-                } else {
-                    dis = new DataInputStream(stream);
+            } else {
+                Set<String> storedAliases = new HashSet<>(aliases);
+                for (String alias : keyEntries.keySet()) {
+                    if (!storedAliases.contains(alias) && !deltaEntries.containsKey(alias)) {
+                        keyEntries.remove(alias);
+                        keyMaterialCache.invalidate(alias);
+                        ret.add(alias);
+                    }
                 }
+            }
+            lastLoadTimeMs = now;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("<== RangerKeyStore.engineLoadChanges(): changedAliases=" + ret);
+        }
+        return ret;
+    }
 
-                ObjectInputStream ois = null;
-                try {
-                    String alias;
+    // returns true if the entry was added or replaced
+    private boolean loadEntry(EntryReader reader, XXRangerKeyStore rangerKey) throws IOException {
+        Object existing = keyEntries.get(rangerKey.getAlias());
+        Object entry = reader.read(rangerKey, existing);
 
-                    SecretKeyEntry entry = new SecretKeyEntry();
+        updateLastUpdateTime(rangerKey);
 
-                    //read the alias
-                    alias = rangerKey.getAlias();
-
-                    //read the (entry creation) date
-                    entry.date = new Date(rangerKey.getCreatedDate());
-                    entry.cipher_field = rangerKey.getCipher();
-                    entry.bit_length = rangerKey.getBitLength();
-                    entry.description = rangerKey.getDescription();
-                    entry.version = rangerKey.getVersion();
-                    entry.attributes = rangerKey.getAttributes();
-                    //read the sealed key
-                    try {
-                        ois = new ObjectInputStream(dis);
-                        entry.sealedKey = (SealedObject) ois.readObject();
-                    } catch (ClassNotFoundException cnfe) {
-                        throw new IOException(cnfe.getMessage());
-                    }
+        if (entry == existing) {
+            return false;
+        }
+        keyEntries.put(rangerKey.getAlias(), entry);
+        keyMaterialCache.invalidate(rangerKey.getAlias());
+        return true;
+    }
 
-                    //Add the entry to the list
-                    keyEntries.put(alias, entry);
-                } finally {
-                    if (ois != null) {
-                        ois.close();
+    private void updateLastUpdateTime(XXRangerKeyStore rangerKey) {
+        updateLastUpdateTime(rangerKey.getUpdateTime());
+    }
+
+    private void updateLastUpdateTime(Date updateTime) {
+        if (updateTime != null && updateTime.getTime() > lastUpdateTime) {
+            lastUpdateTime = updateTime.getTime();
+        }
+    }
+
+    // entries stored by this keystore are not yet matched to their row, until the row is read back
+    private static boolean isReadFromRow(SecretKeyEntry entry, Long rowId) {
+        return entry.rowId == null || entry.rowId.equals(rowId);
+    }
+
+    /**
+     * Reads entries from database rows, checking that each row was sealed with the given password.
+     */
+    private final class EntryReader {
+        private final char[] password;
+        private final MessageDigest md;
+        private final byte[] computed;
+
+        EntryReader(char[] password) throws IOException {
+            this.password = password;
+            try {
+                this.md = password != null ? getKeyedMessageDigest(password) : null;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            this.computed = md != null ? md.digest() : new byte[0];
+        }
+
+        // returns existing if it was read from the same row
+        Object read(XXRangerKeyStore rangerKey, Object existing) throws IOException {
+            if (existing instanceof SecretKeyEntry && ((SecretKeyEntry) existing).isReadFrom(rangerKey, password)) {
+                return existing;
+            }
+
+            InputStream stream = null;
+            DataInputStream dis;
+
+            String encoded = rangerKey.getEncoded();
+            byte[] data = DatatypeConverter.parseBase64Binary(encoded);
+
+            if (data != null && data.length > 0) {
+                stream = new ByteArrayInputStream(data);
+            } else {
+                logger.error("No Key found for alias " + rangerKey.getAlias());
+            }
+
+            if (computed != null) {
+                int counter = 0;
+                for (int i = computed.length - 1; i >= 0; i--) {
+                    if (computed[i] != data[data.length - (1 + counter)]) {
+                        Throwable t = new UnrecoverableKeyException
+                                ("Password verification failed");
+                        logger.error("Keystore was tampered with, or password was incorrect.", t);
+                        throw (IOException) new IOException
+                                ("Keystore was tampered with, or "
+                                        + "password was incorrect").initCause(t);
                     } else {
-                        dis.close();
+                        counter++;
                     }
                 }
             }
+
+            if (password != null) {
+                dis = new DataInputStream(new DigestInputStream(stream, md));
+            } else {
+                dis = new DataInputStream(stream);
+            }
+
+            ObjectInputStream ois = null;
+            try {
+                SecretKeyEntry entry = new SecretKeyEntry();
+
+                //read the (entry creation) date
+                entry.date = new Date(rangerKey.getCreatedDate());
+                entry.cipher_field = rangerKey.getCipher();
+                entry.bit_length = rangerKey.getBitLength();
+                entry.description = rangerKey.getDescription();
+                entry.version = rangerKey.getVersion();
+                entry.attributes = rangerKey.getAttributes();
+                entry.setReadFrom(rangerKey, password);
+                //read the sealed key
+                try {
+                    ois = new ObjectInputStream(dis);
+                    entry.sealedKey = (SealedObject) ois.readObject();
+                } catch (ClassNotFoundException cnfe) {
+                    throw new IOException(cnfe.getMessage());
+                }
+                return entry;
+            } finally {
+                if (ois != null) {
+                    ois.close();
+                } else {
+                    dis.close();
+                }
+            }
         }
     }
 
@@ -498,6 +754,79 @@ public class RangerKeyStore extends KeyStoreSpi {
         return null;
     }
 
+    private XXRangerKeyStore dbOperationFind(String alias) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> RangerKeyStore.dbOperationFind(" + alias + ")");
+        }
+        try {
+            if (daoManager != null) {
+                RangerKMSDao rangerKMSDao = new RangerKMSDao(daoManager);
+                return rangerKMSDao.findByAlias(alias);
+            }
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.dbOperationFind() error:", e);
+        }
+        return null;
+    }
+
+    private List<XXRangerKeyStore> dbOperationLoadUpdatedSince(Date updateTime) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> RangerKeyStore.dbOperationLoadUpdatedSince(" + updateTime + ")");
+        }
+        try {
+            if (daoManager != null) {
+                RangerKMSDao rangerKMSDao = new RangerKMSDao(daoManager);
+                return rangerKMSDao.getKeysUpdatedSince(updateTime);
+            }
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.dbOperationLoadUpdatedSince() error:", e);
+        }
+        return null;
+    }
+
+    // returns null if the deletion log can't be read; if the table doesn't exist, it isn't queried again
+    private List<XXRangerKeyStoreDeleted> dbOperationLoadDeletedSince(Date updateTime) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> RangerKeyStore.dbOperationLoadDeletedSince(" + updateTime + ")");
+        }
+        try {
+            if (daoManager != null) {
+                RangerKeyStoreDeletedDao deletedDao = new RangerKeyStoreDeletedDao(daoManager);
+                return deletedDao.getDeletedSince(updateTime);
+            }
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.dbOperationLoadDeletedSince() error:", e);
+            if (isDatabaseReachable()) {
+                logger.warn("RangerKeyStore: ranger_keystore_deleted can't be read; deletions will be found by reading all aliases. Upgrade the Ranger KMS database schema to avoid this");
+                isDeletedLogAvailable = false;
+            }
+        }
+        return null;
+    }
+
+    private boolean isDatabaseReachable() {
+        try {
+            return new RangerKMSDao(daoManager).getAllCount() != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private List<String> dbOperationLoadAliases() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> RangerKeyStore.dbOperationLoadAliases()");
+        }
+        try {
+            if (daoManager != null) {
+                RangerKMSDao rangerKMSDao = new RangerKMSDao(daoManager);
+                return rangerKMSDao.getAllAliases();
+            }
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.dbOperationLoadAliases() error:", e);
+        }
+        return null;
+    }
+
     /**
      * To guard against tampering with the keystore, we append a keyed
      * hash with a bit of whitener.
@@ -687,6 +1016,10 @@ public class RangerKeyStore extends KeyStoreSpi {
         deltaEntries.clear();
     }
 
+    public void clearKeyMaterialCache() {
+        keyMaterialCache.clear();
+    }
+
     /**
      * Encapsulate the encrypted key, so that we can retrieve the AlgorithmParameters object on the decryption side
      */
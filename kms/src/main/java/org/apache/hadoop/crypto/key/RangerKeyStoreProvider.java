@@ -30,11 +30,16 @@ import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.spec.SecretKeySpec;
 
@@ -47,6 +52,8 @@ import org.apache.ranger.credentialapi.CredentialReader;
 import org.apache.ranger.kms.dao.DaoManager;
 import org.apache.log4j.Logger;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -74,14 +81,23 @@ public class RangerKeyStoreProvider extends KeyProvider {
         private static final String KEYSECURE_PASSWORD_ALIAS = "ranger.kms.keysecure.login.password.alias";
     private static final String KEYSECURE_PASSWORD = "ranger.kms.keysecure.login.password";
     private static final String KEYSECURE_LOGIN = "ranger.kms.keysecure.login";
+    private static final String KEY_MATERIAL_CACHE_SIZE = "ranger.kms.key.material.cache.size";
+    private static final String KEY_MATERIAL_CACHE_TTL_MS = "ranger.kms.key.material.cache.ttl.ms";
+    private static final int DEFAULT_KEY_MATERIAL_CACHE_SIZE = 1000;
+    private static final long DEFAULT_KEY_MATERIAL_CACHE_TTL_MS = 10 * 60 * 1000L;
+    private static final String KEYSTORE_REFRESH_INTERVAL_MS = "ranger.kms.keystore.refresh.interval.ms";
+    private static final long DEFAULT_KEYSTORE_REFRESH_INTERVAL_MS = 30 * 1000L;
 
     private final RangerKeyStore dbStore;
     private char[] masterKey;
     private boolean changed = false;
-    private final Map<String, Metadata> cache = new HashMap<String, Metadata>();
+    private final Map<String, Metadata> cache = new ConcurrentHashMap<String, Metadata>();
+    // names whose metadata in cache has changes not yet flushed to the db; refreshKeys() must not drop them
+    private final Set<String> pendingNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private DaoManager daoManager;
 
     private Lock readLock;
+    private ScheduledExecutorService refresher;
 
     public RangerKeyStoreProvider(Configuration conf) throws Throwable {
         super(conf);
@@ -112,6 +128,10 @@ public class RangerKeyStoreProvider extends KeyProvider {
             }
         }
 
+        int keyMaterialCacheSize = conf.getInt(KEY_MATERIAL_CACHE_SIZE, DEFAULT_KEY_MATERIAL_CACHE_SIZE);
+        long keyMaterialCacheTtlMs = conf.getLong(KEY_MATERIAL_CACHE_TTL_MS, DEFAULT_KEY_MATERIAL_CACHE_TTL_MS);
+        logger.info("Ranger KMS key material cache: size=" + keyMaterialCacheSize + ", ttlMs=" + keyMaterialCacheTtlMs);
+
                 if (conf != null && StringUtils.isNotEmpty(conf.get(KEYSECURE_ENABLED))
                                 && conf.get(KEYSECURE_ENABLED).equalsIgnoreCase("true")) {
                         getFromJceks(conf, CREDENTIAL_PATH, KEYSECURE_PASSWORD_ALIAS, KEYSECURE_PASSWORD);
@@ -120,7 +140,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
 
                         rangerMasterKey = new RangerSafenetKeySecure(conf);
 
-                        dbStore = new RangerKeyStore(daoManager);
+                        dbStore = new RangerKeyStore(daoManager, keyMaterialCacheSize, keyMaterialCacheTtlMs);
                         // generate master key on key secure server
                         rangerMasterKey.generateMasterKey(password);
                         try {
@@ -131,7 +151,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
                         }
 
                 } else {
-                        dbStore = new RangerKeyStore(daoManager);
+                        dbStore = new RangerKeyStore(daoManager, keyMaterialCacheSize, keyMaterialCacheTtlMs);
                         rangerMasterKey.generateMasterKey(password);
                         // code to retrieve rangerMasterKey password
                         try {
@@ -144,6 +164,28 @@ public class RangerKeyStoreProvider extends KeyProvider {
         reloadKeys();
         ReadWriteLock lock = new ReentrantReadWriteLock(true);
         readLock = lock.readLock();
+
+        long refreshIntervalMs = conf.getLong(KEYSTORE_REFRESH_INTERVAL_MS, DEFAULT_KEYSTORE_REFRESH_INTERVAL_MS);
+        if (refreshIntervalMs > 0) {
+            startRefresher(refreshIntervalMs);
+        }
+    }
+
+    // keeps this instance in sync with the keys created, rolled or deleted by other KMS instances
+    private void startRefresher(long refreshIntervalMs) {
+        logger.info("Ranger KMS keystore refresh interval: " + refreshIntervalMs + "ms");
+        refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("RangerKeyStoreRefresher").build());
+        refresher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refreshKeys();
+                } catch (Throwable t) {
+                    logger.error("==> RangerKeyStoreProvider.refreshKeys() error : ", t);
+                }
+            }
+        }, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
     }
 
     public static Configuration getDBKSConf() {
@@ -193,7 +235,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
         if (logger.isDebugEnabled()) {
             logger.debug("==> RangerKeyStoreProvider.createKey()");
         }
-        reloadKeys();
+        refreshKeys();
         if (dbStore.engineContainsAlias(name) || cache.containsKey(name)) {
             throw new IOException("Key " + name + " already exists");
         }
@@ -204,6 +246,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
                     options.getBitLength() + ", but got " + (8 * material.length));
         }
         cache.put(name, meta);
+        pendingNames.add(name);
         String versionName = buildVersionName(name, 0);
         if (logger.isDebugEnabled()) {
             logger.debug("<== RangerKeyStoreProvider.createKey()");
@@ -234,7 +277,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
         if (logger.isDebugEnabled()) {
             logger.debug("==> RangerKeyStoreProvider.deleteKey(" + name + ")");
         }
-        reloadKeys();
+        refreshKeys();
         Metadata meta = getMetadata(name);
         if (meta == null) {
             throw new IOException("Key " + name + " does not exist");
@@ -257,6 +300,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
             throw new IOException("Problem removing " + name + " from " + this, e);
         }
         cache.remove(name);
+        pendingNames.remove(name);
         changed = true;
     }
 
@@ -278,7 +322,8 @@ public class RangerKeyStoreProvider extends KeyProvider {
             }
             try {
                 dbStore.engineStore(null, masterKey);
-                reloadKeys();
+                pendingNames.clear();
+                refreshKeys();
             } catch (NoSuchAlgorithmException e) {
                 throw new IOException("No such algorithm storing key", e);
             } catch (CertificateException e) {
@@ -287,6 +332,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
             changed = false;
         } catch (IOException ioe) {
             cache.clear();
+            pendingNames.clear();
             reloadKeys();
             throw ioe;
         }
@@ -299,8 +345,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
             SecretKeySpec key = null;
             try {
                 if (!dbStore.engineContainsAlias(versionName)) {
-                    dbStore.engineLoad(null, masterKey);
-                    if (!dbStore.engineContainsAlias(versionName)) {
+                    if (!dbStore.engineLoadAlias(versionName, masterKey)) {
                         return null;
                     }
                 }
@@ -309,8 +354,6 @@ public class RangerKeyStoreProvider extends KeyProvider {
                 throw new IOException("Can't get algorithm for key " + key, e);
             } catch (UnrecoverableKeyException e) {
                 throw new IOException("Can't recover key " + key, e);
-            } catch (CertificateException e) {
-                throw new IOException("Certificate exception storing key", e);
             }
             if (key == null) {
                 return null;
@@ -345,7 +388,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
     public List<String> getKeys() throws IOException {
         ArrayList<String> list = new ArrayList<String>();
         String alias = null;
-        reloadKeys();
+        refreshKeys();
         Enumeration<String> e = dbStore.engineAliases();
         while (e.hasMoreElements()) {
             alias = e.nextElement();
@@ -367,8 +410,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
             }
             try {
                 if (!dbStore.engineContainsAlias(name)) {
-                    dbStore.engineLoad(null, masterKey);
-                    if (!dbStore.engineContainsAlias(name)) {
+                    if (!dbStore.engineLoadAlias(name, masterKey)) {
                         return null;
                     }
                 }
@@ -396,7 +438,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
         if (logger.isDebugEnabled()) {
             logger.debug("==> RangerKeyStoreProvider.rollNewVersion()");
         }
-        reloadKeys();
+        refreshKeys();
         Metadata meta = getMetadata(name);
         if (meta == null) {
             throw new IOException("Key " + name + " not found");
@@ -405,6 +447,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
             throw new IOException("Wrong key length. Required " + meta.getBitLength() + ", but got " + (8 * material.length));
         }
         int nextVersion = meta.addVersion();
+        pendingNames.add(name);
         String versionName = buildVersionName(name, nextVersion);
         return innerSetKeyVersion(name, versionName, material, meta.getCipher(), meta.getBitLength(), meta.getDescription(), meta.getVersions(), meta.getAttributes());
     }
@@ -429,6 +472,34 @@ public class RangerKeyStoreProvider extends KeyProvider {
         }
     }
 
+    // loads the keys added, updated or deleted since the last load, and drops their cached metadata - except for
+    // names with changes not yet flushed, which flush() writes to the db over the changes made by other nodes
+    private void refreshKeys() throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> RangerKeyStoreProvider.refreshKeys()");
+        }
+        try {
+            Set<String> changedAliases = dbStore.engineLoadChanges(masterKey);
+            if (!changedAliases.isEmpty()) {
+                for (String name : cache.keySet()) {
+                    if (pendingNames.contains(name)) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("RangerKeyStoreProvider.refreshKeys(): keeping unflushed metadata of key " + name);
+                        }
+                        continue;
+                    }
+                    if (changedAliases.contains(dbStore.convertAlias(name))) {
+                        cache.remove(name);
+                    }
+                }
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Can't load Keys");
+        } catch (CertificateException e) {
+            throw new IOException("Can't load Keys");
+        }
+    }
+
     private void reloadKeys() throws IOException {
         if (logger.isDebugEnabled()) {
             logger.debug("==> RangerKeyStoreProvider.reloadKeys()");
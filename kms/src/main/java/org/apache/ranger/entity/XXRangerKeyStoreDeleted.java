@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.entity;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Records a row deleted from ranger_keystore, so that other KMS instances can drop the key without reading every alias.
+ * UPDATE_TIME is the time of the deletion.
+ */
+@Entity
+@Cacheable(false)
+@Table(name="ranger_keystore_deleted")
+@XmlRootElement
+public class XXRangerKeyStoreDeleted extends XXDBBase implements java.io.Serializable {
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@SequenceGenerator(name="RANGER_KEYSTORE_DELETED_SEQ",sequenceName="RANGER_KEYSTORE_DELETED_SEQ",allocationSize=1)
+	@GeneratedValue(strategy=GenerationType.AUTO,generator="RANGER_KEYSTORE_DELETED_SEQ")
+	@Column(name="ID")
+	protected Long id;
+	@Override
+	public void setId(Long id) {
+		this.id=id;
+	}
+
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	@Column(name="kms_alias"  , length=255 )
+	protected String alias;
+
+	public String getAlias() {
+		return alias;
+	}
+
+	public void setAlias(String alias) {
+		this.alias = alias;
+	}
+
+	// ID of the deleted ranger_keystore row
+	@Column(name="kms_keystore_id")
+	protected Long keyStoreId;
+
+	public Long getKeyStoreId() {
+		return keyStoreId;
+	}
+
+	public void setKeyStoreId(Long keyStoreId) {
+		this.keyStoreId = keyStoreId;
+	}
+}
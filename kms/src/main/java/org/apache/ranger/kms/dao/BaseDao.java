@@ -23,6 +23,7 @@
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -266,4 +267,26 @@ public abstract class BaseDao<T> {
 		}
 		return null;
 	}
+
+	public List<T> getKeysUpdatedSince(String namedQuery, Date updateTime) {
+		try {
+			return getEntityManager()
+					.createNamedQuery(namedQuery, tClass)
+					.setParameter("updateTime", updateTime)
+					.setHint("eclipselink.refresh", "true").getResultList();
+		} catch (NoResultException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	public List<String> getAllAliases(String namedQuery) {
+		try {
+			return getEntityManager()
+					.createNamedQuery(namedQuery, String.class).getResultList();
+		} catch (NoResultException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
 }
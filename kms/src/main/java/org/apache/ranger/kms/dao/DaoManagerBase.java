@@ -27,6 +27,7 @@ public abstract class DaoManagerBase {
 
 	private RangerMasterKeyDao rangerMasterKeyDao = null;
 	private RangerKMSDao rangerKmsDao = null;
+	private RangerKeyStoreDeletedDao rangerKeyStoreDeletedDao = null;
 
     public DaoManagerBase() {
 	}
@@ -45,4 +46,11 @@ public abstract class DaoManagerBase {
 		}
 		return rangerKmsDao;
 	}
+
+	public RangerKeyStoreDeletedDao getRangerKeyStoreDeletedDao(){
+		if(rangerKeyStoreDeletedDao == null){
+			rangerKeyStoreDeletedDao = new RangerKeyStoreDeletedDao(this);
+		}
+		return rangerKeyStoreDeletedDao;
+	}
 }
@@ -17,6 +17,7 @@
 
 package org.apache.ranger.kms.dao;
 
+import java.util.Date;
 import java.util.List;
 
 import org.apache.ranger.entity.XXRangerKeyStore;
@@ -39,4 +40,12 @@ public class RangerKMSDao extends BaseDao<XXRangerKeyStore> {
 		List<XXRangerKeyStore> xxr = super.getAllKeys("XXRangerKeyStore.getAllKeys");
 		return xxr;
 	}
+
+	public List<XXRangerKeyStore> getKeysUpdatedSince(Date updateTime){
+		return super.getKeysUpdatedSince("XXRangerKeyStore.getKeysUpdatedSince", updateTime);
+	}
+
+	public List<String> getAllAliases(){
+		return super.getAllAliases("XXRangerKeyStore.getAllAliases");
+	}
 }
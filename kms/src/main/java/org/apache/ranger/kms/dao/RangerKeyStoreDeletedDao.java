@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.kms.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ranger.entity.XXRangerKeyStoreDeleted;
+
+public class RangerKeyStoreDeletedDao extends BaseDao<XXRangerKeyStoreDeleted> {
+
+	public RangerKeyStoreDeletedDao(DaoManagerBase daoManager) {
+		super(daoManager);
+	}
+
+	public List<XXRangerKeyStoreDeleted> getDeletedSince(Date updateTime){
+		return super.getKeysUpdatedSince("XXRangerKeyStoreDeleted.getDeletedSince", updateTime);
+	}
+
+	public int deleteOlderThan(Date updateTime){
+		return getEntityManager()
+				.createNamedQuery("XXRangerKeyStoreDeleted.deleteOlderThan", tClass)
+				.setParameter("updateTime", updateTime)
+				.executeUpdate();
+	}
+}
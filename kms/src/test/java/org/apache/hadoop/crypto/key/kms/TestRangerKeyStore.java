@@ -29,10 +29,12 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 
 import javax.crypto.KeyGenerator;
+import javax.crypto.spec.SecretKeySpec;
 
 import org.apache.hadoop.crypto.key.RangerKeyStore;
 import org.apache.ranger.kms.dao.DaoManager;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -133,6 +135,63 @@ public class TestRangerKeyStore {
                 inputStream.close();
         }
 
+        @Test
+        public void testKeyMaterialCache() throws Exception {
+                DaoManager daoManager = Mockito.mock(DaoManager.class);
+                RangerKeyStore rangerKeyStore = new RangerKeyStore(daoManager, 10, 60 * 1000L);
+                byte[] material1 = generateKeyMaterial();
+                byte[] material2 = generateKeyMaterial();
+
+                rangerKeyStore.addKeyEntry("enckey@0", new SecretKeySpec(material1, "AES"), masterKey, "AES/CTR/NoPadding", 256, "test", 1, null);
+
+                Key key1 = rangerKeyStore.engineGetKey("enckey@0", masterKey);
+                Key key2 = rangerKeyStore.engineGetKey("enckey@0", masterKey);
+
+                Assert.assertArrayEquals(material1, key1.getEncoded());
+                Assert.assertArrayEquals(material1, key2.getEncoded());
+                Assert.assertNotSame(key1, key2);
+
+                // re-adding the alias invalidates the cached material
+                rangerKeyStore.addKeyEntry("enckey@0", new SecretKeySpec(material2, "AES"), masterKey, "AES/CTR/NoPadding", 256, "test", 1, null);
+                Assert.assertArrayEquals(material2, rangerKeyStore.engineGetKey("enckey@0", masterKey).getEncoded());
+
+                // as does deleting it
+                rangerKeyStore.engineDeleteEntry("enckey@0");
+                Assert.assertNull(rangerKeyStore.engineGetKey("enckey@0", masterKey));
+
+                // cached material is not returned for a different password
+                rangerKeyStore.addKeyEntry("enckey@1", new SecretKeySpec(material1, "AES"), masterKey, "AES/CTR/NoPadding", 256, "test", 2, null);
+                Assert.assertNotNull(rangerKeyStore.engineGetKey("enckey@1", masterKey));
+                Assert.assertNull(rangerKeyStore.engineGetKey("enckey@1", "WrongPassword".toCharArray()));
+        }
+
+        @Test
+        public void testKeyMaterialCacheEviction() throws Exception {
+                DaoManager daoManager = Mockito.mock(DaoManager.class);
+                RangerKeyStore rangerKeyStore = new RangerKeyStore(daoManager, 2, 60 * 1000L);
+                byte[][] materials = new byte[5][];
+
+                for (int i = 0; i < materials.length; i++) {
+                        materials[i] = generateKeyMaterial();
+                        rangerKeyStore.addKeyEntry("enckey@" + i, new SecretKeySpec(materials[i], "AES"), masterKey, "AES/CTR/NoPadding", 256, "test", i + 1, null);
+                }
+
+                for (int round = 0; round < 2; round++) {
+                        for (int i = 0; i < materials.length; i++) {
+                                Assert.assertArrayEquals(materials[i], rangerKeyStore.engineGetKey("enckey@" + i, masterKey).getEncoded());
+                        }
+                }
+
+                rangerKeyStore.clearKeyMaterialCache();
+                Assert.assertArrayEquals(materials[0], rangerKeyStore.engineGetKey("enckey@0", masterKey).getEncoded());
+        }
+
+        private byte[] generateKeyMaterial() throws NoSuchAlgorithmException {
+                KeyGenerator kg = KeyGenerator.getInstance("AES");
+                kg.init(256);
+                return kg.generateKey().getEncoded();
+        }
+
         private InputStream generateKeyStoreFile(String keyValue) throws KeyStoreException, NoSuchAlgorithmException, CertificateException, IOException {
                 FileOutputStream stream = new FileOutputStream(new File(keyStoreFileName));
                 KeyStore ks;
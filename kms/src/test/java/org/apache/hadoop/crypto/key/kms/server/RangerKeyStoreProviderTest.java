@@ -151,4 +151,43 @@ public class RangerKeyStoreProviderTest {
 
     }
 
+    @Test
+    public void testKeysChangedByAnotherInstance() throws Throwable {
+    	if (!UNRESTRICTED_POLICIES_INSTALLED) {
+    		return;
+    	}
+
+        Path configDir = Paths.get("src/test/resources/kms");
+        System.setProperty(KMSConfiguration.KMS_CONFIG_DIR, configDir.toFile().getAbsolutePath());
+
+        Configuration conf = new Configuration();
+        RangerKeyStoreProvider keyProvider1 = new RangerKeyStoreProvider(conf);
+        RangerKeyStoreProvider keyProvider2 = new RangerKeyStoreProvider(conf);
+
+        Options options = new Options(conf);
+        options.setBitLength(128);
+        options.setCipher("AES");
+        KeyVersion keyVersion = keyProvider1.createKey("newkey3", options);
+        keyProvider1.flush();
+
+        // a version unknown to the instance is loaded by its alias
+        KeyVersion keyVersion2 = keyProvider2.getKeyVersion("newkey3@0");
+        Assert.assertNotNull(keyVersion2);
+        Assert.assertArrayEquals(keyVersion.getMaterial(), keyVersion2.getMaterial());
+        Assert.assertTrue(keyProvider2.getKeys().contains("newkey3"));
+
+        // a rolled version, and the new metadata, are picked up by the incremental load
+        keyVersion = keyProvider1.rollNewVersion("newkey3");
+        keyProvider1.flush();
+        Assert.assertEquals(1, keyProvider2.getKeys().size());
+        Assert.assertEquals(2, keyProvider2.getMetadata("newkey3").getVersions());
+        Assert.assertArrayEquals(keyVersion.getMaterial(), keyProvider2.getCurrentKey("newkey3").getMaterial());
+
+        // as is the deletion
+        keyProvider1.deleteKey("newkey3");
+        keyProvider1.flush();
+        Assert.assertEquals(0, keyProvider2.getKeys().size());
+        Assert.assertNull(keyProvider2.getKeyVersion("newkey3@0"));
+    }
+
 }
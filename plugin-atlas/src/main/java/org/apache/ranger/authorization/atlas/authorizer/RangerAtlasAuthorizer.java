@@ -37,8 +37,10 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
@@ -46,6 +48,8 @@ import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static org.apache.ranger.services.atlas.RangerServiceAtlas.*;
 
@@ -54,7 +58,14 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
     private static final Log LOG      = LogFactory.getLog(RangerAtlasAuthorizer.class);
     private static final Log PERF_LOG = RangerPerfTracer.getPerfLogger("atlasauth.request");
 
-    private static volatile RangerBasePlugin atlasPlugin = null;
+    private static final String SCRUB_PARALLELISM_PROP    = "ranger.plugin.atlas.search.scrub.parallelism";
+    private static final int    SCRUB_PARALLELISM_DEFAULT = 4;
+
+    // distinct access checks of a search result evaluated in the caller's thread; larger results are split into chunks
+    // of this size, evaluated in the plugin's scrub pool
+    private static final int SCRUB_CHUNK_SIZE = 500;
+
+    private static volatile RangerAtlasPlugin atlasPlugin = null;
 
     @Override
     public void init() {
@@ -62,7 +73,7 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
             LOG.debug("==> RangerAtlasPlugin.init()");
         }
 
-        RangerBasePlugin plugin = atlasPlugin;
+        RangerAtlasPlugin plugin = atlasPlugin;
 
         if (plugin == null) {
             synchronized (RangerAtlasPlugin.class) {
@@ -284,27 +295,26 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
                 perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerAtlasAuthorizer.scrubSearchResults(" + request + ")");
             }
 
-            final AtlasSearchResult result = request.getSearchResult();
+            final AtlasSearchResult       result   = request.getSearchResult();
+            final List<AtlasEntityHeader> entities = new ArrayList<>();
 
             if (CollectionUtils.isNotEmpty(result.getEntities())) {
-                for (AtlasEntityHeader entity : result.getEntities()) {
-                    checkAccessAndScrub(entity, request);
-                }
+                entities.addAll(result.getEntities());
             }
 
             if (CollectionUtils.isNotEmpty(result.getFullTextResult())) {
                 for (AtlasSearchResult.AtlasFullTextResult fullTextResult : result.getFullTextResult()) {
                     if (fullTextResult != null) {
-                        checkAccessAndScrub(fullTextResult.getEntity(), request);
+                        entities.add(fullTextResult.getEntity());
                     }
                 }
             }
 
             if (MapUtils.isNotEmpty(result.getReferredEntities())) {
-                for (AtlasEntityHeader entity : result.getReferredEntities().values()) {
-                    checkAccessAndScrub(entity, request);
-                }
+                entities.addAll(result.getReferredEntities().values());
             }
+
+            checkAccessAndScrub(entities, request);
         } finally {
             RangerPerfTracer.log(perf);
         }
@@ -422,22 +432,237 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
         return ret;
     }
 
-    private void checkAccessAndScrub(AtlasEntityHeader entity, AtlasSearchResultScrubRequest request) throws AtlasAuthorizationException {
-        if (entity != null && request != null) {
+    /*
+     * Same as checking each entity with isAccessAllowed(AtlasEntityAccessRequest), without audit: read access is checked for
+     * each classification of the entity, or for ENTITY_NOT_CLASSIFIED, and the entity is scrubbed unless all are allowed.
+     * Entities of a search result mostly share type and classifications, and often appear more than once (for example as
+     * entity and as referred entity): the checks are deduplicated by type, id, owner and classification, and the distinct
+     * checks are evaluated as a batch - in parallel, for large results.
+     */
+    private void checkAccessAndScrub(List<AtlasEntityHeader> entities, AtlasSearchResultScrubRequest request) throws AtlasAuthorizationException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> checkAccessAndScrub(entityCount=" + entities.size() + ")");
+        }
+
+        final Map<String, Set<String>>              entityTypes         = new HashMap<>();         // type and super-types, by type name
+        final Map<String, Set<String>>              classificationTypes = new HashMap<>();         // type and super-types, by classification name
+        final Map<ScrubCheck, Integer>              checkIndexes        = new LinkedHashMap<>();   // distinct checks, in order
+        final Map<AtlasEntityHeader, List<Integer>> entityChecks        = new IdentityHashMap<>(); // indexes of the checks of each entity
+
+        for (AtlasEntityHeader entity : entities) {
+            if (entity == null || entityChecks.containsKey(entity)) {
+                continue;
+            }
+
             final AtlasEntityAccessRequest entityAccessRequest = new AtlasEntityAccessRequest(request.getTypeRegistry(), AtlasPrivilege.ENTITY_READ, entity, request.getUser(), request.getUserGroups());
+            final String                   ownerUser           = (String) entity.getAttribute(RESOURCE_ENTITY_OWNER);
+            final List<Integer>            indexes             = new ArrayList<>();
+
+            Set<String> types = entityTypes.get(entity.getTypeName());
+
+            if (types == null) {
+                types = entityAccessRequest.getEntityTypeAndAllSuperTypes();
+
+                entityTypes.put(entity.getTypeName(), types);
+            }
+
+            if (CollectionUtils.isNotEmpty(entityAccessRequest.getEntityClassifications())) {
+                for (String classification : entityAccessRequest.getEntityClassifications()) {
+                    Set<String> classificationAndSuperTypes = classificationTypes.get(classification);
+
+                    if (classificationAndSuperTypes == null) {
+                        classificationAndSuperTypes = entityAccessRequest.getClassificationTypeAndAllSuperTypes(classification);
+
+                        classificationTypes.put(classification, classificationAndSuperTypes);
+                    }
+
+                    indexes.add(getCheckIndex(checkIndexes, new ScrubCheck(types, entityAccessRequest.getEntityId(), ownerUser, classificationAndSuperTypes)));
+                }
+            } else {
+                indexes.add(getCheckIndex(checkIndexes, new ScrubCheck(types, entityAccessRequest.getEntityId(), ownerUser, ENTITY_NOT_CLASSIFIED)));
+            }
+
+            entityChecks.put(entity, indexes);
+        }
 
-            entityAccessRequest.setClientIPAddress(request.getClientIPAddress());
+        final boolean[] isAllowed = evaluateScrubChecks(checkIndexes.keySet(), request);
+        int             scrubbed  = 0;
 
-            if (!isAccessAllowed(entityAccessRequest, null)) {
-                scrubEntityHeader(entity);
+        for (Map.Entry<AtlasEntityHeader, List<Integer>> entry : entityChecks.entrySet()) {
+            for (Integer index : entry.getValue()) {
+                if (!isAllowed[index]) {
+                    scrubEntityHeader(entry.getKey());
+
+                    scrubbed++;
+
+                    break;
+                }
             }
         }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== checkAccessAndScrub(entityCount=" + entities.size() + "): distinctEntities=" + entityChecks.size() + ", distinctChecks=" + checkIndexes.size() + ", scrubbed=" + scrubbed);
+        }
+    }
+
+    private static int getCheckIndex(Map<ScrubCheck, Integer> checkIndexes, ScrubCheck check) {
+        Integer ret = checkIndexes.get(check);
+
+        if (ret == null) {
+            ret = checkIndexes.size();
+
+            checkIndexes.put(check, ret);
+        }
+
+        return ret;
+    }
+
+    // returns, in the order of checks, whether read access is allowed; access is denied if the plugin is not initialized
+    private boolean[] evaluateScrubChecks(Collection<ScrubCheck> checks, AtlasSearchResultScrubRequest request) {
+        final boolean[]         ret    = new boolean[checks.size()];
+        final RangerAtlasPlugin plugin = atlasPlugin;
+
+        if (plugin == null) {
+            LOG.warn("RangerAtlasPlugin not initialized. Access blocked!!!");
+
+            return ret;
+        }
+
+        final String                    action      = AtlasPrivilege.ENTITY_READ.getType();
+        final Date                      accessTime  = new Date();
+        final String                    clusterName = plugin.getClusterName();
+        final List<RangerAccessRequest> requests    = new ArrayList<>(checks.size());
+
+        for (ScrubCheck check : checks) {
+            RangerAccessResourceImpl rangerResource = new RangerAccessResourceImpl();
+            RangerAccessRequestImpl  rangerRequest  = new RangerAccessRequestImpl(rangerResource, action, request.getUser(), request.getUserGroups());
+
+            rangerResource.setValue(RESOURCE_ENTITY_TYPE, check.entityTypes);
+            rangerResource.setValue(RESOURCE_ENTITY_ID, check.entityId);
+            rangerResource.setValue(RESOURCE_ENTITY_CLASSIFICATION, check.classification);
+            rangerResource.setOwnerUser(check.ownerUser);
+            rangerRequest.setAction(action);
+            rangerRequest.setClientIPAddress(request.getClientIPAddress());
+            rangerRequest.setAccessTime(accessTime);
+            rangerRequest.setClusterName(clusterName);
+
+            requests.add(rangerRequest);
+        }
+
+        final ForkJoinPool pool = plugin.getScrubPool();
+
+        if (pool == null || requests.size() <= SCRUB_CHUNK_SIZE) {
+            evaluateScrubChecks(plugin, requests, 0, ret);
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    List<RecursiveAction> tasks = new ArrayList<>();
+
+                    for (int i = 0; i < requests.size(); i += SCRUB_CHUNK_SIZE) {
+                        final int fromIndex = i;
+                        final int toIndex   = Math.min(i + SCRUB_CHUNK_SIZE, requests.size());
+
+                        tasks.add(new RecursiveAction() {
+                            @Override
+                            protected void compute() {
+                                evaluateScrubChecks(plugin, requests.subList(fromIndex, toIndex), fromIndex, ret);
+                            }
+                        });
+                    }
+
+                    invokeAll(tasks);
+                }
+            });
+        }
+
+        return ret;
+    }
+
+    private static void evaluateScrubChecks(RangerAtlasPlugin plugin, List<RangerAccessRequest> requests, int offset, boolean[] isAllowed) {
+        Collection<RangerAccessResult> results = plugin.isAccessAllowed(requests, null);
+
+        if (results != null) {
+            int i = offset;
+
+            for (RangerAccessResult result : results) {
+                isAllowed[i++] = result != null && result.getIsAllowed();
+            }
+        }
+    }
+
+    // read access check of an entity, for one of its classifications
+    private static final class ScrubCheck {
+        final Set<String> entityTypes;
+        final String      entityId;
+        final String      ownerUser;
+        final Object      classification; // classification and its super-types, or ENTITY_NOT_CLASSIFIED
+        final int         hashCode;
+
+        ScrubCheck(Set<String> entityTypes, String entityId, String ownerUser, Object classification) {
+            this.entityTypes    = entityTypes;
+            this.entityId       = entityId;
+            this.ownerUser      = ownerUser;
+            this.classification = classification;
+            this.hashCode       = Objects.hash(entityTypes, entityId, ownerUser, classification);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof ScrubCheck)) {
+                return false;
+            }
+
+            ScrubCheck other = (ScrubCheck) obj;
+
+            return hashCode == other.hashCode && Objects.equals(entityId, other.entityId) && Objects.equals(ownerUser, other.ownerUser) &&
+                   Objects.equals(entityTypes, other.entityTypes) && Objects.equals(classification, other.classification);
+        }
     }
 
     class RangerAtlasPlugin extends RangerBasePlugin {
+        private volatile ForkJoinPool scrubPool;
+
         RangerAtlasPlugin() {
             super("atlas", "atlas");
         }
+
+        @Override
+        public void init() {
+            super.init();
+
+            int scrubParallelism = RangerConfiguration.getInstance().getInt(SCRUB_PARALLELISM_PROP, SCRUB_PARALLELISM_DEFAULT);
+
+            scrubPool = scrubParallelism > 1 ? new ForkJoinPool(scrubParallelism) : null;
+
+            LOG.info(SCRUB_PARALLELISM_PROP + "=" + scrubParallelism);
+        }
+
+        @Override
+        public void cleanup() {
+            super.cleanup();
+
+            ForkJoinPool pool = scrubPool;
+
+            scrubPool = null;
+
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        ForkJoinPool getScrubPool() {
+            return scrubPool;
+        }
     }
 
     class RangerAtlasAuditHandler extends RangerDefaultAuditHandler {
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.authorization.atlas.authorizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.atlas.authorize.AtlasEntityAccessRequest;
+import org.apache.atlas.authorize.AtlasPrivilege;
+import org.apache.atlas.authorize.AtlasSearchResultScrubRequest;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.typedef.AtlasClassificationDef;
+import org.apache.atlas.model.typedef.AtlasEntityDef;
+import org.apache.atlas.model.typedef.AtlasEnumDef;
+import org.apache.atlas.model.typedef.AtlasStructDef;
+import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
+import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that scrubSearchResults(), which evaluates the distinct access checks of a search result as a batch, scrubs
+ * the same entities as checking read access for each entity with isAccessAllowed(AtlasEntityAccessRequest).
+ * Policies are read from src/test/resources/atlas-policies.json:
+ * - "db1 tables": read of hive_table entities db1.* allowed to group analysts
+ * - "PII entities": read of entities classified PII denied to group analysts
+ * - "owned databases": read of hive_db entities allowed to their owner
+ */
+public class RangerAtlasAuthorizerTest {
+    private static final String      USER   = "alice";
+    private static final Set<String> GROUPS = Collections.singleton("analysts");
+
+    private static ScrubRecordingAuthorizer authorizer;
+    private static AtlasTypeRegistry        typeRegistry;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        authorizer   = new ScrubRecordingAuthorizer();
+        typeRegistry = createTypeRegistry();
+
+        authorizer.init();
+    }
+
+    @Before
+    public void clearScrubbed() {
+        authorizer.scrubbed.clear();
+    }
+
+    @Test
+    public void testScrubResultsEqualPerEntityResults() throws Exception {
+        AtlasEntityHeader table1     = createEntity("hive_table", "db1.t1", null);
+        AtlasEntityHeader table2     = createEntity("hive_table", "db1.t2", null, "SSN"); // SSN is a PII
+        AtlasEntityHeader table2Copy = createEntity("hive_table", "db1.t2", null, "SSN"); // another header for the same entity
+        AtlasEntityHeader table3     = createEntity("hive_table", "db2.t3", null);
+        AtlasEntityHeader table4     = createEntity("hive_table", "db1.t4", null, "FINANCE");
+        AtlasEntityHeader table5     = createEntity("hive_table", "db1.t5", null, "FINANCE", "SSN");
+        AtlasEntityHeader db1        = createEntity("hive_db", "db1", USER);
+        AtlasEntityHeader db2        = createEntity("hive_db", "db2", "bob");
+        AtlasEntityHeader column1    = createEntity("hive_column", "db1.t1.c1", null);
+
+        Map<AtlasEntityHeader, Boolean> isScrubbed = getPerEntityResults(Arrays.asList(table1, table2, table2Copy, table3, table4, table5, db1, db2, column1));
+
+        Assert.assertFalse(isScrubbed.get(table1));
+        Assert.assertTrue(isScrubbed.get(table2));
+        Assert.assertTrue(isScrubbed.get(table2Copy));
+        Assert.assertTrue(isScrubbed.get(table3));
+        Assert.assertFalse(isScrubbed.get(table4));
+        Assert.assertTrue(isScrubbed.get(table5));
+        Assert.assertFalse(isScrubbed.get(db1));
+        Assert.assertTrue(isScrubbed.get(db2));
+        Assert.assertTrue(isScrubbed.get(column1));
+
+        // entities appear more than once: table1 and db1 in more than one list, and two headers for table2
+        AtlasSearchResult                           result   = new AtlasSearchResult();
+        Map<String, AtlasEntityHeader>              referred = new LinkedHashMap<>();
+        List<AtlasSearchResult.AtlasFullTextResult> fullText = new ArrayList<>();
+
+        result.setEntities(new ArrayList<>(Arrays.asList(table1, table2, table3, table4, table5, db2)));
+
+        fullText.add(new AtlasSearchResult.AtlasFullTextResult(table2Copy, 1.0));
+        fullText.add(new AtlasSearchResult.AtlasFullTextResult(db1, 1.0));
+        fullText.add(new AtlasSearchResult.AtlasFullTextResult(table1, 0.5));
+        result.setFullTextResult(fullText);
+
+        referred.put("table1", table1);
+        referred.put("db1", db1);
+        referred.put("column1", column1);
+        result.setReferredEntities(referred);
+
+        authorizer.scrubSearchResults(new AtlasSearchResultScrubRequest(typeRegistry, result, USER, GROUPS));
+
+        assertScrubbed(isScrubbed);
+    }
+
+    @Test
+    public void testScrubResultsOfLargeResult() throws Exception {
+        // more distinct checks than evaluated in the caller's thread, so that the checks are evaluated in chunks
+        List<AtlasEntityHeader> entities = new ArrayList<>();
+
+        for (int i = 0; i < 1200; i++) {
+            switch (i % 4) {
+                case 0:
+                    entities.add(createEntity("hive_table", "db1.t" + i, null));
+                    break;
+                case 1:
+                    entities.add(createEntity("hive_table", "db1.t" + i, null, "SSN"));
+                    break;
+                case 2:
+                    entities.add(createEntity("hive_table", "db2.t" + i, null, "FINANCE"));
+                    break;
+                default:
+                    entities.add(createEntity("hive_db", "db" + i, i % 8 == 3 ? USER : "bob"));
+                    break;
+            }
+        }
+
+        Map<AtlasEntityHeader, Boolean> isScrubbed = getPerEntityResults(entities);
+        AtlasSearchResult               result     = new AtlasSearchResult();
+        Map<String, AtlasEntityHeader>  referred   = new HashMap<>();
+
+        result.setEntities(new ArrayList<>(entities));
+
+        for (int i = 0; i < entities.size(); i += 3) {
+            referred.put(Integer.toString(i), entities.get(i));
+        }
+
+        result.setReferredEntities(referred);
+
+        authorizer.scrubSearchResults(new AtlasSearchResultScrubRequest(typeRegistry, result, USER, GROUPS));
+
+        assertScrubbed(isScrubbed);
+    }
+
+    // expected results: an entity is scrubbed unless read is allowed by isAccessAllowed(AtlasEntityAccessRequest)
+    private static Map<AtlasEntityHeader, Boolean> getPerEntityResults(List<AtlasEntityHeader> entities) throws Exception {
+        Map<AtlasEntityHeader, Boolean> ret = new IdentityHashMap<>();
+
+        for (AtlasEntityHeader entity : entities) {
+            ret.put(entity, !authorizer.isAccessAllowed(new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_READ, entity, USER, GROUPS)));
+        }
+
+        return ret;
+    }
+
+    private static void assertScrubbed(Map<AtlasEntityHeader, Boolean> isScrubbed) {
+        Set<AtlasEntityHeader> scrubbed = Collections.newSetFromMap(new IdentityHashMap<AtlasEntityHeader, Boolean>());
+
+        for (AtlasEntityHeader entity : authorizer.scrubbed) {
+            Assert.assertTrue("scrubbed more than once: " + entity.getAttribute("qualifiedName"), scrubbed.add(entity));
+        }
+
+        for (Map.Entry<AtlasEntityHeader, Boolean> entry : isScrubbed.entrySet()) {
+            Assert.assertEquals(String.valueOf(entry.getKey().getAttribute("qualifiedName")), entry.getValue(), scrubbed.contains(entry.getKey()));
+        }
+    }
+
+    private static AtlasEntityHeader createEntity(String typeName, String qualifiedName, String owner, String... classifications) {
+        Map<String, Object> attributes = new HashMap<>();
+
+        attributes.put("qualifiedName", qualifiedName);
+
+        if (owner != null) {
+            attributes.put("owner", owner);
+        }
+
+        AtlasEntityHeader         ret                   = new AtlasEntityHeader(typeName, typeName + ":" + qualifiedName, attributes);
+        List<AtlasClassification> entityClassifications = new ArrayList<>();
+
+        for (String classification : classifications) {
+            entityClassifications.add(new AtlasClassification(classification));
+        }
+
+        ret.setClassifications(entityClassifications);
+        ret.setClassificationNames(new ArrayList<>(Arrays.asList(classifications)));
+
+        return ret;
+    }
+
+    private static AtlasTypeRegistry createTypeRegistry() throws Exception {
+        AtlasTypeRegistry                            ret                = new AtlasTypeRegistry();
+        AtlasTypeRegistry.AtlasTransientTypeRegistry ttr                = ret.lockTypeRegistryForUpdate();
+        List<AtlasClassificationDef>                 classificationDefs = new ArrayList<>();
+        List<AtlasEntityDef>                         entityDefs         = new ArrayList<>();
+        boolean                                      commitUpdates      = false;
+
+        classificationDefs.add(new AtlasClassificationDef("PII"));
+        classificationDefs.add(new AtlasClassificationDef("SSN", null, "1.0", Collections.<AtlasAttributeDef>emptyList(), Collections.singleton("PII")));
+        classificationDefs.add(new AtlasClassificationDef("FINANCE"));
+
+        entityDefs.add(new AtlasEntityDef("hive_db"));
+        entityDefs.add(new AtlasEntityDef("hive_table"));
+        entityDefs.add(new AtlasEntityDef("hive_column"));
+
+        try {
+            ttr.addTypes(new AtlasTypesDef(Collections.<AtlasEnumDef>emptyList(), Collections.<AtlasStructDef>emptyList(), classificationDefs, entityDefs));
+
+            commitUpdates = true;
+        } finally {
+            ret.releaseTypeRegistryForUpdate(ttr, commitUpdates);
+        }
+
+        return ret;
+    }
+
+    // records the scrubbed headers, in place of clearing them
+    private static class ScrubRecordingAuthorizer extends RangerAtlasAuthorizer {
+        final List<AtlasEntityHeader> scrubbed = new ArrayList<>();
+
+        @Override
+        public void scrubEntityHeader(AtlasEntityHeader entity) {
+            scrubbed.add(entity);
+        }
+    }
+}
@@ -60,6 +60,10 @@ public class RangerKafkaAuditHandler extends RangerDefaultAuditHandler {
         return ret;
     }
 
+    public AuthzAuditEvent getAuditEvent() {
+        return auditEvent;
+    }
+
     public void flushAudit() {
         if(LOG.isDebugEnabled()) {
             LOG.info("==> RangerYarnAuditHandler.flushAudit(" + "AuditEvent: " + auditEvent + ")");
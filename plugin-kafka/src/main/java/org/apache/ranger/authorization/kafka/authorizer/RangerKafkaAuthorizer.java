@@ -21,6 +21,7 @@ package org.apache.ranger.authorization.kafka.authorizer;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.Subject;
 
@@ -39,7 +40,9 @@ import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.security.authenticator.LoginManager;
 import org.apache.kafka.common.security.kerberos.KerberosLogin;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
@@ -49,6 +52,11 @@ import org.apache.ranger.plugin.util.RangerPerfTracer;
 import scala.collection.immutable.HashSet;
 import scala.collection.immutable.Set;
 
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.Timer;
+
 public class RangerKafkaAuthorizer implements Authorizer {
 	private static final Log logger = LogFactory
 			.getLog(RangerKafkaAuthorizer.class);
@@ -71,7 +79,20 @@ public class RangerKafkaAuthorizer implements Authorizer {
 	public static final String ACCESS_TYPE_ALTER_CONFIGS    = "alter_configs";
 	public static final String ACCESS_TYPE_IDEMPOTENT_WRITE = "idempotent_write";
 
-	private static volatile RangerBasePlugin rangerPlugin = null;
+	public static final String DECISION_CACHE_SIZE_PROP      = "ranger.plugin.kafka.decision.cache.size";
+	public static final int    DECISION_CACHE_SIZE_DEFAULT   = 10000;
+	public static final String DECISION_CACHE_TTL_MS_PROP    = "ranger.plugin.kafka.decision.cache.ttl.ms";
+	public static final long   DECISION_CACHE_TTL_MS_DEFAULT = 30 * 1000L;
+
+	// broker metrics, reported with the other Kafka metrics as kafka.security:type=RangerKafkaAuthorizer,name=<name>
+	private static final MetricName METRIC_AUTHORIZE_TIME        = new MetricName("kafka.security", "RangerKafkaAuthorizer", "AuthorizeTimeMicros");
+	private static final MetricName METRIC_DECISION_CACHE_HITS   = new MetricName("kafka.security", "RangerKafkaAuthorizer", "DecisionCacheHits");
+	private static final MetricName METRIC_DECISION_CACHE_MISSES = new MetricName("kafka.security", "RangerKafkaAuthorizer", "DecisionCacheMisses");
+	private static final MetricName METRIC_DECISION_CACHE_RATIO  = new MetricName("kafka.security", "RangerKafkaAuthorizer", "DecisionCacheHitRatio");
+	private static final MetricName METRIC_DECISION_CACHE_SIZE   = new MetricName("kafka.security", "RangerKafkaAuthorizer", "DecisionCacheSize");
+
+	private static volatile RangerKafkaPlugin rangerPlugin = null;
+	private static volatile Timer             authorizeTimer = null;
 	RangerKafkaAuditHandler auditHandler = null;
 
 	public RangerKafkaAuthorizer() {
@@ -84,7 +105,7 @@ public class RangerKafkaAuthorizer implements Authorizer {
 	 */
 	@Override
 	public void configure(Map<String, ?> configs) {
-		RangerBasePlugin me = rangerPlugin;
+		RangerKafkaPlugin me = rangerPlugin;
 		if (me == null) {
 			synchronized(RangerKafkaAuthorizer.class) {
 				me = rangerPlugin;
@@ -110,7 +131,7 @@ public class RangerKafkaAuthorizer implements Authorizer {
 					} catch (Throwable t) {
 						logger.error("Error getting principal.", t);
 					}
-					me = rangerPlugin = new RangerBasePlugin("kafka", "kafka");
+					me = rangerPlugin = new RangerKafkaPlugin();
 				}
 			}
 		}
@@ -118,6 +139,7 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		rangerPlugin.init();
 		auditHandler = new RangerKafkaAuditHandler();
 		rangerPlugin.setResultProcessor(auditHandler);
+		registerMetrics();
 	}
 
 	@Override
@@ -130,11 +152,13 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		} catch (Throwable t) {
 			logger.error("Error closing RangerPlugin.", t);
 		}
+		removeMetrics();
 	}
 
 	@Override
 	public boolean authorize(Session session, Operation operation,
 			Resource resource) {
+		RangerKafkaPlugin rangerPlugin = RangerKafkaAuthorizer.rangerPlugin;
 
 		if (rangerPlugin == null) {
 			MiscUtil.logErrorMessageByInterval(logger,
@@ -150,7 +174,8 @@ public class RangerKafkaAuthorizer implements Authorizer {
 			return true;
 		}
 
-		RangerPerfTracer perf = null;
+		long             startTimeNanos = System.nanoTime();
+		RangerPerfTracer perf           = null;
 
 		if(RangerPerfTracer.isPerfTraceEnabled(PERF_KAFKAAUTH_REQUEST_LOG)) {
 			perf = RangerPerfTracer.getPerfTracer(PERF_KAFKAAUTH_REQUEST_LOG, "RangerKafkaAuthorizer.authorize(resource=" + resource + ")");
@@ -159,8 +184,6 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		if (session.principal() != null) {
 			userName = session.principal().getName();
 		}
-		java.util.Set<String> userGroups = MiscUtil
-				.getGroupsForRequestUser(userName);
 		String ip = session.clientAddress().getHostAddress();
 
 		// skip leading slash
@@ -168,8 +191,30 @@ public class RangerKafkaAuthorizer implements Authorizer {
 			ip = ip.substring(1);
 		}
 
-		Date eventTime = new Date();
 		String accessType = mapToRangerAccessType(operation);
+
+		RangerKafkaDecisionCache          decisionCache = rangerPlugin.getDecisionCache();
+		RangerKafkaDecisionCache.Key      cacheKey      = decisionCache != null && accessType != null ? new RangerKafkaDecisionCache.Key(userName, accessType, resource.resourceType().name(), resource.name(), ip) : null;
+		RangerKafkaDecisionCache.Decision decision      = cacheKey != null ? decisionCache.get(cacheKey) : null;
+
+		if (decision != null) {
+			if (decision.auditEvent != null) {
+				auditHandler.logAuthzAudit(RangerKafkaDecisionCache.copyAuditEvent(decision.auditEvent, new Date()));
+			}
+
+			RangerPerfTracer.log(perf);
+			updateAuthorizeTime(startTimeNanos);
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("authorize(user=" + userName + ", accessType=" + accessType + ", resource=" + resource + ", ip=" + ip + "): decision cache hit, return=" + decision.isAllowed);
+			}
+
+			return decision.isAllowed;
+		}
+
+		java.util.Set<String> userGroups = MiscUtil
+				.getGroupsForRequestUser(userName);
+		Date eventTime = new Date();
 		boolean validationFailed = false;
 		String validationStr = "";
 
@@ -218,23 +263,37 @@ public class RangerKafkaAuthorizer implements Authorizer {
 			MiscUtil.logErrorMessageByInterval(logger, validationStr
 					+ ", request=" + rangerRequest);
 		} else {
+			// read before evaluation, so that a decision made with older policies isn't cached
+			long cacheGeneration = decisionCache != null ? decisionCache.getGeneration() : 0;
+
+			// a handler for each request, as authorize() is called concurrently; events are logged by the shared handler
+			RangerKafkaAuditHandler requestAuditHandler = new RangerKafkaAuditHandler();
 
 			try {
 				RangerAccessResult result = rangerPlugin
-						.isAccessAllowed(rangerRequest);
+						.isAccessAllowed(rangerRequest, requestAuditHandler);
 				if (result == null) {
 					logger.error("Ranger Plugin returned null. Returning false");
 				} else {
 					returnValue = result.getIsAllowed();
+
+					if (cacheKey != null) {
+						decisionCache.put(cacheKey, returnValue, requestAuditHandler.getAuditEvent(), cacheGeneration);
+					}
 				}
 			} catch (Throwable t) {
 				logger.error("Error while calling isAccessAllowed(). request="
 						+ rangerRequest, t);
 			} finally {
-				auditHandler.flushAudit();
+				AuthzAuditEvent auditEvent = requestAuditHandler.getAuditEvent();
+
+				if (auditEvent != null) {
+					auditHandler.logAuthzAudit(auditEvent);
+				}
 			}
 		}
 		RangerPerfTracer.log(perf);
+		updateAuthorizeTime(startTimeNanos);
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("rangerRequest=" + rangerRequest + ", return="
@@ -320,6 +379,68 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		return aclList;
 	}
 
+	// metrics already registered are returned by the registry, hence this can be called on every configure()
+	private static void registerMetrics() {
+		authorizeTimer = Metrics.defaultRegistry().newTimer(METRIC_AUTHORIZE_TIME, TimeUnit.MICROSECONDS, TimeUnit.SECONDS);
+
+		Metrics.defaultRegistry().newGauge(METRIC_DECISION_CACHE_HITS, new Gauge<Long>() {
+			@Override
+			public Long value() {
+				RangerKafkaDecisionCache cache = getDecisionCache();
+
+				return cache != null ? cache.getHits() : 0L;
+			}
+		});
+		Metrics.defaultRegistry().newGauge(METRIC_DECISION_CACHE_MISSES, new Gauge<Long>() {
+			@Override
+			public Long value() {
+				RangerKafkaDecisionCache cache = getDecisionCache();
+
+				return cache != null ? cache.getMisses() : 0L;
+			}
+		});
+		Metrics.defaultRegistry().newGauge(METRIC_DECISION_CACHE_RATIO, new Gauge<Double>() {
+			@Override
+			public Double value() {
+				RangerKafkaDecisionCache cache = getDecisionCache();
+
+				return cache != null ? cache.getHitRate() : 0d;
+			}
+		});
+		Metrics.defaultRegistry().newGauge(METRIC_DECISION_CACHE_SIZE, new Gauge<Integer>() {
+			@Override
+			public Integer value() {
+				RangerKafkaDecisionCache cache = getDecisionCache();
+
+				return cache != null ? cache.size() : 0;
+			}
+		});
+	}
+
+	private static void removeMetrics() {
+		authorizeTimer = null;
+
+		Metrics.defaultRegistry().removeMetric(METRIC_AUTHORIZE_TIME);
+		Metrics.defaultRegistry().removeMetric(METRIC_DECISION_CACHE_HITS);
+		Metrics.defaultRegistry().removeMetric(METRIC_DECISION_CACHE_MISSES);
+		Metrics.defaultRegistry().removeMetric(METRIC_DECISION_CACHE_RATIO);
+		Metrics.defaultRegistry().removeMetric(METRIC_DECISION_CACHE_SIZE);
+	}
+
+	private static RangerKafkaDecisionCache getDecisionCache() {
+		RangerKafkaPlugin plugin = rangerPlugin;
+
+		return plugin != null ? plugin.getDecisionCache() : null;
+	}
+
+	private static void updateAuthorizeTime(long startTimeNanos) {
+		Timer timer = authorizeTimer;
+
+		if (timer != null) {
+			timer.update(System.nanoTime() - startTimeNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
 	/**
 	 * @param operation
 	 * @return
@@ -349,3 +470,54 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		return null;
 	}
 }
+
+class RangerKafkaPlugin extends RangerBasePlugin {
+	private static final Log LOG = LogFactory.getLog(RangerKafkaPlugin.class);
+
+	private volatile RangerKafkaDecisionCache decisionCache;
+
+	RangerKafkaPlugin() {
+		super("kafka", "kafka");
+	}
+
+	@Override
+	public void init() {
+		super.init();
+
+		int  decisionCacheSize  = RangerConfiguration.getInstance().getInt(RangerKafkaAuthorizer.DECISION_CACHE_SIZE_PROP, RangerKafkaAuthorizer.DECISION_CACHE_SIZE_DEFAULT);
+		long decisionCacheTtlMs = RangerConfiguration.getInstance().getLong(RangerKafkaAuthorizer.DECISION_CACHE_TTL_MS_PROP, RangerKafkaAuthorizer.DECISION_CACHE_TTL_MS_DEFAULT);
+
+		decisionCache = decisionCacheSize > 0 && decisionCacheTtlMs > 0 ? new RangerKafkaDecisionCache(decisionCacheSize, decisionCacheTtlMs) : null;
+
+		LOG.info("Decision cache: " + (decisionCache != null ? ("size=" + decisionCacheSize + ", ttlMs=" + decisionCacheTtlMs) : "disabled"));
+	}
+
+	@Override
+	public void contextChanged() {
+		super.contextChanged();
+
+		// policies or tags changed: decisions cached so far may no longer be valid
+		RangerKafkaDecisionCache cache = decisionCache;
+
+		if (cache != null) {
+			cache.invalidate();
+
+			LOG.info("Decision cache cleared: " + cache.getStats());
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		super.cleanup();
+
+		RangerKafkaDecisionCache cache = decisionCache;
+
+		if (cache != null) {
+			LOG.info("Decision cache: " + cache.getStats());
+		}
+	}
+
+	RangerKafkaDecisionCache getDecisionCache() {
+		return decisionCache;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kafka.authorizer;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.plugin.policyengine.RangerConcurrentCache;
+
+/*
+ * Decisions of RangerKafkaAuthorizer.authorize(), by user, access type, resource and client address. Lookups don't take
+ * a lock. All decisions are invalidated at once when policies or tags change: each decision carries the generation of
+ * the cache it was made in, and the generation is incremented on every change. Decisions also expire after ttlMs, which
+ * bounds how long a change in the groups of a user - not part of the key, as groups are looked up only on a miss - or
+ * in time-based policy conditions takes to be enforced.
+ *
+ * For a decision that was audited, the audit event is kept as a template, from which an event is logged on every hit.
+ */
+class RangerKafkaDecisionCache {
+	private final RangerConcurrentCache<Key, Decision> cache;
+	private final long                                 ttlMs;
+	private final AtomicLong                           generation = new AtomicLong();
+	private final LongAdder                            hits       = new LongAdder();
+	private final LongAdder                            misses     = new LongAdder();
+
+	RangerKafkaDecisionCache(int size, long ttlMs) {
+		this.cache = new RangerConcurrentCache<>("kafka-decisions", size);
+		this.ttlMs = ttlMs;
+	}
+
+	// to be read before evaluating a request, so that a decision made with older policies isn't cached
+	long getGeneration() {
+		return generation.get();
+	}
+
+	Decision get(Key key) {
+		Decision ret = cache.get(key);
+
+		if (ret != null && (ret.generation != generation.get() || ret.expiryTimeMs <= System.currentTimeMillis())) {
+			ret = null;
+		}
+
+		if (ret != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+
+		return ret;
+	}
+
+	void put(Key key, boolean isAllowed, AuthzAuditEvent auditEvent, long generation) {
+		if (generation == this.generation.get()) {
+			cache.put(key, new Decision(isAllowed, auditEvent != null ? copyAuditEvent(auditEvent, auditEvent.getEventTime()) : null, generation, System.currentTimeMillis() + ttlMs));
+		}
+	}
+
+	void invalidate() {
+		generation.incrementAndGet();
+		cache.clear();
+	}
+
+	long getHits() {
+		return hits.sum();
+	}
+
+	long getMisses() {
+		return misses.sum();
+	}
+
+	double getHitRate() {
+		long hits  = getHits();
+		long total = hits + getMisses();
+
+		return total > 0 ? ((double) hits) / total : 0;
+	}
+
+	int size() {
+		return cache.size();
+	}
+
+	String getStats() {
+		return "{hits=" + getHits() + ", misses=" + getMisses() + ", hitRate=" + String.format("%.3f", getHitRate())
+				+ ", size=" + size() + ", evictions=" + cache.getEvictionCount() + "}";
+	}
+
+	/*
+	 * Copies the fields set by RangerDefaultAuditHandler.getAuthzEvents(); event id, sequence number and agent details
+	 * are left for logAuthzAudit() to populate.
+	 */
+	static AuthzAuditEvent copyAuditEvent(AuthzAuditEvent event, Date eventTime) {
+		AuthzAuditEvent ret = new AuthzAuditEvent();
+
+		ret.setRepositoryName(event.getRepositoryName());
+		ret.setRepositoryType(event.getRepositoryType());
+		ret.setResourceType(event.getResourceType());
+		ret.setResourcePath(event.getResourcePath());
+		ret.setRequestData(event.getRequestData());
+		ret.setEventTime(eventTime);
+		ret.setUser(event.getUser());
+		ret.setAction(event.getAction());
+		ret.setAccessResult(event.getAccessResult());
+		ret.setPolicyId(event.getPolicyId());
+		ret.setAccessType(event.getAccessType());
+		ret.setClientIP(event.getClientIP());
+		ret.setClientType(event.getClientType());
+		ret.setSessionId(event.getSessionId());
+		ret.setAclEnforcer(event.getAclEnforcer());
+		ret.setTags(event.getTags() != null ? new HashSet<>(event.getTags()) : null);
+		ret.setAdditionalInfo(event.getAdditionalInfo());
+		ret.setClusterName(event.getClusterName());
+		ret.setZoneName(event.getZoneName());
+		ret.setAgentHostname(event.getAgentHostname());
+		ret.setPolicyVersion(event.getPolicyVersion());
+
+		return ret;
+	}
+
+	static final class Key {
+		private final String user;
+		private final String accessType;
+		private final String resourceType;
+		private final String resourceName;
+		private final String clientIp;
+		private final int    hashCode;
+
+		Key(String user, String accessType, String resourceType, String resourceName, String clientIp) {
+			this.user         = user;
+			this.accessType   = accessType;
+			this.resourceType = resourceType;
+			this.resourceName = resourceName;
+			this.clientIp     = clientIp;
+			this.hashCode     = Objects.hash(user, accessType, resourceType, resourceName, clientIp);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+
+			return hashCode == other.hashCode
+					&& Objects.equals(resourceName, other.resourceName)
+					&& Objects.equals(user, other.user)
+					&& Objects.equals(accessType, other.accessType)
+					&& Objects.equals(resourceType, other.resourceType)
+					&& Objects.equals(clientIp, other.clientIp);
+		}
+	}
+
+	static final class Decision {
+		final boolean         isAllowed;
+		final AuthzAuditEvent auditEvent; // template of the event to log on a hit; null if the decision isn't audited
+		final long            generation;
+		final long            expiryTimeMs;
+
+		Decision(boolean isAllowed, AuthzAuditEvent auditEvent, long generation, long expiryTimeMs) {
+			this.isAllowed    = isAllowed;
+			this.auditEvent   = auditEvent;
+			this.generation   = generation;
+			this.expiryTimeMs = expiryTimeMs;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kafka.authorizer;
+
+import java.util.Date;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RangerKafkaDecisionCacheTest {
+
+    @Test
+    public void testDecisions() {
+        RangerKafkaDecisionCache     cache = new RangerKafkaDecisionCache(100, 60 * 1000L);
+        RangerKafkaDecisionCache.Key key   = getKey("bob", "test");
+
+        Assert.assertNull(cache.get(key));
+
+        cache.put(key, true, null, cache.getGeneration());
+        cache.put(getKey("alice", "test"), false, null, cache.getGeneration());
+
+        RangerKafkaDecisionCache.Decision decision = cache.get(getKey("bob", "test"));
+
+        Assert.assertNotNull(decision);
+        Assert.assertTrue(decision.isAllowed);
+        Assert.assertNull(decision.auditEvent);
+        Assert.assertFalse(cache.get(getKey("alice", "test")).isAllowed);
+        Assert.assertNull(cache.get(getKey("bob", "dev")));
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidate() {
+        RangerKafkaDecisionCache     cache      = new RangerKafkaDecisionCache(100, 60 * 1000L);
+        RangerKafkaDecisionCache.Key key        = getKey("bob", "test");
+        long                         generation = cache.getGeneration();
+
+        cache.put(key, true, null, generation);
+        cache.invalidate();
+
+        Assert.assertNull(cache.get(key));
+
+        // a decision made before policies changed is not cached
+        cache.put(key, true, null, generation);
+
+        Assert.assertNull(cache.get(key));
+
+        cache.put(key, true, null, cache.getGeneration());
+
+        Assert.assertNotNull(cache.get(key));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        RangerKafkaDecisionCache     cache = new RangerKafkaDecisionCache(100, 50L);
+        RangerKafkaDecisionCache.Key key   = getKey("bob", "test");
+
+        cache.put(key, true, null, cache.getGeneration());
+
+        Assert.assertNotNull(cache.get(key));
+
+        Thread.sleep(100L);
+
+        Assert.assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testAuditEvent() {
+        RangerKafkaDecisionCache     cache = new RangerKafkaDecisionCache(100, 60 * 1000L);
+        RangerKafkaDecisionCache.Key key   = getKey("bob", "test");
+        AuthzAuditEvent              event = new AuthzAuditEvent();
+
+        event.setUser("bob");
+        event.setResourcePath("test");
+        event.setAccessType("publish");
+        event.setAccessResult((short) 1);
+        event.setPolicyId(3L);
+        event.setEventTime(new Date(1000L));
+
+        cache.put(key, true, event, cache.getGeneration());
+
+        event.setEventId("logged-event-id"); // as set when the event is logged; not to be carried into events logged on hits
+
+        AuthzAuditEvent template = cache.get(key).auditEvent;
+        AuthzAuditEvent copy     = RangerKafkaDecisionCache.copyAuditEvent(template, new Date(2000L));
+
+        Assert.assertNotSame(event, template);
+        Assert.assertEquals("bob", copy.getUser());
+        Assert.assertEquals("test", copy.getResourcePath());
+        Assert.assertEquals("publish", copy.getAccessType());
+        Assert.assertEquals(1, copy.getAccessResult());
+        Assert.assertEquals(3L, copy.getPolicyId());
+        Assert.assertEquals(2000L, copy.getEventTime().getTime());
+        Assert.assertNull(copy.getEventId());
+    }
+
+    private static RangerKafkaDecisionCache.Key getKey(String user, String topic) {
+        return new RangerKafkaDecisionCache.Key(user, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, "Topic", topic, "127.0.0.1");
+    }
+}
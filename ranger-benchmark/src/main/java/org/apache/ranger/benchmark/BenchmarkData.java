@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+
+/**
+ * Generators for HDFS-like path resources, used by the benchmarks that are parameterized by resource depth. Hive-like
+ * policies, requests and tags come from RangerPolicyFactory in ranger-tools.
+ */
+final class BenchmarkData {
+	static final String PATH_RESOURCE_NAME = "path";
+	static final int    PATH_RESOURCE_LEVEL = 10;
+
+	private BenchmarkData() {
+	}
+
+	static RangerResourceDef createPathResourceDef() {
+		Map<String, String> matcherOptions = new HashMap<>();
+
+		matcherOptions.put(RangerAbstractResourceMatcher.OPTION_WILD_CARD, "true");
+		matcherOptions.put(RangerAbstractResourceMatcher.OPTION_IGNORE_CASE, "false");
+
+		RangerResourceDef ret = new RangerResourceDef();
+
+		ret.setItemId(1L);
+		ret.setName(PATH_RESOURCE_NAME);
+		ret.setType("path");
+		ret.setLevel(PATH_RESOURCE_LEVEL);
+		ret.setMandatory(true);
+		ret.setRecursiveSupported(true);
+		ret.setMatcher(RangerPathResourceMatcher.class.getName());
+		ret.setMatcherOptions(matcherOptions);
+
+		return ret;
+	}
+
+	static RangerServiceDef createPathServiceDef() {
+		RangerServiceDef ret = new RangerServiceDef();
+
+		ret.setId(1L);
+		ret.setName("hdfs");
+		ret.setResources(Collections.singletonList(createPathResourceDef()));
+
+		return ret;
+	}
+
+	/**
+	 * Returns a path with the given number of levels, for example /warehouse/dir1-7/dir2-42 for depth 3. Directory names
+	 * repeat across calls, so that generated policies share path prefixes as they do in real deployments.
+	 */
+	static String createPath(Random random, int depth) {
+		StringBuilder sb = new StringBuilder();
+
+		for (int level = 0; level < depth; level++) {
+			sb.append('/').append(level == 0 ? "warehouse" : "dir" + level + "-" + random.nextInt(level * 50));
+		}
+
+		return sb.toString();
+	}
+
+	static final class PathEvaluator implements RangerPolicyResourceEvaluator {
+		private final long                              id;
+		private final Map<String, RangerPolicyResource> policyResource;
+
+		PathEvaluator(long id, String path, boolean isRecursive) {
+			this.id             = id;
+			this.policyResource = Collections.singletonMap(PATH_RESOURCE_NAME, new RangerPolicyResource(path, false, isRecursive));
+		}
+
+		@Override
+		public long getId() { return id; }
+
+		@Override
+		public RangerPolicyResourceMatcher getPolicyResourceMatcher() { return null; }
+
+		@Override
+		public Map<String, RangerPolicyResource> getPolicyResource() { return policyResource; }
+
+		@Override
+		public RangerResourceMatcher getResourceMatcher(String resourceName) { return null; }
+
+		@Override
+		public Integer getLeafResourceLevel() { return PATH_RESOURCE_LEVEL; }
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.plugin.geo.BinarySearchTree;
+import org.apache.ranger.plugin.geo.RangerGeolocationData;
+import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
+import org.apache.ranger.plugin.geo.RangerGeolocationIndex;
+import org.apache.ranger.plugin.store.file.GeolocationFileStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading of, and lookups in, a geolocation database of the given number of IPv4 ranges: RangerGeolocationIndex read
+ * from the text file and from the binary file, compared with the BinarySearchTree which held the ranges earlier.
+ * The *_tree benchmarks give the baseline. The text file is shuffled: inserting the sorted ranges of a real
+ * geolocation file into the tree degenerates it to a list, and takes quadratic time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeolocationBenchmark {
+	private static final int      NUM_OF_LOOKUPS   = 1024;
+	private static final String   METADATA_LINE    = "FROM_IP,TO_IP,COUNTRY_CODE,COUNTRY_NAME,STATE,CITY";
+	private static final String[] COUNTRY_CODES    = { "US", "CA", "BR", "IN", "NG", "AU", "UK", "FR", "CN", "JP" };
+	private static final int      CITIES_PER_STATE = 50;
+
+	@Param({ "10000", "100000", "1000000" })
+	public int numberOfRanges;
+
+	private File                                          dataDir;
+	private File                                          textFile;
+	private File                                          binaryFile;
+	private BinarySearchTree<RangerGeolocationData, Long> tree;
+	private RangerGeolocationIndex                        index;
+	private RangerGeolocationIndex                        mappedIndex;
+	private RangerGeolocationDatabase                     database;
+	private String[]                                      addresses;
+	private long[]                                        longAddresses;
+	private byte[][]                                      byteAddresses;
+
+	@Setup
+	public void setup() throws IOException {
+		Random       random = new Random(numberOfRanges);
+		long         stride = (1L << 32) / numberOfRanges;
+		List<String> lines  = new ArrayList<>(numberOfRanges);
+
+		for (int i = 0; i < numberOfRanges; i++) {
+			long   start   = i * stride;
+			long   end     = start + stride - 1 - random.nextInt((int) (stride / 10) + 1); // leave gaps, for misses
+			String country = COUNTRY_CODES[random.nextInt(COUNTRY_CODES.length)];
+			int    state   = random.nextInt(20);
+
+			lines.add(RangerGeolocationData.unsignedIntToIPAddress(Math.max(start, 1)) + "," + RangerGeolocationData.unsignedIntToIPAddress(end) + "," +
+			          country + ",Country-" + country + ",State-" + state + ",City-" + state + "-" + random.nextInt(CITIES_PER_STATE));
+		}
+
+		Collections.shuffle(lines, random);
+
+		dataDir    = Files.createTempDirectory("ranger-geo-benchmark").toFile();
+		textFile   = new File(dataDir, "geo.txt");
+		binaryFile = new File(dataDir, "geo.bin");
+
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(textFile))) {
+			writer.write(METADATA_LINE);
+			writer.newLine();
+
+			for (String line : lines) {
+				writer.write(line);
+				writer.newLine();
+			}
+		}
+
+		tree  = loadTree();
+		index = loadStore(textFile).getIndex();
+
+		index.write(binaryFile);
+
+		database    = loadStore(binaryFile);
+		mappedIndex = database.getIndex();
+
+		addresses     = new String[NUM_OF_LOOKUPS];
+		longAddresses = new long[NUM_OF_LOOKUPS];
+		byteAddresses = new byte[NUM_OF_LOOKUPS][];
+
+		for (int i = 0; i < NUM_OF_LOOKUPS; i++) {
+			long address = 1 + (random.nextLong() >>> 32) % ((1L << 32) - 1);
+
+			addresses[i]     = RangerGeolocationData.unsignedIntToIPAddress(address);
+			longAddresses[i] = RangerGeolocationData.ipAddressToLong(addresses[i]);
+			byteAddresses[i] = RangerGeolocationData.ipAddressToBytes(addresses[i], true);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		binaryFile.delete();
+		textFile.delete();
+		dataDir.delete();
+	}
+
+	@Benchmark
+	public RangerGeolocationData find_tree(RequestCursor cursor) {
+		return tree.find(longAddresses[cursor.next(NUM_OF_LOOKUPS)]);
+	}
+
+	@Benchmark
+	public RangerGeolocationData find_index(RequestCursor cursor) {
+		return index.find(byteAddresses[cursor.next(NUM_OF_LOOKUPS)]);
+	}
+
+	@Benchmark
+	public RangerGeolocationData find_mappedIndex(RequestCursor cursor) {
+		return mappedIndex.find(byteAddresses[cursor.next(NUM_OF_LOOKUPS)]);
+	}
+
+	@Benchmark
+	public RangerGeolocationData find_databaseByAddressString(RequestCursor cursor) {
+		return database.find(addresses[cursor.next(NUM_OF_LOOKUPS)]);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public BinarySearchTree<RangerGeolocationData, Long> load_tree() throws IOException {
+		return loadTree();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public RangerGeolocationDatabase load_textFile() {
+		return loadStore(textFile);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public RangerGeolocationDatabase load_binaryFile() {
+		return loadStore(binaryFile);
+	}
+
+	// how GeolocationFileStore loaded the text file earlier
+	private BinarySearchTree<RangerGeolocationData, Long> loadTree() throws IOException {
+		BinarySearchTree<RangerGeolocationData, Long> ret = new BinarySearchTree<>();
+
+		try (BufferedReader reader = new BufferedReader(new FileReader(textFile))) {
+			String line       = reader.readLine(); // metadata
+			int    lineNumber = 1;
+
+			while ((line = reader.readLine()) != null) {
+				RangerGeolocationData data = RangerGeolocationData.create(StringUtils.split(line, ','), ++lineNumber, true);
+
+				if (data != null) {
+					ret.insert(data);
+				}
+			}
+		}
+
+		ret.rebalance();
+
+		return ret;
+	}
+
+	private RangerGeolocationDatabase loadStore(File file) {
+		GeolocationFileStore store   = new GeolocationFileStore();
+		Map<String, String>  options = new HashMap<>();
+
+		options.put(GeolocationFileStore.PROP_GEOLOCATION_FILE_LOCATION, file.getAbsolutePath());
+		options.put(GeolocationFileStore.PROP_GEOLOCATION_FILE_REINIT, "true");
+
+		store.init(options);
+
+		return store.getGeoDatabase();
+	}
+}
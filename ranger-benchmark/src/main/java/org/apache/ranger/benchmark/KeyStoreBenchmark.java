@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.security.Key;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.hadoop.crypto.key.RangerKeyStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerKeyStore.engineGetKey() for key versions, as called by RangerKeyStoreProvider.getKeyVersion() for every
+ * decryptEncryptedKey request. keyMaterialCacheSize=0 disables the cache of unsealed key material, and gives the
+ * baseline of unsealing the key on every call; with a cache smaller than numberOfKeys, lookups miss the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyStoreBenchmark {
+	private static final int    NUM_OF_LOOKUPS = 1024;
+	private static final char[] MASTER_KEY     = "MasterPassword".toCharArray();
+	private static final long   CACHE_TTL_MS   = TimeUnit.MINUTES.toMillis(10);
+
+	@Param({ "10", "1000" })
+	public int numberOfKeys;
+
+	@Param({ "0", "100", "1000" })
+	public int keyMaterialCacheSize;
+
+	private RangerKeyStore keyStore;
+	private String[]       aliases;
+
+	@Setup
+	public void setup() throws KeyStoreException {
+		Random random = new Random(numberOfKeys);
+
+		keyStore = new RangerKeyStore(null, keyMaterialCacheSize, CACHE_TTL_MS);
+
+		for (int i = 0; i < numberOfKeys; i++) {
+			byte[] material = new byte[32];
+
+			random.nextBytes(material);
+
+			keyStore.addKeyEntry("key" + i + "@0", new SecretKeySpec(material, "AES"), MASTER_KEY, "AES/CTR/NoPadding", 256, "benchmark key", 1, null);
+		}
+
+		aliases = new String[NUM_OF_LOOKUPS];
+
+		for (int i = 0; i < NUM_OF_LOOKUPS; i++) {
+			aliases[i] = "key" + random.nextInt(numberOfKeys) + "@0";
+		}
+	}
+
+	@Benchmark
+	public Key getKey(RequestCursor cursor) throws NoSuchAlgorithmException, UnrecoverableKeyException {
+		return keyStore.engineGetKey(aliases[cursor.next(NUM_OF_LOOKUPS)], MASTER_KEY);
+	}
+}
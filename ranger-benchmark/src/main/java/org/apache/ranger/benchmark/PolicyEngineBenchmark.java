@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerPolicyEngineImpl.evaluatePolicies() of Hive access requests, on an engine built from policies generated by
+ * RangerPolicyFactory; about 70% of the requests are allowed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PolicyEngineBenchmark {
+	private static final int NUM_OF_REQUESTS = 1000;
+
+	@Param({ "100", "1000", "5000" })
+	public int numberOfPolicies;
+
+	private RangerPolicyEngine policyEngine;
+
+	@Setup
+	public void setup() {
+		ServicePolicies           servicePolicies = RangerPolicyFactory.createServicePolicy(numberOfPolicies);
+		RangerPolicyEngineOptions options         = RangerPolicyFactory.createPolicyEngineOption();
+
+		policyEngine = new RangerPolicyEngineImpl("perf-test", servicePolicies, options);
+	}
+
+	@TearDown
+	public void tearDown() {
+		policyEngine.cleanup();
+	}
+
+	@Benchmark
+	public RangerAccessResult evaluatePolicies(Requests requests) {
+		return policyEngine.evaluatePolicies(requests.next(), RangerPolicy.POLICY_TYPE_ACCESS, null);
+	}
+
+	/**
+	 * Requests are updated during evaluation, hence each thread gets its own.
+	 */
+	@State(Scope.Thread)
+	public static class Requests {
+		private RangerAccessRequest[] requests;
+		private int                   position;
+
+		@Setup
+		public void setup(PolicyEngineBenchmark benchmark) {
+			List<RangerAccessRequest> list = RangerPolicyFactory.createAccessRequests(NUM_OF_REQUESTS);
+
+			requests = list.toArray(new RangerAccessRequest[list.size()]);
+
+			for (RangerAccessRequest request : requests) {
+				benchmark.policyEngine.preProcess(request);
+			}
+		}
+
+		RangerAccessRequest next() {
+			RangerAccessRequest ret = requests[position++];
+
+			if (position == requests.length) {
+				position = 0;
+			}
+
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerDefaultPolicyResourceMatcher.isMatch() of path resources against a policy with a few literal, wildcard and
+ * recursive values - the matching done for each policy returned by the resource trie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyResourceMatcherBenchmark {
+	private static final int NUM_OF_RESOURCES = 1024;
+
+	@Param({ "2", "6", "12" })
+	public int resourceDepth;
+
+	@Param({ "true", "false" })
+	public boolean isRecursive;
+
+	private RangerDefaultPolicyResourceMatcher matcher;
+	private RangerAccessResource[]             resources;
+	private Map<String, Object>                evalContext;
+
+	@Setup
+	public void setup() {
+		Random       random = new Random(resourceDepth);
+		List<String> values = new ArrayList<>();
+
+		for (int i = 0; i < 4; i++) {
+			values.add(BenchmarkData.createPath(random, resourceDepth));
+		}
+
+		values.add(BenchmarkData.createPath(random, resourceDepth - 1) + "/*");
+		values.add(BenchmarkData.createPath(random, resourceDepth) + "*");
+
+		matcher = new RangerDefaultPolicyResourceMatcher();
+
+		matcher.setServiceDef(BenchmarkData.createPathServiceDef());
+		matcher.setPolicyResources(Collections.singletonMap(BenchmarkData.PATH_RESOURCE_NAME, new RangerPolicyResource(values, false, isRecursive)));
+		matcher.init();
+
+		resources   = new RangerAccessResource[NUM_OF_RESOURCES];
+		evalContext = new HashMap<>();
+
+		for (int i = 0; i < resources.length; i++) {
+			String path = i % 2 == 0 ? values.get(random.nextInt(values.size())).replace("*", "x") + "/file-" + i : BenchmarkData.createPath(random, resourceDepth + 1);
+
+			resources[i] = new RangerAccessResourceImpl(Collections.<String, Object>singletonMap(BenchmarkData.PATH_RESOURCE_NAME, path));
+		}
+	}
+
+	@Benchmark
+	public boolean isMatch(RequestCursor cursor) {
+		return matcher.isMatch(resources[cursor.next(resources.length)], evalContext);
+	}
+}
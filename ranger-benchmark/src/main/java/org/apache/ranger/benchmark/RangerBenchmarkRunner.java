@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with each of the thread counts given in system property ranger.benchmark.threads, for example
+ * -Dranger.benchmark.threads=1,4,16; all other arguments are JMH command line options, like -prof gc. Without the
+ * system property, this is the same as running JMH directly.
+ */
+public class RangerBenchmarkRunner {
+	public static final String PROP_THREADS = "ranger.benchmark.threads";
+
+	public static void main(String[] args) throws Exception {
+		String threads = System.getProperty(PROP_THREADS);
+
+		if (StringUtils.isBlank(threads)) {
+			Main.main(args);
+
+			return;
+		}
+
+		CommandLineOptions cmdOptions = new CommandLineOptions(args);
+
+		for (String threadCount : StringUtils.split(threads, ',')) {
+			new Runner(new OptionsBuilder().parent(cmdOptions).threads(Integer.parseInt(threadCount.trim())).build()).run();
+		}
+	}
+}
@@ -16,24 +16,27 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.ranger.plugin.policyevaluator;
 
-import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+package org.apache.ranger.benchmark;
 
-public interface RangerResourceAccessCache {
-    public enum LookupResult {
-        IN_MATCHED_CACHE,
-        IN_NOTMATCHED_CACHE,
-        NOT_FOUND,
-        ERROR
-    }
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
 
-    public enum CacheType {
-        MATCHED_CACHE,
-        NOTMATCHED_CACHE
-    }
+/**
+ * Per-thread position in the pre-generated requests of a benchmark, so that concurrent threads don't contend on a
+ * shared counter and each thread walks through all the requests.
+ */
+@State(Scope.Thread)
+public class RequestCursor {
+	private int position;
+
+	int next(int count) {
+		int ret = position++;
 
-    LookupResult lookup(RangerAccessResource resource);
+		if (position >= count) {
+			position = 0;
+		}
 
-    void add(RangerAccessResource resource, CacheType cacheType);
+		return ret;
+	}
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.benchmark.BenchmarkData.PathEvaluator;
+import org.apache.ranger.plugin.util.RangerResourceTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerResourceTrie.getEvaluatorsForResource() on a trie built over path policies, a quarter of them recursive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceTrieBenchmark {
+	@Param({ "1000", "10000", "50000" })
+	public int numberOfPolicies;
+
+	@Param({ "2", "6", "12" })
+	public int resourceDepth;
+
+	private RangerResourceTrie<PathEvaluator> trie;
+	private String[]                          lookups;
+
+	@Setup
+	public void setup() {
+		Random              random     = new Random(numberOfPolicies);
+		List<PathEvaluator> evaluators = new ArrayList<>(numberOfPolicies);
+		List<String>        paths      = new ArrayList<>(numberOfPolicies);
+
+		for (int i = 0; i < numberOfPolicies; i++) {
+			String path = BenchmarkData.createPath(random, 1 + random.nextInt(resourceDepth));
+
+			evaluators.add(new PathEvaluator(i, path, random.nextInt(4) == 0));
+			paths.add(path + "/file-" + random.nextInt(100));
+		}
+
+		Collections.shuffle(paths, random);
+
+		trie    = new RangerResourceTrie<>(BenchmarkData.createPathResourceDef(), evaluators);
+		lookups = paths.toArray(new String[paths.size()]);
+	}
+
+	@Benchmark
+	public Object getEvaluatorsForResource(RequestCursor cursor) {
+		return trie.getEvaluatorsForResource(lookups[cursor.next(lookups.length)]);
+	}
+}
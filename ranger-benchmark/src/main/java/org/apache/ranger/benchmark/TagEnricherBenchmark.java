@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RangerTagEnricher.enrich() of Hive column requests, with the given number of tagged tables; half of the requests are
+ * for tagged tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagEnricherBenchmark {
+	private static final String SERVICE_NAME     = "cl1_hive";
+	private static final int    NUM_OF_DATABASES = 100;
+	private static final int    NUM_OF_TAG_TYPES = 10;
+	private static final int    NUM_OF_REQUESTS  = 1024;
+
+	@Param({ "100", "10000", "100000" })
+	public int tagCount;
+
+	private RangerTagEnricher tagEnricher;
+
+	@Setup
+	public void setup() {
+		RangerServiceDef            serviceDef       = RangerPolicyFactory.createServicePolicy(0).getServiceDef();
+		Map<Long, RangerTagDef>     tagDefinitions   = new HashMap<>();
+		Map<Long, RangerTag>        tags             = new HashMap<>();
+		List<RangerServiceResource> serviceResources = new ArrayList<>(tagCount);
+		Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+
+		for (long i = 0; i < NUM_OF_TAG_TYPES; i++) {
+			RangerTagDef tagDef = new RangerTagDef("PII_" + i);
+			RangerTag    tag    = new RangerTag("PII_" + i, Collections.<String, String>emptyMap());
+
+			tagDef.setId(i);
+			tag.setId(i);
+
+			tagDefinitions.put(i, tagDef);
+			tags.put(i, tag);
+		}
+
+		for (long i = 0; i < tagCount; i++) {
+			Map<String, RangerPolicyResource> resourceElements = new HashMap<>();
+
+			resourceElements.put("database", new RangerPolicyResource(getDatabaseName(i)));
+			resourceElements.put("table", new RangerPolicyResource(getTableName(i)));
+
+			RangerServiceResource serviceResource = new RangerServiceResource(SERVICE_NAME, resourceElements);
+
+			serviceResource.setId(i);
+
+			serviceResources.add(serviceResource);
+			resourceToTagIds.put(i, Collections.singletonList(i % NUM_OF_TAG_TYPES));
+		}
+
+		ServiceTags serviceTags = new ServiceTags();
+
+		serviceTags.setServiceName(SERVICE_NAME);
+		serviceTags.setTagVersion(1L);
+		serviceTags.setTagDefinitions(tagDefinitions);
+		serviceTags.setTags(tags);
+		serviceTags.setServiceResources(serviceResources);
+		serviceTags.setResourceToTagIds(resourceToTagIds);
+
+		tagEnricher = new RangerTagEnricher();
+
+		tagEnricher.setServiceName(SERVICE_NAME);
+		tagEnricher.setServiceDef(serviceDef);
+		tagEnricher.setServiceTags(serviceTags);
+	}
+
+	@TearDown
+	public void tearDown() {
+		tagEnricher.preCleanup();
+	}
+
+	@Benchmark
+	public Object enrich(Requests requests) {
+		RangerAccessRequestImpl request = requests.next();
+
+		tagEnricher.enrich(request);
+
+		return request.getContext();
+	}
+
+	static String getDatabaseName(long resourceIdx) {
+		return "db_" + (resourceIdx % NUM_OF_DATABASES);
+	}
+
+	static String getTableName(long resourceIdx) {
+		return "table_" + resourceIdx;
+	}
+
+	/**
+	 * enrich() updates the request context, hence each thread gets its own requests.
+	 */
+	@State(Scope.Thread)
+	public static class Requests {
+		private RangerAccessRequestImpl[] requests;
+		private int                       position;
+
+		@Setup
+		public void setup(TagEnricherBenchmark benchmark) {
+			Random random = new Random();
+
+			requests = new RangerAccessRequestImpl[NUM_OF_REQUESTS];
+
+			for (int i = 0; i < requests.length; i++) {
+				long                resourceIdx = random.nextInt(benchmark.tagCount * 2); // half of these are not tagged
+				Map<String, Object> elements    = new HashMap<>();
+
+				elements.put("database", getDatabaseName(resourceIdx));
+				elements.put("table", getTableName(resourceIdx));
+				elements.put("column", "column_" + random.nextInt(100));
+
+				requests[i] = new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", "user_" + random.nextInt(1000), null);
+			}
+		}
+
+		RangerAccessRequestImpl next() {
+			RangerAccessRequestImpl ret = requests[position++];
+
+			if (position == requests.length) {
+				position = 0;
+			}
+
+			return ret;
+		}
+	}
+}
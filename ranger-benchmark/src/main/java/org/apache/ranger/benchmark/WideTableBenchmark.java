@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Access to all columns of a wide table by one user, as Hive checks for a query: the column-level requests evaluated
+ * one at a time with RangerPolicyEngineImpl.evaluatePolicies(request), vs together with evaluatePolicies(requests).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WideTableBenchmark {
+	@Param({ "1000", "5000" })
+	public int numberOfPolicies;
+
+	@Param({ "100", "1000" })
+	public int columnCount;
+
+	private RangerPolicyEngine policyEngine;
+
+	@Setup
+	public void setup() {
+		ServicePolicies           servicePolicies = RangerPolicyFactory.createServicePolicy(numberOfPolicies);
+		RangerPolicyEngineOptions options         = RangerPolicyFactory.createPolicyEngineOption();
+
+		policyEngine = new RangerPolicyEngineImpl("perf-test", servicePolicies, options);
+	}
+
+	@TearDown
+	public void tearDown() {
+		policyEngine.cleanup();
+	}
+
+	@Benchmark
+	public void evaluateOneByOne(Requests requests, Blackhole blackhole) {
+		for (RangerAccessRequest request : requests.requests) {
+			blackhole.consume(policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null));
+		}
+	}
+
+	@Benchmark
+	public Collection<RangerAccessResult> evaluateAsBatch(Requests requests) {
+		return policyEngine.evaluatePolicies(requests.requests, RangerPolicy.POLICY_TYPE_ACCESS, null);
+	}
+
+	/**
+	 * Requests are updated during evaluation, hence each thread gets its own.
+	 */
+	@State(Scope.Thread)
+	public static class Requests {
+		private List<RangerAccessRequest> requests;
+
+		@Setup
+		public void setup(WideTableBenchmark benchmark) {
+			RangerAccessRequest template = RangerPolicyFactory.createAccessRequests(1).get(0);
+			String              user     = template.getUser();
+			Set<String>         groups   = template.getUserGroups();
+
+			requests = new ArrayList<>(benchmark.columnCount);
+
+			for (int i = 0; i < benchmark.columnCount; i++) {
+				Map<String, Object> elements = new HashMap<>();
+
+				elements.put("database", "database_1");
+				elements.put("table", "tables_1");
+				elements.put("column", "column_" + i);
+
+				requests.add(new RangerAccessRequestImpl(new RangerAccessResourceImpl(elements), "select", user, groups));
+			}
+
+			benchmark.policyEngine.preProcess(requests);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerDefaultResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wildcard matching of resource matchers, compared with FilenameUtils.wildcardMatch() which the matchers used earlier.
+ * The *_filenameUtils benchmarks give the baseline for the same pattern and values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WildcardMatchBenchmark {
+	private static final int NUM_OF_VALUES = 1024;
+
+	@Param({ "2", "6", "12" })
+	public int resourceDepth;
+
+	@Param({ "true", "false" })
+	public boolean ignoreCase;
+
+	private String                       pattern;
+	private String                       pathPattern;
+	private String[]                     values;
+	private RangerDefaultResourceMatcher defaultMatcher;
+	private RangerPathResourceMatcher    recursivePathMatcher;
+	private Map<String, Object>          evalContext;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(resourceDepth);
+
+		pattern     = "*dir" + (resourceDepth - 1) + "-1*";
+		pathPattern = BenchmarkData.createPath(random, Math.max(1, resourceDepth / 2)) + "/dir*";
+		values      = new String[NUM_OF_VALUES];
+		evalContext = new HashMap<>();
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = BenchmarkData.createPath(random, resourceDepth);
+		}
+
+		defaultMatcher       = new RangerDefaultResourceMatcher();
+		recursivePathMatcher = new RangerPathResourceMatcher();
+
+		init(defaultMatcher, new RangerPolicyResource(pattern, false, false));
+		init(recursivePathMatcher, new RangerPolicyResource(pathPattern, false, true));
+	}
+
+	@Benchmark
+	public boolean wildcardMatch(RequestCursor cursor) {
+		return defaultMatcher.isMatch(values[cursor.next(values.length)], evalContext);
+	}
+
+	@Benchmark
+	public boolean wildcardMatch_filenameUtils(RequestCursor cursor) {
+		return FilenameUtils.wildcardMatch(values[cursor.next(values.length)], pattern, ignoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE);
+	}
+
+	@Benchmark
+	public boolean recursiveWildcardMatch(RequestCursor cursor) {
+		return recursivePathMatcher.isMatch(values[cursor.next(values.length)], evalContext);
+	}
+
+	@Benchmark
+	public boolean recursiveWildcardMatch_filenameUtils(RequestCursor cursor) {
+		String  path = values[cursor.next(values.length)];
+		IOCase  ioCase = ignoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+		boolean ret    = false;
+
+		// how RangerPathResourceMatcher matched earlier: each ancestor path is built and matched in turn
+		StringBuilder sb = new StringBuilder();
+
+		for (String element : path.substring(1).split("/")) {
+			sb.append('/').append(element);
+
+			ret = FilenameUtils.wildcardMatch(sb.toString(), pathPattern, ioCase);
+
+			if (ret) {
+				break;
+			}
+		}
+
+		return ret;
+	}
+
+	private void init(RangerAbstractResourceMatcher matcher, RangerPolicyResource policyResource) {
+		RangerResourceDef resourceDef = BenchmarkData.createPathResourceDef();
+
+		resourceDef.getMatcherOptions().put(RangerAbstractResourceMatcher.OPTION_IGNORE_CASE, Boolean.toString(ignoreCase));
+
+		matcher.setResourceDef(resourceDef);
+		matcher.setPolicyResource(policyResource);
+		matcher.init();
+	}
+}
@@ -21,8 +21,8 @@ package org.apache.ranger.policyengine.perftest.v2;
 
 import static com.google.common.base.Preconditions.checkState;
 
-import java.io.File;
 import java.lang.reflect.Type;
+import java.net.URL;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -52,7 +52,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import com.google.common.io.Files;
+import com.google.common.io.Resources;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
@@ -233,9 +233,10 @@ public class RangerPolicyFactory {
 
 	public static String readResourceFile(String fileName) {
 		try {
-			File f = new File(RangerPolicyFactory.class.getResource(fileName).toURI());
-			checkState(f.exists() && f.isFile() && f.canRead());
-			return Files.toString(f, Charsets.UTF_8);
+			// read as a resource, not a file, so that templates can be loaded from a jar - like the benchmarks jar
+			URL url = RangerPolicyFactory.class.getResource(fileName);
+			checkState(url != null, "resource not found: %s", fileName);
+			return Resources.toString(url, Charsets.UTF_8);
 		} catch (Exception e) {
 			throw Throwables.propagate(e);
 		}
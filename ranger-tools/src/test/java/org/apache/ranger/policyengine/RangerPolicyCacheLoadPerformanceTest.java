@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServicePoliciesBinaryCache;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Compares the time PolicyRefresher takes to load policies from the JSON and the binary policy cache files at plugin
+ * startup. For the binary cache, both opening the file and decoding every policy (as the policy engine does when it
+ * is built) are measured. Results are appended to target/ranger-policy-cache-load-performance.csv.
+ */
+@RunWith(Parameterized.class)
+public class RangerPolicyCacheLoadPerformanceTest {
+
+	private static final int ITERATIONS = 5;
+
+	private static final String[] ACCESS_TYPES = { "select", "update", "create", "drop", "alter", "index", "lock", "read", "write" };
+
+	// same settings as the Gson instance used by PolicyRefresher
+	private static final Gson gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+
+	@Parameter(0)
+	public Integer numberOfPolicies;
+
+	@Parameters(name = "{index}: loadFromCache(policies: {0})")
+	public static Iterable<Object[]> data() {
+		return Arrays.asList(new Object[][] { { 1_000 }, { 10_000 }, { 80_000 } });
+	}
+
+	@BeforeClass
+	public static void init() throws IOException {
+		Files.write("policies;json-bytes;binary-bytes;json-load-ms;binary-load-ms;binary-load-and-decode-ms;\n", outputFile(), Charsets.UTF_8);
+	}
+
+	@Test
+	public void policyCacheLoadTest() throws Exception {
+		ServicePolicies servicePolicies = createServicePolicies(numberOfPolicies);
+		File            jsonFile        = new File("target", "perf-test_cl1_hive_" + numberOfPolicies + ".json");
+		File            binaryFile      = new File("target", "perf-test_cl1_hive_" + numberOfPolicies + ".bin");
+
+		try (Writer writer = new FileWriter(jsonFile)) {
+			gson.toJson(servicePolicies, writer);
+		}
+
+		ServicePoliciesBinaryCache.write(servicePolicies, binaryFile, gson);
+
+		long jsonLoadMs         = Long.MAX_VALUE;
+		long binaryLoadMs       = Long.MAX_VALUE;
+		long binaryLoadDecodeMs   = Long.MAX_VALUE;
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+
+			try (Reader reader = new FileReader(jsonFile)) {
+				System.identityHashCode(gson.fromJson(reader, ServicePolicies.class));
+			}
+
+			jsonLoadMs = Math.min(jsonLoadMs, (System.nanoTime() - start) / 1_000_000);
+
+			start = System.nanoTime();
+
+			ServicePolicies fromBinary = ServicePoliciesBinaryCache.read(binaryFile, gson);
+
+			binaryLoadMs = Math.min(binaryLoadMs, (System.nanoTime() - start) / 1_000_000);
+
+			for (RangerPolicy policy : fromBinary.getPolicies()) {
+				System.identityHashCode(policy);
+			}
+
+			binaryLoadDecodeMs = Math.min(binaryLoadDecodeMs, (System.nanoTime() - start) / 1_000_000);
+		}
+
+		Files.append(String.format("%s;%s;%s;%s;%s;%s;\n", numberOfPolicies, jsonFile.length(), binaryFile.length(), jsonLoadMs, binaryLoadMs, binaryLoadDecodeMs), outputFile(), Charsets.UTF_8);
+	}
+
+	// Hive-like policies of realistic size: the policies generated by RangerPolicyFactory carry very large value lists
+	private static ServicePolicies createServicePolicies(int numberOfPolicies) {
+		ServicePolicies    ret      = RangerPolicyFactory.createServicePolicy(0);
+		Random             random   = new Random(numberOfPolicies);
+		List<RangerPolicy> policies = new ArrayList<>(numberOfPolicies);
+
+		for (int i = 0; i < numberOfPolicies; i++) {
+			Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+			resources.put("database", new RangerPolicyResource("db_" + random.nextInt(500), false, false));
+			resources.put("table", new RangerPolicyResource("table_" + random.nextInt(5_000) + (random.nextBoolean() ? "*" : ""), false, false));
+			resources.put("column", new RangerPolicyResource("*", false, false));
+
+			RangerPolicy policy = new RangerPolicy(ret.getServiceName(), "policy-" + i, RangerPolicy.POLICY_TYPE_ACCESS, RangerPolicy.POLICY_PRIORITY_NORMAL, "generated policy #" + i, resources, null, null, null, null, null);
+
+			policy.setId((long) i);
+			policy.setVersion(1L);
+			policy.setIsEnabled(true);
+
+			for (int j = 0; j < 3; j++) {
+				RangerPolicyItem item = new RangerPolicyItem();
+
+				for (int k = 0; k < 5; k++) {
+					item.getUsers().add("user_" + random.nextInt(10_000));
+					item.getGroups().add("group_" + random.nextInt(1_000));
+				}
+
+				for (int k = 0; k < 3; k++) {
+					item.getAccesses().add(new RangerPolicyItemAccess(ACCESS_TYPES[random.nextInt(ACCESS_TYPES.length)], true));
+				}
+
+				policy.getPolicyItems().add(item);
+			}
+
+			policies.add(policy);
+		}
+
+		ret.setPolicies(policies);
+		ret.setPolicyVersion(1L);
+
+		return ret;
+	}
+
+	private static File outputFile() {
+		return new File("target", "ranger-policy-cache-load-performance.csv");
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.apache.ranger.plugin.util.RangerResourceTrie;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Measures the heap retained by a RangerResourceTrie built over HDFS-like path policies, and the latency of
+ * RangerResourceTrie.getEvaluatorsForResource() on it. Results are appended to target/ranger-resource-trie-performance.csv;
+ * run the same test on an earlier build to compare trie layouts.
+ */
+@RunWith(Parameterized.class)
+public class RangerResourceTriePerformanceTest {
+
+	private static final int WARM_UP__ITERATIONS = 200_000;
+	private static final int LOOKUP__ITERATIONS  = 1_000_000;
+	private static final int PATH_DEPTH          = 6;
+
+	@Parameter(0)
+	public Integer numberOfPolicies;
+
+	@Parameters(name = "{index}: getEvaluatorsForResource(policies: {0})")
+	public static Iterable<Object[]> data() {
+		return Arrays.asList(new Object[][] { { 1_000 }, { 5_000 }, { 10_000 }, { 50_000 } });
+	}
+
+	@BeforeClass
+	public static void init() throws IOException {
+		Files.write("policies;heap-bytes;node-count;build-ms;lookup-ns-per-op;\n", outputFile(), Charsets.UTF_8);
+	}
+
+	@Test
+	public void resourceTrieTest() throws IOException {
+		Random                  random     = new Random(numberOfPolicies);
+		RangerResourceDef       pathDef    = createPathResourceDef();
+		List<PathEvaluator>     evaluators = new ArrayList<>(numberOfPolicies);
+		List<String>            lookups    = new ArrayList<>(numberOfPolicies);
+
+		for (int i = 0; i < numberOfPolicies; i++) {
+			String path = createPath(random);
+
+			evaluators.add(new PathEvaluator(i, path, random.nextInt(4) == 0));
+			lookups.add(path + "/file-" + random.nextInt(100));
+		}
+
+		Collections.shuffle(lookups, random);
+
+		long heapBefore = usedHeap();
+		long buildStart = System.nanoTime();
+
+		RangerResourceTrie<PathEvaluator> trie = new RangerResourceTrie<>(pathDef, evaluators);
+
+		long buildMs    = (System.nanoTime() - buildStart) / 1_000_000;
+		long heapAfter  = usedHeap();
+		int  nodeCount  = parseNodeCount(trie.toString());
+
+		for (int i = 0; i < WARM_UP__ITERATIONS; i++) {
+			System.identityHashCode(trie.getEvaluatorsForResource(lookups.get(i % lookups.size())));
+		}
+
+		long lookupStart = System.nanoTime();
+
+		for (int i = 0; i < LOOKUP__ITERATIONS; i++) {
+			System.identityHashCode(trie.getEvaluatorsForResource(lookups.get(i % lookups.size())));
+		}
+
+		long lookupNsPerOp = (System.nanoTime() - lookupStart) / LOOKUP__ITERATIONS;
+
+		Files.append(String.format("%s;%s;%s;%s;%s;\n", numberOfPolicies, heapAfter - heapBefore, nodeCount, buildMs, lookupNsPerOp), outputFile(), Charsets.UTF_8);
+
+		System.identityHashCode(trie);
+	}
+
+	private static File outputFile() {
+		return new File("target", "ranger-resource-trie-performance.csv");
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static int parseNodeCount(String trieStr) {
+		int start = trieStr.indexOf("nodeCount=") + "nodeCount=".length();
+		int end   = trieStr.indexOf(';', start);
+
+		return Integer.parseInt(trieStr.substring(start, end));
+	}
+
+	private static RangerResourceDef createPathResourceDef() {
+		Map<String, String> matcherOptions = new HashMap<>();
+
+		matcherOptions.put(RangerAbstractResourceMatcher.OPTION_WILD_CARD, "true");
+		matcherOptions.put(RangerAbstractResourceMatcher.OPTION_IGNORE_CASE, "false");
+
+		RangerResourceDef ret = new RangerResourceDef();
+
+		ret.setName("path");
+		ret.setLevel(10);
+		ret.setMatcherOptions(matcherOptions);
+
+		return ret;
+	}
+
+	private static String createPath(Random random) {
+		StringBuilder sb    = new StringBuilder();
+		int           depth = 1 + random.nextInt(PATH_DEPTH);
+
+		for (int level = 0; level < depth; level++) {
+			sb.append('/').append(level == 0 ? "warehouse" : "dir" + level + "-" + random.nextInt(level * 50));
+		}
+
+		return sb.toString();
+	}
+
+	private static class PathEvaluator implements RangerPolicyResourceEvaluator {
+		private final long                              id;
+		private final Map<String, RangerPolicyResource> policyResource;
+
+		PathEvaluator(long id, String path, boolean isRecursive) {
+			this.id             = id;
+			this.policyResource = Collections.singletonMap("path", new RangerPolicyResource(path, false, isRecursive));
+		}
+
+		@Override
+		public long getId() { return id; }
+
+		@Override
+		public RangerPolicyResourceMatcher getPolicyResourceMatcher() { return null; }
+
+		@Override
+		public Map<String, RangerPolicyResource> getPolicyResource() { return policyResource; }
+
+		@Override
+		public RangerResourceMatcher getResourceMatcher(String resourceName) { return null; }
+
+		@Override
+		public Integer getLeafResourceLevel() { return 10; }
+	}
+}
@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Parks plugin long-poll requests until the policy or tag version of a service moves past the version the plugin already has.
+ *
+ * Waiting requests are held as servlet AsyncContexts in per-service queues, so no request thread is held while waiting.
+ * A single scheduler thread reads the versions of all services in one query every check interval - only while there
+ * are waiters - and completes the waiters whose service has moved on or whose wait timed out. Reading versions from the
+ * database, rather than listening for local updates, keeps notifications correct when several Admin instances share a database.
+ *
+ * The number of waiting requests is capped in total, per service and per client address, so that a single client can't
+ * use up the waiter slots needed by other plugins.
+ */
+@Component
+public class RangerServiceVersionNotifier {
+	private static final Log LOG = LogFactory.getLog(RangerServiceVersionNotifier.class);
+
+	public static final String CONFIG_CHECK_INTERVAL_MS       = "ranger.admin.plugin.notification.check.interval.ms";
+	public static final String CONFIG_MAX_WAIT_MS             = "ranger.admin.plugin.notification.max.wait.ms";
+	public static final String CONFIG_MAX_WAITERS             = "ranger.admin.plugin.notification.max.waiters";
+	public static final String CONFIG_MAX_WAITERS_PER_SERVICE = "ranger.admin.plugin.notification.max.waiters.per.service";
+	public static final String CONFIG_MAX_WAITERS_PER_CLIENT  = "ranger.admin.plugin.notification.max.waiters.per.client";
+
+	public enum VersionType { POLICY, TAG }
+
+	@Autowired
+	RangerDaoManager daoMgr;
+
+	@Autowired
+	@Qualifier(value = "transactionManager")
+	PlatformTransactionManager txManager;
+
+	private final ConcurrentMap<String, Queue<Waiter>> policyWaiters       = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Queue<Waiter>> tagWaiters          = new ConcurrentHashMap<>();
+	private final AtomicInteger                        waiterCount         = new AtomicInteger();
+	private final Map<String, Integer>                 serviceWaiterCounts = new HashMap<>(); // guarded by this
+	private final Map<String, Integer>                 clientWaiterCounts  = new HashMap<>(); // guarded by this
+
+	private volatile Map<String, long[]> serviceVersions = new HashMap<>();
+
+	private long                     checkIntervalMs;
+	private long                     maxWaitMs;
+	private int                      maxWaiters;
+	private int                      maxWaitersPerService;
+	private int                      maxWaitersPerClient;
+	private ScheduledExecutorService scheduler;
+
+	@PostConstruct
+	public void init() {
+		checkIntervalMs      = Math.max(100L, PropertiesUtil.getLongProperty(CONFIG_CHECK_INTERVAL_MS, 1000L));
+		maxWaitMs            = Math.max(checkIntervalMs, PropertiesUtil.getLongProperty(CONFIG_MAX_WAIT_MS, 60 * 1000L));
+		maxWaiters           = PropertiesUtil.getIntProperty(CONFIG_MAX_WAITERS, 10000);
+		maxWaitersPerService = PropertiesUtil.getIntProperty(CONFIG_MAX_WAITERS_PER_SERVICE, 2000);
+		maxWaitersPerClient  = PropertiesUtil.getIntProperty(CONFIG_MAX_WAITERS_PER_CLIENT, 100);
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "RangerServiceVersionNotifier");
+
+				t.setDaemon(true);
+
+				return t;
+			}
+		});
+
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				checkVersions();
+			}
+		}, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+
+		LOG.info("RangerServiceVersionNotifier: checkIntervalMs=" + checkIntervalMs + ", maxWaitMs=" + maxWaitMs + ", maxWaiters=" + maxWaiters
+				+ ", maxWaitersPerService=" + maxWaitersPerService + ", maxWaitersPerClient=" + maxWaitersPerClient);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+
+		completeAll(policyWaiters, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		completeAll(tagWaiters, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+	}
+
+	public long getMaxWaitMs() {
+		return maxWaitMs;
+	}
+
+	/**
+	 * Parks the request until the version of the given service moves past lastKnownVersion, or until timeoutMs elapses.
+	 * The caller must have started async processing on the request; the response is completed with:
+	 *   200 and the new version in the body - when the version moved past lastKnownVersion
+	 *   304 - when the wait timed out without a change
+	 *   404 - when the service does not exist
+	 *   503 - when too many requests are already waiting, in total or for the service or the client
+	 */
+	public void waitForUpdate(String serviceName, VersionType versionType, long lastKnownVersion, long timeoutMs, AsyncContext asyncContext) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerServiceVersionNotifier.waitForUpdate(" + serviceName + ", " + versionType + ", " + lastKnownVersion + ", " + timeoutMs + ")");
+		}
+
+		long   waitMs     = Math.min(Math.max(timeoutMs, checkIntervalMs), maxWaitMs);
+		String clientAddr = asyncContext.getRequest().getRemoteAddr();
+		Waiter waiter     = new Waiter(asyncContext, serviceName, clientAddr, lastKnownVersion, System.currentTimeMillis() + waitMs);
+		Long   version    = getVersion(serviceVersions, serviceName, versionType);
+
+		if (version != null && version > lastKnownVersion) {
+			waiter.complete(HttpServletResponse.SC_OK, version);
+		} else if (!acquireWaiterSlot(serviceName, clientAddr)) {
+			waiter.complete(HttpServletResponse.SC_SERVICE_UNAVAILABLE, null);
+		} else {
+			waiter.isCounted = true;
+
+			// container timeout is only a safety net; the scheduler completes expired waiters first
+			asyncContext.setTimeout(waitMs + checkIntervalMs * 2);
+			asyncContext.addListener(waiter);
+
+			addWaiter(versionType == VersionType.TAG ? tagWaiters : policyWaiters, serviceName, waiter);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerServiceVersionNotifier.waitForUpdate(" + serviceName + ", " + versionType + ", " + lastKnownVersion + ", " + timeoutMs + "): waiterCount=" + waiterCount.get());
+		}
+	}
+
+	private synchronized boolean acquireWaiterSlot(String serviceName, String clientAddr) {
+		final String limit;
+
+		if (waiterCount.get() >= maxWaiters) {
+			limit = "total=" + maxWaiters;
+		} else if (getCount(serviceWaiterCounts, serviceName) >= maxWaitersPerService) {
+			limit = "service=" + maxWaitersPerService;
+		} else if (getCount(clientWaiterCounts, clientAddr) >= maxWaitersPerClient) {
+			limit = "client=" + maxWaitersPerClient;
+		} else {
+			limit = null;
+		}
+
+		if (limit != null) {
+			LOG.warn("RangerServiceVersionNotifier.waitForUpdate(" + serviceName + ", " + clientAddr + "): too many waiting requests (" + limit + "). Rejecting request");
+
+			return false;
+		}
+
+		waiterCount.incrementAndGet();
+		addCount(serviceWaiterCounts, serviceName, 1);
+		addCount(clientWaiterCounts, clientAddr, 1);
+
+		return true;
+	}
+
+	private synchronized void releaseWaiterSlot(String serviceName, String clientAddr) {
+		waiterCount.decrementAndGet();
+		addCount(serviceWaiterCounts, serviceName, -1);
+		addCount(clientWaiterCounts, clientAddr, -1);
+	}
+
+	private static int getCount(Map<String, Integer> counts, String key) {
+		Integer ret = counts.get(key);
+
+		return ret == null ? 0 : ret;
+	}
+
+	private static void addCount(Map<String, Integer> counts, String key, int delta) {
+		int count = getCount(counts, key) + delta;
+
+		if (count > 0) {
+			counts.put(key, count);
+		} else {
+			counts.remove(key);
+		}
+	}
+
+	private void addWaiter(ConcurrentMap<String, Queue<Waiter>> waiters, String serviceName, Waiter waiter) {
+		while (true) {
+			Queue<Waiter> queue = waiters.get(serviceName);
+
+			if (queue == null) {
+				Queue<Waiter> newQueue = new ConcurrentLinkedQueue<>();
+
+				queue = waiters.putIfAbsent(serviceName, newQueue);
+
+				if (queue == null) {
+					queue = newQueue;
+				}
+			}
+
+			queue.add(waiter);
+
+			// the scheduler drops empty queues; retry if this queue was dropped before the waiter was added
+			if (waiters.get(serviceName) == queue) {
+				break;
+			}
+
+			queue.remove(waiter);
+		}
+	}
+
+	void checkVersions() {
+		checkVersions(System.currentTimeMillis());
+	}
+
+	void checkVersions(long now) {
+		try {
+			if (waiterCount.get() > 0) {
+				serviceVersions = loadServiceVersions();
+			}
+
+			notifyWaiters(policyWaiters, VersionType.POLICY, now);
+			notifyWaiters(tagWaiters, VersionType.TAG, now);
+		} catch (Throwable excp) {
+			LOG.error("RangerServiceVersionNotifier.checkVersions(): failed", excp);
+		}
+	}
+
+	private void notifyWaiters(ConcurrentMap<String, Queue<Waiter>> waiters, VersionType versionType, long now) {
+		Map<String, long[]> versions = serviceVersions;
+
+		for (Map.Entry<String, Queue<Waiter>> entry : waiters.entrySet()) {
+			Long    version = getVersion(versions, entry.getKey(), versionType);
+			boolean exists  = versions.containsKey(entry.getKey());
+
+			for (Iterator<Waiter> waiterIter = entry.getValue().iterator(); waiterIter.hasNext(); ) {
+				Waiter waiter = waiterIter.next();
+
+				if (waiter.isDone()) {
+					waiterIter.remove();
+				} else if (!exists) {
+					waiterIter.remove();
+					waiter.complete(HttpServletResponse.SC_NOT_FOUND, null);
+				} else if (version != null && version > waiter.lastKnownVersion) {
+					waiterIter.remove();
+					waiter.complete(HttpServletResponse.SC_OK, version);
+				} else if (now >= waiter.expiryTime) {
+					waiterIter.remove();
+					waiter.complete(HttpServletResponse.SC_NOT_MODIFIED, null);
+				}
+			}
+
+			if (entry.getValue().isEmpty()) {
+				waiters.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private Map<String, long[]> loadServiceVersions() {
+		TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+		txTemplate.setReadOnly(true);
+
+		return txTemplate.execute(new TransactionCallback<Map<String, long[]>>() {
+			@Override
+			public Map<String, long[]> doInTransaction(TransactionStatus status) {
+				List<Object[]>      rows = daoMgr.getXXServiceVersionInfo().getAllWithServiceNames();
+				Map<String, long[]> ret  = new HashMap<>();
+
+				if (rows != null) {
+					for (Object[] row : rows) {
+						XXServiceVersionInfo versionInfo   = (XXServiceVersionInfo) row[0];
+						String               serviceName   = (String) row[1];
+						Long                 policyVersion = versionInfo.getPolicyVersion();
+						Long                 tagVersion    = versionInfo.getTagVersion();
+
+						ret.put(serviceName, new long[] { policyVersion == null ? -1L : policyVersion, tagVersion == null ? -1L : tagVersion });
+					}
+				}
+
+				return ret;
+			}
+		});
+	}
+
+	private void completeAll(Map<String, Queue<Waiter>> waiters, int status) {
+		for (Queue<Waiter> queue : waiters.values()) {
+			for (Waiter waiter = queue.poll(); waiter != null; waiter = queue.poll()) {
+				waiter.complete(status, null);
+			}
+		}
+
+		waiters.clear();
+	}
+
+	private static Long getVersion(Map<String, long[]> versions, String serviceName, VersionType versionType) {
+		long[] serviceVersion = versions.get(serviceName);
+
+		return serviceVersion == null ? null : serviceVersion[versionType == VersionType.TAG ? 1 : 0];
+	}
+
+	private class Waiter implements AsyncListener {
+		final AsyncContext  asyncContext;
+		final String        serviceName;
+		final String        clientAddr;
+		final long          lastKnownVersion;
+		final long          expiryTime;
+		final AtomicBoolean isDone = new AtomicBoolean(false);
+		boolean             isCounted;
+
+		Waiter(AsyncContext asyncContext, String serviceName, String clientAddr, long lastKnownVersion, long expiryTime) {
+			this.asyncContext     = asyncContext;
+			this.serviceName      = serviceName;
+			this.clientAddr       = clientAddr;
+			this.lastKnownVersion = lastKnownVersion;
+			this.expiryTime       = expiryTime;
+		}
+
+		boolean isDone() {
+			return isDone.get();
+		}
+
+		void complete(int status, Long version) {
+			if (!isDone.compareAndSet(false, true)) {
+				return;
+			}
+
+			if (isCounted) {
+				releaseWaiterSlot(serviceName, clientAddr);
+			}
+
+			try {
+				HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+
+				response.setStatus(status);
+
+				if (version != null) {
+					response.setContentType("text/plain");
+					response.getWriter().write(Long.toString(version));
+				}
+			} catch (IOException | IllegalStateException excp) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerServiceVersionNotifier: failed to write response", excp);
+				}
+			} finally {
+				try {
+					asyncContext.complete();
+				} catch (IllegalStateException excp) {
+					// request already completed by the container
+				}
+			}
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			complete(HttpServletResponse.SC_NOT_MODIFIED, null);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			complete(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, null);
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			if (isDone.compareAndSet(false, true) && isCounted) {
+				releaseWaiterSlot(serviceName, clientAddr);
+			}
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+	}
+}
@@ -114,6 +114,7 @@ import org.apache.ranger.entity.XXServiceConfigDef;
 import org.apache.ranger.entity.XXServiceConfigMap;
 import org.apache.ranger.entity.XXServiceDef;
 import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.entity.XXTagChangeLog;
 import org.apache.ranger.entity.XXTrxLog;
 import org.apache.ranger.entity.XXUser;
 import org.apache.ranger.plugin.model.RangerPolicy;
@@ -155,6 +156,7 @@ import org.apache.ranger.plugin.util.PasswordUtils;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
 import org.apache.ranger.rest.ServiceREST;
 import org.apache.ranger.rest.TagREST;
 import org.apache.ranger.service.RangerAuditFields;
@@ -3242,12 +3244,17 @@ public class ServiceDBStore extends AbstractServiceStore {
 	}
 
 	public static void persistVersionChange(RangerDaoManager daoMgr, Long id, VERSION_TYPE versionType, String zoneName, Integer policyDeltaType, RangerPolicy policy) {
+		persistVersionChange(daoMgr, id, versionType, zoneName, policyDeltaType, policy, null, null, null);
+	}
+
+	public static void persistVersionChange(RangerDaoManager daoMgr, Long id, VERSION_TYPE versionType, String zoneName, Integer policyDeltaType, RangerPolicy policy, ServiceTags.TagsChangeType tagsChangeType, Long resourceId, Long tagId) {
 		XXServiceVersionInfoDao serviceVersionInfoDao = daoMgr.getXXServiceVersionInfo();
 
 		XXServiceVersionInfo serviceVersionInfoDbObj = serviceVersionInfoDao.findByServiceId(id);
         	XXService service = daoMgr.getXXService().getById(id);
 
 		Long nextPolicyVersion = 1L;
+		Long nextTagVersion    = null;
 		Date now = new Date();
 
 		if(serviceVersionInfoDbObj != null) {
@@ -3258,7 +3265,9 @@ public class ServiceDBStore extends AbstractServiceStore {
 				serviceVersionInfoDbObj.setPolicyUpdateTime(now);
 			}
 			if (versionType == VERSION_TYPE.TAG_VERSION || versionType == VERSION_TYPE.POLICY_AND_TAG_VERSION) {
-				serviceVersionInfoDbObj.setTagVersion(getNextVersion(serviceVersionInfoDbObj.getTagVersion()));
+				nextTagVersion = getNextVersion(serviceVersionInfoDbObj.getTagVersion());
+
+				serviceVersionInfoDbObj.setTagVersion(nextTagVersion);
 				serviceVersionInfoDbObj.setTagUpdateTime(now);
 			}
 
@@ -3295,6 +3304,20 @@ public class ServiceDBStore extends AbstractServiceStore {
 
 			daoMgr.getXXPolicyChangeLog().create(policyChangeLog);
 		}
+
+		if (service != null && nextTagVersion != null) {
+			// Build and save TagChangeLog; changes that are not recorded with a type force a full download of tags
+			XXTagChangeLog tagChangeLog = new XXTagChangeLog();
+
+			tagChangeLog.setCreateTime(now);
+			tagChangeLog.setServiceId(service.getId());
+			tagChangeLog.setChangeType((tagsChangeType != null ? tagsChangeType : ServiceTags.TagsChangeType.ALL).ordinal());
+			tagChangeLog.setServiceTagsVersion(nextTagVersion);
+			tagChangeLog.setServiceResourceId(resourceId);
+			tagChangeLog.setTagId(tagId);
+
+			daoMgr.getXXTagChangeLog().create(tagChangeLog);
+		}
 	}
 
 	private void createNewLabelsForPolicy(XXPolicy xPolicy, List<String> policyLabels) throws Exception {
@@ -4474,6 +4497,7 @@ public class ServiceDBStore extends AbstractServiceStore {
 		}
 
 		daoMgr.getXXPolicyChangeLog().deleteOlderThan(retentionInDays);
+		daoMgr.getXXTagChangeLog().deleteOlderThan(retentionInDays);
 
 		if (reloadServicePoliciesCache) {
 			List<Long> allServiceIds = daoMgr.getXXService().getAllServiceIds();
@@ -4928,26 +4952,40 @@ public class ServiceDBStore extends AbstractServiceStore {
 		final String           zoneName;
 		final Integer          policyDeltaChange;
 		final RangerPolicy     policy;
+		final ServiceTags.TagsChangeType tagsChangeType;
+		final Long             resourceId;
+		final Long             tagId;
 
 		public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType) {
-			this(daoManager, serviceId, versionType, null, null, null);
+			this(daoManager, serviceId, versionType, null, null, null, null, null, null);
 		}
 
 		public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType, Integer policyDeltaType) {
 			this(daoManager, serviceId, versionType, null, policyDeltaType, null);
 		}
 
+		public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType, ServiceTags.TagsChangeType tagsChangeType, Long resourceId, Long tagId) {
+			this(daoManager, serviceId, versionType, null, null, null, tagsChangeType, resourceId, tagId);
+		}
+
 		public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType, String zoneName, Integer policyDeltaType, RangerPolicy policy ) {
+			this(daoManager, serviceId, versionType, zoneName, policyDeltaType, policy, null, null, null);
+		}
+
+		public ServiceVersionUpdater(RangerDaoManager daoManager, Long serviceId, VERSION_TYPE versionType, String zoneName, Integer policyDeltaType, RangerPolicy policy, ServiceTags.TagsChangeType tagsChangeType, Long resourceId, Long tagId) {
 			this.serviceId   = serviceId;
 			this.daoManager  = daoManager;
 			this.versionType = versionType;
 			this.policyDeltaChange = policyDeltaType;
 			this.zoneName    = zoneName;
 			this.policy      = policy;
+			this.tagsChangeType = tagsChangeType;
+			this.resourceId  = resourceId;
+			this.tagId       = tagId;
 		}
 		@Override
 		public void run() {
-			ServiceDBStore.persistVersionChange(this.daoManager, this.serviceId, this.versionType, this.zoneName, policyDeltaChange, policy);
+			ServiceDBStore.persistVersionChange(this.daoManager, this.serviceId, this.versionType, this.zoneName, policyDeltaChange, policy, tagsChangeType, resourceId, tagId);
 		}
 	}
 }
@@ -0,0 +1,804 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.DateUtil;
+import org.apache.ranger.common.GUIDUtil;
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceResource;
+import org.apache.ranger.entity.XXTag;
+import org.apache.ranger.entity.XXTagDef;
+import org.apache.ranger.entity.XXTagResourceMap;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+import org.apache.ranger.plugin.store.RangerServiceResourceSignature;
+import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.service.RangerServiceResourceService;
+import org.apache.ranger.service.RangerTagService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.collect.Lists;
+
+/*
+ * Imports large service-tags uploads - typically the full syncs from tagsync - with the same results as
+ * ServiceTagsProcessor, but without its per-object queries and flushes: the existing resources, tags and
+ * tag-resource-maps are looked up with a few set-based queries for each chunk of resources, the changes are worked
+ * out in memory, and written with one flush per entity type, which the persistence provider sends as JDBC batches.
+ * The tag-version of the affected services is bumped once, after the last chunk.
+ *
+ * As with ServiceTagsProcessor, the import is all or nothing: it runs in one transaction, which is rolled back if any
+ * chunk fails. The persistence context is cleared after each chunk, so that it doesn't hold on to the entities of
+ * the whole upload.
+ */
+@Component
+public class ServiceTagsBulkImporter {
+	private static final Log LOG      = LogFactory.getLog(ServiceTagsBulkImporter.class);
+	private static final Log PERF_LOG = RangerPerfTracer.getPerfLogger("db.ServiceTagsBulkImporter");
+
+	public static final String PROP_BULK_IMPORT_ENABLED       = "ranger.admin.tags.bulk.import.enabled";
+	public static final String PROP_BULK_IMPORT_MIN_RESOURCES = "ranger.admin.tags.bulk.import.min.resources";
+	public static final String PROP_BULK_IMPORT_CHUNK_SIZE    = "ranger.admin.tags.bulk.import.chunk.size";
+
+	// the chunk size bounds the size of the IN lists in the lookup queries; Oracle allows up to 1000 values
+	private static final int MAX_IN_LIST_SIZE = 1000;
+
+	@Autowired
+	TagDBStore tagStore;
+
+	@Autowired
+	RangerTagService rangerTagService;
+
+	@Autowired
+	RangerServiceResourceService rangerServiceResourceService;
+
+	@Autowired
+	RangerDaoManager daoManager;
+
+	@Autowired
+	GUIDUtil guidUtil;
+
+	@Autowired
+	@Qualifier(value = "transactionManager")
+	PlatformTransactionManager txManager;
+
+	private boolean isEnabled    = true;
+	private int     minResources = 1000;
+	private int     chunkSize    = 500;
+
+	@PostConstruct
+	public void init() {
+		isEnabled    = PropertiesUtil.getBooleanProperty(PROP_BULK_IMPORT_ENABLED, isEnabled);
+		minResources = PropertiesUtil.getIntProperty(PROP_BULK_IMPORT_MIN_RESOURCES, minResources);
+		chunkSize    = Math.max(1, Math.min(MAX_IN_LIST_SIZE, PropertiesUtil.getIntProperty(PROP_BULK_IMPORT_CHUNK_SIZE, chunkSize)));
+	}
+
+	// true for add-or-update and replace uploads with at least minResources resources, all of the upload's service
+	public boolean isBulkImport(ServiceTags serviceTags) {
+		boolean ret = isEnabled && serviceTags != null && StringUtils.isNotEmpty(serviceTags.getServiceName()) &&
+		              (StringUtils.equalsIgnoreCase(serviceTags.getOp(), ServiceTags.OP_ADD_OR_UPDATE) || StringUtils.equalsIgnoreCase(serviceTags.getOp(), ServiceTags.OP_REPLACE)) &&
+		              serviceTags.getServiceResources() != null && serviceTags.getServiceResources().size() >= minResources;
+
+		if (ret) {
+			for (RangerServiceResource resource : serviceTags.getServiceResources()) {
+				if (!StringUtils.equals(resource.getServiceName(), serviceTags.getServiceName())) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("resource " + resource.getGuid() + " is not of service " + serviceTags.getServiceName() + ": will not import in bulk");
+					}
+
+					ret = false;
+
+					break;
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public void importServiceTags(final ServiceTags serviceTags) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceTagsBulkImporter.importServiceTags(serviceName=" + serviceTags.getServiceName() + ", op=" + serviceTags.getOp() + ")");
+		}
+
+		RangerPerfTracer perf = null;
+
+		if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "ServiceTagsBulkImporter.importServiceTags(serviceName=" + serviceTags.getServiceName() + ", resources=" + serviceTags.getServiceResources().size() + ")");
+		}
+
+		long startTime = System.currentTimeMillis();
+
+		XXService xService = daoManager.getXXService().findByName(serviceTags.getServiceName());
+
+		if (xService == null) {
+			throw new Exception("No Service found with name: " + serviceTags.getServiceName());
+		}
+
+		final ImportContext context = new ImportContext(xService.getId(), serviceTags);
+
+		try {
+			execute(new ImportStep() {
+				@Override
+				public void run() throws Exception {
+					importServiceTags(context);
+				}
+			});
+		} finally {
+			RangerPerfTracer.log(perf);
+		}
+
+		if (MapUtils.isNotEmpty(serviceTags.getResourceToTagIds())) {
+			for (Long resourceId : serviceTags.getResourceToTagIds().keySet()) {
+				if (!context.importedResourceIds.contains(resourceId)) {
+					LOG.error("Resource (id=" + resourceId + ") not found. Skipping tags update");
+				}
+			}
+		}
+
+		LOG.info("ServiceTagsBulkImporter.importServiceTags(serviceName=" + serviceTags.getServiceName() + ", op=" + serviceTags.getOp() + "): " + context + " in " + (System.currentTimeMillis() - startTime) + "ms");
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceTagsBulkImporter.importServiceTags(serviceName=" + serviceTags.getServiceName() + ", op=" + serviceTags.getOp() + ")");
+		}
+	}
+
+	// runs the step in a transaction of its own, rather than in the transaction of the TagREST request: clearing the
+	// persistence context would detach the entities the request has loaded
+	private void execute(final ImportStep step) throws Exception {
+		TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		try {
+			txTemplate.execute(new TransactionCallback<Void>() {
+				@Override
+				public Void doInTransaction(TransactionStatus status) {
+					try {
+						step.run();
+					} catch (RuntimeException excp) {
+						throw excp;
+					} catch (Exception excp) {
+						throw new StepFailedException(excp);
+					}
+
+					return null;
+				}
+			});
+		} catch (StepFailedException excp) {
+			throw (Exception) excp.getCause();
+		}
+	}
+
+	private void importServiceTags(ImportContext context) throws Exception {
+		ServiceTags serviceTags = context.serviceTags;
+
+		importTagDefs(context);
+
+		if (StringUtils.equalsIgnoreCase(serviceTags.getOp(), ServiceTags.OP_REPLACE)) {
+			for (List<String> chunk : Lists.partition(getResourceGuidsNotIn(context), chunkSize)) {
+				deleteResources(chunk, context);
+
+				flushAndClear();
+			}
+		}
+
+		for (List<RangerServiceResource> chunk : Lists.partition(serviceTags.getServiceResources(), chunkSize)) {
+			importResources(chunk, context);
+
+			flushAndClear();
+		}
+
+		if (context.isChanged()) {
+			updateTagVersions(context);
+		}
+	}
+
+	// the entities of a chunk are not used after it is written: later chunks look up the entities they need
+	private void flushAndClear() {
+		EntityManager em = daoManager.getEntityManager();
+
+		em.flush();
+		em.clear();
+	}
+
+	// tag-defs are few: created one by one, as ServiceTagsProcessor does
+	private void importTagDefs(ImportContext context) throws Exception {
+		ServiceTags serviceTags = context.serviceTags;
+
+		if (MapUtils.isNotEmpty(serviceTags.getTagDefinitions())) {
+			for (RangerTagDef tagDef : serviceTags.getTagDefinitions().values()) {
+				RangerTagDef existing = null;
+
+				if (StringUtils.isNotEmpty(tagDef.getGuid())) {
+					existing = tagStore.getTagDefByGuid(tagDef.getGuid());
+				}
+
+				if (existing == null && StringUtils.isNotEmpty(tagDef.getName())) {
+					existing = tagStore.getTagDefByName(tagDef.getName());
+				}
+
+				if (existing == null) {
+					tagStore.createTagDef(tagDef);
+				}
+			}
+		}
+
+		if (MapUtils.isNotEmpty(serviceTags.getTags())) {
+			for (RangerTag tag : serviceTags.getTags().values()) {
+				if (tag.getType() != null && !context.tagDefIds.containsKey(tag.getType())) {
+					XXTagDef xTagDef = daoManager.getXXTagDef().findByName(tag.getType());
+
+					if (xTagDef == null) {
+						throw new Exception("No TagDefinition found with name :" + tag.getType());
+					}
+
+					context.tagDefIds.put(tag.getType(), xTagDef.getId());
+				}
+			}
+		}
+	}
+
+	private List<String> getResourceGuidsNotIn(ImportContext context) {
+		Set<String> guidsToRetain = new HashSet<>();
+
+		for (RangerServiceResource resource : context.serviceTags.getServiceResources()) {
+			guidsToRetain.add(resource.getGuid());
+		}
+
+		List<String> ret = new ArrayList<>();
+
+		for (String guid : daoManager.getXXServiceResource().findServiceResourceGuidsInServiceId(context.serviceId)) {
+			if (!guidsToRetain.contains(guid)) {
+				ret.add(guid);
+			}
+		}
+
+		return ret;
+	}
+
+	// deletes the resources, their tag-resource-maps, and their private tags
+	private void deleteResources(List<String> guids, ImportContext context) {
+		List<XXServiceResource> resources   = daoManager.getXXServiceResource().findByGuids(guids);
+		List<Long>              resourceIds = new ArrayList<>(resources.size());
+
+		for (XXServiceResource resource : resources) {
+			resourceIds.add(resource.getId());
+		}
+
+		List<XXTagResourceMap> tagResourceMaps = daoManager.getXXTagResourceMap().findByResourceIds(resourceIds);
+		List<XXTag>            privateTags     = new ArrayList<>();
+
+		for (XXTag tag : daoManager.getXXTag().findByResourceIds(resourceIds)) {
+			if (isResourcePrivateTag(tag.getOwner())) {
+				privateTags.add(tag);
+			}
+		}
+
+		daoManager.getXXTagResourceMap().batchRemove(tagResourceMaps);
+		daoManager.getXXTag().batchRemove(privateTags);
+		daoManager.getXXServiceResource().batchRemove(resources);
+
+		context.deletedTagResourceMaps += tagResourceMaps.size();
+		context.deletedTags            += privateTags.size();
+		context.deletedResources       += resources.size();
+	}
+
+	private void importResources(List<RangerServiceResource> resources, ImportContext context) throws Exception {
+		// look up the existing resources: by guid, then by signature
+		Map<String, XXServiceResource> resourcesByGuid      = new HashMap<>();
+		Map<String, XXServiceResource> resourcesBySignature = new HashMap<>();
+		List<String>                   guids                = new ArrayList<>();
+		List<String>                   signatures           = new ArrayList<>();
+
+		for (RangerServiceResource resource : resources) {
+			if (StringUtils.isNotEmpty(resource.getGuid())) {
+				guids.add(resource.getGuid());
+			}
+		}
+
+		for (XXServiceResource xResource : daoManager.getXXServiceResource().findByGuids(guids)) {
+			resourcesByGuid.put(xResource.getGuid(), xResource);
+		}
+
+		for (RangerServiceResource resource : resources) {
+			if (!resourcesByGuid.containsKey(resource.getGuid()) && MapUtils.isNotEmpty(resource.getResourceElements())) {
+				resource.setResourceSignature(new RangerServiceResourceSignature(resource).getSignature());
+
+				signatures.add(resource.getResourceSignature());
+			}
+		}
+
+		for (XXServiceResource xResource : daoManager.getXXServiceResource().findByServiceAndResourceSignatures(context.serviceId, signatures)) {
+			resourcesBySignature.put(xResource.getResourceSignature(), xResource);
+		}
+
+		// create or update the resources
+		Map<Long, XXServiceResource> resourcesInStore  = new LinkedHashMap<>();
+		List<XXServiceResource>      resourcesToCreate = new ArrayList<>();
+		Set<XXServiceResource>       resourcesToUpdate = newIdentitySet();
+		Set<Long>                    existingIds       = new LinkedHashSet<>();
+
+		for (RangerServiceResource resource : resources) {
+			XXServiceResource existing = StringUtils.isNotEmpty(resource.getGuid()) ? resourcesByGuid.get(resource.getGuid()) : null;
+
+			if (existing == null && StringUtils.isNotEmpty(resource.getResourceSignature())) {
+				existing = resourcesBySignature.get(resource.getResourceSignature());
+			}
+
+			if (StringUtils.isEmpty(resource.getResourceSignature())) {
+				resource.setResourceSignature(new RangerServiceResourceSignature(resource).getSignature());
+			}
+
+			final XXServiceResource resourceInStore;
+
+			if (existing == null) {
+				resourceInStore = rangerServiceResourceService.getEntityForCreate(resource, context.serviceId);
+
+				resourcesToCreate.add(resourceInStore);
+			} else {
+				if (MapUtils.isNotEmpty(resource.getResourceElements()) && isChanged(resource, existing, context)) {
+					resource.setGuid(existing.getGuid());
+					resource.setVersion(existing.getVersion());
+
+					rangerServiceResourceService.getEntityForUpdate(resource, existing, context.serviceId);
+
+					resourcesToUpdate.add(existing);
+				}
+
+				resourceInStore = existing;
+
+				if (existing.getId() != null) {
+					existingIds.add(existing.getId());
+				}
+			}
+
+			// later resources in the chunk with the same guid or signature are imported to this one
+			if (StringUtils.isNotEmpty(resourceInStore.getGuid())) {
+				resourcesByGuid.put(resourceInStore.getGuid(), resourceInStore);
+			}
+
+			if (StringUtils.isNotEmpty(resourceInStore.getResourceSignature())) {
+				resourcesBySignature.put(resourceInStore.getResourceSignature(), resourceInStore);
+			}
+
+			resourcesInStore.put(resource.getId(), resourceInStore);
+			context.importedResourceIds.add(resource.getId());
+		}
+
+		daoManager.getXXServiceResource().batchCreate(resourcesToCreate);
+		daoManager.getXXServiceResource().batchUpdate(new ArrayList<>(resourcesToUpdate));
+
+		context.createdResources += resourcesToCreate.size();
+		context.updatedResources += resourcesToUpdate.size();
+
+		importTags(resourcesInStore, new ArrayList<>(existingIds), context);
+	}
+
+	private void importTags(Map<Long, XXServiceResource> resourcesInStore, List<Long> existingResourceIds, ImportContext context) throws Exception {
+		ServiceTags serviceTags = context.serviceTags;
+
+		if (MapUtils.isEmpty(serviceTags.getResourceToTagIds())) {
+			return;
+		}
+
+		// look up the tags associated with the existing resources, and the tags with guids in the upload
+		Map<Long, XXTag>              tagsById         = new HashMap<>();
+		Map<String, XXTag>            tagsByGuid       = new HashMap<>();
+		Map<Long, List<XXTag>>        associatedTags   = new HashMap<>();
+		Map<Long, Set<Long>>          mappedTagIds     = new HashMap<>();
+		Map<String, XXTagResourceMap> tagResourceMaps  = new HashMap<>();
+		Set<String>                   incomingTagGuids = new LinkedHashSet<>();
+
+		for (XXTag tag : daoManager.getXXTag().findByResourceIds(existingResourceIds)) {
+			tagsById.put(tag.getId(), tag);
+		}
+
+		for (XXTagResourceMap tagResourceMap : daoManager.getXXTagResourceMap().findByResourceIds(existingResourceIds)) {
+			tagResourceMaps.put(tagResourceMap.getResourceId() + "/" + tagResourceMap.getTagId(), tagResourceMap);
+
+			getOrCreateSet(mappedTagIds, tagResourceMap.getResourceId()).add(tagResourceMap.getTagId());
+		}
+
+		for (XXTag tag : tagsById.values()) {
+			tagsByGuid.put(tag.getGuid(), tag);
+		}
+
+		for (Map.Entry<Long, XXServiceResource> entry : resourcesInStore.entrySet()) {
+			List<Long> tagIds = serviceTags.getResourceToTagIds().get(entry.getKey());
+
+			if (tagIds != null && MapUtils.isNotEmpty(serviceTags.getTags())) {
+				for (Long tagId : tagIds) {
+					RangerTag incomingTag = serviceTags.getTags().get(tagId);
+
+					if (incomingTag != null && StringUtils.isNotEmpty(incomingTag.getGuid())) {
+						incomingTagGuids.add(incomingTag.getGuid());
+					}
+				}
+			}
+		}
+
+		for (List<String> guids : Lists.partition(new ArrayList<>(incomingTagGuids), MAX_IN_LIST_SIZE)) {
+			for (XXTag tag : daoManager.getXXTag().findByGuids(guids)) {
+				tagsByGuid.put(tag.getGuid(), tag);
+			}
+		}
+
+		// tags associated with each existing resource, ordered by id as TagStore.getTagsForResourceId() returns them
+		for (Map.Entry<Long, Set<Long>> entry : mappedTagIds.entrySet()) {
+			List<XXTag> tags = new ArrayList<>(entry.getValue().size());
+
+			for (Long tagId : entry.getValue()) {
+				XXTag tag = tagsById.get(tagId);
+
+				if (tag != null) {
+					tags.add(tag);
+				}
+			}
+
+			Collections.sort(tags, TAG_ID_COMPARATOR);
+
+			associatedTags.put(entry.getKey(), tags);
+		}
+
+		// work out the changes; new tags don't have ids yet, so the maps to create refer to the entities
+		List<XXTag>                         tagsToCreate       = new ArrayList<>();
+		Set<XXTag>                          tagsToUpdate       = newIdentitySet();
+		Map<XXServiceResource, List<XXTag>> mapsToCreate       = new IdentityHashMap<>();
+		List<XXTagResourceMap>              mapsToDelete       = new ArrayList<>();
+		Set<XXTag>                          tagsToDelete       = newIdentitySet();
+		Set<XXServiceResource>              resourcesToRefresh = newIdentitySet();
+		Set<RangerTag>                      validatedTags      = newIdentitySet();
+
+		for (Map.Entry<Long, XXServiceResource> entry : resourcesInStore.entrySet()) {
+			Long              resourceId      = entry.getKey();
+			XXServiceResource resourceInStore = entry.getValue();
+			List<Long>        tagIds          = serviceTags.getResourceToTagIds().get(resourceId);
+
+			if (tagIds == null) {
+				continue;
+			}
+
+			List<XXTag> resourceTags    = getOrCreate(associatedTags, resourceInStore.getId());
+			List<XXTag> tagsToAssociate = getOrCreate(mapsToCreate, resourceInStore);
+			Set<XXTag>  tagsToRetain    = newIdentitySet();
+			boolean     isChanged       = false;
+
+			for (Long tagId : tagIds) {
+				RangerTag incomingTag = MapUtils.isNotEmpty(serviceTags.getTags()) ? serviceTags.getTags().get(tagId) : null;
+
+				if (incomingTag == null) {
+					LOG.error("Tag (id=" + tagId + ") not found. Skipping addition of this tag for resource (id=" + resourceId + ")");
+					continue;
+				}
+
+				if (validatedTags.add(incomingTag)) {
+					tagStore.validateTag(incomingTag);
+				}
+
+				Long  tagDefId    = context.tagDefIds.get(incomingTag.getType());
+				XXTag matchingTag = findMatchingTag(incomingTag, tagDefId, resourceTags, tagsByGuid);
+
+				boolean createTag = matchingTag == null || isResourcePrivateTag(incomingTag.getOwner()) != isResourcePrivateTag(matchingTag.getOwner());
+
+				if (createTag) {
+					XXTag newTag = rangerTagService.getEntityForCreate(incomingTag, tagDefId);
+
+					tagsToCreate.add(newTag);
+					tagsToAssociate.add(newTag);
+					resourceTags.add(newTag);
+					tagsToRetain.add(newTag);
+
+					isChanged = true;
+
+					if (StringUtils.isNotEmpty(incomingTag.getGuid())) {
+						tagsByGuid.put(incomingTag.getGuid(), newTag);
+					}
+				} else {
+					tagsToRetain.add(matchingTag);
+
+					// private tags are updated only when matched by guid; shared tags are matched only by guid
+					if (StringUtils.equals(incomingTag.getGuid(), matchingTag.getGuid()) && isChanged(incomingTag, tagDefId, matchingTag)) {
+						rangerTagService.getEntityForUpdate(incomingTag, matchingTag, tagDefId);
+
+						if (matchingTag.getId() != null && tagsToUpdate.add(matchingTag) && !isResourcePrivateTag(matchingTag.getOwner())) {
+							context.updatedSharedTagIds.add(matchingTag.getId());
+						}
+
+						isChanged = true;
+					}
+
+					if (!isResourcePrivateTag(incomingTag.getOwner()) && !containsTag(resourceTags, matchingTag)) {
+						tagsToAssociate.add(matchingTag);
+						resourceTags.add(matchingTag);
+
+						isChanged = true;
+					}
+				}
+			}
+
+			for (XXTag associatedTag : new ArrayList<>(resourceTags)) {
+				if (!tagsToRetain.contains(associatedTag) && associatedTag.getId() != null) {
+					XXTagResourceMap tagResourceMap = tagResourceMaps.remove(resourceInStore.getId() + "/" + associatedTag.getId());
+
+					if (tagResourceMap != null) {
+						mapsToDelete.add(tagResourceMap);
+					}
+
+					if (isResourcePrivateTag(associatedTag.getOwner())) {
+						tagsToDelete.add(associatedTag);
+					}
+
+					resourceTags.remove(associatedTag);
+
+					isChanged = true;
+				}
+			}
+
+			if (isChanged) {
+				resourcesToRefresh.add(resourceInStore);
+			}
+		}
+
+		// write the changes: tags first, for their ids
+		daoManager.getXXTag().batchCreate(tagsToCreate);
+		daoManager.getXXTag().batchUpdate(new ArrayList<>(tagsToUpdate));
+
+		List<XXTagResourceMap> newTagResourceMaps = new ArrayList<>();
+
+		for (Map.Entry<XXServiceResource, List<XXTag>> entry : mapsToCreate.entrySet()) {
+			for (XXTag tag : entry.getValue()) {
+				XXTagResourceMap tagResourceMap = new XXTagResourceMap();
+
+				tagResourceMap.setGuid(guidUtil.genGUID());
+				tagResourceMap.setTagId(tag.getId());
+				tagResourceMap.setResourceId(entry.getKey().getId());
+				tagResourceMap.setCreateTime(DateUtil.getUTCDate());
+				tagResourceMap.setUpdateTime(tagResourceMap.getCreateTime());
+				tagResourceMap.setAddedByUserId(ContextUtil.getCurrentUserId());
+				tagResourceMap.setUpdatedByUserId(tagResourceMap.getAddedByUserId());
+
+				newTagResourceMaps.add(tagResourceMap);
+			}
+		}
+
+		daoManager.getXXTagResourceMap().batchCreate(newTagResourceMaps);
+		daoManager.getXXTagResourceMap().batchRemove(mapsToDelete);
+		daoManager.getXXTag().batchRemove(new ArrayList<>(tagsToDelete));
+
+		// the tags stored with each changed resource, as TagDBStore.refreshServiceResource() writes them
+		List<XXServiceResource> resourcesToUpdate = new ArrayList<>(resourcesToRefresh.size());
+		Map<XXTag, RangerTag>   tagViews          = new IdentityHashMap<>();
+
+		for (XXServiceResource resourceInStore : resourcesToRefresh) {
+			List<RangerTag> tags = new ArrayList<>();
+
+			for (XXTag tag : associatedTags.get(resourceInStore.getId())) {
+				RangerTag tagView = tagViews.get(tag);
+
+				if (tagView == null) {
+					tagView = rangerTagService.getPopulatedViewObject(tag);
+
+					tagViews.put(tag, tagView);
+				}
+
+				tags.add(tagView);
+			}
+
+			resourceInStore.setTags(JsonUtils.listToJson(tags));
+
+			resourcesToUpdate.add(resourceInStore);
+		}
+
+		daoManager.getXXServiceResource().batchUpdate(resourcesToUpdate);
+
+		context.createdTags            += tagsToCreate.size();
+		context.updatedTags            += tagsToUpdate.size();
+		context.deletedTags            += tagsToDelete.size();
+		context.createdTagResourceMaps += newTagResourceMaps.size();
+		context.deletedTagResourceMaps += mapsToDelete.size();
+	}
+
+	private void updateTagVersions(ImportContext context) {
+		Set<Long> serviceIds = new LinkedHashSet<>();
+
+		serviceIds.add(context.serviceId);
+
+		// shared tags may be associated with resources of other services too
+		for (List<Long> tagIds : Lists.partition(new ArrayList<>(context.updatedSharedTagIds), MAX_IN_LIST_SIZE)) {
+			serviceIds.addAll(daoManager.getXXServiceResource().findServiceIdsForTagIds(tagIds));
+		}
+
+		for (Long serviceId : serviceIds) {
+			ServiceDBStore.persistVersionChange(daoManager, serviceId, ServiceDBStore.VERSION_TYPE.TAG_VERSION, null, null, null, ServiceTags.TagsChangeType.ALL, null, null);
+		}
+	}
+
+	// the matching rules of ServiceTagsProcessor.findMatchingTag()
+	private XXTag findMatchingTag(RangerTag incomingTag, Long tagDefId, List<XXTag> resourceTags, Map<String, XXTag> tagsByGuid) {
+		XXTag ret = StringUtils.isNotEmpty(incomingTag.getGuid()) ? tagsByGuid.get(incomingTag.getGuid()) : null;
+
+		if (ret == null && isResourcePrivateTag(incomingTag.getOwner())) {
+			Map<String, String> incomingTagAttributes = incomingTag.getAttributes() != null ? incomingTag.getAttributes() : Collections.<String, String>emptyMap();
+
+			for (XXTag existingTag : resourceTags) {
+				if (tagDefId != null && tagDefId.equals(existingTag.getType())) {
+					Map<String, String> existingTagAttributes = RangerTagDBRetriever.gsonBuilder.fromJson(existingTag.getTagAttrs(), RangerTagService.subsumedDataType);
+
+					if (existingTagAttributes == null) {
+						existingTagAttributes = Collections.emptyMap();
+					}
+
+					if (incomingTagAttributes.equals(existingTagAttributes)) {
+						ret = existingTag;
+
+						break;
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private boolean isChanged(RangerServiceResource resource, XXServiceResource existing, ImportContext context) {
+		XXServiceResource updated = rangerServiceResourceService.getEntityForCreate(resource, context.serviceId);
+
+		return !StringUtils.equals(updated.getResourceSignature(), existing.getResourceSignature()) ||
+		       !StringUtils.equals(updated.getServiceResourceElements(), existing.getServiceResourceElements()) ||
+		       !equals(updated.getIsEnabled(), existing.getIsEnabled());
+	}
+
+	private boolean isChanged(RangerTag incomingTag, Long tagDefId, XXTag existing) {
+		XXTag updated = rangerTagService.getEntityForCreate(incomingTag, tagDefId);
+
+		return !equals(updated.getType(), existing.getType()) ||
+		       !equals(updated.getOwner(), existing.getOwner()) ||
+		       !StringUtils.equals(updated.getOptions(), existing.getOptions()) ||
+		       !StringUtils.equals(updated.getTagAttrs(), existing.getTagAttrs());
+	}
+
+	private static boolean containsTag(List<XXTag> tags, XXTag tag) {
+		for (XXTag t : tags) {
+			if (t == tag || (t.getId() != null && t.getId().equals(tag.getId()))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isResourcePrivateTag(Short owner) {
+		return owner != null && owner == RangerTag.OWNER_SERVICERESOURCE;
+	}
+
+	private static <T> Set<T> newIdentitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+	}
+
+	private static boolean equals(Object obj1, Object obj2) {
+		return obj1 == null ? obj2 == null : obj1.equals(obj2);
+	}
+
+	private static <K, V> List<V> getOrCreate(Map<K, List<V>> map, K key) {
+		List<V> ret = map.get(key);
+
+		if (ret == null) {
+			ret = new ArrayList<>();
+
+			map.put(key, ret);
+		}
+
+		return ret;
+	}
+
+	private static <K, V> Set<V> getOrCreateSet(Map<K, Set<V>> map, K key) {
+		Set<V> ret = map.get(key);
+
+		if (ret == null) {
+			ret = new LinkedHashSet<>();
+
+			map.put(key, ret);
+		}
+
+		return ret;
+	}
+
+	private static final Comparator<XXTag> TAG_ID_COMPARATOR = new Comparator<XXTag>() {
+		@Override
+		public int compare(XXTag tag1, XXTag tag2) {
+			return tag1.getId().compareTo(tag2.getId());
+		}
+	};
+
+	private interface ImportStep {
+		void run() throws Exception;
+	}
+
+	private static class StepFailedException extends RuntimeException {
+		StepFailedException(Exception cause) {
+			super(cause);
+		}
+	}
+
+	private static class ImportContext {
+		final Long              serviceId;
+		final ServiceTags       serviceTags;
+		final Map<String, Long> tagDefIds           = new HashMap<>();
+		final Set<Long>         importedResourceIds = new HashSet<>();
+		final Set<Long>         updatedSharedTagIds = new LinkedHashSet<>();
+		int createdResources;
+		int updatedResources;
+		int deletedResources;
+		int createdTags;
+		int updatedTags;
+		int deletedTags;
+		int createdTagResourceMaps;
+		int deletedTagResourceMaps;
+
+		ImportContext(Long serviceId, ServiceTags serviceTags) {
+			this.serviceId   = serviceId;
+			this.serviceTags = serviceTags;
+		}
+
+		boolean isChanged() {
+			return createdResources > 0 || updatedResources > 0 || deletedResources > 0 || createdTags > 0 || updatedTags > 0 || deletedTags > 0 || createdTagResourceMaps > 0 || deletedTagResourceMaps > 0;
+		}
+
+		@Override
+		public String toString() {
+			return "resources: created=" + createdResources + ", updated=" + updatedResources + ", deleted=" + deletedResources +
+			       "; tags: created=" + createdTags + ", updated=" + updatedTags + ", deleted=" + deletedTags +
+			       "; tag-resource-maps: created=" + createdTagResourceMaps + ", deleted=" + deletedTagResourceMaps;
+		}
+	}
+}
@@ -21,13 +21,17 @@ package org.apache.ranger.biz;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.common.GUIDUtil;
 import org.apache.ranger.common.MessageEnums;
@@ -66,6 +70,8 @@ import javax.servlet.http.HttpServletResponse;
 public class TagDBStore extends AbstractTagStore {
 	private static final Log LOG = LogFactory.getLog(TagDBStore.class);
 
+	public static final boolean SUPPORTS_TAG_DELTAS = RangerConfiguration.getInstance().getBoolean("ranger.admin.supports.tag.deltas", false);
+
 	@Autowired
 	RangerTagDefService rangerTagDefService;
 
@@ -1010,6 +1016,30 @@ public class TagDBStore extends AbstractTagStore {
 
 	}
 
+	@Override
+	public ServiceTags getServiceTagsDelta(String serviceName, Long lastKnownVersion) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> TagDBStore.getServiceTagsDelta(" + serviceName + ", " + lastKnownVersion + ")");
+		}
+
+		ServiceTags ret = null;
+
+		if (SUPPORTS_TAG_DELTAS && lastKnownVersion != null && lastKnownVersion != -1L) {
+			XXService            xxService               = daoManager.getXXService().findByName(serviceName);
+			XXServiceVersionInfo serviceVersionInfoDbObj = xxService == null ? null : daoManager.getXXServiceVersionInfo().findByServiceId(xxService.getId());
+
+			if (serviceVersionInfoDbObj != null && serviceVersionInfoDbObj.getTagVersion() != null && !lastKnownVersion.equals(serviceVersionInfoDbObj.getTagVersion())) {
+				ret = createServiceTagsDelta(xxService, lastKnownVersion, serviceVersionInfoDbObj);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== TagDBStore.getServiceTagsDelta(" + serviceName + ", " + lastKnownVersion + "): " + (ret == null ? null : ("resources=" + ret.getServiceResources().size() + ", tags=" + ret.getTags().size())));
+		}
+
+		return ret;
+	}
+
 	@Override
 	public void deleteAllTagObjectsForService(String serviceName) throws Exception {
 
@@ -1068,7 +1098,131 @@ public class TagDBStore extends AbstractTagStore {
 		}
 	}
 
-	private RangerTag validateTag(RangerTag tag) throws Exception {
+	/*
+	 * Builds the delta from the change-log records after lastKnownVersion; returns null if the log does not cover the
+	 * range, or if any change (like a tag-def update) needs a full download of tags
+	 */
+	private ServiceTags createServiceTagsDelta(XXService xxService, Long lastKnownVersion, XXServiceVersionInfo serviceVersionInfoDbObj) {
+		List<Object[]> changeLogs = daoManager.getXXTagChangeLog().findLaterThan(lastKnownVersion, xxService.getId());
+
+		if (CollectionUtils.isEmpty(changeLogs)) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("No tag change-log records found after version " + lastKnownVersion + " for service " + xxService.getName());
+			}
+
+			return null;
+		}
+
+		Set<Long> changedResourceIds = new LinkedHashSet<>();
+		Set<Long> changedTagIds      = new LinkedHashSet<>();
+
+		for (Object[] changeLog : changeLogs) {
+			Integer changeType = (Integer) changeLog[1];
+			Long    resourceId = (Long) changeLog[3];
+			Long    tagId      = (Long) changeLog[4];
+
+			if (changeType == null) {
+				return null;
+			} else if (changeType == ServiceTags.TagsChangeType.SERVICE_RESOURCE_UPDATE.ordinal() || changeType == ServiceTags.TagsChangeType.TAG_RESOURCE_MAP_UPDATE.ordinal()) {
+				if (resourceId == null) {
+					return null;
+				}
+
+				changedResourceIds.add(resourceId);
+			} else if (changeType == ServiceTags.TagsChangeType.TAG_UPDATE.ordinal()) {
+				if (tagId == null) {
+					return null;
+				}
+
+				changedTagIds.add(tagId);
+			} else {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Tag change-log record " + changeLog[0] + " of type " + changeType + " requires a full download of tags for service " + xxService.getName());
+				}
+
+				return null;
+			}
+		}
+
+		List<RangerServiceResource> serviceResources = new ArrayList<>(changedResourceIds.size());
+		Map<Long, RangerTag>        tags             = new HashMap<>();
+		Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+
+		for (Long resourceId : changedResourceIds) {
+			XXServiceResource xServiceResource = daoManager.getXXServiceResource().getById(resourceId);
+
+			if (xServiceResource == null || !xxService.getId().equals(xServiceResource.getServiceId()) || StringUtils.isEmpty(xServiceResource.getTags())) {
+				// resource is deleted or no longer tagged: send it with no resource-elements
+				RangerServiceResource deletedResource = new RangerServiceResource();
+
+				deletedResource.setId(resourceId);
+
+				serviceResources.add(deletedResource);
+
+				continue;
+			}
+
+			RangerServiceResource serviceResource = new RangerServiceResource();
+
+			serviceResource.setId(xServiceResource.getId());
+			serviceResource.setGuid(xServiceResource.getGuid());
+			serviceResource.setIsEnabled(xServiceResource.getIsEnabled());
+			serviceResource.setCreateTime(xServiceResource.getCreateTime());
+			serviceResource.setUpdateTime(xServiceResource.getUpdateTime());
+			serviceResource.setVersion(xServiceResource.getVersion());
+			serviceResource.setResourceSignature(xServiceResource.getResourceSignature());
+
+			Map<String, RangerPolicy.RangerPolicyResource> serviceResourceElements = RangerTagDBRetriever.gsonBuilder.fromJson(xServiceResource.getServiceResourceElements(), RangerServiceResourceService.subsumedDataType);
+
+			serviceResource.setResourceElements(serviceResourceElements);
+
+			List<RangerTag> resourceTags = RangerTagDBRetriever.gsonBuilder.fromJson(xServiceResource.getTags(), RangerServiceResourceService.duplicatedDataType);
+			List<Long>      tagIds       = new ArrayList<>();
+
+			if (resourceTags != null) {
+				for (RangerTag tag : resourceTags) {
+					tags.put(tag.getId(), tag);
+					tagIds.add(tag.getId());
+				}
+			}
+
+			serviceResources.add(serviceResource);
+			resourceToTagIds.put(serviceResource.getId(), tagIds);
+		}
+
+		for (Long tagId : changedTagIds) {
+			XXTag xTag = daoManager.getXXTag().getById(tagId);
+
+			final RangerTag tag;
+
+			if (xTag != null) {
+				tag = rangerTagService.getPopulatedViewObject(xTag);
+			} else {
+				// tag is deleted: send it with no type
+				tag = new RangerTag();
+
+				tag.setId(tagId);
+			}
+
+			tags.put(tagId, tag);
+		}
+
+		ServiceTags ret = new ServiceTags();
+
+		ret.setServiceName(xxService.getName());
+		ret.setTagVersion(serviceVersionInfoDbObj.getTagVersion());
+		ret.setTagUpdateTime(serviceVersionInfoDbObj.getTagUpdateTime());
+		ret.setTagDefinitions(new HashMap<Long, RangerTagDef>());
+		ret.setTags(tags);
+		ret.setServiceResources(serviceResources);
+		ret.setResourceToTagIds(resourceToTagIds);
+		ret.setIsDelta(Boolean.TRUE);
+		ret.setTagsChangeExtent(changedResourceIds.isEmpty() ? ServiceTags.TagsChangeExtent.TAGS : ServiceTags.TagsChangeExtent.SERVICE_RESOURCE);
+
+		return ret;
+	}
+
+	RangerTag validateTag(RangerTag tag) throws Exception {
 		List<RangerValiditySchedule> validityPeriods = tag.getValidityPeriods();
 
 		if (CollectionUtils.isNotEmpty(validityPeriods)) {
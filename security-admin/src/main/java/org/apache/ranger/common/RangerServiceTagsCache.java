@@ -28,6 +28,7 @@ import org.apache.ranger.plugin.store.TagStore;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.util.RangerServiceTagsDeltaUtil;
 import org.apache.ranger.plugin.util.ServiceTags;
 
 import java.util.Date;
@@ -229,7 +230,27 @@ public class RangerServiceTagsCache {
 
 				long startTimeMs = System.currentTimeMillis();
 
-				ServiceTags serviceTagsFromDb = tagStore.getServiceTags(serviceName);
+				ServiceTags serviceTagsFromDb = null;
+
+				if (serviceTags != null && serviceTags.getTagVersion() != null) {
+					ServiceTags delta = tagStore.getServiceTagsDelta(serviceName, serviceTags.getTagVersion());
+
+					if (delta != null) {
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("applying tag-delta to cached serviceTags: resources=" + delta.getServiceResources().size() + ", tags=" + delta.getTags().size());
+						}
+
+						pruneUnusedAttributes(delta);
+
+						serviceTagsFromDb = RangerServiceTagsDeltaUtil.applyDelta(serviceTags, delta);
+					}
+				}
+
+				if (serviceTagsFromDb == null) {
+					serviceTagsFromDb = tagStore.getServiceTags(serviceName);
+
+					pruneUnusedAttributes(serviceTagsFromDb);
+				}
 
 				long dbLoadTime = System.currentTimeMillis() - startTimeMs;
 
@@ -243,7 +264,6 @@ public class RangerServiceTagsCache {
 						serviceTagsFromDb.setTagVersion(0L);
 					}
 					serviceTags = serviceTagsFromDb;
-					pruneUnusedAttributes();
 				}
 			}
 
@@ -252,7 +272,7 @@ public class RangerServiceTagsCache {
 			}
 		}
 
-		private void pruneUnusedAttributes() {
+		private void pruneUnusedAttributes(ServiceTags serviceTags) {
 			if (serviceTags != null) {
 				serviceTags.setOp(null);
 				serviceTags.setTagUpdateTime(null);
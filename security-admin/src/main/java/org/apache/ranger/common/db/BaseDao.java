@@ -98,6 +98,36 @@ public abstract class BaseDao<T> {
 		return obj;
 	}
 
+	// create(), update() and remove() flush each object; these flush once for all the objects, which lets the
+	// persistence provider send the statements to the database in JDBC batches
+	public List<T> batchCreate(List<T> objs) {
+		for (T obj : objs) {
+			em.persist(obj);
+		}
+
+		em.flush();
+
+		return objs;
+	}
+
+	public List<T> batchUpdate(List<T> objs) {
+		for (T obj : objs) {
+			em.merge(obj);
+		}
+
+		em.flush();
+
+		return objs;
+	}
+
+	public void batchRemove(List<T> objs) {
+		for (T obj : objs) {
+			em.remove(obj);
+		}
+
+		em.flush();
+	}
+
 	public boolean remove(Long id) {
 		return remove(getById(id));
 	}
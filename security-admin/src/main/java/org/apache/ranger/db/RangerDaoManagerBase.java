@@ -305,5 +305,7 @@ public abstract class RangerDaoManagerBase {
 
 	public XXPolicyChangeLogDao getXXPolicyChangeLog() { return new XXPolicyChangeLogDao(this); }
 
+	public XXTagChangeLogDao getXXTagChangeLog() { return new XXTagChangeLogDao(this); }
+
 }
 
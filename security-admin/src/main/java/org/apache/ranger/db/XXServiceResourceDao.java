@@ -75,6 +75,43 @@ public class XXServiceResourceDao extends BaseDao<XXServiceResource> {
 		}
 	}
 
+	public List<XXServiceResource> findByGuids(List<String> guids) {
+		if (CollectionUtils.isEmpty(guids)) {
+			return new ArrayList<XXServiceResource>();
+		}
+		try {
+			return getEntityManager().createNamedQuery("XXServiceResource.findByGuids", tClass)
+					.setParameter("guids", guids).getResultList();
+		} catch (NoResultException e) {
+			return new ArrayList<XXServiceResource>();
+		}
+	}
+
+	public List<XXServiceResource> findByServiceAndResourceSignatures(Long serviceId, List<String> resourceSignatures) {
+		if (serviceId == null || CollectionUtils.isEmpty(resourceSignatures)) {
+			return new ArrayList<XXServiceResource>();
+		}
+		try {
+			return getEntityManager().createNamedQuery("XXServiceResource.findByServiceAndResourceSignatures", tClass)
+					.setParameter("serviceId", serviceId).setParameter("resourceSignatures", resourceSignatures)
+					.getResultList();
+		} catch (NoResultException e) {
+			return new ArrayList<XXServiceResource>();
+		}
+	}
+
+	public List<Long> findServiceIdsForTagIds(List<Long> tagIds) {
+		if (CollectionUtils.isEmpty(tagIds)) {
+			return new ArrayList<Long>();
+		}
+		try {
+			return getEntityManager().createNamedQuery("XXServiceResource.findServiceIdsForTagIds", Long.class)
+					.setParameter("tagIds", tagIds).getResultList();
+		} catch (NoResultException e) {
+			return new ArrayList<Long>();
+		}
+	}
+
 	public List<XXServiceResource> findTaggedResourcesInServiceId(Long serviceId) {
 	    List<XXServiceResource> ret = new ArrayList<>();
 		if (serviceId != null) {
@@ -26,6 +26,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.ranger.biz.ServiceDBStore;
 import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.util.ServiceTags;
 import org.springframework.stereotype.Service;
 
 /**
@@ -80,7 +81,21 @@ public class XXServiceVersionInfoDao extends BaseDao<XXServiceVersionInfo> {
 		try {
 			List<XXServiceVersionInfo> serviceVersionInfos = getEntityManager().createNamedQuery("XXServiceVersionInfo.findByServiceResourceId", tClass).setParameter("resourceId", resourceId).getResultList();
 
-			updateTagVersionAndTagUpdateTime(serviceVersionInfos, updateTime);
+			updateTagVersionAndTagUpdateTime(serviceVersionInfos, updateTime, ServiceTags.TagsChangeType.SERVICE_RESOURCE_UPDATE, resourceId, null);
+		} catch (NoResultException e) {
+			return;
+		}
+	}
+
+	public void updateServiceVersionInfoForTagResourceMapUpdate(Long resourceId, Date updateTime) {
+		if (resourceId == null) {
+			return;
+		}
+
+		try {
+			List<XXServiceVersionInfo> serviceVersionInfos = getEntityManager().createNamedQuery("XXServiceVersionInfo.findByServiceResourceId", tClass).setParameter("resourceId", resourceId).getResultList();
+
+			updateTagVersionAndTagUpdateTime(serviceVersionInfos, updateTime, ServiceTags.TagsChangeType.TAG_RESOURCE_MAP_UPDATE, resourceId, null);
 		} catch (NoResultException e) {
 			return;
 		}
@@ -94,7 +109,7 @@ public class XXServiceVersionInfoDao extends BaseDao<XXServiceVersionInfo> {
 		try {
 			List<XXServiceVersionInfo> serviceVersionInfos = getEntityManager().createNamedQuery("XXServiceVersionInfo.findByTagId", tClass).setParameter("tagId", tagId).getResultList();
 
-			updateTagVersionAndTagUpdateTime(serviceVersionInfos, updateTime);
+			updateTagVersionAndTagUpdateTime(serviceVersionInfos, updateTime, ServiceTags.TagsChangeType.TAG_UPDATE, null, tagId);
 		} catch (NoResultException e) {
 			return;
 		}
@@ -108,13 +123,13 @@ public class XXServiceVersionInfoDao extends BaseDao<XXServiceVersionInfo> {
 		try {
 			List<XXServiceVersionInfo> serviceVersionInfos = getEntityManager().createNamedQuery("XXServiceVersionInfo.findByTagDefId", tClass).setParameter("tagDefId", tagDefId).getResultList();
 
-			updateTagVersionAndTagUpdateTime(serviceVersionInfos, updateTime);
+			updateTagVersionAndTagUpdateTime(serviceVersionInfos, updateTime, ServiceTags.TagsChangeType.ALL, null, null);
 		} catch (NoResultException e) {
 			return;
 		}
 	}
 
-	private void updateTagVersionAndTagUpdateTime(List<XXServiceVersionInfo> serviceVersionInfos, Date updateTime) {
+	private void updateTagVersionAndTagUpdateTime(List<XXServiceVersionInfo> serviceVersionInfos, Date updateTime, ServiceTags.TagsChangeType tagsChangeType, Long resourceId, Long tagId) {
 		if(CollectionUtils.isEmpty(serviceVersionInfos)) {
 			return;
 		}
@@ -128,7 +143,7 @@ public class XXServiceVersionInfoDao extends BaseDao<XXServiceVersionInfo> {
 			final Long 		       finalServiceId  		  = serviceVersionInfo.getServiceId();
 			final ServiceDBStore.VERSION_TYPE versionType = ServiceDBStore.VERSION_TYPE.TAG_VERSION;
 
-			Runnable serviceVersionUpdater = new ServiceDBStore.ServiceVersionUpdater(finaldaoManager, finalServiceId, versionType);
+			Runnable serviceVersionUpdater = new ServiceDBStore.ServiceVersionUpdater(finaldaoManager, finalServiceId, versionType, tagsChangeType, resourceId, tagId);
 
 			daoManager.getRangerTransactionSynchronizationAdapter().executeOnTransactionCommit(serviceVersionUpdater);
 		}
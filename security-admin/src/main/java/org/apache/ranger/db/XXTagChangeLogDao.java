@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.db;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.common.db.BaseDao;
+import org.apache.ranger.entity.XXTagChangeLog;
+import org.springframework.stereotype.Service;
+
+/**
+ */
+@Service
+public class XXTagChangeLogDao extends BaseDao<XXTagChangeLog> {
+
+    private static final Log LOG = LogFactory.getLog(XXTagChangeLogDao.class);
+
+    /**
+     * Default Constructor
+     */
+    public XXTagChangeLogDao(RangerDaoManagerBase daoManager) {
+        super(daoManager);
+    }
+
+    /**
+     * Returns the change-log records, as [id, changeType, serviceTagsVersion, serviceResourceId, tagId], for changes made
+     * after the given version; null if the log does not go back as far as the given version.
+     */
+    public List<Object[]> findLaterThan(Long version, Long serviceId) {
+        final List<Object[]> ret;
+        if (version != null) {
+            List<Object[]> logs = getEntityManager()
+                    .createNamedQuery("XXTagChangeLog.findSinceVersion", Object[].class)
+                    .setParameter("version", version)
+                    .setParameter("serviceId", serviceId)
+                    .getResultList();
+            // Ensure that the first record has the same version as the base-version from where the records are fetched
+            if (CollectionUtils.isNotEmpty(logs)) {
+                Object[] firstRecord = logs.get(0);
+                Long versionOfFirstRecord = (Long) firstRecord[2];
+                if (version.equals(versionOfFirstRecord)) {
+                    // skip all records for the base-version, as these changes are already known to the caller
+                    while (!logs.isEmpty() && version.equals(logs.get(0)[2])) {
+                        logs.remove(0);
+                    }
+                    ret = logs;
+                } else {
+                    ret = null;
+                }
+            } else {
+                ret = null;
+            }
+        } else {
+            ret = null;
+        }
+        return ret;
+    }
+
+    public void deleteOlderThan(int olderThanInDays) {
+
+        Date since = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(olderThanInDays));
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Deleting records from x_tag_change_log that are older than " + olderThanInDays + " days, that is,  older than " + since);
+        }
+
+        getEntityManager().createNamedQuery("XXTagChangeLog.deleteOlderThan").setParameter("olderThan", since).executeUpdate();
+    }
+
+}
@@ -24,6 +24,7 @@ import java.util.List;
 
 import javax.persistence.NoResultException;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.utils.StringUtil;
 import org.apache.ranger.common.db.BaseDao;
@@ -74,6 +75,30 @@ public class XXTagDao extends BaseDao<XXTag> {
 		}
 	}
 
+	public List<XXTag> findByGuids(List<String> guids) {
+		if (CollectionUtils.isEmpty(guids)) {
+			return new ArrayList<XXTag>();
+		}
+		try {
+			return getEntityManager().createNamedQuery("XXTag.findByGuids", tClass)
+					.setParameter("guids", guids).getResultList();
+		} catch (NoResultException e) {
+			return new ArrayList<XXTag>();
+		}
+	}
+
+	public List<XXTag> findByResourceIds(List<Long> resourceIds) {
+		if (CollectionUtils.isEmpty(resourceIds)) {
+			return new ArrayList<XXTag>();
+		}
+		try {
+			return getEntityManager().createNamedQuery("XXTag.findByResourceIds", tClass)
+					.setParameter("resourceIds", resourceIds).getResultList();
+		} catch (NoResultException e) {
+			return new ArrayList<XXTag>();
+		}
+	}
+
 	public List<XXTag> findByName(String name) {
 		if (StringUtils.isEmpty(name)) {
 			return new ArrayList<XXTag>();
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.rest;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.biz.RangerBizUtil;
+import org.apache.ranger.biz.RangerServiceVersionNotifier;
+import org.apache.ranger.biz.RangerServiceVersionNotifier.VersionType;
+import org.apache.ranger.biz.ServiceDBStore;
+import org.apache.ranger.common.ServiceUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceDef;
+import org.apache.ranger.plugin.model.RangerService;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+/**
+ * Long-poll endpoints for plugins waiting for policy or tag changes:
+ *   GET /service/plugins/policies/notify/{serviceName}?lastKnownVersion=N&amp;timeoutMs=T
+ *   GET /service/plugins/secure/policies/notify/{serviceName}?lastKnownVersion=N&amp;timeoutMs=T
+ *   GET /service/tags/notify/{serviceName}?lastKnownVersion=N&amp;timeoutMs=T
+ *   GET /service/tags/secure/notify/{serviceName}?lastKnownVersion=N&amp;timeoutMs=T
+ *
+ * These live alongside the ServiceREST and TagREST download endpoints, but are served by an async servlet since
+ * the Jersey 1.x container used for REST resources can't suspend a request. The response only carries the new
+ * version; plugins then download policies/tags through the existing endpoints.
+ *
+ * Requests are authorized as for the download endpoints: the non-secure endpoints validate the client certificate
+ * against the service config, and the secure endpoints require an admin or a user allowed to download policies/tags
+ * of the service. 501 is returned only when this Admin can't hold requests, and tells plugins not to retry.
+ */
+public class ServiceVersionNotificationServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+
+	private static final Log LOG = LogFactory.getLog(ServiceVersionNotificationServlet.class);
+
+	public static final String PARAM_LAST_KNOWN_VERSION = "lastKnownVersion";
+	public static final String PARAM_TIMEOUT_MS         = "timeoutMs";
+
+	private transient RangerServiceVersionNotifier notifier;
+	private transient ServiceUtil                  serviceUtil;
+	private transient RangerBizUtil                bizUtil;
+	private transient ServiceDBStore               svcStore;
+	private transient RangerDaoManager             daoManager;
+	private transient PlatformTransactionManager   txManager;
+
+	@Override
+	public void init() throws ServletException {
+		super.init();
+
+		WebApplicationContext context = WebApplicationContextUtils.getRequiredWebApplicationContext(getServletContext());
+
+		notifier    = context.getBean(RangerServiceVersionNotifier.class);
+		serviceUtil = context.getBean(ServiceUtil.class);
+		bizUtil     = context.getBean(RangerBizUtil.class);
+		svcStore    = context.getBean(ServiceDBStore.class);
+		daoManager  = context.getBean(RangerDaoManager.class);
+		txManager   = context.getBean("transactionManager", PlatformTransactionManager.class);
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		String      serviceName      = StringUtils.removeStart(request.getPathInfo(), "/");
+		VersionType versionType      = StringUtils.contains(request.getServletPath(), "/tags/") ? VersionType.TAG : VersionType.POLICY;
+		boolean     isSecure         = StringUtils.contains(request.getServletPath(), "/secure/");
+		long        lastKnownVersion = getLongParam(request, PARAM_LAST_KNOWN_VERSION, -1L);
+		long        timeoutMs        = getLongParam(request, PARAM_TIMEOUT_MS, notifier.getMaxWaitMs());
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceVersionNotificationServlet.doGet(" + serviceName + ", " + versionType + ", " + lastKnownVersion + ", " + timeoutMs + ")");
+		}
+
+		int authStatus = HttpServletResponse.SC_OK;
+
+		if (StringUtils.isBlank(serviceName) || StringUtils.contains(serviceName, '/')) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "invalid service name");
+		} else if ((authStatus = authorize(serviceName, versionType, isSecure, request)) != HttpServletResponse.SC_OK) {
+			response.sendError(authStatus);
+		} else if (!request.isAsyncSupported()) {
+			LOG.error("ServiceVersionNotificationServlet.doGet(" + serviceName + "): async processing is not enabled for this request. Check async-supported for the filters in web.xml");
+
+			response.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED);
+		} else {
+			AsyncContext asyncContext = request.startAsync();
+
+			notifier.waitForUpdate(serviceName, versionType, lastKnownVersion, timeoutMs, asyncContext);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceVersionNotificationServlet.doGet(" + serviceName + ", " + versionType + ", " + lastKnownVersion + ", " + timeoutMs + ")");
+		}
+	}
+
+	/*
+	 * Same checks as ServiceREST/TagREST download endpoints, i.e. getServicePoliciesIfUpdated(), getSecureServicePoliciesIfUpdated(),
+	 * getServiceTagsIfUpdated() and getSecureServiceTagsIfUpdated(). Returns the HTTP status to fail the request with, or 200.
+	 */
+	private int authorize(final String serviceName, final VersionType versionType, final boolean isSecure, final HttpServletRequest request) {
+		TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+		txTemplate.setReadOnly(true);
+
+		try {
+			return txTemplate.execute(new TransactionCallback<Integer>() {
+				@Override
+				public Integer doInTransaction(TransactionStatus status) {
+					if (!isSecure) {
+						return serviceUtil.isValidateHttpsAuthentication(serviceName, request) ? HttpServletResponse.SC_OK : HttpServletResponse.SC_UNAUTHORIZED;
+					}
+
+					XXService xService = daoManager.getXXService().findByName(serviceName);
+
+					if (xService == null) {
+						return HttpServletResponse.SC_NOT_FOUND;
+					}
+
+					XXServiceDef xServiceDef = daoManager.getXXServiceDef().getById(xService.getType());
+					boolean      isKms       = xServiceDef != null && StringUtils.equals(xServiceDef.getImplclassname(), EmbeddedServiceDefsUtil.KMS_IMPL_CLASS_NAME);
+					boolean      isAllowed   = isKms ? bizUtil.isKeyAdmin() : bizUtil.isAdmin();
+
+					if (!isAllowed) {
+						RangerService service;
+
+						try {
+							service = isKms ? svcStore.getServiceByNameForDP(serviceName) : svcStore.getServiceByName(serviceName);
+						} catch (Exception excp) {
+							LOG.error("ServiceVersionNotificationServlet.authorize(" + serviceName + "): failed to get service", excp);
+
+							service = null;
+						}
+
+						if (service == null) {
+							return HttpServletResponse.SC_NOT_FOUND;
+						}
+
+						if (versionType == VersionType.TAG) {
+							isAllowed = bizUtil.isUserAllowed(service, TagREST.Allowed_User_List_For_Tag_Download);
+						} else {
+							isAllowed = bizUtil.isUserAllowed(service, ServiceREST.Allowed_User_List_For_Download)
+									|| bizUtil.isUserAllowed(service, ServiceREST.Allowed_User_List_For_Grant_Revoke);
+						}
+					}
+
+					if (!isAllowed) {
+						LOG.error("ServiceVersionNotificationServlet.authorize(" + serviceName + ", " + versionType + "): user doesn't have permission to download from the service");
+					}
+
+					return isAllowed ? HttpServletResponse.SC_OK : HttpServletResponse.SC_UNAUTHORIZED;
+				}
+			});
+		} catch (WebApplicationException excp) {
+			return excp.getResponse() != null ? excp.getResponse().getStatus() : HttpServletResponse.SC_UNAUTHORIZED;
+		}
+	}
+
+	private static long getLongParam(HttpServletRequest request, String name, long defaultValue) {
+		String value = request.getParameter(name);
+		long   ret   = defaultValue;
+
+		if (StringUtils.isNotBlank(value)) {
+			try {
+				ret = Long.parseLong(value.trim());
+			} catch (NumberFormatException excp) {
+				LOG.warn("ServiceVersionNotificationServlet: invalid value for " + name + ": " + value);
+			}
+		}
+
+		return ret;
+	}
+}
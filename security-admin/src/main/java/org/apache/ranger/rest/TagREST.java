@@ -26,6 +26,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.biz.AssetMgr;
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.biz.ServiceDBStore;
+import org.apache.ranger.biz.ServiceTagsBulkImporter;
 import org.apache.ranger.biz.TagDBStore;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.db.RangerDaoManager;
@@ -93,6 +94,9 @@ public class TagREST {
     @Autowired
     AssetMgr assetMgr;
 
+    @Autowired
+    ServiceTagsBulkImporter bulkImporter;
+
     TagValidator validator;
 
     public TagREST() {
@@ -1084,8 +1088,12 @@ public class TagREST {
 
         try {
 
-            ServiceTagsProcessor serviceTagsProcessor = new ServiceTagsProcessor(tagStore);
-            serviceTagsProcessor.process(serviceTags);
+            if (bulkImporter.isBulkImport(serviceTags)) {
+                bulkImporter.importServiceTags(serviceTags);
+            } else {
+                ServiceTagsProcessor serviceTagsProcessor = new ServiceTagsProcessor(tagStore);
+                serviceTagsProcessor.process(serviceTags);
+            }
 
         } catch (Exception excp) {
             LOG.error("importServiceTags() failed", excp);
@@ -1106,9 +1114,10 @@ public class TagREST {
     public ServiceTags getServiceTagsIfUpdated(@PathParam("serviceName") String serviceName,
                                                    @QueryParam(TagRESTConstants.LAST_KNOWN_TAG_VERSION_PARAM) Long lastKnownVersion,
                                                @DefaultValue("0") @QueryParam(TagRESTConstants.LAST_ACTIVATION_TIME) Long lastActivationTime, @QueryParam("pluginId") String pluginId,
+                                               @DefaultValue("false") @QueryParam(TagRESTConstants.SUPPORTS_TAG_DELTAS_PARAM) Boolean supportsTagDeltas,
                                                @Context HttpServletRequest request) {
         if(LOG.isDebugEnabled()) {
-            LOG.debug("==> TagREST.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ")");
+            LOG.debug("==> TagREST.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ", " + supportsTagDeltas + ")");
         }
 
 		ServiceTags ret      = null;
@@ -1117,7 +1126,7 @@ public class TagREST {
         Long downloadedVersion = null;
 
         try {
-            ret = tagStore.getServiceTagsIfUpdated(serviceName, lastKnownVersion);
+            ret = getServiceTagsIfUpdated(serviceName, lastKnownVersion, supportsTagDeltas);
 
             if (ret == null) {
                 downloadedVersion = lastKnownVersion;
@@ -1144,7 +1153,7 @@ public class TagREST {
         }
 
         if(LOG.isDebugEnabled()) {
-            LOG.debug("<== TagREST.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ")");
+            LOG.debug("<== TagREST.getServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ", " + supportsTagDeltas + ")");
         }
 
         return ret;
@@ -1156,10 +1165,11 @@ public class TagREST {
     public ServiceTags getSecureServiceTagsIfUpdated(@PathParam("serviceName") String serviceName,
                                                    @QueryParam(TagRESTConstants.LAST_KNOWN_TAG_VERSION_PARAM) Long lastKnownVersion,
                                                      @DefaultValue("0") @QueryParam(TagRESTConstants.LAST_ACTIVATION_TIME) Long lastActivationTime, @QueryParam("pluginId") String pluginId,
+                                                     @DefaultValue("false") @QueryParam(TagRESTConstants.SUPPORTS_TAG_DELTAS_PARAM) Boolean supportsTagDeltas,
                                                      @Context HttpServletRequest request) {
 
         if(LOG.isDebugEnabled()) {
-            LOG.debug("==> TagREST.getSecureServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ")");
+            LOG.debug("==> TagREST.getSecureServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ", " + supportsTagDeltas + ")");
         }
 
 		ServiceTags ret      = null;
@@ -1194,7 +1204,7 @@ public class TagREST {
         		}
         	}
         	if (isAllowed) {
-	            ret = tagStore.getServiceTagsIfUpdated(serviceName, lastKnownVersion);
+	            ret = getServiceTagsIfUpdated(serviceName, lastKnownVersion, supportsTagDeltas);
 
 				if(ret == null) {
                     downloadedVersion = lastKnownVersion;
@@ -1226,7 +1236,21 @@ public class TagREST {
         }
 
         if(LOG.isDebugEnabled()) {
-            LOG.debug("<== TagREST.getSecureServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ")");
+            LOG.debug("<== TagREST.getSecureServiceTagsIfUpdated(" + serviceName + ", " + lastKnownVersion + ", " + lastActivationTime + ", " + pluginId + ", " + supportsTagDeltas + ")");
+        }
+
+        return ret;
+    }
+
+    private ServiceTags getServiceTagsIfUpdated(String serviceName, Long lastKnownVersion, Boolean supportsTagDeltas) throws Exception {
+        ServiceTags ret = null;
+
+        if (Boolean.TRUE.equals(supportsTagDeltas) && lastKnownVersion != null && lastKnownVersion != -1L) {
+            ret = tagStore.getServiceTagsDelta(serviceName, lastKnownVersion);
+        }
+
+        if (ret == null) {
+            ret = tagStore.getServiceTagsIfUpdated(serviceName, lastKnownVersion);
         }
 
         return ret;
@@ -33,6 +33,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.biz.RangerTagDBRetriever;
+import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.SearchField;
 import org.apache.ranger.common.SearchField.DATA_TYPE;
 import org.apache.ranger.common.SearchField.SEARCH_TYPE;
@@ -146,8 +148,8 @@ public class RangerServiceResourceService extends RangerServiceResourceServiceBa
     }
 
     @Override
-    protected XXServiceResource mapViewToEntityBean(RangerServiceResource serviceResource, XXServiceResource xxServiceResource, int operationContext) {
-        XXServiceResource ret = super.mapViewToEntityBean(serviceResource, xxServiceResource, operationContext);
+    protected XXServiceResource mapViewToEntityBean(RangerServiceResource serviceResource, XXServiceResource xxServiceResource, Long serviceId) {
+        XXServiceResource ret = super.mapViewToEntityBean(serviceResource, xxServiceResource, serviceId);
         if (MapUtils.isNotEmpty(serviceResource.getResourceElements())) {
             String serviceResourceElements = JsonUtils.mapToJson(serviceResource.getResourceElements());
             if (StringUtils.isNotEmpty(serviceResourceElements)) {
@@ -160,6 +162,25 @@ public class RangerServiceResourceService extends RangerServiceResourceServiceBa
         return ret;
     }
 
+    // for bulk imports, which look up the service once for all the resources, and write the entities in batches
+    public XXServiceResource getEntityForCreate(RangerServiceResource serviceResource, Long serviceId) {
+        XXServiceResource ret = new XXServiceResource();
+
+        ret.setCreateTime(DateUtil.getUTCDate());
+        ret.setUpdateTime(ret.getCreateTime());
+        ret.setAddedByUserId(ContextUtil.getCurrentUserId());
+        ret.setUpdatedByUserId(ret.getAddedByUserId());
+
+        return mapViewToEntityBean(serviceResource, ret, serviceId);
+    }
+
+    public XXServiceResource getEntityForUpdate(RangerServiceResource serviceResource, XXServiceResource xxServiceResource, Long serviceId) {
+        xxServiceResource.setUpdateTime(DateUtil.getUTCDate());
+        xxServiceResource.setUpdatedByUserId(ContextUtil.getCurrentUserId());
+
+        return mapViewToEntityBean(serviceResource, xxServiceResource, serviceId);
+    }
+
     @Override
     protected RangerServiceResource mapEntityToViewBean(RangerServiceResource serviceResource, XXServiceResource xxServiceResource) {
         RangerServiceResource ret = super.mapEntityToViewBean(serviceResource, xxServiceResource);
@@ -45,19 +45,22 @@ public abstract class RangerServiceResourceServiceBase<T extends XXServiceResour
 
 	@Override
 	protected T mapViewToEntityBean(V vObj, T xObj, int operationContext) {
+		XXService xService = daoMgr.getXXService().findByName(vObj.getServiceName());
+		if (xService == null) {
+			throw restErrorUtil.createRESTException("Error Populating XXServiceResource. No Service found with name: " + vObj.getServiceName(), MessageEnums.INVALID_INPUT_DATA);
+		}
+
+		return mapViewToEntityBean(vObj, xObj, xService.getId());
+	}
+
+	protected T mapViewToEntityBean(V vObj, T xObj, Long serviceId) {
 		String guid = (StringUtils.isEmpty(vObj.getGuid())) ? guidUtil.genGUID() : vObj.getGuid();
 
 		xObj.setGuid(guid);
 		xObj.setVersion(vObj.getVersion());
 		xObj.setIsEnabled(vObj.getIsEnabled());
 		xObj.setResourceSignature(vObj.getResourceSignature());
-
-		XXService xService = daoMgr.getXXService().findByName(vObj.getServiceName());
-		if (xService == null) {
-			throw restErrorUtil.createRESTException("Error Populating XXServiceResource. No Service found with name: " + vObj.getServiceName(), MessageEnums.INVALID_INPUT_DATA);
-		}
-
-		xObj.setServiceId(xService.getId());
+		xObj.setServiceId(serviceId);
 
 		return xObj;
 	}
@@ -30,6 +30,8 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.biz.RangerTagDBRetriever;
+import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.SearchField;
 import org.apache.ranger.common.SearchField.DATA_TYPE;
 import org.apache.ranger.common.SearchField.SEARCH_TYPE;
@@ -158,12 +160,31 @@ public class RangerTagService extends RangerTagServiceBase<XXTag, RangerTag> {
     }
 
     @Override
-    protected XXTag mapViewToEntityBean(RangerTag vObj, XXTag xObj, int OPERATION_CONTEXT) {
-        XXTag ret = super.mapViewToEntityBean(vObj, xObj, OPERATION_CONTEXT);
+    protected XXTag mapViewToEntityBean(RangerTag vObj, XXTag xObj, Long tagDefId) {
+        XXTag ret = super.mapViewToEntityBean(vObj, xObj, tagDefId);
         ret.setTagAttrs(JsonUtils.mapToJson(vObj.getAttributes()));
         return ret;
     }
 
+    // for bulk imports, which look up the tag-defs once for all the tags, and write the entities in batches
+    public XXTag getEntityForCreate(RangerTag tag, Long tagDefId) {
+        XXTag ret = new XXTag();
+
+        ret.setCreateTime(DateUtil.getUTCDate());
+        ret.setUpdateTime(ret.getCreateTime());
+        ret.setAddedByUserId(ContextUtil.getCurrentUserId());
+        ret.setUpdatedByUserId(ret.getAddedByUserId());
+
+        return mapViewToEntityBean(tag, ret, tagDefId);
+    }
+
+    public XXTag getEntityForUpdate(RangerTag tag, XXTag xTag, Long tagDefId) {
+        xTag.setUpdateTime(DateUtil.getUTCDate());
+        xTag.setUpdatedByUserId(ContextUtil.getCurrentUserId());
+
+        return mapViewToEntityBean(tag, xTag, tagDefId);
+    }
+
     @Override
     public Map<String, String> getAttributesForTag(XXTag xTag) {
         return new HashMap<>();
@@ -54,8 +54,6 @@ public abstract class RangerTagServiceBase<T extends XXTag, V extends RangerTag>
 
 	@Override
 	protected T mapViewToEntityBean(V vObj, T xObj, int OPERATION_CONTEXT) {
-		String guid = (StringUtils.isEmpty(vObj.getGuid())) ? guidUtil.genGUID() : vObj.getGuid();
-
 		XXTagDef xTagDef = daoMgr.getXXTagDef().findByName(vObj.getType());
 		if(xTagDef == null) {
 			throw restErrorUtil.createRESTException(
@@ -63,8 +61,14 @@ public abstract class RangerTagServiceBase<T extends XXTag, V extends RangerTag>
 					MessageEnums.INVALID_INPUT_DATA);
 		}
 
+		return mapViewToEntityBean(vObj, xObj, xTagDef.getId());
+	}
+
+	protected T mapViewToEntityBean(V vObj, T xObj, Long tagDefId) {
+		String guid = (StringUtils.isEmpty(vObj.getGuid())) ? guidUtil.genGUID() : vObj.getGuid();
+
 		xObj.setGuid(guid);
-		xObj.setType(xTagDef.getId());
+		xObj.setType(tagDefId);
 		xObj.setOwner(vObj.getOwner());
 
 		String              validityPeriods = JsonUtils.listToJson(vObj.getValidityPeriods());
@@ -25,12 +25,15 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.audit.destination.FileAuditDestination;
+import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.AuditProviderFactory;
@@ -346,6 +349,80 @@ public class TestAuditQueue {
 		assertNull("Event not in sequnce", testConsumer.isInSequence());
 	}
 
+	@Test
+	public void testAuditBatchQueueSharded() throws Exception {
+		logger.debug("testAuditBatchQueueSharded()...");
+
+		final int producerCount = 4;
+		final int messagePerProducer = 1000;
+		final int messageToSend = producerCount * messagePerProducer;
+
+		String basePropName = "testAuditBatchQueueSharded_"
+				+ MiscUtil.generateUniqueId();
+		Properties props = new Properties();
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_SIZE, "100");
+		props.put(basePropName + "." + AuditQueue.PROP_QUEUE_SIZE, ""
+				+ messageToSend);
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_INTERVAL, "100");
+		props.put(basePropName + "." + AuditBatchQueue.PROP_SHARDS, "3");
+
+		// TestConsumer isn't thread-safe: the shards must not call it concurrently
+		final AtomicInteger activeCalls = new AtomicInteger();
+		final AtomicInteger concurrentCalls = new AtomicInteger();
+		TestConsumer testConsumer = new TestConsumer() {
+			@Override
+			public boolean log(Collection<AuditEventBase> events) {
+				if (activeCalls.incrementAndGet() > 1) {
+					concurrentCalls.incrementAndGet();
+				}
+				try {
+					return super.log(events);
+				} finally {
+					activeCalls.decrementAndGet();
+				}
+			}
+		};
+		final AuditBatchQueue queue = new AuditBatchQueue(testConsumer);
+		queue.init(props, basePropName);
+		queue.start();
+
+		// asserted on this thread, as failures in the producer threads would go unnoticed
+		final AtomicInteger failedLogCalls = new AtomicInteger();
+		List<Thread> producers = new ArrayList<Thread>();
+		for (int i = 0; i < producerCount; i++) {
+			final List<AuditEventBase> events = new ArrayList<AuditEventBase>();
+			for (int j = 0; j < messagePerProducer; j++) {
+				events.add(createEvent());
+			}
+			Thread producer = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < events.size(); j += 10) {
+						if (!queue.log(events.subList(j, j + 10))) {
+							failedLogCalls.incrementAndGet();
+						}
+					}
+				}
+			};
+			producer.start();
+			producers.add(producer);
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		queue.waitToComplete();
+		queue.stop();
+		queue.waitToComplete();
+
+		assertEquals("Failed log() calls", 0, failedLogCalls.get());
+		assertEquals("Concurrent calls to the consumer", 0, concurrentCalls.get());
+		assertEquals("Total count", messageToSend, testConsumer.getCountTotal());
+		assertEquals("Total sum", messageToSend, testConsumer.getSumTotal());
+		assertEquals("Queue success count", messageToSend,
+				queue.getTotalSuccessCount());
+	}
+
 	@Test
 	public void testAuditBatchQueueDestDown() {
 		logger.debug("testAuditBatchQueueDestDown()...");
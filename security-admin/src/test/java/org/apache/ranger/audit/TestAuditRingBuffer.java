@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ranger.audit.queue.AuditRingBuffer;
+import org.junit.Test;
+
+public class TestAuditRingBuffer {
+
+	@Test
+	public void testEmptyAndFull() throws Exception {
+		AuditRingBuffer<Integer> buffer = new AuditRingBuffer<Integer>(3);
+
+		assertEquals(3, buffer.getCapacity());
+		assertTrue(buffer.isEmpty());
+		assertNull(buffer.poll());
+		assertNull(buffer.peek());
+		assertNull(buffer.poll(10, TimeUnit.MILLISECONDS));
+
+		assertTrue(buffer.offer(1));
+		assertTrue(buffer.offer(2));
+		assertTrue(buffer.offer(3));
+
+		// capacity isn't rounded up to the slot count
+		assertFalse(buffer.offer(4));
+		assertFalse(buffer.offer(4, 10, TimeUnit.MILLISECONDS));
+		assertEquals(3, buffer.size());
+		assertEquals(0, buffer.remainingCapacity());
+		assertEquals(Integer.valueOf(1), buffer.peek());
+
+		try {
+			buffer.add(4);
+			fail("add() to a full buffer should fail");
+		} catch (IllegalStateException excp) {
+			// expected
+		}
+
+		assertEquals(Integer.valueOf(1), buffer.poll());
+		assertTrue(buffer.offer(4));
+		assertEquals(Integer.valueOf(2), buffer.poll());
+		assertEquals(Integer.valueOf(3), buffer.poll());
+		assertEquals(Integer.valueOf(4), buffer.take());
+		assertTrue(buffer.isEmpty());
+		assertEquals(3, buffer.remainingCapacity());
+	}
+
+	@Test
+	public void testWraparound() {
+		AuditRingBuffer<Integer> buffer = new AuditRingBuffer<Integer>(5);
+		int next = 0;
+		int expected = 0;
+
+		// indexes go around the 8 slots many times, with the buffer at different depths
+		for (int round = 0; round < 100; round++) {
+			int toAdd = round % 3 + 1;
+
+			for (int i = 0; i < toAdd; i++) {
+				assertTrue(buffer.offer(next++));
+			}
+
+			int toRemove = buffer.size() - round % 3;
+
+			for (int i = 0; i < toRemove; i++) {
+				assertEquals(Integer.valueOf(expected++), buffer.poll());
+			}
+		}
+
+		while (!buffer.isEmpty()) {
+			assertEquals(Integer.valueOf(expected++), buffer.poll());
+		}
+
+		assertEquals(next, expected);
+	}
+
+	@Test
+	public void testDrainTo() {
+		AuditRingBuffer<Integer> buffer = new AuditRingBuffer<Integer>(4);
+		List<Integer> drained = new ArrayList<Integer>();
+
+		assertEquals(0, buffer.drainTo(drained));
+
+		for (int i = 0; i < 3; i++) {
+			buffer.offer(i);
+		}
+		buffer.poll();
+		buffer.offer(3);
+		buffer.offer(4); // wraps around
+
+		assertEquals(2, buffer.drainTo(drained, 2));
+		assertEquals(2, buffer.size());
+		assertEquals(2, buffer.drainTo(drained));
+		assertTrue(buffer.isEmpty());
+
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 1; i <= 4; i++) {
+			expected.add(i);
+		}
+		assertEquals(expected, drained);
+	}
+
+	@Test
+	public void testIterator() {
+		AuditRingBuffer<Integer> buffer = new AuditRingBuffer<Integer>(4);
+
+		assertFalse(buffer.iterator().hasNext());
+
+		for (int i = 0; i < 4; i++) {
+			buffer.offer(i);
+		}
+		buffer.poll();
+		buffer.offer(4);
+
+		Iterator<Integer> iter = buffer.iterator();
+		List<Integer> elements = new ArrayList<Integer>();
+
+		while (iter.hasNext()) {
+			elements.add(iter.next());
+		}
+
+		assertEquals(4, elements.size());
+		assertEquals(Integer.valueOf(1), elements.get(0));
+		assertEquals(Integer.valueOf(4), elements.get(3));
+		assertTrue(buffer.contains(3));
+		assertFalse(buffer.contains(0));
+
+		// iteration doesn't consume the elements
+		assertEquals(4, buffer.size());
+		assertEquals(Integer.valueOf(1), buffer.poll());
+	}
+
+	@Test
+	public void testProducers() throws Exception {
+		final int producerCount = 4;
+		final int perProducer = 10000;
+		final AuditRingBuffer<Integer> buffer = new AuditRingBuffer<Integer>(100);
+		final AtomicInteger failedPuts = new AtomicInteger();
+
+		List<Thread> producers = new ArrayList<Thread>();
+		for (int p = 0; p < producerCount; p++) {
+			final int producerId = p;
+			Thread producer = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < perProducer; i++) {
+							buffer.put(producerId * perProducer + i);
+						}
+					} catch (InterruptedException excp) {
+						failedPuts.incrementAndGet();
+					}
+				}
+			};
+			producer.start();
+			producers.add(producer);
+		}
+
+		// events of each producer are taken in the order they were put
+		int[] lastSeen = new int[producerCount];
+		for (int p = 0; p < producerCount; p++) {
+			lastSeen[p] = -1;
+		}
+		for (int i = 0; i < producerCount * perProducer; i++) {
+			Integer value = buffer.poll(10, TimeUnit.SECONDS);
+
+			assertNotNull("timed out after " + i + " elements", value);
+
+			int producerId = value / perProducer;
+			int seq = value % perProducer;
+
+			assertTrue("out of order: " + value, seq > lastSeen[producerId]);
+			lastSeen[producerId] = seq;
+		}
+
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		assertEquals(0, failedPuts.get());
+		assertTrue(buffer.isEmpty());
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.destination;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.queue.AuditFileSpool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestKafkaAuditDestination {
+	private static final String PROP_PREFIX = "xasecure.audit.destination.kafka";
+
+	private File spoolDir;
+
+	@Before
+	public void setUp() throws Exception {
+		spoolDir = Files.createTempDirectory("ranger-kafka-audit").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		FileUtils.deleteQuietly(spoolDir);
+	}
+
+	@Test
+	public void testPartitionKey() {
+		AuthzAuditEvent event = createEvent("kafka-test-1");
+
+		assertNull(createDestination(null, false, newProducer()).getPartitionKey(event));
+		assertNull(createDestination("none", false, newProducer()).getPartitionKey(event));
+		assertEquals("hdfsdev", createDestination("repo", false, newProducer()).getPartitionKey(event));
+		assertEquals("/tmp/data", createDestination("resource", false, newProducer()).getPartitionKey(event));
+		assertEquals("alice", createDestination("USER", false, newProducer()).getPartitionKey(event));
+
+		// an invalid value sends records without a key
+		assertNull(createDestination("host", false, newProducer()).getPartitionKey(event));
+
+		MockProducer<String, String> producer    = newProducer();
+		KafkaAuditDestination        destination = createDestination("user", false, producer);
+
+		assertTrue(destination.log(Collections.<AuditEventBase>singletonList(event)));
+		assertEquals(1, producer.history().size());
+		assertEquals("alice", producer.history().get(0).key());
+		assertTrue(producer.history().get(0).value().contains("kafka-test-1"));
+
+		destination.stop();
+	}
+
+	@Test
+	public void testFailedSendsAreStashedOnStop() throws Exception {
+		MockProducer<String, String> producer    = newProducer();
+		KafkaAuditDestination        destination = createDestination(null, true, producer);
+
+		assertTrue(destination.log(Arrays.<AuditEventBase>asList(createEvent("kafka-test-1"), createEvent("kafka-test-2"), createEvent("kafka-test-3"))));
+
+		assertTrue(producer.completeNext());
+		assertTrue(producer.errorNext(new TimeoutException("send failed")));
+
+		// the failure is stashed by the next log() or flush(); there is none before stop(), which sends kafka-test-3 by flushing the producer
+		destination.stop();
+
+		String spooled = readSpool();
+
+		assertEquals(1, destination.getFailedEventCount());
+		assertFalse(spooled.contains("kafka-test-1"));
+		assertTrue(spooled.contains("kafka-test-2"));
+		assertFalse(spooled.contains("kafka-test-3"));
+	}
+
+	@Test
+	public void testSendsFailedOnCloseAreStashed() throws Exception {
+		// a producer that can't reach the brokers: nothing is sent by flush(), and close() fails the records still pending
+		MockProducer<String, String> producer = new MockProducer<String, String>(false, new StringSerializer(), new StringSerializer()) {
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+				while (errorNext(new TimeoutException("producer closed"))) {
+					// fail all pending records
+				}
+
+				super.close();
+			}
+		};
+
+		KafkaAuditDestination destination = createDestination(null, true, producer);
+
+		assertTrue(destination.log(Arrays.<AuditEventBase>asList(createEvent("kafka-test-1"), createEvent("kafka-test-2"))));
+
+		destination.stop();
+
+		String spooled = readSpool();
+
+		assertEquals(2, destination.getFailedEventCount());
+		assertTrue(spooled.contains("kafka-test-1"));
+		assertTrue(spooled.contains("kafka-test-2"));
+
+		// events logged after stop() are left to the caller, without opening another producer
+		assertFalse(destination.log(Collections.<AuditEventBase>singletonList(createEvent("kafka-test-3"))));
+		assertEquals(2, producer.history().size());
+	}
+
+	@Test
+	public void testFailedSendsWithoutSpool() {
+		MockProducer<String, String> producer    = newProducer();
+		KafkaAuditDestination        destination = createDestination(null, false, producer);
+
+		assertTrue(destination.log(Arrays.<AuditEventBase>asList(createEvent("kafka-test-1"), createEvent("kafka-test-2"))));
+
+		assertTrue(producer.errorNext(new TimeoutException("send failed")));
+		assertTrue(producer.completeNext());
+
+		destination.stop();
+
+		assertEquals(1, destination.getFailedEventCount());
+		assertEquals(0, spoolDir.list().length);
+	}
+
+	private KafkaAuditDestination createDestination(String partitionKey, boolean withSpool, final Producer<String, String> producer) {
+		Properties props = new Properties();
+
+		if (partitionKey != null) {
+			props.setProperty(PROP_PREFIX + "." + KafkaAuditDestination.PROP_PARTITION_KEY, partitionKey);
+		}
+
+		if (withSpool) {
+			props.setProperty(PROP_PREFIX + "." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR, spoolDir.getAbsolutePath());
+		}
+
+		KafkaAuditDestination ret = new KafkaAuditDestination() {
+			@Override
+			Producer<String, String> createProducer(Map<String, Object> producerProps) {
+				return producer;
+			}
+		};
+
+		ret.init(props, PROP_PREFIX);
+
+		return ret;
+	}
+
+	private static MockProducer<String, String> newProducer() {
+		return new MockProducer<String, String>(false, new StringSerializer(), new StringSerializer());
+	}
+
+	private static AuthzAuditEvent createEvent(String eventId) {
+		AuthzAuditEvent ret = new AuthzAuditEvent();
+
+		ret.setEventId(eventId);
+		ret.setRepositoryName("hdfsdev");
+		ret.setResourcePath("/tmp/data");
+		ret.setUser("alice");
+
+		return ret;
+	}
+
+	// contents of the spool files, not including the index files
+	private String readSpool() throws Exception {
+		StringBuilder sb = new StringBuilder();
+
+		for (File file : spoolDir.listFiles()) {
+			if (file.isFile() && file.getName().endsWith(".log")) {
+				sb.append(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+			}
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.ranger.biz.RangerServiceVersionNotifier.VersionType;
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXServiceVersionInfoDao;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class TestRangerServiceVersionNotifier {
+	private static final long CHECK_INTERVAL_MS = 60 * 60 * 1000L; // keeps the scheduler out of the way; checkVersions() is called by the tests
+
+	private RangerServiceVersionNotifier notifier;
+	private List<Object[]>               versionRows;
+
+	@Before
+	public void setUp() {
+		PropertiesUtil.getPropertiesMap().put(RangerServiceVersionNotifier.CONFIG_CHECK_INTERVAL_MS, Long.toString(CHECK_INTERVAL_MS));
+		PropertiesUtil.getPropertiesMap().put(RangerServiceVersionNotifier.CONFIG_MAX_WAIT_MS, Long.toString(CHECK_INTERVAL_MS));
+		PropertiesUtil.getPropertiesMap().put(RangerServiceVersionNotifier.CONFIG_MAX_WAITERS, "10");
+		PropertiesUtil.getPropertiesMap().put(RangerServiceVersionNotifier.CONFIG_MAX_WAITERS_PER_SERVICE, "5");
+		PropertiesUtil.getPropertiesMap().put(RangerServiceVersionNotifier.CONFIG_MAX_WAITERS_PER_CLIENT, "2");
+
+		versionRows = new ArrayList<>();
+
+		XXServiceVersionInfoDao versionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+		RangerDaoManager        daoMgr         = Mockito.mock(RangerDaoManager.class);
+
+		Mockito.when(daoMgr.getXXServiceVersionInfo()).thenReturn(versionInfoDao);
+		Mockito.when(versionInfoDao.getAllWithServiceNames()).thenReturn(versionRows);
+
+		notifier           = new RangerServiceVersionNotifier();
+		notifier.daoMgr    = daoMgr;
+		notifier.txManager = Mockito.mock(PlatformTransactionManager.class);
+
+		notifier.init();
+	}
+
+	@After
+	public void tearDown() {
+		notifier.destroy();
+
+		PropertiesUtil.getPropertiesMap().remove(RangerServiceVersionNotifier.CONFIG_CHECK_INTERVAL_MS);
+		PropertiesUtil.getPropertiesMap().remove(RangerServiceVersionNotifier.CONFIG_MAX_WAIT_MS);
+		PropertiesUtil.getPropertiesMap().remove(RangerServiceVersionNotifier.CONFIG_MAX_WAITERS);
+		PropertiesUtil.getPropertiesMap().remove(RangerServiceVersionNotifier.CONFIG_MAX_WAITERS_PER_SERVICE);
+		PropertiesUtil.getPropertiesMap().remove(RangerServiceVersionNotifier.CONFIG_MAX_WAITERS_PER_CLIENT);
+	}
+
+	@Test
+	public void testWakeOnVersionBump() throws Exception {
+		setVersions("svc1", 5L, 3L);
+
+		Request policyRequest = new Request("10.0.0.1");
+		Request tagRequest    = new Request("10.0.0.1");
+
+		notifier.waitForUpdate("svc1", VersionType.POLICY, 5L, 60 * 1000L, policyRequest.asyncContext);
+		notifier.waitForUpdate("svc1", VersionType.TAG, 3L, 60 * 1000L, tagRequest.asyncContext);
+		notifier.checkVersions();
+
+		Assert.assertFalse(policyRequest.isCompleted());
+		Assert.assertFalse(tagRequest.isCompleted());
+
+		setVersions("svc1", 6L, 3L);
+		notifier.checkVersions();
+
+		policyRequest.assertCompleted(HttpServletResponse.SC_OK);
+		Assert.assertEquals("6", policyRequest.getBody());
+		Assert.assertFalse(tagRequest.isCompleted());
+
+		setVersions("svc1", 6L, 4L);
+		notifier.checkVersions();
+
+		tagRequest.assertCompleted(HttpServletResponse.SC_OK);
+		Assert.assertEquals("4", tagRequest.getBody());
+
+		// a plugin behind the current version is answered right away
+		Request behindRequest = new Request("10.0.0.1");
+
+		notifier.waitForUpdate("svc1", VersionType.POLICY, 2L, 60 * 1000L, behindRequest.asyncContext);
+
+		behindRequest.assertCompleted(HttpServletResponse.SC_OK);
+		Assert.assertEquals("6", behindRequest.getBody());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		setVersions("svc1", 5L, 3L);
+
+		Request request = new Request("10.0.0.1");
+
+		notifier.waitForUpdate("svc1", VersionType.POLICY, 5L, 60 * 1000L, request.asyncContext);
+		notifier.checkVersions(System.currentTimeMillis() + 30 * 1000L);
+
+		Assert.assertFalse(request.isCompleted());
+
+		// waits are at least one check interval long
+		notifier.checkVersions(System.currentTimeMillis() + CHECK_INTERVAL_MS + 1000L);
+
+		request.assertCompleted(HttpServletResponse.SC_NOT_MODIFIED);
+		Assert.assertEquals("", request.getBody());
+	}
+
+	@Test
+	public void testUnknownService() throws Exception {
+		setVersions("svc1", 5L, 3L);
+
+		Request request = new Request("10.0.0.1");
+
+		notifier.waitForUpdate("svc2", VersionType.POLICY, 5L, 60 * 1000L, request.asyncContext);
+		notifier.checkVersions();
+
+		request.assertCompleted(HttpServletResponse.SC_NOT_FOUND);
+	}
+
+	@Test
+	public void testWaiterLimits() throws Exception {
+		setVersions("svc1", 5L, 3L);
+		setVersions("svc2", 5L, 3L);
+
+		List<Request> waiting = new ArrayList<>();
+
+		// per client
+		for (int i = 0; i < 2; i++) {
+			Request request = new Request("10.0.0.1");
+
+			notifier.waitForUpdate("svc1", VersionType.POLICY, 5L, 60 * 1000L, request.asyncContext);
+			waiting.add(request);
+		}
+
+		Request rejected = new Request("10.0.0.1");
+
+		notifier.waitForUpdate("svc2", VersionType.POLICY, 5L, 60 * 1000L, rejected.asyncContext);
+
+		rejected.assertCompleted(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+		// per service
+		for (int i = 0; i < 3; i++) {
+			Request request = new Request("10.0.1." + i);
+
+			notifier.waitForUpdate("svc1", VersionType.TAG, 3L, 60 * 1000L, request.asyncContext);
+			waiting.add(request);
+		}
+
+		rejected = new Request("10.0.2.1");
+
+		notifier.waitForUpdate("svc1", VersionType.POLICY, 5L, 60 * 1000L, rejected.asyncContext);
+
+		rejected.assertCompleted(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+		// total
+		for (int i = 0; i < 5; i++) {
+			Request request = new Request("10.0.3." + i);
+
+			notifier.waitForUpdate("svc2", VersionType.POLICY, 5L, 60 * 1000L, request.asyncContext);
+			waiting.add(request);
+		}
+
+		rejected = new Request("10.0.4.1");
+
+		notifier.waitForUpdate("svc2", VersionType.TAG, 3L, 60 * 1000L, rejected.asyncContext);
+
+		rejected.assertCompleted(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+		for (Request request : waiting) {
+			Assert.assertFalse(request.isCompleted());
+		}
+
+		// slots are released when waiters complete
+		notifier.checkVersions(System.currentTimeMillis() + CHECK_INTERVAL_MS + 1000L);
+
+		for (Request request : waiting) {
+			request.assertCompleted(HttpServletResponse.SC_NOT_MODIFIED);
+		}
+
+		Request request = new Request("10.0.0.1");
+
+		notifier.waitForUpdate("svc1", VersionType.POLICY, 5L, 60 * 1000L, request.asyncContext);
+
+		Assert.assertFalse(request.isCompleted());
+	}
+
+	private void setVersions(String serviceName, Long policyVersion, Long tagVersion) {
+		XXServiceVersionInfo versionInfo = new XXServiceVersionInfo();
+
+		versionInfo.setPolicyVersion(policyVersion);
+		versionInfo.setTagVersion(tagVersion);
+
+		for (int i = 0; i < versionRows.size(); i++) {
+			if (serviceName.equals(versionRows.get(i)[1])) {
+				versionRows.set(i, new Object[] { versionInfo, serviceName });
+
+				return;
+			}
+		}
+
+		versionRows.add(new Object[] { versionInfo, serviceName });
+	}
+
+	private static class Request {
+		final AsyncContext        asyncContext = Mockito.mock(AsyncContext.class);
+		final HttpServletResponse response     = Mockito.mock(HttpServletResponse.class);
+		final StringWriter        body         = new StringWriter();
+
+		Request(String remoteAddr) throws Exception {
+			HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+			Mockito.when(request.getRemoteAddr()).thenReturn(remoteAddr);
+			Mockito.when(response.getWriter()).thenReturn(new PrintWriter(body, true));
+			Mockito.when(asyncContext.getRequest()).thenReturn(request);
+			Mockito.when(asyncContext.getResponse()).thenReturn(response);
+		}
+
+		boolean isCompleted() {
+			for (Invocation invocation : Mockito.mockingDetails(asyncContext).getInvocations()) {
+				if (invocation.getMethod().getName().equals("complete")) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		void assertCompleted(int status) {
+			Mockito.verify(response).setStatus(status);
+			Mockito.verify(asyncContext).complete();
+		}
+
+		String getBody() {
+			return body.toString();
+		}
+	}
+}
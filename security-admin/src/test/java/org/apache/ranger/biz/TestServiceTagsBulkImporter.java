@@ -0,0 +1,1103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.common.GUIDUtil;
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXServiceDao;
+import org.apache.ranger.db.XXServiceResourceDao;
+import org.apache.ranger.db.XXServiceVersionInfoDao;
+import org.apache.ranger.db.XXTagChangeLogDao;
+import org.apache.ranger.db.XXTagDao;
+import org.apache.ranger.db.XXTagDefDao;
+import org.apache.ranger.db.XXTagResourceMapDao;
+import org.apache.ranger.entity.XXDBBase;
+import org.apache.ranger.entity.XXService;
+import org.apache.ranger.entity.XXServiceResource;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.entity.XXTag;
+import org.apache.ranger.entity.XXTagDef;
+import org.apache.ranger.entity.XXTagResourceMap;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagResourceMap;
+import org.apache.ranger.plugin.store.RangerServiceResourceSignature;
+import org.apache.ranger.plugin.store.TagStore;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.rest.ServiceTagsProcessor;
+import org.apache.ranger.service.RangerServiceResourceService;
+import org.apache.ranger.service.RangerTagService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/*
+ * The DAOs the importer uses, and the TagStore ServiceTagsProcessor uses, are backed by in-memory tables, so that the
+ * rows the two write for the same upload can be compared.
+ */
+public class TestServiceTagsBulkImporter {
+	private static final Log LOG = LogFactory.getLog(TestServiceTagsBulkImporter.class);
+
+	private static final Long   SERVICE_ID         = 1L;
+	private static final Long   OTHER_SERVICE_ID   = 2L;
+	private static final String SERVICE_NAME       = "cl1_hive";
+	private static final String OTHER_SERVICE_NAME = "cl2_hive";
+	private static final String TAG_PII            = "PII";
+	private static final String TAG_FINANCE        = "FINANCE";
+	private static final String GENERATED_GUID     = "generated-";
+
+	private static final Map<String, Long> TAG_DEF_IDS = new HashMap<>();
+
+	static {
+		TAG_DEF_IDS.put(TAG_PII, 11L);
+		TAG_DEF_IDS.put(TAG_FINANCE, 12L);
+	}
+
+	@Mock
+	RangerDaoManager daoManager;
+
+	@Mock
+	GUIDUtil guidUtil;
+
+	@InjectMocks
+	RangerTagService rangerTagService = new RangerTagService();
+
+	@InjectMocks
+	RangerServiceResourceService rangerServiceResourceService = new RangerServiceResourceService();
+
+	private TagTables                  db;
+	private XXServiceVersionInfo       versionInfo;
+	private XXServiceVersionInfo       otherVersionInfo;
+	private XXServiceVersionInfoDao    versionInfoDao;
+	private XXServiceResourceDao       resourceDao;
+	private XXTagDao                   tagDao;
+	private XXTagResourceMapDao        tagResourceMapDao;
+	private PlatformTransactionManager txManager;
+	private TransactionStatus          txStatus;
+	private ServiceTagsBulkImporter    importer;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+
+		final AtomicInteger guidCount = new AtomicInteger();
+
+		Mockito.when(guidUtil.genGUID()).thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) {
+				return GENERATED_GUID + guidCount.incrementAndGet();
+			}
+		});
+
+		db               = new TagTables();
+		versionInfo      = newVersionInfo(SERVICE_ID, 5L);
+		otherVersionInfo = newVersionInfo(OTHER_SERVICE_ID, 7L);
+		txManager        = Mockito.mock(PlatformTransactionManager.class);
+		txStatus         = Mockito.mock(TransactionStatus.class);
+
+		Mockito.when(txManager.getTransaction(Mockito.any(TransactionDefinition.class))).thenReturn(txStatus);
+
+		mockDaos();
+
+		PropertiesUtil.getPropertiesMap().put(ServiceTagsBulkImporter.PROP_BULK_IMPORT_CHUNK_SIZE, "2");
+
+		importer = new ServiceTagsBulkImporter();
+
+		importer.tagStore                     = Mockito.mock(TagDBStore.class);
+		importer.rangerTagService             = rangerTagService;
+		importer.rangerServiceResourceService = rangerServiceResourceService;
+		importer.daoManager                   = daoManager;
+		importer.guidUtil                     = guidUtil;
+		importer.txManager                    = txManager;
+
+		importer.init();
+	}
+
+	@After
+	public void tearDown() {
+		PropertiesUtil.getPropertiesMap().remove(ServiceTagsBulkImporter.PROP_BULK_IMPORT_CHUNK_SIZE);
+	}
+
+	@Test
+	public void testReplace() throws Exception {
+		seed(db);
+
+		Long privateTagId = db.getTagByGuid("old-p1").getId();
+		Long sharedTagId  = db.getTagByGuid("tag-s1").getId();
+
+		importer.importServiceTags(newUpload(ServiceTags.OP_REPLACE));
+
+		// resources not in the upload are deleted, with their tag-resource-maps and private tags
+		Assert.assertNull(db.getResourceByGuid("res-3"));
+		Assert.assertNull(db.getTagByGuid("old-p2"));
+		Assert.assertNull(db.getTagByGuid("old-p3"));
+		Assert.assertNotNull(db.getResourceByGuid("res-9"));
+
+		for (XXTagResourceMap tagResourceMap : db.maps.values()) {
+			Assert.assertTrue(db.resources.containsKey(tagResourceMap.getResourceId()));
+			Assert.assertTrue(db.tags.containsKey(tagResourceMap.getTagId()));
+		}
+
+		// the private tag is updated in place when matched by guid; the shared tag is updated and stays with res-9
+		Assert.assertEquals("{\"dept\":\"finance\"}/" + sharedTagId + ",{\"level\":\"top\"}/" + privateTagId, getTags("res-1"));
+		Assert.assertTrue(getTags("res-9").contains("/" + sharedTagId));
+
+		// the shared tag created for res-4 in the first chunk is associated with res-5 in the second
+		Long newSharedTagId = db.getTagByGuid("tag-s2").getId();
+
+		Assert.assertTrue(getTags("res-4").contains("{\"dept\":\"hr\"}/" + newSharedTagId));
+		Assert.assertEquals("{\"dept\":\"hr\"}/" + newSharedTagId, getTags("res-5"));
+		Assert.assertEquals(6, db.tags.size());
+
+		// the tags stored with the resources are refreshed
+		Assert.assertTrue(db.getResourceByGuid("res-5").getTags().contains("tag-s2"));
+
+		// one transaction, and one tag-version bump for each affected service
+		Mockito.verify(txManager, Mockito.times(1)).getTransaction(Mockito.any(TransactionDefinition.class));
+		Mockito.verify(txManager).commit(txStatus);
+		Mockito.verify(versionInfoDao, Mockito.times(1)).update(versionInfo);
+		Mockito.verify(versionInfoDao, Mockito.times(1)).update(otherVersionInfo);
+
+		Assert.assertEquals(Long.valueOf(6L), versionInfo.getTagVersion());
+		Assert.assertEquals(Long.valueOf(8L), otherVersionInfo.getTagVersion());
+	}
+
+	@Test
+	public void testPrivateAndSharedTagMatching() throws Exception {
+		seed(db);
+
+		XXServiceResource resource   = db.getResourceByGuid("res-2");
+		XXTag             privateTag = db.getTagByGuid("old-p2");
+		XXTag             sharedTag  = db.getTagByGuid("tag-s1");
+
+		ServiceTags upload = newServiceTags(ServiceTags.OP_ADD_OR_UPDATE);
+
+		// a private tag without guid matches the private tag with the same type and attributes
+		addResource(upload, 1L, "res-2", "tbl2", newTag(null, TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "low"));
+
+		// a private tag that matches a shared tag on type and attributes doesn't replace it: a new private tag is created
+		addResource(upload, 1L, null, null, newTag(null, TAG_FINANCE, RangerTag.OWNER_SERVICERESOURCE, "dept", "fin"));
+
+		importer.importServiceTags(upload);
+
+		List<XXTag> tags = db.getTagsForResource(resource.getId());
+
+		Assert.assertEquals(2, tags.size());
+		Assert.assertSame(privateTag, tags.get(0));
+		Assert.assertEquals("{\"level\":\"low\"}", privateTag.getTagAttrs());
+		Assert.assertEquals(Short.valueOf(RangerTag.OWNER_SERVICERESOURCE), tags.get(1).getOwner());
+		Assert.assertEquals("{\"dept\":\"fin\"}", tags.get(1).getTagAttrs());
+		Assert.assertTrue(tags.get(1).getGuid().startsWith(GENERATED_GUID));
+
+		// the shared tag is no longer associated with res-2, but is kept for the other resources
+		Assert.assertSame(sharedTag, db.getTagByGuid("tag-s1"));
+		Assert.assertEquals("{\"dept\":\"fin\"}", sharedTag.getTagAttrs());
+		Assert.assertTrue(getTags("res-1").contains("/" + sharedTag.getId()));
+
+		// a shared tag is matched by guid only, and updated
+		upload = newServiceTags(ServiceTags.OP_ADD_OR_UPDATE);
+
+		addResource(upload, 1L, "res-2", "tbl2", newTag("tag-s1", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "finance"));
+
+		importer.importServiceTags(upload);
+
+		Assert.assertEquals("{\"dept\":\"finance\"}/" + sharedTag.getId(), getTags("res-2"));
+		Assert.assertEquals("{\"dept\":\"finance\"}", sharedTag.getTagAttrs());
+		Assert.assertNull(db.getTagByGuid("old-p2"));
+		Assert.assertEquals(3, db.tags.size());
+	}
+
+	@Test
+	public void testNoChanges() throws Exception {
+		seed(db);
+
+		importer.importServiceTags(newUpload(ServiceTags.OP_REPLACE));
+
+		String snapshot = db.getSnapshot();
+
+		importer.importServiceTags(newUpload(ServiceTags.OP_REPLACE));
+
+		// the tag-version is bumped by the first import only
+		Assert.assertEquals(snapshot, db.getSnapshot());
+		Assert.assertEquals(Long.valueOf(6L), versionInfo.getTagVersion());
+		Mockito.verify(versionInfoDao, Mockito.times(1)).update(versionInfo);
+	}
+
+	@Test
+	public void testRollbackOnFailure() throws Exception {
+		seed(db);
+
+		final AtomicInteger batchCount = new AtomicInteger();
+
+		// the second chunk fails
+		Mockito.doAnswer(new Answer<List<XXTag>>() {
+			@Override
+			public List<XXTag> answer(InvocationOnMock invocation) {
+				if (batchCount.incrementAndGet() == 2) {
+					throw new RuntimeException("simulated failure");
+				}
+
+				List<XXTag> tags = invocation.getArgument(0);
+
+				return db.insertAll(db.tags, tags);
+			}
+		}).when(tagDao).batchCreate(Mockito.<XXTag>anyList());
+
+		try {
+			importer.importServiceTags(newUpload(ServiceTags.OP_REPLACE));
+
+			Assert.fail("import should have failed");
+		} catch (RuntimeException excp) {
+			Assert.assertEquals("simulated failure", excp.getMessage());
+		}
+
+		// all the chunks are in one transaction, which is rolled back; the tag-version is not bumped
+		Mockito.verify(txManager, Mockito.times(1)).getTransaction(Mockito.any(TransactionDefinition.class));
+		Mockito.verify(txManager).rollback(txStatus);
+		Mockito.verify(txManager, Mockito.never()).commit(Mockito.any(TransactionStatus.class));
+		Mockito.verify(versionInfoDao, Mockito.never()).update(Mockito.any(XXServiceVersionInfo.class));
+
+		Assert.assertEquals(Long.valueOf(5L), versionInfo.getTagVersion());
+	}
+
+	@Test
+	public void testParityWithServiceTagsProcessor() throws Exception {
+		TagTables processorDb = new TagTables();
+
+		seed(db);
+		seed(processorDb);
+
+		Assert.assertEquals(db.getSnapshot(), processorDb.getSnapshot());
+
+		ServiceTagsProcessor processor = new ServiceTagsProcessor(newTagStore(processorDb));
+
+		importer.importServiceTags(newUpload(ServiceTags.OP_REPLACE));
+		processor.process(newUpload(ServiceTags.OP_REPLACE));
+
+		Assert.assertEquals(processorDb.getSnapshot(), db.getSnapshot());
+
+		// then an add-or-update, on top of the replace
+		importer.importServiceTags(newIncrementalUpload());
+		processor.process(newIncrementalUpload());
+
+		Assert.assertEquals(processorDb.getSnapshot(), db.getSnapshot());
+	}
+
+	// the number of DAO calls, which are the round trips to the database, grows with the number of chunks, not of resources
+	@Test
+	public void testImportThroughput() throws Exception {
+		final int resourceCount = 5000;
+		final int chunkSize     = 500;
+
+		PropertiesUtil.getPropertiesMap().put(ServiceTagsBulkImporter.PROP_BULK_IMPORT_CHUNK_SIZE, Integer.toString(chunkSize));
+
+		importer.init();
+
+		TagTables processorDb = new TagTables();
+		TagStore  tagStore    = newTagStore(processorDb);
+
+		long startTime = System.currentTimeMillis();
+
+		importer.importServiceTags(newLargeUpload(resourceCount));
+
+		long importerTime  = System.currentTimeMillis() - startTime;
+		int  importerCalls = getInvocationCount(resourceDao) + getInvocationCount(tagDao) + getInvocationCount(tagResourceMapDao);
+
+		startTime = System.currentTimeMillis();
+
+		new ServiceTagsProcessor(tagStore).process(newLargeUpload(resourceCount));
+
+		long processorTime  = System.currentTimeMillis() - startTime;
+		int  processorCalls = getInvocationCount(tagStore);
+
+		LOG.info("import of " + resourceCount + " resources: ServiceTagsBulkImporter: " + importerCalls + " DAO calls, " + importerTime + "ms; ServiceTagsProcessor: " + processorCalls + " TagStore calls, " + processorTime + "ms");
+
+		Assert.assertEquals(processorDb.getSnapshot(), db.getSnapshot());
+		Assert.assertEquals(resourceCount, db.resources.size());
+		Assert.assertEquals(resourceCount + 1, db.tags.size());
+		Assert.assertEquals(2 * resourceCount, db.maps.size());
+		Assert.assertTrue("DAO calls: " + importerCalls, importerCalls <= 20 * (resourceCount / chunkSize));
+		Assert.assertTrue("TagStore calls: " + processorCalls, processorCalls > resourceCount);
+	}
+
+	/*
+	 * res-1: private PII old-p1, shared FINANCE tag-s1
+	 * res-2: private PII old-p2, shared FINANCE tag-s1
+	 * res-3: private PII old-p3, shared FINANCE tag-s1
+	 * res-9, of another service: shared FINANCE tag-s1
+	 */
+	private void seed(TagTables db) {
+		XXServiceResource res1 = addResource(db, SERVICE_ID, SERVICE_NAME, "res-1", "tbl1");
+		XXServiceResource res2 = addResource(db, SERVICE_ID, SERVICE_NAME, "res-2", "tbl2");
+		XXServiceResource res3 = addResource(db, SERVICE_ID, SERVICE_NAME, "res-3", "tbl3");
+		XXServiceResource res9 = addResource(db, OTHER_SERVICE_ID, OTHER_SERVICE_NAME, "res-9", "tbl9");
+		XXTag             tagS1 = addTag(db, newTag("tag-s1", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "fin"));
+
+		addTagResourceMap(db, addTag(db, newTag("old-p1", TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "high")), res1);
+		addTagResourceMap(db, tagS1, res1);
+		addTagResourceMap(db, addTag(db, newTag("old-p2", TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "low")), res2);
+		addTagResourceMap(db, tagS1, res2);
+		addTagResourceMap(db, addTag(db, newTag("old-p3", TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "high")), res3);
+		addTagResourceMap(db, tagS1, res3);
+		addTagResourceMap(db, tagS1, res9);
+	}
+
+	/*
+	 * in chunks of 2: res-2, res-4 | res-1, res-5
+	 * res-2: private FINANCE, which matches shared tag-s1 on attributes; private PII, which doesn't match old-p2
+	 * res-4: new shared FINANCE tag-s2; private PII
+	 * res-1: private PII old-p1, by guid, with new attributes; shared tag-s1, with new attributes
+	 * res-5: shared FINANCE tag-s2, created in the previous chunk
+	 */
+	private ServiceTags newUpload(String op) {
+		ServiceTags ret   = newServiceTags(op);
+		RangerTag   tagS2 = newTag("tag-s2", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "hr");
+
+		addResource(ret, 1L, "res-2", "tbl2", newTag(null, TAG_FINANCE, RangerTag.OWNER_SERVICERESOURCE, "dept", "fin"), newTag(null, TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "medium"));
+		addResource(ret, 2L, "res-4", "tbl4", tagS2, newTag(null, TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "high"));
+		addResource(ret, 3L, "res-1", "tbl1", newTag("old-p1", TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "top"), newTag("tag-s1", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "finance"));
+		addResource(ret, 4L, "res-5", "tbl5", tagS2);
+
+		return ret;
+	}
+
+	// res-4 loses its private tag; res-6, found by signature, gets one; res-5 gets shared tag-s1
+	private ServiceTags newIncrementalUpload() {
+		ServiceTags ret = newServiceTags(ServiceTags.OP_ADD_OR_UPDATE);
+
+		addResource(ret, 1L, "res-4", "tbl4", newTag("tag-s2", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "hr"));
+		addResource(ret, 2L, "res-6", "tbl6", newTag(null, TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "high"));
+		addResource(ret, 3L, "res-5", "tbl5", newTag("tag-s2", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "hr"), newTag("tag-s1", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "finance"));
+		addResource(ret, 4L, null, "tbl6", newTag(null, TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", "low"));
+
+		return ret;
+	}
+
+	// each resource with a private tag, and a shared tag
+	private ServiceTags newLargeUpload(int resourceCount) {
+		ServiceTags ret       = newServiceTags(ServiceTags.OP_REPLACE);
+		RangerTag   sharedTag = newTag("tag-shared", TAG_FINANCE, RangerTag.OWNER_GLOBAL, "dept", "fin");
+
+		for (int i = 0; i < resourceCount; i++) {
+			addResource(ret, (long) i, "res-" + i, "tbl" + i, sharedTag, newTag(null, TAG_PII, RangerTag.OWNER_SERVICERESOURCE, "level", Integer.toString(i % 3)));
+		}
+
+		return ret;
+	}
+
+	private ServiceTags newServiceTags(String op) {
+		ServiceTags ret = new ServiceTags();
+
+		ret.setOp(op);
+		ret.setServiceName(SERVICE_NAME);
+		ret.setServiceResources(new ArrayList<RangerServiceResource>());
+		ret.setTags(new LinkedHashMap<Long, RangerTag>());
+		ret.setResourceToTagIds(new LinkedHashMap<Long, List<Long>>());
+
+		return ret;
+	}
+
+	// with a null table, adds the tags to the resource already added with the id
+	private void addResource(ServiceTags serviceTags, Long resourceId, String guid, String table, RangerTag... tags) {
+		if (table != null) {
+			RangerServiceResource resource = newResource(guid, SERVICE_NAME, table);
+
+			resource.setId(resourceId);
+
+			serviceTags.getServiceResources().add(resource);
+			serviceTags.getResourceToTagIds().put(resourceId, new ArrayList<Long>());
+		}
+
+		for (RangerTag tag : tags) {
+			Long tagId = (long) serviceTags.getTags().size() + 1;
+
+			serviceTags.getTags().put(tagId, tag);
+			serviceTags.getResourceToTagIds().get(resourceId).add(tagId);
+		}
+	}
+
+	private RangerServiceResource newResource(String guid, String serviceName, String table) {
+		Map<String, RangerPolicyResource> resourceElements = new HashMap<>();
+
+		resourceElements.put("database", new RangerPolicyResource("db1"));
+		resourceElements.put("table", new RangerPolicyResource(table));
+
+		return new RangerServiceResource(guid, serviceName, resourceElements);
+	}
+
+	private RangerTag newTag(String guid, String type, short owner, String attrName, String attrValue) {
+		Map<String, String> attributes = new HashMap<>();
+
+		attributes.put(attrName, attrValue);
+
+		return new RangerTag(guid, type, attributes, owner);
+	}
+
+	private XXServiceResource addResource(TagTables db, Long serviceId, String serviceName, String guid, String table) {
+		RangerServiceResource resource = newResource(guid, serviceName, table);
+
+		resource.setResourceSignature(new RangerServiceResourceSignature(resource).getSignature());
+
+		return db.insert(db.resources, rangerServiceResourceService.getEntityForCreate(resource, serviceId));
+	}
+
+	private XXTag addTag(TagTables db, RangerTag tag) {
+		return db.insert(db.tags, rangerTagService.getEntityForCreate(tag, TAG_DEF_IDS.get(tag.getType())));
+	}
+
+	private XXTagResourceMap addTagResourceMap(TagTables db, XXTag tag, XXServiceResource resource) {
+		XXTagResourceMap ret = new XXTagResourceMap();
+
+		ret.setGuid(guidUtil.genGUID());
+		ret.setTagId(tag.getId());
+		ret.setResourceId(resource.getId());
+
+		return db.insert(db.maps, ret);
+	}
+
+	// attributes/id of each tag of the resource
+	private String getTags(String resourceGuid) {
+		List<String> ret = new ArrayList<>();
+
+		for (XXTag tag : db.getTagsForResource(db.getResourceByGuid(resourceGuid).getId())) {
+			ret.add(tag.getTagAttrs() + "/" + tag.getId());
+		}
+
+		return StringUtils.join(ret, ",");
+	}
+
+	private XXServiceVersionInfo newVersionInfo(Long serviceId, Long tagVersion) {
+		XXServiceVersionInfo ret = new XXServiceVersionInfo();
+
+		ret.setServiceId(serviceId);
+		ret.setPolicyVersion(1L);
+		ret.setTagVersion(tagVersion);
+
+		return ret;
+	}
+
+	private XXService newService(Long id, String name) {
+		XXService ret = new XXService();
+
+		ret.setId(id);
+		ret.setName(name);
+
+		return ret;
+	}
+
+	private XXTagDef newTagDef(String name) {
+		XXTagDef ret = new XXTagDef();
+
+		ret.setId(TAG_DEF_IDS.get(name));
+		ret.setName(name);
+
+		return ret;
+	}
+
+	private static int getInvocationCount(Object mock) {
+		return Mockito.mockingDetails(mock).getInvocations().size();
+	}
+
+	private void mockDaos() {
+		XXServiceDao      serviceDao   = Mockito.mock(XXServiceDao.class);
+		XXTagDefDao       tagDefDao    = Mockito.mock(XXTagDefDao.class);
+		XXTagChangeLogDao changeLogDao = Mockito.mock(XXTagChangeLogDao.class);
+
+		versionInfoDao    = Mockito.mock(XXServiceVersionInfoDao.class);
+		resourceDao       = Mockito.mock(XXServiceResourceDao.class);
+		tagDao            = Mockito.mock(XXTagDao.class);
+		tagResourceMapDao = Mockito.mock(XXTagResourceMapDao.class);
+
+		Mockito.when(daoManager.getEntityManager()).thenReturn(Mockito.mock(EntityManager.class));
+		Mockito.when(daoManager.getXXService()).thenReturn(serviceDao);
+		Mockito.when(daoManager.getXXTagDef()).thenReturn(tagDefDao);
+		Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(versionInfoDao);
+		Mockito.when(daoManager.getXXTagChangeLog()).thenReturn(changeLogDao);
+		Mockito.when(daoManager.getXXServiceResource()).thenReturn(resourceDao);
+		Mockito.when(daoManager.getXXTag()).thenReturn(tagDao);
+		Mockito.when(daoManager.getXXTagResourceMap()).thenReturn(tagResourceMapDao);
+
+		Mockito.when(serviceDao.findByName(SERVICE_NAME)).thenReturn(newService(SERVICE_ID, SERVICE_NAME));
+		Mockito.when(serviceDao.getById(SERVICE_ID)).thenReturn(newService(SERVICE_ID, SERVICE_NAME));
+		Mockito.when(serviceDao.getById(OTHER_SERVICE_ID)).thenReturn(newService(OTHER_SERVICE_ID, OTHER_SERVICE_NAME));
+		Mockito.when(versionInfoDao.findByServiceId(SERVICE_ID)).thenReturn(versionInfo);
+		Mockito.when(versionInfoDao.findByServiceId(OTHER_SERVICE_ID)).thenReturn(otherVersionInfo);
+
+		for (String tagType : TAG_DEF_IDS.keySet()) {
+			XXTagDef tagDef = newTagDef(tagType);
+
+			Mockito.when(tagDefDao.findByName(tagType)).thenReturn(tagDef);
+			Mockito.when(tagDefDao.getById(tagDef.getId())).thenReturn(tagDef);
+		}
+
+		// resources
+		Mockito.when(resourceDao.findByGuids(Mockito.<String>anyList())).thenAnswer(new Answer<List<XXServiceResource>>() {
+			@Override
+			public List<XXServiceResource> answer(InvocationOnMock invocation) {
+				Set<String>             guids = new HashSet<>(invocation.<List<String>>getArgument(0));
+				List<XXServiceResource> ret   = new ArrayList<>();
+
+				for (XXServiceResource resource : db.resources.values()) {
+					if (guids.contains(resource.getGuid())) {
+						ret.add(resource);
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		Mockito.when(resourceDao.findByServiceAndResourceSignatures(Mockito.anyLong(), Mockito.<String>anyList())).thenAnswer(new Answer<List<XXServiceResource>>() {
+			@Override
+			public List<XXServiceResource> answer(InvocationOnMock invocation) {
+				Long                    serviceId  = invocation.getArgument(0);
+				List<String>            signatures = invocation.getArgument(1);
+				List<XXServiceResource> ret        = new ArrayList<>();
+
+				for (XXServiceResource resource : db.resources.values()) {
+					if (serviceId.equals(resource.getServiceId()) && signatures.contains(resource.getResourceSignature())) {
+						ret.add(resource);
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		Mockito.when(resourceDao.findServiceResourceGuidsInServiceId(Mockito.anyLong())).thenAnswer(new Answer<List<String>>() {
+			@Override
+			public List<String> answer(InvocationOnMock invocation) {
+				Long         serviceId = invocation.getArgument(0);
+				List<String> ret       = new ArrayList<>();
+
+				for (XXServiceResource resource : db.resources.values()) {
+					if (serviceId.equals(resource.getServiceId())) {
+						ret.add(resource.getGuid());
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		Mockito.when(resourceDao.findServiceIdsForTagIds(Mockito.<Long>anyList())).thenAnswer(new Answer<List<Long>>() {
+			@Override
+			public List<Long> answer(InvocationOnMock invocation) {
+				List<Long> tagIds = invocation.getArgument(0);
+				Set<Long>  ret    = new LinkedHashSet<>();
+
+				for (XXTagResourceMap tagResourceMap : db.maps.values()) {
+					if (tagIds.contains(tagResourceMap.getTagId())) {
+						ret.add(db.resources.get(tagResourceMap.getResourceId()).getServiceId());
+					}
+				}
+
+				return new ArrayList<>(ret);
+			}
+		});
+
+		Mockito.when(resourceDao.batchCreate(Mockito.<XXServiceResource>anyList())).thenAnswer(new Answer<List<XXServiceResource>>() {
+			@Override
+			public List<XXServiceResource> answer(InvocationOnMock invocation) {
+				List<XXServiceResource> resources = invocation.getArgument(0);
+
+				return db.insertAll(db.resources, resources);
+			}
+		});
+
+		Mockito.when(resourceDao.batchUpdate(Mockito.<XXServiceResource>anyList())).thenAnswer(new Answer<List<XXServiceResource>>() {
+			@Override
+			public List<XXServiceResource> answer(InvocationOnMock invocation) {
+				List<XXServiceResource> resources = invocation.getArgument(0);
+
+				return db.updateAll(db.resources, resources);
+			}
+		});
+
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				List<XXServiceResource> resources = invocation.getArgument(0);
+
+				db.removeAll(db.resources, resources);
+
+				return null;
+			}
+		}).when(resourceDao).batchRemove(Mockito.<XXServiceResource>anyList());
+
+		// tags
+		Mockito.when(tagDao.findByGuids(Mockito.<String>anyList())).thenAnswer(new Answer<List<XXTag>>() {
+			@Override
+			public List<XXTag> answer(InvocationOnMock invocation) {
+				Set<String> guids = new HashSet<>(invocation.<List<String>>getArgument(0));
+				List<XXTag> ret   = new ArrayList<>();
+
+				for (XXTag tag : db.tags.values()) {
+					if (guids.contains(tag.getGuid())) {
+						ret.add(tag);
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		Mockito.when(tagDao.findByResourceIds(Mockito.<Long>anyList())).thenAnswer(new Answer<List<XXTag>>() {
+			@Override
+			public List<XXTag> answer(InvocationOnMock invocation) {
+				Set<Long>        resourceIds = new HashSet<>(invocation.<List<Long>>getArgument(0));
+				Map<Long, XXTag> ret         = new TreeMap<>();
+
+				for (XXTagResourceMap tagResourceMap : db.maps.values()) {
+					if (resourceIds.contains(tagResourceMap.getResourceId())) {
+						ret.put(tagResourceMap.getTagId(), db.tags.get(tagResourceMap.getTagId()));
+					}
+				}
+
+				return new ArrayList<>(ret.values());
+			}
+		});
+
+		Mockito.when(tagDao.batchCreate(Mockito.<XXTag>anyList())).thenAnswer(new Answer<List<XXTag>>() {
+			@Override
+			public List<XXTag> answer(InvocationOnMock invocation) {
+				List<XXTag> tags = invocation.getArgument(0);
+
+				return db.insertAll(db.tags, tags);
+			}
+		});
+
+		Mockito.when(tagDao.batchUpdate(Mockito.<XXTag>anyList())).thenAnswer(new Answer<List<XXTag>>() {
+			@Override
+			public List<XXTag> answer(InvocationOnMock invocation) {
+				List<XXTag> tags = invocation.getArgument(0);
+
+				return db.updateAll(db.tags, tags);
+			}
+		});
+
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				List<XXTag> tags = invocation.getArgument(0);
+
+				db.removeAll(db.tags, tags);
+
+				return null;
+			}
+		}).when(tagDao).batchRemove(Mockito.<XXTag>anyList());
+
+		// tag-resource-maps
+		Mockito.when(tagResourceMapDao.findByResourceIds(Mockito.<Long>anyList())).thenAnswer(new Answer<List<XXTagResourceMap>>() {
+			@Override
+			public List<XXTagResourceMap> answer(InvocationOnMock invocation) {
+				Set<Long>              resourceIds = new HashSet<>(invocation.<List<Long>>getArgument(0));
+				List<XXTagResourceMap> ret         = new ArrayList<>();
+
+				for (XXTagResourceMap tagResourceMap : db.maps.values()) {
+					if (resourceIds.contains(tagResourceMap.getResourceId())) {
+						ret.add(tagResourceMap);
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		Mockito.when(tagResourceMapDao.batchCreate(Mockito.<XXTagResourceMap>anyList())).thenAnswer(new Answer<List<XXTagResourceMap>>() {
+			@Override
+			public List<XXTagResourceMap> answer(InvocationOnMock invocation) {
+				List<XXTagResourceMap> tagResourceMaps = invocation.getArgument(0);
+
+				return db.insertAll(db.maps, tagResourceMaps);
+			}
+		});
+
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				List<XXTagResourceMap> tagResourceMaps = invocation.getArgument(0);
+
+				db.removeAll(db.maps, tagResourceMaps);
+
+				return null;
+			}
+		}).when(tagResourceMapDao).batchRemove(Mockito.<XXTagResourceMap>anyList());
+	}
+
+	// the TagStore methods ServiceTagsProcessor calls, with the semantics of TagDBStore
+	private TagStore newTagStore(final TagTables db) throws Exception {
+		TagStore tagStore = Mockito.mock(TagStore.class);
+
+		Mockito.when(tagStore.getServiceResourceByGuid(Mockito.anyString())).thenAnswer(new Answer<RangerServiceResource>() {
+			@Override
+			public RangerServiceResource answer(InvocationOnMock invocation) {
+				String guid = invocation.getArgument(0);
+
+				return toView(db.getResourceByGuid(guid));
+			}
+		});
+
+		Mockito.when(tagStore.getServiceResourceByServiceAndResourceSignature(Mockito.anyString(), Mockito.anyString())).thenAnswer(new Answer<RangerServiceResource>() {
+			@Override
+			public RangerServiceResource answer(InvocationOnMock invocation) {
+				String signature = invocation.getArgument(1);
+
+				for (XXServiceResource resource : db.resources.values()) {
+					if (SERVICE_ID.equals(resource.getServiceId()) && signature.equals(resource.getResourceSignature())) {
+						return toView(resource);
+					}
+				}
+
+				return null;
+			}
+		});
+
+		Mockito.when(tagStore.getServiceResourceGuidsByService(SERVICE_NAME)).thenAnswer(new Answer<List<String>>() {
+			@Override
+			public List<String> answer(InvocationOnMock invocation) {
+				List<String> ret = new ArrayList<>();
+
+				for (XXServiceResource resource : db.resources.values()) {
+					if (SERVICE_ID.equals(resource.getServiceId())) {
+						ret.add(resource.getGuid());
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		Mockito.when(tagStore.createServiceResource(Mockito.any(RangerServiceResource.class))).thenAnswer(new Answer<RangerServiceResource>() {
+			@Override
+			public RangerServiceResource answer(InvocationOnMock invocation) {
+				RangerServiceResource resource = invocation.getArgument(0);
+
+				if (StringUtils.isEmpty(resource.getResourceSignature())) {
+					resource.setResourceSignature(new RangerServiceResourceSignature(resource).getSignature());
+				}
+
+				return toView(db.insert(db.resources, rangerServiceResourceService.getEntityForCreate(resource, SERVICE_ID)));
+			}
+		});
+
+		Mockito.when(tagStore.updateServiceResource(Mockito.any(RangerServiceResource.class))).thenAnswer(new Answer<RangerServiceResource>() {
+			@Override
+			public RangerServiceResource answer(InvocationOnMock invocation) {
+				RangerServiceResource resource = invocation.getArgument(0);
+				XXServiceResource     existing = db.resources.get(resource.getId());
+
+				if (StringUtils.isEmpty(resource.getResourceSignature())) {
+					resource.setResourceSignature(new RangerServiceResourceSignature(resource).getSignature());
+				}
+
+				resource.setGuid(existing.getGuid());
+				resource.setVersion(existing.getVersion());
+
+				return toView(rangerServiceResourceService.getEntityForUpdate(resource, existing, SERVICE_ID));
+			}
+		});
+
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				String guid = invocation.getArgument(0);
+
+				db.resources.remove(db.getResourceByGuid(guid).getId());
+
+				return null;
+			}
+		}).when(tagStore).deleteServiceResourceByGuid(Mockito.anyString());
+
+		Mockito.when(tagStore.getTagByGuid(Mockito.anyString())).thenAnswer(new Answer<RangerTag>() {
+			@Override
+			public RangerTag answer(InvocationOnMock invocation) {
+				String guid = invocation.getArgument(0);
+				XXTag  tag  = db.getTagByGuid(guid);
+
+				return tag != null ? rangerTagService.getPopulatedViewObject(tag) : null;
+			}
+		});
+
+		Mockito.when(tagStore.getTagsForResourceId(Mockito.anyLong())).thenAnswer(new Answer<List<RangerTag>>() {
+			@Override
+			public List<RangerTag> answer(InvocationOnMock invocation) {
+				Long            resourceId = invocation.getArgument(0);
+				List<RangerTag> ret        = new ArrayList<>();
+
+				for (XXTag tag : db.getTagsForResource(resourceId)) {
+					ret.add(rangerTagService.getPopulatedViewObject(tag));
+				}
+
+				return ret;
+			}
+		});
+
+		Mockito.when(tagStore.createTag(Mockito.any(RangerTag.class))).thenAnswer(new Answer<RangerTag>() {
+			@Override
+			public RangerTag answer(InvocationOnMock invocation) {
+				RangerTag tag = invocation.getArgument(0);
+
+				return rangerTagService.getPopulatedViewObject(db.insert(db.tags, rangerTagService.getEntityForCreate(tag, TAG_DEF_IDS.get(tag.getType()))));
+			}
+		});
+
+		Mockito.when(tagStore.updateTag(Mockito.any(RangerTag.class))).thenAnswer(new Answer<RangerTag>() {
+			@Override
+			public RangerTag answer(InvocationOnMock invocation) {
+				RangerTag tag      = invocation.getArgument(0);
+				XXTag     existing = db.tags.get(tag.getId());
+
+				tag.setGuid(existing.getGuid());
+				tag.setVersion(existing.getVersion());
+
+				return rangerTagService.getPopulatedViewObject(rangerTagService.getEntityForUpdate(tag, existing, TAG_DEF_IDS.get(tag.getType())));
+			}
+		});
+
+		Mockito.when(tagStore.createTagResourceMap(Mockito.any(RangerTagResourceMap.class))).thenAnswer(new Answer<RangerTagResourceMap>() {
+			@Override
+			public RangerTagResourceMap answer(InvocationOnMock invocation) {
+				RangerTagResourceMap tagResourceMap = invocation.getArgument(0);
+				XXTagResourceMap     xTagResourceMap = new XXTagResourceMap();
+
+				xTagResourceMap.setGuid(guidUtil.genGUID());
+				xTagResourceMap.setTagId(tagResourceMap.getTagId());
+				xTagResourceMap.setResourceId(tagResourceMap.getResourceId());
+
+				return toView(db.insert(db.maps, xTagResourceMap));
+			}
+		});
+
+		Mockito.when(tagStore.getTagResourceMapForTagAndResourceId(Mockito.anyLong(), Mockito.anyLong())).thenAnswer(new Answer<RangerTagResourceMap>() {
+			@Override
+			public RangerTagResourceMap answer(InvocationOnMock invocation) {
+				Long tagId      = invocation.getArgument(0);
+				Long resourceId = invocation.getArgument(1);
+
+				for (XXTagResourceMap tagResourceMap : db.maps.values()) {
+					if (tagId.equals(tagResourceMap.getTagId()) && resourceId.equals(tagResourceMap.getResourceId())) {
+						return toView(tagResourceMap);
+					}
+				}
+
+				return null;
+			}
+		});
+
+		Mockito.when(tagStore.getTagResourceMapsForResourceGuid(Mockito.anyString())).thenAnswer(new Answer<List<RangerTagResourceMap>>() {
+			@Override
+			public List<RangerTagResourceMap> answer(InvocationOnMock invocation) {
+				String                     guid       = invocation.getArgument(0);
+				Long                       resourceId = db.getResourceByGuid(guid).getId();
+				List<RangerTagResourceMap> ret        = new ArrayList<>();
+
+				for (XXTagResourceMap tagResourceMap : db.maps.values()) {
+					if (resourceId.equals(tagResourceMap.getResourceId())) {
+						ret.add(toView(tagResourceMap));
+					}
+				}
+
+				return ret;
+			}
+		});
+
+		// as TagDBStore.deleteTagResourceMap(), deletes private tags along with their tag-resource-map
+		Mockito.doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				Long             id             = invocation.getArgument(0);
+				XXTagResourceMap tagResourceMap = db.maps.remove(id);
+				XXTag            tag            = db.tags.get(tagResourceMap.getTagId());
+
+				if (tag.getOwner() == RangerTag.OWNER_SERVICERESOURCE) {
+					db.tags.remove(tag.getId());
+				}
+
+				return null;
+			}
+		}).when(tagStore).deleteTagResourceMap(Mockito.anyLong());
+
+		return tagStore;
+	}
+
+	private static RangerServiceResource toView(XXServiceResource resource) {
+		RangerServiceResource ret = null;
+
+		if (resource != null) {
+			ret = new RangerServiceResource();
+
+			ret.setId(resource.getId());
+			ret.setGuid(resource.getGuid());
+			ret.setVersion(resource.getVersion());
+			ret.setServiceName(SERVICE_NAME);
+			ret.setResourceSignature(resource.getResourceSignature());
+		}
+
+		return ret;
+	}
+
+	private static RangerTagResourceMap toView(XXTagResourceMap tagResourceMap) {
+		RangerTagResourceMap ret = new RangerTagResourceMap();
+
+		ret.setId(tagResourceMap.getId());
+		ret.setGuid(tagResourceMap.getGuid());
+		ret.setTagId(tagResourceMap.getTagId());
+		ret.setResourceId(tagResourceMap.getResourceId());
+
+		return ret;
+	}
+
+	private static class TagTables {
+		final Map<Long, XXServiceResource> resources = new TreeMap<>();
+		final Map<Long, XXTag>             tags      = new TreeMap<>();
+		final Map<Long, XXTagResourceMap>  maps      = new TreeMap<>();
+		private long                       nextId    = 100;
+
+		<T extends XXDBBase> T insert(Map<Long, T> table, T obj) {
+			obj.setId(nextId++);
+
+			table.put(obj.getId(), obj);
+
+			return obj;
+		}
+
+		<T extends XXDBBase> List<T> insertAll(Map<Long, T> table, List<T> objs) {
+			for (T obj : objs) {
+				insert(table, obj);
+			}
+
+			return objs;
+		}
+
+		<T extends XXDBBase> List<T> updateAll(Map<Long, T> table, List<T> objs) {
+			for (T obj : objs) {
+				Assert.assertTrue("update of a row not in the table", table.containsKey(obj.getId()));
+
+				table.put(obj.getId(), obj);
+			}
+
+			return objs;
+		}
+
+		<T extends XXDBBase> void removeAll(Map<Long, T> table, Collection<T> objs) {
+			for (T obj : objs) {
+				table.remove(obj.getId());
+			}
+		}
+
+		XXServiceResource getResourceByGuid(String guid) {
+			for (XXServiceResource resource : resources.values()) {
+				if (StringUtils.equals(guid, resource.getGuid())) {
+					return resource;
+				}
+			}
+
+			return null;
+		}
+
+		XXTag getTagByGuid(String guid) {
+			for (XXTag tag : tags.values()) {
+				if (StringUtils.equals(guid, tag.getGuid())) {
+					return tag;
+				}
+			}
+
+			return null;
+		}
+
+		// ordered by id, as TagStore.getTagsForResourceId() returns them
+		List<XXTag> getTagsForResource(Long resourceId) {
+			Map<Long, XXTag> ret = new TreeMap<>();
+
+			for (XXTagResourceMap tagResourceMap : maps.values()) {
+				if (resourceId.equals(tagResourceMap.getResourceId())) {
+					ret.put(tagResourceMap.getTagId(), tags.get(tagResourceMap.getTagId()));
+				}
+			}
+
+			return new ArrayList<>(ret.values());
+		}
+
+		// the rows, without the ids and generated guids, which differ between imports of the same upload
+		String getSnapshot() {
+			List<String> ret = new ArrayList<>();
+
+			for (XXServiceResource resource : resources.values()) {
+				List<String> resourceTags = new ArrayList<>();
+
+				for (XXTag tag : getTagsForResource(resource.getId())) {
+					resourceTags.add(describe(tag));
+				}
+
+				Collections.sort(resourceTags);
+
+				ret.add("resource: guid=" + resource.getGuid() + ", serviceId=" + resource.getServiceId() + ", signature=" + resource.getResourceSignature() +
+				        ", isEnabled=" + resource.getIsEnabled() + ", elements=" + resource.getServiceResourceElements() + ", tags=" + resourceTags);
+			}
+
+			for (XXTag tag : tags.values()) {
+				ret.add("tag: " + describe(tag));
+			}
+
+			Collections.sort(ret);
+
+			ret.add("tag-resource-maps: " + maps.size());
+
+			return StringUtils.join(ret, "\n");
+		}
+
+		private static String describe(XXTag tag) {
+			String guid = tag.getGuid().startsWith(GENERATED_GUID) ? GENERATED_GUID : tag.getGuid();
+
+			return "{guid=" + guid + ", type=" + tag.getType() + ", owner=" + tag.getOwner() + ", attrs=" + tag.getTagAttrs() + ", options=" + tag.getOptions() + "}";
+		}
+	}
+}
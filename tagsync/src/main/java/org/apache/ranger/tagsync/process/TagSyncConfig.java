@@ -68,6 +68,10 @@ public class TagSyncConfig extends Configuration {
 
 	private static final String TAGSYNC_SOURCE_ATLAS_CUSTOM_RESOURCE_MAPPERS_PROP = "ranger.tagsync.atlas.custom.resource.mappers";
 
+	private static final String TAGSYNC_ATLAS_SOURCE_BATCH_SIZE_PROP = "ranger.tagsync.source.atlas.batch.size";
+
+	private static final String TAGSYNC_ATLAS_SOURCE_BATCH_INTERVAL_PROP = "ranger.tagsync.source.atlas.batch.interval.millis";
+
 	private static final String TAGSYNC_ATLASSOURCE_ENDPOINT_PROP = "ranger.tagsync.source.atlasrest.endpoint";
 
 	private static final String TAGSYNC_ATLAS_REST_SOURCE_DOWNLOAD_INTERVAL_PROP = "ranger.tagsync.source.atlasrest.download.interval.millis";
@@ -92,6 +96,8 @@ public class TagSyncConfig extends Configuration {
 	private static final long DEFAULT_TAGSYNC_ATLASREST_SOURCE_DOWNLOAD_INTERVAL = 900000;
 	private static final long DEFAULT_TAGSYNC_FILESOURCE_MOD_TIME_CHECK_INTERVAL = 60000;
 	private static final long DEFAULT_TAGSYNC_SOURCE_RETRY_INITIALIZATION_INTERVAL = 10000;
+	private static final int DEFAULT_TAGSYNC_ATLAS_SOURCE_BATCH_SIZE = 1000;
+	private static final long DEFAULT_TAGSYNC_ATLAS_SOURCE_BATCH_INTERVAL = 1000;
 
 	private static final String AUTH_TYPE = "hadoop.security.authentication";
 	private static final String NAME_RULES = "hadoop.security.auth_to_local";
@@ -243,6 +249,32 @@ public class TagSyncConfig extends Configuration {
 		return ret;
 	}
 
+	static public int getTagSourceAtlasBatchSize(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLAS_SOURCE_BATCH_SIZE_PROP);
+		int ret = DEFAULT_TAGSYNC_ATLAS_SOURCE_BATCH_SIZE;
+		if (StringUtils.isNotBlank(val)) {
+			try {
+				ret = Integer.valueOf(val);
+			} catch (NumberFormatException exception) {
+				// Ignore
+			}
+		}
+		return ret;
+	}
+
+	static public long getTagSourceAtlasBatchIntervalInMillis(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLAS_SOURCE_BATCH_INTERVAL_PROP);
+		long ret = DEFAULT_TAGSYNC_ATLAS_SOURCE_BATCH_INTERVAL;
+		if (StringUtils.isNotBlank(val)) {
+			try {
+				ret = Long.valueOf(val);
+			} catch (NumberFormatException exception) {
+				// Ignore
+			}
+		}
+		return ret;
+	}
+
 	static public String getTagSinkClassName(Properties prop) {
 		String val = prop.getProperty(TAGSYNC_SINK_CLASS_PROP);
 		if (StringUtils.equalsIgnoreCase(val, "ranger")) {
@@ -165,6 +165,8 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 							public ServiceTags run() {
 								try {
 									return uploadServiceTags(serviceTag);
+								} catch (UploadRejectedException e) {
+									throw e;
 								} catch (Exception e) {
 									LOG.error("Upload of service-tags failed with message ", e);
 								}
@@ -176,6 +178,8 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 						LOG.error("Failed to get UserGroupInformation.getLoginUser()");
 						return null; // This will cause retries !!!
 					}
+				}catch(UploadRejectedException e){
+					throw e;
 				}catch(Exception e){
 					LOG.error("Upload of service-tags failed with message ", e);
 				}
@@ -208,6 +212,9 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 				throw new Exception("Upload of service-tags failed with response: " + response);
 			}
 
+			// application error: retrying would fail again
+			throw new UploadRejectedException("Upload of service-tags rejected with message " + resp.getMessage());
+
 		}
 
 		if(LOG.isDebugEnabled()) {
@@ -405,6 +412,8 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 					} catch (InterruptedException interrupted) {
 						LOG.error("Caught exception..: ", interrupted);
 						return;
+					} catch (UploadRejectedException rejected) {
+						uploadWorkItem.uploadFailed(rejected);
 					} catch (Exception exception) {
 						doRetry = true;
 						Thread.sleep(rangerAdminConnectionCheckInterval);
@@ -420,16 +429,29 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 
 	}
 
+	static class UploadRejectedException extends RuntimeException {
+		UploadRejectedException(String message) {
+			super(message);
+		}
+	}
+
 	static class UploadWorkItem {
 		private ServiceTags serviceTags;
 		private BlockingQueue<ServiceTags> uploadedServiceTags;
+		private volatile UploadRejectedException rejection;
 
 		ServiceTags getServiceTags() {
 			return serviceTags;
 		}
 
 		ServiceTags waitForUpload() throws InterruptedException {
-			return uploadedServiceTags.take();
+			ServiceTags ret = uploadedServiceTags.take();
+
+			if (rejection != null) {
+				throw rejection;
+			}
+
+			return ret;
 		}
 
 		void uploadCompleted(ServiceTags uploaded) throws InterruptedException {
@@ -437,6 +459,12 @@ public class TagAdminRESTSink implements TagSink, Runnable {
 			uploadedServiceTags.put(uploaded);
 		}
 
+		void uploadFailed(UploadRejectedException rejection) throws InterruptedException {
+			// ServiceTags rejected by Ranger admin
+			this.rejection = rejection;
+			uploadedServiceTags.put(serviceTags);
+		}
+
 		UploadWorkItem(ServiceTags serviceTags) {
 			setServiceTags(serviceTags);
 			uploadedServiceTags = new ArrayBlockingQueue<ServiceTags>(1);
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.tagsync.source.atlas;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.plugin.util.ServiceTags;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Entity notifications received from Atlas, accumulated to be uploaded to Ranger together. Only the last notification
+ * of each entity is kept: the service-tags built for a notification carry all the classifications of the entity, and
+ * replace the ones uploaded earlier. The offset of the last message received from each partition is tracked, to be
+ * committed once the batch is uploaded.
+ */
+class AtlasNotificationBatch {
+	private final Map<Object, Entry> entries     = new LinkedHashMap<>(); // by entity guid
+	private final Map<Integer, Long> lastOffsets = new HashMap<>();       // by partition
+	private       int                messageCount;
+	private       long               startTime;
+
+	void addMessage(int partition, long offset) {
+		if (messageCount == 0) {
+			startTime = System.currentTimeMillis();
+		}
+
+		Long lastOffset = lastOffsets.get(partition);
+
+		if (lastOffset == null || lastOffset < offset) {
+			lastOffsets.put(partition, offset);
+		}
+
+		messageCount++;
+	}
+
+	void addServiceTags(EntityNotificationWrapper notification, ServiceTags serviceTags) {
+		String guid = notification.getRangerAtlasEntity() != null ? notification.getRangerAtlasEntity().getGuid() : null;
+		Object key  = StringUtils.isNotBlank(guid) ? guid : new Object(); // notifications without guid are not coalesced
+
+		entries.remove(key);
+		entries.put(key, new Entry(notification, serviceTags));
+	}
+
+	boolean isEmpty() {
+		return messageCount == 0;
+	}
+
+	int getMessageCount() {
+		return messageCount;
+	}
+
+	int getEntityCount() {
+		return entries.size();
+	}
+
+	long getStartTime() {
+		return startTime;
+	}
+
+	Map<Integer, Long> getLastOffsets() {
+		return lastOffsets;
+	}
+
+	// entries to upload together, grouped by op and service: deletes first, so that an entity deleted and another
+	// created for the same resource in this batch end up as they would if uploaded in order
+	List<List<Entry>> getEntriesToUpload() {
+		Map<String, List<Entry>> deletes      = new LinkedHashMap<>();
+		Map<String, List<Entry>> addOrUpdates = new LinkedHashMap<>();
+
+		for (Entry entry : entries.values()) {
+			Map<String, List<Entry>> groups = StringUtils.equals(entry.serviceTags.getOp(), ServiceTags.OP_DELETE) ? deletes : addOrUpdates;
+			List<Entry>              group  = groups.get(entry.serviceTags.getServiceName());
+
+			if (group == null) {
+				group = new ArrayList<>();
+
+				groups.put(entry.serviceTags.getServiceName(), group);
+			}
+
+			group.add(entry);
+		}
+
+		List<List<Entry>> ret = new ArrayList<>(deletes.size() + addOrUpdates.size());
+
+		ret.addAll(deletes.values());
+		ret.addAll(addOrUpdates.values());
+
+		return ret;
+	}
+
+	void clear() {
+		entries.clear();
+		lastOffsets.clear();
+
+		messageCount = 0;
+		startTime    = 0;
+	}
+
+	static class Entry {
+		final EntityNotificationWrapper notification;
+		final ServiceTags               serviceTags;
+
+		Entry(EntityNotificationWrapper notification, ServiceTags serviceTags) {
+			this.notification = notification;
+			this.serviceTags  = serviceTags;
+		}
+	}
+}
@@ -109,6 +109,55 @@ public class AtlasNotificationMapper {
         return ret;
     }
 
+    /*
+     * Merges service-tags built by processEntityNotification() - all with the same op and service - into one, to be
+     * uploaded together. The ids of resources, tags and tag-defs are reassigned, so the given service-tags should not
+     * be used after this call.
+     */
+    public static ServiceTags mergeServiceTags(List<ServiceTags> serviceTagsList) {
+        ServiceTags ret = new ServiceTags();
+
+        ret.setOp(serviceTagsList.get(0).getOp());
+        ret.setServiceName(serviceTagsList.get(0).getServiceName());
+
+        for (ServiceTags serviceTags : serviceTagsList) {
+            for (RangerServiceResource serviceResource : serviceTags.getServiceResources()) {
+                List<Long> tagIds = serviceTags.getResourceToTagIds().get(serviceResource.getId());
+
+                serviceResource.setId((long) ret.getServiceResources().size());
+                ret.getServiceResources().add(serviceResource);
+
+                if (tagIds != null) {
+                    List<Long> mergedTagIds = new ArrayList<>(tagIds.size());
+
+                    for (Long tagId : tagIds) {
+                        RangerTag tag = serviceTags.getTags().get(tagId);
+
+                        if (tag != null) {
+                            tag.setId((long) ret.getTags().size());
+                            ret.getTags().put(tag.getId(), tag);
+
+                            mergedTagIds.add(tag.getId());
+                        }
+                    }
+
+                    ret.getResourceToTagIds().put(serviceResource.getId(), mergedTagIds);
+                }
+            }
+
+            if (MapUtils.isNotEmpty(serviceTags.getTagDefinitions())) {
+                for (RangerTagDef tagDef : serviceTags.getTagDefinitions().values()) {
+                    tagDef.setId((long) ret.getTagDefinitions().size());
+                    ret.getTagDefinitions().put(tagDef.getId(), tagDef);
+                }
+            }
+        }
+
+        removeDuplicateTagDefs(ret);
+
+        return ret;
+    }
+
     static private boolean isNotificationHandled(EntityNotificationWrapper entityNotification) {
         boolean ret = false;
 
@@ -201,53 +250,55 @@ public class AtlasNotificationMapper {
         }
 
         // Remove duplicate tag definitions
-        if(CollectionUtils.isNotEmpty(ret.values())) {
-            for (ServiceTags serviceTag : ret.values()) {
-                if(MapUtils.isNotEmpty(serviceTag.getTagDefinitions())) {
-                    Map<String, RangerTagDef> uniqueTagDefs = new HashMap<>();
-
-                    for (RangerTagDef tagDef : serviceTag.getTagDefinitions().values()) {
-                        RangerTagDef existingTagDef = uniqueTagDefs.get(tagDef.getName());
-
-                        if (existingTagDef == null) {
-                            uniqueTagDefs.put(tagDef.getName(), tagDef);
-                        } else {
-                            if(CollectionUtils.isNotEmpty(tagDef.getAttributeDefs())) {
-                                for(RangerTagAttributeDef tagAttrDef : tagDef.getAttributeDefs()) {
-                                    boolean attrDefExists = false;
-
-                                    if(CollectionUtils.isNotEmpty(existingTagDef.getAttributeDefs())) {
-                                        for(RangerTagAttributeDef existingTagAttrDef : existingTagDef.getAttributeDefs()) {
-                                            if(StringUtils.equalsIgnoreCase(existingTagAttrDef.getName(), tagAttrDef.getName())) {
-                                                attrDefExists = true;
-                                                break;
-                                            }
-                                        }
-                                    }
+        for (ServiceTags serviceTag : ret.values()) {
+            removeDuplicateTagDefs(serviceTag);
+        }
+
+        if (MapUtils.isNotEmpty(ret)) {
+            for (Map.Entry<String, ServiceTags> entry : ret.entrySet()) {
+                ServiceTags serviceTags = entry.getValue();
+                serviceTags.setOp(ServiceTags.OP_REPLACE);
+            }
+        }
+        return ret;
+    }
+
+    static private void removeDuplicateTagDefs(ServiceTags serviceTag) {
+        if(MapUtils.isNotEmpty(serviceTag.getTagDefinitions())) {
+            Map<String, RangerTagDef> uniqueTagDefs = new HashMap<>();
+
+            for (RangerTagDef tagDef : serviceTag.getTagDefinitions().values()) {
+                RangerTagDef existingTagDef = uniqueTagDefs.get(tagDef.getName());
 
-                                    if(! attrDefExists) {
-                                        existingTagDef.getAttributeDefs().add(tagAttrDef);
+                if (existingTagDef == null) {
+                    uniqueTagDefs.put(tagDef.getName(), tagDef);
+                } else {
+                    if(CollectionUtils.isNotEmpty(tagDef.getAttributeDefs())) {
+                        for(RangerTagAttributeDef tagAttrDef : tagDef.getAttributeDefs()) {
+                            boolean attrDefExists = false;
+
+                            if(CollectionUtils.isNotEmpty(existingTagDef.getAttributeDefs())) {
+                                for(RangerTagAttributeDef existingTagAttrDef : existingTagDef.getAttributeDefs()) {
+                                    if(StringUtils.equalsIgnoreCase(existingTagAttrDef.getName(), tagAttrDef.getName())) {
+                                        attrDefExists = true;
+                                        break;
                                     }
                                 }
                             }
-                        }
-                    }
 
-                    serviceTag.getTagDefinitions().clear();
-                    for(RangerTagDef tagDef : uniqueTagDefs.values()) {
-                        serviceTag.getTagDefinitions().put(tagDef.getId(), tagDef);
+                            if(! attrDefExists) {
+                                existingTagDef.getAttributeDefs().add(tagAttrDef);
+                            }
+                        }
                     }
                 }
             }
-        }
 
-        if (MapUtils.isNotEmpty(ret)) {
-            for (Map.Entry<String, ServiceTags> entry : ret.entrySet()) {
-                ServiceTags serviceTags = entry.getValue();
-                serviceTags.setOp(ServiceTags.OP_REPLACE);
+            serviceTag.getTagDefinitions().clear();
+            for(RangerTagDef tagDef : uniqueTagDefs.values()) {
+                serviceTag.getTagDefinitions().put(tagDef.getId(), tagDef);
             }
         }
-        return ret;
     }
 
     static private ServiceTags buildServiceTags(RangerAtlasEntityWithTags entityWithTags, Map<String, ServiceTags> serviceTagsMap) {
@@ -29,6 +29,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.apache.ranger.tagsync.model.AbstractTagSource;
+import org.apache.ranger.tagsync.process.TagSyncConfig;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.ranger.tagsync.source.atlasrest.RangerAtlasEntityWithTags;
@@ -36,7 +37,10 @@ import org.apache.ranger.tagsync.source.atlasrest.RangerAtlasEntityWithTags;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class AtlasTagSource extends AbstractTagSource {
@@ -48,8 +52,13 @@ public class AtlasTagSource extends AbstractTagSource {
 	public static final String TAGSYNC_ATLAS_ZOOKEEPER_ENDPOINT = "atlas.kafka.zookeeper.connect";
 	public static final String TAGSYNC_ATLAS_CONSUMER_GROUP = "atlas.kafka.entities.group.id";
 
+	private static final String ATLAS_ENTITIES_TOPIC = "ATLAS_ENTITIES";
+	private static final long   MAX_POLL_TIMEOUT_MS  = 1000L;
+
 	private ConsumerRunnable consumerTask;
 	private Thread myThread = null;
+	private int  batchSize;
+	private long batchIntervalMs;
 
 	@Override
 	public boolean initialize(Properties properties) {
@@ -100,6 +109,13 @@ public class AtlasTagSource extends AbstractTagSource {
 		}
 
 		if (ret) {
+			batchSize       = Math.max(1, TagSyncConfig.getTagSourceAtlasBatchSize(properties));
+			batchIntervalMs = Math.max(0L, TagSyncConfig.getTagSourceAtlasBatchIntervalInMillis(properties));
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("batchSize=" + batchSize + ", batchIntervalMs=" + batchIntervalMs);
+			}
+
 			NotificationInterface notification = NotificationProvider.get();
 			List<NotificationConsumer<EntityNotification>> iterators = notification.createConsumers(NotificationInterface.NotificationType.ENTITIES, 1);
 
@@ -148,9 +164,14 @@ public class AtlasTagSource extends AbstractTagSource {
 		return sb.toString();
 	}
 
+	/*
+	 * Notifications are accumulated in a batch - for up to batchIntervalMs, or batchSize messages - and uploaded to
+	 * Ranger together, with one upload per service. The offsets are committed after the upload, once per batch.
+	 */
 	private class ConsumerRunnable implements Runnable {
 
 		private final NotificationConsumer<EntityNotification> consumer;
+		private final AtlasNotificationBatch                   batch = new AtlasNotificationBatch();
 
 		private ConsumerRunnable(NotificationConsumer<EntityNotification> consumer) {
 			this.consumer = consumer;
@@ -163,76 +184,60 @@ public class AtlasTagSource extends AbstractTagSource {
 				LOG.debug("==> ConsumerRunnable.run()");
 			}
 
-			boolean seenCommitException = false;
-			long offsetOfLastMessageDeliveredToRanger = -1L;
+			boolean            seenCommitException                   = false;
+			Map<Integer, Long> offsetsOfLastMessagesDeliveredToRanger = new HashMap<>(); // by partition
 
 			while (true) {
 				try {
-					List<AtlasKafkaMessage<EntityNotification>> messages = consumer.receive(1000L);
+					long pollTimeout = MAX_POLL_TIMEOUT_MS;
+
+					if (!batch.isEmpty()) {
+						pollTimeout = Math.max(1L, Math.min(pollTimeout, batch.getStartTime() + batchIntervalMs - System.currentTimeMillis()));
+					}
 
-					int index = 0;
+					List<AtlasKafkaMessage<EntityNotification>> messages = consumer.receive(pollTimeout);
 
 					if (messages.size() > 0 && seenCommitException) {
 						if (LOG.isDebugEnabled()) {
-							LOG.debug("seenCommitException=[true], offsetOfLastMessageDeliveredToRanger=[" + offsetOfLastMessageDeliveredToRanger + "]");
+							LOG.debug("seenCommitException=[true], offsetsOfLastMessagesDeliveredToRanger=[" + offsetsOfLastMessagesDeliveredToRanger + "]");
 						}
-						for (; index < messages.size(); index++) {
-							AtlasKafkaMessage<EntityNotification> message = messages.get(index);
-							if (message.getOffset() <= offsetOfLastMessageDeliveredToRanger) {
-								// Already delivered to Ranger
-								TopicPartition partition = new TopicPartition("ATLAS_ENTITIES", message.getPartition());
-								try {
-									if (LOG.isDebugEnabled()) {
-										LOG.debug("Committing previously commit-failed message with offset:[" + message.getOffset() + "]");
-									}
-									consumer.commit(partition, message.getOffset());
-								} catch (Exception commitException) {
-									LOG.warn("Ranger tagsync already processed message at offset " + message.getOffset() + ". Ignoring failure in committing this message and continuing to process next message", commitException);
-									LOG.warn("This will cause Kafka to deliver this message:[" + message.getOffset() + "] repeatedly!! This may be unrecoverable error!!");
+					}
+
+					for (AtlasKafkaMessage<EntityNotification> message : messages) {
+						if (message == null) {
+							LOG.error("Null entityNotification received from Kafka!! Ignoring..");
+						} else if (seenCommitException && isDeliveredToRanger(message, offsetsOfLastMessagesDeliveredToRanger)) {
+							// Already delivered to Ranger
+							TopicPartition partition = new TopicPartition(ATLAS_ENTITIES_TOPIC, message.getPartition());
+							try {
+								if (LOG.isDebugEnabled()) {
+									LOG.debug("Committing previously commit-failed message with offset:[" + message.getOffset() + "]");
 								}
-							} else {
-								break;
+								consumer.commit(partition, message.getOffset());
+							} catch (Exception commitException) {
+								LOG.warn("Ranger tagsync already processed message at offset " + message.getOffset() + ". Ignoring failure in committing this message and continuing to process next message", commitException);
+								LOG.warn("This will cause Kafka to deliver this message:[" + message.getOffset() + "] repeatedly!! This may be unrecoverable error!!");
 							}
+						} else {
+							addToBatch(message);
 						}
 					}
 
-					seenCommitException = false;
-					offsetOfLastMessageDeliveredToRanger = -1L;
-
-					for (; index < messages.size(); index++) {
-						AtlasKafkaMessage<EntityNotification> message = messages.get(index);
-						EntityNotification notification = message != null ? message.getMessage() : null;
+					if (messages.size() > 0) {
+						seenCommitException = false;
+						offsetsOfLastMessagesDeliveredToRanger.clear();
+					}
 
-						if (notification != null) {
-							EntityNotificationWrapper notificationWrapper = null;
-							try {
-								notificationWrapper = new EntityNotificationWrapper(notification);
-							} catch (Throwable e) {
-								LOG.error("notification:[" + notification +"] has some issues..perhaps null entity??", e);
-							}
-							if (notificationWrapper != null) {
-								if (LOG.isDebugEnabled()) {
-									LOG.debug("Message-offset=" + message.getOffset() + ", Notification=" + getPrintableEntityNotification(notificationWrapper));
-								}
+					if (!batch.isEmpty() && (batch.getMessageCount() >= batchSize || System.currentTimeMillis() - batch.getStartTime() >= batchIntervalMs)) {
+						try {
+							uploadBatch();
 
-								ServiceTags serviceTags = AtlasNotificationMapper.processEntityNotification(notificationWrapper);
-								if (serviceTags != null) {
-									updateSink(serviceTags);
-								}
-								offsetOfLastMessageDeliveredToRanger = message.getOffset();
-
-								if (!seenCommitException) {
-									TopicPartition partition = new TopicPartition("ATLAS_ENTITIES", message.getPartition());
-									try {
-										consumer.commit(partition, message.getOffset());
-									} catch (Exception commitException) {
-										seenCommitException = true;
-										LOG.warn("Ranger tagsync processed message at offset " + message.getOffset() + ". Ignoring failure in committing this message and continuing to process next message", commitException);
-									}
-								}
+							if (!commitBatch()) {
+								seenCommitException = true;
+								offsetsOfLastMessagesDeliveredToRanger.putAll(batch.getLastOffsets());
 							}
-						} else {
-							LOG.error("Null entityNotification received from Kafka!! Ignoring..");
+						} finally {
+							batch.clear();
 						}
 					}
 				} catch (Exception exception) {
@@ -248,6 +253,86 @@ public class AtlasTagSource extends AbstractTagSource {
 				}
 			}
 		}
+
+		private void addToBatch(AtlasKafkaMessage<EntityNotification> message) {
+			EntityNotification notification = message.getMessage();
+
+			batch.addMessage(message.getPartition(), message.getOffset());
+
+			if (notification != null) {
+				EntityNotificationWrapper notificationWrapper = null;
+				try {
+					notificationWrapper = new EntityNotificationWrapper(notification);
+				} catch (Throwable e) {
+					LOG.error("notification:[" + notification +"] has some issues..perhaps null entity??", e);
+				}
+				if (notificationWrapper != null) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Message-offset=" + message.getOffset() + ", Notification=" + getPrintableEntityNotification(notificationWrapper));
+					}
+
+					ServiceTags serviceTags = AtlasNotificationMapper.processEntityNotification(notificationWrapper);
+					if (serviceTags != null) {
+						batch.addServiceTags(notificationWrapper, serviceTags);
+					}
+				}
+			} else {
+				LOG.error("Null entityNotification received from Kafka!! Ignoring..");
+			}
+		}
+
+		private void uploadBatch() {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("==> ConsumerRunnable.uploadBatch(messages=" + batch.getMessageCount() + ", entities=" + batch.getEntityCount() + ")");
+			}
+
+			for (List<AtlasNotificationBatch.Entry> entries : batch.getEntriesToUpload()) {
+				if (entries.size() == 1) {
+					updateSink(entries.get(0).serviceTags);
+				} else {
+					List<ServiceTags> serviceTagsList = new ArrayList<>(entries.size());
+
+					for (AtlasNotificationBatch.Entry entry : entries) {
+						serviceTagsList.add(entry.serviceTags);
+					}
+
+					if (!updateSink(AtlasNotificationMapper.mergeServiceTags(serviceTagsList))) {
+						// so that one bad entity does not cost the updates of the others
+						LOG.warn("Failed to upload " + entries.size() + " entity notifications together; uploading them one at a time");
+
+						for (AtlasNotificationBatch.Entry entry : entries) {
+							updateSink(AtlasNotificationMapper.processEntityNotification(entry.notification));
+						}
+					}
+				}
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("<== ConsumerRunnable.uploadBatch(messages=" + batch.getMessageCount() + ", entities=" + batch.getEntityCount() + ")");
+			}
+		}
+
+		// returns false if the offset of any partition could not be committed
+		private boolean commitBatch() {
+			boolean ret = true;
+
+			for (Map.Entry<Integer, Long> entry : batch.getLastOffsets().entrySet()) {
+				TopicPartition partition = new TopicPartition(ATLAS_ENTITIES_TOPIC, entry.getKey());
+				try {
+					consumer.commit(partition, entry.getValue());
+				} catch (Exception commitException) {
+					ret = false;
+					LOG.warn("Ranger tagsync processed messages up to offset " + entry.getValue() + " of partition " + entry.getKey() + ". Ignoring failure in committing them and continuing to process next messages", commitException);
+				}
+			}
+
+			return ret;
+		}
+
+		private boolean isDeliveredToRanger(AtlasKafkaMessage<EntityNotification> message, Map<Integer, Long> offsetsOfLastMessagesDeliveredToRanger) {
+			Long offsetOfLastMessageDeliveredToRanger = offsetsOfLastMessagesDeliveredToRanger.get(message.getPartition());
+
+			return offsetOfLastMessageDeliveredToRanger != null && message.getOffset() <= offsetOfLastMessageDeliveredToRanger;
+		}
 	}
 }
-
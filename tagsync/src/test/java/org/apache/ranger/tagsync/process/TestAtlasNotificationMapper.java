@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.tagsync.process;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+import org.apache.ranger.plugin.model.RangerTagDef.RangerTagAttributeDef;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.tagsync.source.atlas.AtlasNotificationMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class TestAtlasNotificationMapper {
+	private static final String SERVICE_NAME = "cl1_hive";
+
+	@Test
+	public void testMergeServiceTags() {
+		ServiceTags serviceTags1 = getServiceTags("guid-1", "db1", Collections.singletonMap("PII", "type"), "EXPIRES_ON");
+		ServiceTags serviceTags2 = getServiceTags("guid-2", "db2", Collections.singletonMap("PII", "level"));
+		ServiceTags serviceTags3 = getServiceTags("guid-3", "db3", Collections.<String, String>emptyMap());
+
+		ServiceTags merged = AtlasNotificationMapper.mergeServiceTags(Arrays.asList(serviceTags1, serviceTags2, serviceTags3));
+
+		Assert.assertEquals(ServiceTags.OP_ADD_OR_UPDATE, merged.getOp());
+		Assert.assertEquals(SERVICE_NAME, merged.getServiceName());
+		Assert.assertEquals(3, merged.getServiceResources().size());
+		Assert.assertEquals(3, merged.getTags().size());
+		Assert.assertEquals(3, merged.getResourceToTagIds().size());
+
+		Map<String, List<String>> tagsByResourceGuid = new HashMap<>();
+
+		for (RangerServiceResource resource : merged.getServiceResources()) {
+			List<String> tagTypes = new ArrayList<>();
+
+			for (Long tagId : merged.getResourceToTagIds().get(resource.getId())) {
+				tagTypes.add(merged.getTags().get(tagId).getType());
+			}
+
+			Collections.sort(tagTypes);
+
+			tagsByResourceGuid.put(resource.getGuid(), tagTypes);
+		}
+
+		Assert.assertEquals(Arrays.asList("EXPIRES_ON", "PII"), tagsByResourceGuid.get("guid-1"));
+		Assert.assertEquals(Collections.singletonList("PII"), tagsByResourceGuid.get("guid-2"));
+		Assert.assertEquals(Collections.<String>emptyList(), tagsByResourceGuid.get("guid-3"));
+
+		// tag-defs are merged by name, with the attributes of all
+		Assert.assertEquals(2, merged.getTagDefinitions().size());
+
+		for (RangerTagDef tagDef : merged.getTagDefinitions().values()) {
+			if (tagDef.getName().equals("PII")) {
+				Assert.assertEquals(2, tagDef.getAttributeDefs().size());
+			} else {
+				Assert.assertEquals("EXPIRES_ON", tagDef.getName());
+			}
+		}
+	}
+
+	// as AtlasNotificationMapper.processEntityNotification() builds for a notification
+	private ServiceTags getServiceTags(String guid, String database, Map<String, String> piiAttributes, String... otherTags) {
+		ServiceTags ret = new ServiceTags();
+
+		ret.setOp(ServiceTags.OP_ADD_OR_UPDATE);
+		ret.setServiceName(SERVICE_NAME);
+
+		Map<String, RangerPolicyResource> elements = new HashMap<>();
+
+		elements.put("database", new RangerPolicyResource(database));
+
+		RangerServiceResource resource = new RangerServiceResource(guid, SERVICE_NAME, elements);
+
+		resource.setId(0L);
+		ret.getServiceResources().add(resource);
+
+		List<Long> tagIds = new ArrayList<>();
+
+		if (!piiAttributes.isEmpty()) {
+			Map<String, String> attributes = new HashMap<>();
+			RangerTagDef        tagDef     = new RangerTagDef("PII", "Atlas");
+
+			for (String attributeName : piiAttributes.values()) {
+				attributes.put(attributeName, "value");
+				tagDef.getAttributeDefs().add(new RangerTagAttributeDef(attributeName, "string"));
+			}
+
+			addTag(ret, new RangerTag(null, "PII", attributes, RangerTag.OWNER_SERVICERESOURCE), tagDef, tagIds);
+		}
+
+		for (String tagType : otherTags) {
+			addTag(ret, new RangerTag(null, tagType, null, RangerTag.OWNER_SERVICERESOURCE), new RangerTagDef(tagType, "Atlas"), tagIds);
+		}
+
+		ret.getResourceToTagIds().put(resource.getId(), tagIds);
+
+		return ret;
+	}
+
+	private void addTag(ServiceTags serviceTags, RangerTag tag, RangerTagDef tagDef, List<Long> tagIds) {
+		tag.setId((long) serviceTags.getTags().size());
+		serviceTags.getTags().put(tag.getId(), tag);
+		tagIds.add(tag.getId());
+
+		tagDef.setId((long) serviceTags.getTagDefinitions().size());
+		serviceTags.getTagDefinitions().put(tagDef.getId(), tagDef);
+	}
+}